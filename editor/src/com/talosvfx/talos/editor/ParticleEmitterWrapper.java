@@ -101,7 +101,7 @@ public class ParticleEmitterWrapper implements TimelineItemDataProvider<Particle
             return 0;
         }
 
-        return getEmitter().getEmitterModule().getDuration();
+        return getEmitter().getDuration();
     }
 
     @Override
@@ -117,14 +117,14 @@ public class ParticleEmitterWrapper implements TimelineItemDataProvider<Particle
             return 0;
         }
 
-        return getEmitter().getParticleModule().getLife();
+        return getEmitter().getParticleLife();
     }
 
     @Override
     public float getTimePosition () {
         if(getEmitter().getParticleModule() == null || getEmitter().getEmitterModule() == null) return 0;
 
-        return getEmitter().getEmitterModule().getDelay();
+        return getEmitter().getDelay();
     }
 
     @Override
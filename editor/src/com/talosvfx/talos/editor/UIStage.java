@@ -53,6 +53,7 @@ import com.talosvfx.talos.editor.project.TalosProject;
 import com.talosvfx.talos.editor.widgets.ui.*;
 import com.talosvfx.talos.editor.wrappers.WrapperRegistry;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.serialization.BinaryExport;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -332,6 +333,47 @@ public class UIStage {
 		stage.addActor(fileChooser.fadeIn());
 	}
 
+	public void exportBinaryAction() {
+		if(TalosMain.Instance().ProjectController().getProject() != ProjectController.TLS) return;
+
+		String defaultLocation = TalosMain.Instance().ProjectController().getLastDir("Export", ProjectController.TLS);
+		fileChooser.setDirectory(defaultLocation);
+
+		final String ext = "." + BinaryExport.EXTENSION;
+
+		fileChooser.setMode(FileChooser.Mode.SAVE);
+		fileChooser.setMultiSelectionEnabled(false);
+		fileChooser.setFileFilter(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.isDirectory() || pathname.getAbsolutePath().endsWith(ext);
+			}
+		});
+		fileChooser.setSelectionMode(FileChooser.SelectionMode.FILES);
+
+		fileChooser.setListener(new FileChooserAdapter() {
+			@Override
+			public void selected(Array<FileHandle> file) {
+				String path = file.first().file().getAbsolutePath();
+				if(!path.endsWith(ext)) {
+					if(path.indexOf(".") > 0) {
+						path = path.substring(0, path.indexOf("."));
+					}
+					path += ext;
+				}
+				TalosMain.Instance().TalosProject().exportBinary(Gdx.files.absolute(path));
+			}
+		});
+
+		String suggestion = TalosMain.Instance().ProjectController().getCurrentExportNameSuggestion();
+		if(suggestion.indexOf(".") > 0) {
+			suggestion = suggestion.substring(0, suggestion.lastIndexOf(".")) + ext;
+		}
+		fileChooser.setDefaultFileName(suggestion);
+
+		stage.addActor(fileChooser.fadeIn());
+	}
+
 	public void saveAsProjectAction() {
 		IProject projectType = TalosMain.Instance().ProjectController().getProject();
 		String defaultLocation = TalosMain.Instance().ProjectController().getLastDir("Save", projectType);
@@ -463,9 +463,9 @@ public class BoundEffect implements Json.Serializable, IPropertyProvider, Timeli
         } else {
             float maxDuration = 0;
             Array<ParticleEmitterDescriptor> emitterModuleGraphs = particleEffectDescriptor.emitterModuleGraphs;
-            if(particleEffectDescriptor.getInstanceReference() == null) return 0;
+            if(particleEffects.size == 0) return 0;
             for (ParticleEmitterDescriptor descriptor : emitterModuleGraphs) {
-                float duration = descriptor.getEmitterModule().getDuration();
+                float duration = descriptor.getDuration();
                 if (maxDuration < duration) {
                     maxDuration = duration;
                 }
@@ -482,10 +482,10 @@ public class BoundEffect implements Json.Serializable, IPropertyProvider, Timeli
         } else {
             float maxLife = 0;
             Array<ParticleEmitterDescriptor> emitterModuleGraphs = particleEffectDescriptor.emitterModuleGraphs;
-            if(particleEffectDescriptor.getInstanceReference() == null) return 0;
+            if(particleEffects.size == 0) return 0;
             for (ParticleEmitterDescriptor descriptor : emitterModuleGraphs) {
 
-                float life = descriptor.getParticleModule().getLife();
+                float life = descriptor.getParticleLife();
                 if (maxLife < life) {
                     maxLife = life;
                 }
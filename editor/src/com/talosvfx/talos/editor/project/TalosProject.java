@@ -111,7 +111,6 @@ public class TalosProject implements IProject {
 				module.getModule().setModuleGraph(graph);
 			}
 
-			particleEffectDescriptor.setEffectReference(particleEffect); // important
 			particleEffectDescriptor.addEmitter(graph);
 			particleEffect.init();
 
@@ -221,6 +220,15 @@ public class TalosProject implements IProject {
 		handle.writeString(projectSerializer.writeExport(exportData), false);
 	}
 
+	/**
+	 * Same as {@link #exportProject(FileHandle)}, in the binary format runtime loads without reflection
+	 */
+	public void exportBinary(FileHandle handle) {
+		ExportData exportData = new ExportData();
+		setToExportData(exportData, TalosMain.Instance().NodeStage().moduleBoardWidget);
+		handle.writeBytes(projectSerializer.writeBinaryExport(exportData), false);
+	}
+
 	@Override
 	public String exportProject() {
 		ExportData exportData = new ExportData();
@@ -405,7 +413,7 @@ public class TalosProject implements IProject {
 			float maxWindow = 0;
 			for (ParticleEmitterWrapper wrapper : activeWrappers) {
 				if(wrapper.getEmitter().getEmitterModule() != null) {
-					float duration = wrapper.getEmitter().getEmitterModule().getDuration();
+					float duration = wrapper.getEmitter().getDuration();
 
 					float totalWaitTime = duration;
 
@@ -420,9 +428,9 @@ public class TalosProject implements IProject {
 			float furthestPoint = 0;
 			for (ParticleEmitterWrapper wrapper : activeWrappers) {
 				if(wrapper.getEmitter().getEmitterModule() != null && wrapper.getEmitter().getParticleModule() != null) {
-					float delay = wrapper.getEmitter().getEmitterModule().getDelay();
-					float duration = wrapper.getEmitter().getEmitterModule().getDuration();
-					float life = wrapper.getEmitter().getParticleModule().getLife();
+					float delay = wrapper.getEmitter().getDelay();
+					float duration = wrapper.getEmitter().getDuration();
+					float life = wrapper.getEmitter().getParticleLife();
 
 					float point = delay + duration + life;
 
@@ -22,6 +22,7 @@ import com.talosvfx.talos.TalosMain;
 import com.talosvfx.talos.editor.assets.TalosAssetProvider;
 import com.talosvfx.talos.editor.wrappers.WrapperRegistry;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.serialization.ExportData;
 
 public class ProjectSerializer {
@@ -97,5 +98,9 @@ public class ProjectSerializer {
         return data;
     }
 
+    public byte[] writeBinaryExport(ExportData exportData) {
+        return new BinaryExportWriter().write(exportData);
+    }
+
 
 }
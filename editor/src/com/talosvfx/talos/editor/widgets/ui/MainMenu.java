@@ -21,6 +21,7 @@ public class MainMenu extends Table {
     private MenuItem saveProject;
     private MenuItem export;
     private MenuItem exportAs;
+    private MenuItem exportBinary;
     private MenuItem saveAsProject;
     private Menu modulesMenu;
     private MenuItem removeSelectedModules;
@@ -76,6 +77,7 @@ public class MainMenu extends Table {
         saveProject = new MenuItem("Save", icon("ic-save"));
         export = new MenuItem("Export" , icon("ic-download"));
         exportAs = new MenuItem("Export As");
+        exportBinary = new MenuItem("Export Binary");
         MenuItem examples = new MenuItem("Examples");
 
         openRecentPopup = new PopupMenu();
@@ -104,6 +106,7 @@ public class MainMenu extends Table {
         projectMenu.addItem(saveAsProject);
         projectMenu.addItem(export);
         projectMenu.addItem(exportAs);
+        projectMenu.addItem(exportBinary);
         projectMenu.addSeparator();
         projectMenu.addItem(examples);
         projectMenu.addItem(legacy);
@@ -176,6 +179,14 @@ public class MainMenu extends Table {
             }
         });
 
+        exportBinary.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                stage.exportBinaryAction();
+            }
+        });
+
         saveAsProject.addListener(new ClickListener() {
             @Override
             public void clicked (InputEvent event, float x, float y) {
@@ -255,6 +266,7 @@ public class MainMenu extends Table {
         disableItem(createModule);
         disableItem(groupSelectedModules);
         disableItem(ungroupSelectedModules);
+        disableItem(exportBinary);
     }
 
     public void disableItem(MenuItem item) {
@@ -270,6 +282,7 @@ public class MainMenu extends Table {
         enableItem(createModule);
         enableItem(groupSelectedModules);
         enableItem(ungroupSelectedModules);
+        enableItem(exportBinary);
     }
 
     public void updateRecentsList(Array<String> list) {
@@ -55,6 +55,7 @@ public class InputModuleWrapper extends ModuleWrapper<InputModule> {
         map.put(ScopePayload.SECONDARY_SEED, "Primary Seed");
         map.put(ScopePayload.PARTICLE_SEED, "Secondary Seed");
         map.put(ScopePayload.PARTICLE_POSITION, "Particle position");
+        map.put(ScopePayload.SPAWN_INDEX, "Particle spawn index");
         map.put(ScopePayload.TOTAL_TIME, "Global Time");
 
 
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+
+/**
+ * Drawable that collects the particles it is asked to draw, and submits all of them at once when flushed.
+ * Renderers flush it after the last particle of each emitter.
+ */
+public interface BatchedParticleDrawable extends ParticleDrawable {
+
+    void flush(Batch batch);
+}
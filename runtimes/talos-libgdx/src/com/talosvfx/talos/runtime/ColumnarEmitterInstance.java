@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.graph.BlockProgram;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+
+/**
+ * Emitter that keeps it's particles in {@link ParticleColumns} instead of pooled {@link Particle} objects.
+ * Emission and timing are the same as in {@link ParticleEmitterInstance}, particles keep the life they were spawned with.
+ * Particles are evaluated in blocks, so it is only created for emitters that have a particle {@link BlockProgram}.
+ * {@link #getActiveParticles()} still works for renderers, it fills reusable particle views on demand.
+ */
+public class ColumnarEmitterInstance extends ParticleEmitterInstance {
+
+	private final ParticleColumns columns = new ParticleColumns();
+
+	/**
+	 * particle handed to scope while evaluating graph for one column index
+	 */
+	private final Particle cursor = new Particle();
+
+	private final Array<Particle> viewPool = new Array<>();
+	private final Array<Particle> views = new Array<>();
+	private boolean viewsDirty = true;
+
+	/**
+	 * particles from this index on were spawned but not evaluated yet
+	 */
+	private int spawned;
+
+	/**
+	 * moves scope to a single particle, for modules that have no block implementation
+	 */
+	private final BlockProgram.Cursor blockCursor = new BlockProgram.Cursor() {
+		@Override
+		public void moveTo (int index) {
+			loadCursor(index);
+			ScopePayload scope = getScope();
+			scope.set(ScopePayload.EMITTER_ALPHA, cursor.getEmitterAlpha());
+			scope.set(ScopePayload.PARTICLE_ALPHA, cursor.alpha);
+			scope.set(ScopePayload.PARTICLE_SEED, cursor.seed);
+			scope.set(ScopePayload.REQUESTER_ID, cursor.seed);
+			scope.set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, cursor.durationAtInit);
+			scope.set(ScopePayload.PARTICLE_POSITION, cursor.getX(), cursor.getY());
+			scope.set(ScopePayload.SPAWN_INDEX, cursor.spawnIndex);
+			scope.set(ScopePayload.DRAWABLE_ASPECT_RATIO, aspectRatio()[index]);
+			scope.setParticle(cursor);
+		}
+
+		@Override
+		public void leadEvaluated (int index) {
+			ParticleDrawable drawable = emitterGraph.getParticleModule().getDrawable(getEffect().getContext());
+			columns.drawable[index] = drawable;
+			aspectRatio()[index] = drawable.getAspectRatio();
+		}
+	};
+
+	public ColumnarEmitterInstance (ParticleEmitterDescriptor moduleGraph, ParticleEffectInstance particleEffectInstance) {
+		super(moduleGraph, particleEffectInstance);
+		cursor.setEmitter(this);
+	}
+
+	@Override
+	protected void spawnParticle () {
+		if (emitterGraph.getParticleBlockProgram() == null) return;
+
+		int index = columns.add();
+		int spawnIndex = nextSpawnIndex();
+		columns.seed[index] = particleSeed(spawnIndex);
+		columns.alpha[index] = 0;
+		columns.durationAtInit[index] = getAlpha();
+		columns.spawnIndex[index] = spawnIndex;
+		columns.positionX[index] = 0;
+		columns.positionY[index] = 0;
+		columns.spawnX[index] = getEffectPosition().x;
+		columns.spawnY[index] = getEffectPosition().y;
+		columns.life[index] = 0;
+
+		viewsDirty = true; // spawned particles are initialized together in updateParticles
+	}
+
+	@Override
+	protected void updateParticles (float delta) {
+		ParticleModule particleModule = emitterGraph.getParticleModule();
+		if (particleModule == null) return;
+
+		EvaluationContext context = getEffect().getContext();
+		BlockProgram program = context.getBlockProgram(emitterGraph);
+		if (program == null) return;
+
+		program.ensureCapacity(columns.capacity());
+		int firstSpawned = spawned;
+
+		// particles spawned since last update get their life and start position
+		for (int start = spawned; start < columns.size; start += BlockProgram.BLOCK_SIZE) {
+			int count = Math.min(BlockProgram.BLOCK_SIZE, columns.size - start);
+			executeBlock(context, program, start, count);
+
+			FloatColumns inputs = program.getRootInputs();
+			for (int i = start; i < start + count; i++) {
+				columns.life[i] = particleModule.getLife(inputs, i);
+				maxParticleLife = Math.max(maxParticleLife, columns.life[i]);
+				Vector2 startPosition = particleModule.getStartPosition(context, inputs, i);
+				columns.positionX[i] = startPosition.x;
+				columns.positionY[i] = startPosition.y;
+			}
+		}
+
+		for (int i = 0; i < columns.size; i++) {
+			float alpha = columns.alpha[i] + delta / columns.life[i];
+			if (alpha > 1f) alpha = 1f;
+			columns.alpha[i] = alpha;
+		}
+
+		boolean aligned = getEmitterModule().isAligned(context);
+
+		for (int start = 0; start < columns.size; start += BlockProgram.BLOCK_SIZE) {
+			int count = Math.min(BlockProgram.BLOCK_SIZE, columns.size - start);
+			executeBlock(context, program, start, count);
+
+			FloatColumns inputs = program.getRootInputs();
+			for (int i = start; i < start + count; i++) {
+				applyBlock(context, particleModule, inputs, i, delta, aligned, i >= firstSpawned);
+			}
+		}
+
+		bounds.reset();
+		for (int i = columns.size - 1; i >= 0; i--) {
+			if (columns.alpha[i] >= 1f) {
+				columns.swapRemove(i);
+			} else {
+				addBounds(i);
+			}
+		}
+		spawned = columns.size;
+
+		viewsDirty = true;
+	}
+
+	private void addBounds (int i) {
+		float x = columns.positionX[i];
+		float y = columns.positionY[i];
+		if (isAttached()) {
+			x += getEffectPosition().x;
+			y += getEffectPosition().y;
+		} else {
+			x += columns.spawnX[i];
+			y += columns.spawnY[i];
+		}
+		bounds.add(x, y, columns.sizeX[i], columns.sizeY[i]);
+	}
+
+	private void executeBlock (EvaluationContext context, BlockProgram program, int start, int count) {
+		program.loadScope(getScope(), start, count);
+
+		FloatColumns scope = program.getScope();
+		float[] emitterAlpha = scope.getWritable(ScopePayload.EMITTER_ALPHA, 0);
+		float[] particleAlpha = scope.getWritable(ScopePayload.PARTICLE_ALPHA, 0);
+		float[] particleSeed = scope.getWritable(ScopePayload.PARTICLE_SEED, 0);
+		float[] requester = scope.getWritable(ScopePayload.REQUESTER_ID, 0);
+		float[] alphaAtInit = scope.getWritable(ScopePayload.EMITTER_ALPHA_AT_P_INIT, 0);
+		float[] x = scope.getWritable(ScopePayload.PARTICLE_POSITION, 0);
+		float[] y = scope.getWritable(ScopePayload.PARTICLE_POSITION, 1);
+		float[] spawnIndex = scope.getWritable(ScopePayload.SPAWN_INDEX, 0);
+
+		float emitterAlphaValue = getAlpha();
+		boolean attached = isAttached();
+		Vector2 effectPosition = getEffectPosition();
+
+		for (int i = start; i < start + count; i++) {
+			emitterAlpha[i] = emitterAlphaValue;
+			particleAlpha[i] = columns.alpha[i];
+			particleSeed[i] = columns.seed[i];
+			requester[i] = columns.seed[i];
+			alphaAtInit[i] = columns.durationAtInit[i];
+			spawnIndex[i] = columns.spawnIndex[i];
+			if (attached) {
+				x[i] = effectPosition.x + columns.positionX[i];
+				y[i] = effectPosition.y + columns.positionY[i];
+			} else {
+				x[i] = columns.spawnX[i] + columns.positionX[i];
+				y[i] = columns.spawnY[i] + columns.positionY[i];
+			}
+		}
+		scope.setElementCount(ScopePayload.EMITTER_ALPHA, 1);
+		scope.setElementCount(ScopePayload.PARTICLE_ALPHA, 1);
+		scope.setElementCount(ScopePayload.PARTICLE_SEED, 1);
+		scope.setElementCount(ScopePayload.REQUESTER_ID, 1);
+		scope.setElementCount(ScopePayload.EMITTER_ALPHA_AT_P_INIT, 1);
+		scope.setElementCount(ScopePayload.PARTICLE_POSITION, 2);
+		scope.setElementCount(ScopePayload.SPAWN_INDEX, 1);
+
+		emitterGraph.executeParticleBlock(context, start, count, blockCursor);
+	}
+
+	private void applyBlock (EvaluationContext context, ParticleModule particleModule, FloatColumns inputs, int i, float delta, boolean aligned, boolean spawning) {
+		float previousRotation = columns.rotation[i];
+		columns.previousX[i] = columns.positionX[i];
+		columns.previousY[i] = columns.positionY[i];
+
+		Vector2 target = particleModule.getTarget(context, inputs, i);
+		float angle;
+		if (target == null) {
+			angle = particleModule.getAngle(inputs, i);
+		} else {
+			angle = target.sub(columns.positionX[i], columns.positionY[i]).angle();
+		}
+
+		float velocity = particleModule.getVelocity(inputs, i);
+		columns.transparency[i] = particleModule.getTransparency(inputs, i);
+
+		if (aligned) {
+			columns.rotation[i] = angle + particleModule.getRotation(inputs, i);
+		} else {
+			columns.rotation[i] = particleModule.getRotation(inputs, i);
+		}
+		columns.previousRotation[i] = spawning ? columns.rotation[i] : previousRotation;
+
+		Vector2 size = particleModule.getSize(context, inputs, i);
+		columns.sizeX[i] = size.x;
+		columns.sizeY[i] = size.y;
+
+		Vector2 positionOverride = particleModule.getPosition(context, inputs, i);
+		if (positionOverride != null) {
+			columns.positionX[i] = positionOverride.x;
+			columns.positionY[i] = positionOverride.y;
+		} else {
+			columns.positionX[i] += MathUtils.cosDeg(angle) * velocity * delta;
+			columns.positionY[i] += MathUtils.sinDeg(angle) * velocity * delta;
+		}
+
+		columns.setColor(i, particleModule.getColor(context, inputs, i));
+	}
+
+	private float[] aspectRatio () {
+		return getEffect().getContext().getBlockProgram(emitterGraph).getScope().getWritable(ScopePayload.DRAWABLE_ASPECT_RATIO, 0);
+	}
+
+	private void loadCursor (int i) {
+		cursor.alpha = columns.alpha[i];
+		cursor.seed = columns.seed[i];
+		cursor.life = columns.life[i];
+		cursor.durationAtInit = columns.durationAtInit[i];
+		cursor.spawnIndex = (int)columns.spawnIndex[i];
+		cursor.position.set(columns.positionX[i], columns.positionY[i]);
+		cursor.spawnPosition.set(columns.spawnX[i], columns.spawnY[i]);
+	}
+
+	@Override
+	public Array<Particle> getActiveParticles () {
+		if (viewsDirty) {
+			syncViews();
+		}
+		return views;
+	}
+
+	private void syncViews () {
+		int count = columns.size;
+		while (viewPool.size < count) {
+			Particle particle = new Particle();
+			particle.setEmitter(this);
+			viewPool.add(particle);
+		}
+
+		views.clear();
+		views.addAll(viewPool, 0, count);
+
+		for (int i = 0; i < count; i++) {
+			Particle particle = views.get(i);
+			particle.position.set(columns.positionX[i], columns.positionY[i]);
+			particle.spawnPosition.set(columns.spawnX[i], columns.spawnY[i]);
+			particle.size.set(columns.sizeX[i], columns.sizeY[i]);
+			particle.color.set(columns.colorR[i], columns.colorG[i], columns.colorB[i], 1f);
+			particle.rotation = columns.rotation[i];
+			particle.previousPosition.set(columns.previousX[i], columns.previousY[i]);
+			particle.previousRotation = columns.previousRotation[i];
+			particle.transparency = columns.transparency[i];
+			particle.alpha = columns.alpha[i];
+			particle.life = columns.life[i];
+			particle.seed = columns.seed[i];
+			particle.durationAtInit = columns.durationAtInit[i];
+			particle.spawnIndex = (int)columns.spawnIndex[i];
+			particle.drawable = columns.drawable[i];
+		}
+
+		viewsDirty = false;
+	}
+
+	@Override
+	public int getActiveParticleCount () {
+		return columns.size;
+	}
+
+	@Override
+	public void reset () {
+		super.reset();
+		columns.clear();
+		spawned = 0;
+		viewsDirty = true;
+	}
+
+	@Override
+	public void reserveParticles (int count) {
+		columns.ensureCapacity(count);
+	}
+
+	public ParticleColumns getColumns () {
+		return columns;
+	}
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.talosvfx.talos.runtime.graph.BlockProgram;
+import com.talosvfx.talos.runtime.graph.GraphCompiler;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.values.NumericalValue;
+import com.talosvfx.talos.runtime.values.Value;
+
+import java.util.Arrays;
+
+/**
+ * Mutable evaluation state of a {@link ParticleEffectDescriptor}: slot values, requester cache and scratch of each module,
+ * indexed by {@link AbstractModule#getEvaluationId()}, and the instance they are currently evaluated for.
+ * Module graphs are shared and only read while evaluating, so instances borrow a context from their descriptor
+ * for the duration of an update, and one descriptor can back any amount of instances on any thread.
+ * Module state is created from the module's own slot values the first time it is evaluated, and dropped once graphs change.
+ */
+public class EvaluationContext {
+
+	private final ParticleEffectDescriptor descriptor;
+
+	private ParticleEffectInstance instance;
+
+	/**
+	 * scope used while no instance is bound, such as when graphs are folded or evaluated by tools
+	 */
+	private final ScopePayload ownScope = new ScopePayload();
+
+	private ModuleState[] states = new ModuleState[0];
+
+	private final IdentityMap<ParticleEmitterDescriptor, BlockProgram> blockPrograms = new IdentityMap<>();
+
+	/**
+	 * graph version of the descriptor states were created for
+	 */
+	int version;
+
+	/**
+	 * set when context was handed out while descriptor had modules that can't be evaluated concurrently
+	 */
+	boolean exclusive;
+
+	public EvaluationContext (ParticleEffectDescriptor descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	void bind (ParticleEffectInstance instance) {
+		this.instance = instance;
+		instance.context = this;
+		resetRequesters();
+	}
+
+	void unbind (ParticleEffectInstance instance) {
+		instance.context = null;
+		this.instance = null;
+	}
+
+	/**
+	 * Drops module state created for graphs that changed since
+	 */
+	void validate (int version) {
+		if (this.version == version) return;
+
+		Arrays.fill(states, null);
+		blockPrograms.clear();
+		this.version = version;
+	}
+
+	public ParticleEffectDescriptor getDescriptor () {
+		return descriptor;
+	}
+
+	/**
+	 * @return instance being evaluated, null if none is bound
+	 */
+	public ParticleEffectInstance getInstance () {
+		return instance;
+	}
+
+	public ScopePayload getScope () {
+		if (instance == null) return ownScope;
+		return instance.getScope();
+	}
+
+	public void reportNodeCall () {
+		if (instance != null) instance.reportNodeCall();
+	}
+
+	public void reportNodeCalls (int count) {
+		if (instance != null) instance.reportNodeCalls(count);
+	}
+
+	/**
+	 * @return value of the module's input slot in this context, null if there is no such slot
+	 */
+	public Value getInputValue (AbstractModule module, int slotId) {
+		Value[] inputs = getState(module).inputs;
+		if (slotId >= inputs.length) return null;
+		return inputs[slotId];
+	}
+
+	/**
+	 * @return value of the module's output slot in this context, folded modules share their own values between contexts
+	 */
+	public Value getOutputValue (AbstractModule module, int slotId) {
+		if (module.isFolded()) {
+			Slot slot = module.getOutputSlot(slotId);
+			return slot == null ? null : slot.getValue();
+		}
+
+		Value[] outputs = getState(module).outputs;
+		if (slotId >= outputs.length) return null;
+		return outputs[slotId];
+	}
+
+	public NumericalValue getInput (AbstractModule module, int slotId) {
+		return (NumericalValue) getInputValue(module, slotId);
+	}
+
+	public NumericalValue getOutput (AbstractModule module, int slotId) {
+		return (NumericalValue) getOutputValue(module, slotId);
+	}
+
+	/**
+	 * @return temporaries module keeps for evaluation in this context, see {@link AbstractModule#createScratch()}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getScratch (AbstractModule module) {
+		return (T) getState(module).scratch;
+	}
+
+	public float getLastRequester (AbstractModule module) {
+		return getState(module).lastRequester;
+	}
+
+	public void setLastRequester (AbstractModule module, float requester) {
+		getState(module).lastRequester = requester;
+	}
+
+	public boolean isInputsBound (AbstractModule module) {
+		return getState(module).inputsBound;
+	}
+
+	/**
+	 * Marks input values of the module as already fetched, until next requester reset
+	 */
+	public void setInputsBound (AbstractModule module, boolean inputsBound) {
+		getState(module).inputsBound = inputsBound;
+	}
+
+	/**
+	 * Forgets cached outputs of the emitter's modules, so they are evaluated again for the next requester
+	 */
+	public void resetRequesters (ParticleEmitterDescriptor emitterDescriptor) {
+		Array<AbstractModule> modules = emitterDescriptor.getModules();
+		for (int i = 0; i < modules.size; i++) {
+			int id = modules.get(i).getEvaluationId();
+			if (id >= 0 && id < states.length && states[id] != null) {
+				states[id].reset();
+			}
+		}
+	}
+
+	private void resetRequesters () {
+		for (int i = 0; i < states.length; i++) {
+			if (states[i] != null) {
+				states[i].reset();
+			}
+		}
+	}
+
+	/**
+	 * @return this context's own copy of the emitter's particle block program, null if emitter is not block evaluated
+	 */
+	public BlockProgram getBlockProgram (ParticleEmitterDescriptor emitterDescriptor) {
+		if (emitterDescriptor.getParticleBlockProgram() == null) return null;
+
+		BlockProgram program = blockPrograms.get(emitterDescriptor);
+		if (program == null) {
+			program = GraphCompiler.compileBlock(emitterDescriptor.getParticleProgram());
+			blockPrograms.put(emitterDescriptor, program);
+		}
+		return program;
+	}
+
+	private ModuleState getState (AbstractModule module) {
+		int id = module.getEvaluationId();
+		if (id >= states.length) {
+			states = Arrays.copyOf(states, Math.max(id + 1, states.length * 2));
+		}
+
+		ModuleState state = states[id];
+		if (state == null) {
+			state = new ModuleState(module);
+			states[id] = state;
+		}
+		return state;
+	}
+
+	private static class ModuleState {
+
+		final Value[] inputs;
+		final Value[] outputs;
+		final Object scratch;
+
+		float lastRequester = -1f;
+		boolean inputsBound;
+
+		ModuleState (AbstractModule module) {
+			inputs = copyValues(module.getInputSlotArray());
+			outputs = copyValues(module.getOutputSlotArray());
+			scratch = module.createScratch();
+		}
+
+		void reset () {
+			lastRequester = -1f;
+			inputsBound = false;
+		}
+
+		private static Value[] copyValues (Slot[] slots) {
+			int length = 0;
+			for (Slot slot : slots) {
+				length = Math.max(length, slot.getIndex() + 1);
+			}
+
+			Value[] values = new Value[length];
+			for (Slot slot : slots) {
+				Value value = slot.getValue();
+				if (value != null) {
+					values[slot.getIndex()] = value.copy();
+				}
+			}
+			return values;
+		}
+	}
+}
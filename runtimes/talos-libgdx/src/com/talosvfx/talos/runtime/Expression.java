@@ -16,18 +16,38 @@
 
 package com.talosvfx.talos.runtime;
 
+import com.badlogic.gdx.math.MathUtils;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public abstract class Expression {
 
     abstract public void apply(NumericalValue a, NumericalValue b, NumericalValue out);
 
+    /**
+     * Same as above for one element of a block of values, b is the matching element of b or it's first one if {@link #isScalarB()}
+     */
+    abstract public void apply(float[] a, float[] b, float[] out, int start, int count);
+
+    /**
+     * @return true if expression only uses first element of b
+     */
+    public boolean isScalarB() {
+        return false;
+    }
+
 
     static public final Expression sum = new Expression() {
         @Override
         public void apply (NumericalValue a, NumericalValue b, NumericalValue out) {
             a.sum(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = a[i] + b[i];
+            }
+        }
     };
 
     static public final Expression substract = new Expression() {
@@ -35,6 +55,13 @@ public abstract class Expression {
         public void apply(NumericalValue a, NumericalValue b, NumericalValue out) {
             a.sub(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = a[i] - b[i];
+            }
+        }
     };
 
     static public final Expression multiply = new Expression() {
@@ -42,6 +69,13 @@ public abstract class Expression {
         public void apply(NumericalValue a, NumericalValue b, NumericalValue out) {
             a.mul(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = a[i] * b[i];
+            }
+        }
     };
 
     static public final Expression cos = new Expression() {
@@ -50,6 +84,13 @@ public abstract class Expression {
             a.cos(out);
             out.mul(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = MathUtils.cosDeg(a[i]) * b[i];
+            }
+        }
     };
 
     static public final Expression sin = new Expression() {
@@ -58,6 +99,13 @@ public abstract class Expression {
             a.sin(out);
             out.mul(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = MathUtils.sinDeg(a[i]) * b[i];
+            }
+        }
     };
 
     static public final Expression pow = new Expression() {
@@ -65,6 +113,18 @@ public abstract class Expression {
         public void apply(NumericalValue a, NumericalValue b, NumericalValue out) {
             a.pow(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = (float) Math.pow(a[i], b[i]);
+            }
+        }
+
+        @Override
+        public boolean isScalarB() {
+            return true;
+        }
     };
 
     static public final Expression abs = new Expression() {
@@ -72,6 +132,13 @@ public abstract class Expression {
         public void apply(NumericalValue a, NumericalValue b, NumericalValue out) {
             a.abs(out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                out[i] = Math.abs(a[i]);
+            }
+        }
     };
 
     static public final Expression divide = new Expression() {
@@ -79,5 +146,19 @@ public abstract class Expression {
         public void apply(NumericalValue a, NumericalValue b, NumericalValue out) {
             a.div(b, out);
         }
+
+        @Override
+        public void apply(float[] a, float[] b, float[] out, int start, int count) {
+            for (int i = start; i < start + count; i++) {
+                float d = b[i];
+                if(d==0)d=1;
+                out[i] = a[i] / d;
+            }
+        }
+
+        @Override
+        public boolean isScalarB() {
+            return true;
+        }
     };
 }
@@ -26,12 +26,44 @@ public interface IEmitter {
     void pause();
     void resume();
     void restart();;
+
+    /**
+     * Restarts emitter and frees all of it's particles, so it is in the same state as a newly created one
+     */
+    void reset();
+
+    /**
+     * Makes sure given amount of particles can be spawned without allocating
+     */
+    void reserveParticles(int count);
+
+    /**
+     * Scales amount of particles emitted, 1 emits as designed. Used by {@link ParticleBudget} to thin out effects
+     */
+    void setEmissionScale(float scale);
+    float getEmissionScale();
+
+    /**
+     * @return particles emitter is expected to keep alive at full emission, from emission rate and particle life seen so far
+     */
+    float getEstimatedParticleCount();
     float getDelayRemaining();
     void update(float delta);
     ParticleEmitterDescriptor getEmitterGraph();
+    ParticleEffectInstance getEffect();
+
+    /**
+     * @return true if particles move along with the emitter, as evaluated on the last update
+     */
+    boolean isAttached();
     void setVisible(boolean isVisible);
     boolean isVisible();
     boolean isAdditive();
     boolean isBlendAdd();
     Array<Particle> getActiveParticles();
+
+    /**
+     * @return box around particles as of the last update
+     */
+    ParticleBounds getBounds();
 }
@@ -20,7 +20,9 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Pool;
+import com.talosvfx.talos.runtime.graph.GraphProgram;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.render.drawables.TrailHistory;
 
 public class Particle implements Pool.Poolable {
 
@@ -41,37 +43,77 @@ public class Particle implements Pool.Poolable {
 
     public float durationAtInit;
 
+    /**
+     * order particle was spawned in by it's emitter
+     */
+    public int spawnIndex;
+
     public ParticleDrawable drawable;
 
+    /**
+     * state before the last simulation step, renderers interpolate from it when simulation runs in fixed steps
+     */
+    public Vector2 previousPosition = new Vector2();
+    public float previousRotation;
+    private boolean hasPreviousState;
+
+    private Vector2 simulatedPosition = new Vector2();
+    private float simulatedRotation;
+
+    /**
+     * values of inputs that are fixed for particle's lifetime, and the program they were evaluated for
+     */
+    float[] spawnValues;
+    GraphProgram spawnProgram;
+
+    /**
+     * trail history this particle has a slot in, slot is released once particle is freed
+     */
+    public TrailHistory trailHistory;
+    public int trailSlot = -1;
+
     public Particle() {
         // empty constructor
     }
 
-    public void init(IEmitter emitterReference) {
-        this.seed = MathUtils.random();
-        init(emitterReference, seed);
+    public void init(IEmitter emitterReference, float seed) {
+        init(emitterReference, seed, 0);
     }
 
-    public void init(IEmitter emitterReference, float seed) {
+    public void init(IEmitter emitterReference, float seed, int spawnIndex) {
         this.emitterReference = emitterReference;
         ParticleModule particleModule = emitterReference.getParticleModule();
+        EvaluationContext context = emitterReference.getEffect().getContext();
 
         this.seed = seed;
+        this.spawnIndex = spawnIndex;
 
         // inner variable defaults
         alpha = 0f;
+        spawnProgram = null;
+        hasPreviousState = false;
+        durationAtInit = emitterReference.getAlpha(); // spawn scope value, has to be set before values fixed at spawn are evaluated
 
-        particleModule.updateScopeData(this);
+        particleModule.updateScopeData(context, this);
 
-        life = particleModule.getLife(); // really makes more sense like this, for deterministic purposes
+        life = particleModule.getLife(context); // really makes more sense like this, for deterministic purposes
 
-        position.set(particleModule.getStartPosition()); // offset
+        position.set(particleModule.getStartPosition(context)); // offset
         spawnPosition.set(emitterReference.getEffectPosition());
+    }
 
-        durationAtInit = emitterReference.getAlpha();
+    void setEmitter(IEmitter emitterReference) {
+        this.emitterReference = emitterReference;
     }
 
     public void update(float delta) {
+        update(delta, true);
+    }
+
+    /**
+     * @param fetchDrawable false keeps the drawable evaluated on the first step, used while prewarming when nothing is drawn
+     */
+    public void update(float delta, boolean fetchDrawable) {
         if(alpha == 1f) return;
 
         if(emitterReference == null) return;
@@ -80,44 +122,54 @@ public class Particle implements Pool.Poolable {
         ParticleModule particleModule = emitterReference.getParticleModule();
         if(particleModule == null) return;
 
-        life = particleModule.getLife(); // maybe should remove this
+        life = particleModule.getLife(emitterReference.getEffect().getContext()); // maybe should remove this
 
         alpha += delta/life;
         if(alpha > 1f) alpha = 1f;
 
-        applyAlpha(alpha, delta);
+        applyAlpha(alpha, delta, fetchDrawable);
     }
 
     public void applyAlpha(float alpha, float delta) {
+        applyAlpha(alpha, delta, true);
+    }
+
+    public void applyAlpha(float alpha, float delta, boolean fetchDrawable) {
         ParticleModule particleModule = emitterReference.getParticleModule();
         if(particleModule == null) return;
+        EvaluationContext context = emitterReference.getEffect().getContext();
+
+        previousPosition.set(position);
+        previousRotation = rotation;
 
-        particleModule.updateScopeData(this);
+        particleModule.updateScopeData(context, this);
 
         //update variable values
-        Vector2 target = particleModule.getTarget();
+        Vector2 target = particleModule.getTarget(context);
         float angle = 0;
         if(target == null) {
-            angle = particleModule.getAngle(); // do we take angle or target
+            angle = particleModule.getAngle(context); // do we take angle or target
         } else {
             angle = target.sub(position).angle();
         }
 
-        float velocity = particleModule.getVelocity();
-        transparency = particleModule.getTransparency();
+        float velocity = particleModule.getVelocity(context);
+        transparency = particleModule.getTransparency(context);
 
-        if(emitterReference.getEmitterModule().isAligned()) {
-            rotation = angle + particleModule.getRotation();
+        if(emitterReference.getEmitterModule().isAligned(context)) {
+            rotation = angle + particleModule.getRotation(context);
         } else {
-            rotation = particleModule.getRotation();
+            rotation = particleModule.getRotation(context);
         }
 
-        drawable = particleModule.getDrawable(); // important to get drawable before size
-        emitterReference.getScope().set(ScopePayload.DRAWABLE_ASPECT_RATIO, drawable.getAspectRatio());
+        if(fetchDrawable || !hasPreviousState || drawable == null) {
+            drawable = particleModule.getDrawable(context); // important to get drawable before size
+        }
+        context.getScope().set(ScopePayload.DRAWABLE_ASPECT_RATIO, drawable.getAspectRatio());
 
-        size.set(particleModule.getSize());
-        Vector2 positionOverride = particleModule.getPosition();
-        color.set(particleModule.getColor());
+        size.set(particleModule.getSize(context));
+        Vector2 positionOverride = particleModule.getPosition(context);
+        color.set(particleModule.getColor(context));
 
         // perform inner operations
         if(positionOverride != null) {
@@ -126,10 +178,33 @@ public class Particle implements Pool.Poolable {
             position.x += MathUtils.cosDeg(angle) * velocity * delta;
             position.y += MathUtils.sinDeg(angle) * velocity * delta;
         }
+
+        if(!hasPreviousState) {
+            previousRotation = rotation; // nothing to rotate from on the first step
+            hasPreviousState = true;
+        }
+    }
+
+    /**
+     * Puts particle in between it's previous and current simulation state for drawing,
+     * has to be followed by {@link #endInterpolation()}
+     * @param t 0 is previous state, 1 is current
+     */
+    public void beginInterpolation(float t) {
+        simulatedPosition.set(position);
+        simulatedRotation = rotation;
+
+        position.set(previousPosition).lerp(simulatedPosition, t);
+        rotation = MathUtils.lerpAngleDeg(previousRotation, simulatedRotation, t);
+    }
+
+    public void endInterpolation() {
+        position.set(simulatedPosition);
+        rotation = simulatedRotation;
     }
 
     public float getX() {
-        if(emitterReference.getEmitterModule().isAttached()) {
+        if(emitterReference.isAttached()) {
             return emitterReference.getEffectPosition().x + position.x;
         } else {
             return spawnPosition.x + position.x;
@@ -137,7 +212,7 @@ public class Particle implements Pool.Poolable {
     }
 
     public float getY() {
-        if(emitterReference.getEmitterModule().isAttached()) {
+        if(emitterReference.isAttached()) {
             return emitterReference.getEffectPosition().y + position.y;
         } else {
             return spawnPosition.y + position.y;
@@ -146,7 +221,9 @@ public class Particle implements Pool.Poolable {
 
     @Override
     public void reset() {
-
+        if(trailHistory != null) {
+            trailHistory.free(this);
+        }
     }
 
     public float getEmitterAlpha () {
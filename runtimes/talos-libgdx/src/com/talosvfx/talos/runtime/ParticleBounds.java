@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Axis aligned box around particles, grown one particle at a time while they are updated.
+ */
+public class ParticleBounds {
+
+    private float minX, minY, maxX, maxY;
+    private boolean empty = true;
+
+    public void reset() {
+        empty = true;
+    }
+
+    /**
+     * Adds a particle drawn centered at x, y with given size, rotation is accounted for by using the diagonal
+     */
+    public void add(float x, float y, float width, float height) {
+        float radius = getRadius(width, height);
+        extend(x - radius, y - radius, x + radius, y + radius);
+    }
+
+    public void add(ParticleBounds other) {
+        if(other.empty) return;
+        extend(other.minX, other.minY, other.maxX, other.maxY);
+    }
+
+    private void extend(float x1, float y1, float x2, float y2) {
+        if(empty) {
+            minX = x1;
+            minY = y1;
+            maxX = x2;
+            maxY = y2;
+            empty = false;
+            return;
+        }
+        if(x1 < minX) minX = x1;
+        if(y1 < minY) minY = y1;
+        if(x2 > maxX) maxX = x2;
+        if(y2 > maxY) maxY = y2;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public boolean overlaps(Rectangle area) {
+        return overlaps(area, 0, 0);
+    }
+
+    /**
+     * @param offsetX offset to test the box at, for when it's owner moved since it was computed
+     */
+    public boolean overlaps(Rectangle area, float offsetX, float offsetY) {
+        if(empty) return false;
+        return minX + offsetX <= area.x + area.width && maxX + offsetX >= area.x
+                && minY + offsetY <= area.y + area.height && maxY + offsetY >= area.y;
+    }
+
+    public static boolean overlaps(Rectangle area, float x, float y, float width, float height) {
+        float radius = getRadius(width, height);
+        return x - radius <= area.x + area.width && x + radius >= area.x
+                && y - radius <= area.y + area.height && y + radius >= area.y;
+    }
+
+    /**
+     * @return slightly more than half diagonal, without a square root
+     */
+    private static float getRadius(float width, float height) {
+        return Math.max(Math.abs(width), Math.abs(height)) * 0.7072f;
+    }
+
+    public Rectangle toRectangle(Rectangle out) {
+        if(empty) return out.set(0, 0, 0, 0);
+        return out.set(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+}
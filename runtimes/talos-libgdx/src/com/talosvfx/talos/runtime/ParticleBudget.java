@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Comparator;
+
+/**
+ * Caps the amount of particles across all registered effects.
+ * Call {@link #update()} once per frame before updating effects. Effects are served in order of priority and importance,
+ * effect that doesn't fit gets it's emission scaled down, and is culled once even the smallest scale doesn't fit.
+ */
+public class ParticleBudget {
+
+	private static final float DEMAND_DECAY = 0.98f;
+
+	private int maxParticles;
+	private float minEmissionScale = 0.25f;
+
+	private final Array<ParticleEffectInstance> instances = new Array<>();
+	private final Array<ParticleEffectInstance> sorted = new Array<>();
+
+	private int particleCount;
+	private int throttledCount;
+	private int culledCount;
+
+	private final Comparator<ParticleEffectInstance> comparator = new Comparator<ParticleEffectInstance>() {
+		@Override
+		public int compare (ParticleEffectInstance o1, ParticleEffectInstance o2) {
+			if (o1.getPriority() != o2.getPriority()) {
+				return o2.getPriority() - o1.getPriority();
+			}
+			return Float.compare(o2.getImportance(), o1.getImportance());
+		}
+	};
+
+	public ParticleBudget (int maxParticles) {
+		this.maxParticles = maxParticles;
+	}
+
+	public void register (ParticleEffectInstance instance) {
+		if (instance.budget == this) return;
+		if (instance.budget != null) {
+			instance.budget.unregister(instance);
+		}
+
+		instance.budget = this;
+		instance.demand = instance.getParticleCount();
+		instances.add(instance);
+	}
+
+	/**
+	 * Removes effect from the budget, it's emission and visibility are restored
+	 */
+	public void unregister (ParticleEffectInstance instance) {
+		if (instance.budget != this) return;
+
+		instances.removeValue(instance, true);
+		instance.budget = null;
+		instance.culled = false;
+		instance.setEmissionScale(1f);
+	}
+
+	public void update () {
+		sorted.clear();
+		sorted.addAll(instances);
+		sorted.sort(comparator);
+
+		particleCount = 0;
+		throttledCount = 0;
+		culledCount = 0;
+
+		int remaining = maxParticles;
+		for (int i = 0; i < sorted.size; i++) {
+			ParticleEffectInstance instance = sorted.get(i);
+			instance.demand = measureDemand(instance);
+
+			float demand = instance.demand;
+			float scale = 1f;
+			if (demand > remaining || remaining == 0) {
+				scale = demand > 0 ? remaining / demand : 0; // demand of a fresh effect may not be known yet
+				if (scale < minEmissionScale) {
+					instance.culled = true;
+					culledCount++;
+					continue;
+				}
+				throttledCount++;
+			}
+
+			instance.culled = false;
+			if (instance.getEmissionScale() != scale) {
+				instance.setEmissionScale(scale);
+			}
+
+			int granted = (int)Math.ceil(demand * scale);
+			remaining = Math.max(0, remaining - granted);
+			particleCount += instance.getParticleCount();
+		}
+	}
+
+	/**
+	 * Particles effect would have at full emission, estimated from emission rate and particle life,
+	 * so effects that just started or burst are accounted for before their particles exist.
+	 * Count under reduced scale or while culled says little about it, so previous demand decays towards it instead.
+	 */
+	private float measureDemand (ParticleEffectInstance instance) {
+		float estimate = instance.getEstimatedParticleCount();
+		int count = instance.getParticleCount();
+		if (instance.getEmissionScale() >= 1f && !instance.culled) {
+			return Math.max(count, estimate);
+		}
+		return Math.max(estimate, Math.max(count, instance.demand * DEMAND_DECAY));
+	}
+
+	public void setMaxParticles (int maxParticles) {
+		this.maxParticles = maxParticles;
+	}
+
+	public int getMaxParticles () {
+		return maxParticles;
+	}
+
+	/**
+	 * Effects that would have to be scaled below this are culled instead
+	 */
+	public void setMinEmissionScale (float minEmissionScale) {
+		this.minEmissionScale = minEmissionScale;
+	}
+
+	public float getMinEmissionScale () {
+		return minEmissionScale;
+	}
+
+	public Array<ParticleEffectInstance> getInstances () {
+		return instances;
+	}
+
+	/**
+	 * @return particles of effects that weren't culled, as of the last update
+	 */
+	public int getParticleCount () {
+		return particleCount;
+	}
+
+	public int getThrottledCount () {
+		return throttledCount;
+	}
+
+	public int getCulledCount () {
+		return culledCount;
+	}
+}
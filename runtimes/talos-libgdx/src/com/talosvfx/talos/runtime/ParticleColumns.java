@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.graphics.Color;
+
+import java.util.Arrays;
+
+/**
+ * Particle state kept in parallel primitive columns, one index per live particle.
+ * Dead particles are removed by moving the last particle into their index, so live ones are always packed at 0 .. size - 1.
+ */
+public class ParticleColumns {
+
+    public int size;
+
+    public float[] positionX;
+    public float[] positionY;
+    public float[] spawnX;
+    public float[] spawnY;
+    public float[] sizeX;
+    public float[] sizeY;
+    public float[] colorR;
+    public float[] colorG;
+    public float[] colorB;
+    public float[] rotation;
+    public float[] transparency;
+    public float[] alpha;
+    public float[] life;
+    public float[] seed;
+    public float[] durationAtInit;
+    public float[] spawnIndex;
+
+    /**
+     * state before the last simulation step, for interpolated rendering
+     */
+    public float[] previousX;
+    public float[] previousY;
+    public float[] previousRotation;
+
+    public ParticleDrawable[] drawable;
+
+    public ParticleColumns() {
+        this(64);
+    }
+
+    public ParticleColumns(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    private void allocate(int capacity) {
+        positionX = resize(positionX, capacity);
+        positionY = resize(positionY, capacity);
+        spawnX = resize(spawnX, capacity);
+        spawnY = resize(spawnY, capacity);
+        sizeX = resize(sizeX, capacity);
+        sizeY = resize(sizeY, capacity);
+        colorR = resize(colorR, capacity);
+        colorG = resize(colorG, capacity);
+        colorB = resize(colorB, capacity);
+        rotation = resize(rotation, capacity);
+        transparency = resize(transparency, capacity);
+        alpha = resize(alpha, capacity);
+        life = resize(life, capacity);
+        seed = resize(seed, capacity);
+        durationAtInit = resize(durationAtInit, capacity);
+        spawnIndex = resize(spawnIndex, capacity);
+        previousX = resize(previousX, capacity);
+        previousY = resize(previousY, capacity);
+        previousRotation = resize(previousRotation, capacity);
+
+        drawable = drawable == null ? new ParticleDrawable[capacity] : Arrays.copyOf(drawable, capacity);
+    }
+
+    private static float[] resize(float[] column, int capacity) {
+        if(column == null) return new float[capacity];
+        return Arrays.copyOf(column, capacity);
+    }
+
+    public int capacity() {
+        return positionX.length;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if(capacity > capacity()) {
+            allocate(Math.max(capacity, (int)(capacity() * 1.75f)));
+        }
+    }
+
+    /**
+     * @return index of the new particle, columns at that index are not cleared
+     */
+    public int add() {
+        ensureCapacity(size + 1);
+        return size++;
+    }
+
+    public void swapRemove(int index) {
+        int last = --size;
+        if(index != last) {
+            copy(last, index);
+        }
+        drawable[last] = null;
+    }
+
+    public void copy(int from, int to) {
+        positionX[to] = positionX[from];
+        positionY[to] = positionY[from];
+        spawnX[to] = spawnX[from];
+        spawnY[to] = spawnY[from];
+        sizeX[to] = sizeX[from];
+        sizeY[to] = sizeY[from];
+        colorR[to] = colorR[from];
+        colorG[to] = colorG[from];
+        colorB[to] = colorB[from];
+        rotation[to] = rotation[from];
+        transparency[to] = transparency[from];
+        alpha[to] = alpha[from];
+        life[to] = life[from];
+        seed[to] = seed[from];
+        durationAtInit[to] = durationAtInit[from];
+        spawnIndex[to] = spawnIndex[from];
+        previousX[to] = previousX[from];
+        previousY[to] = previousY[from];
+        previousRotation[to] = previousRotation[from];
+        drawable[to] = drawable[from];
+    }
+
+    public void setColor(int index, Color color) {
+        colorR[index] = color.r;
+        colorG[index] = color.g;
+        colorB[index] = color.b;
+    }
+
+    public void clear() {
+        Arrays.fill(drawable, 0, size, null);
+        size = 0;
+    }
+}
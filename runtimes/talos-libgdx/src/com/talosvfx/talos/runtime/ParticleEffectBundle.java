@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.talosvfx.talos.runtime.assets.AssetProvider;
+import com.talosvfx.talos.runtime.serialization.EffectBundleWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Library of effects packed into one bundle file by {@link EffectBundleWriter}.
+ * File is memory mapped and only it's index is read up front, an effect is loaded the first time it's descriptor is requested.
+ * Loaded descriptors are cached and reference counted, every {@link #obtain(String)} has to be matched with
+ * {@link #free(ParticleEffectDescriptor)} once the effect's instances are no longer used.
+ * When there are more descriptors than the cache holds, least recently used unreferenced ones are disposed,
+ * referenced ones stay loaded until they are freed.
+ */
+public class ParticleEffectBundle implements Disposable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final ByteBuffer data;
+
+	private final Array<String> names = new Array<>();
+	private final ObjectIntMap<String> entries = new ObjectIntMap<>();
+	private final int[] offsets;
+	private final int[] lengths;
+
+	private final AssetProvider assetProvider;
+
+	private int maxCached;
+	private final LinkedHashMap<String, ParticleEffectDescriptor> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final ObjectIntMap<ParticleEffectDescriptor> references = new ObjectIntMap<>();
+
+	/**
+	 * unloaded while still referenced, disposed once freed
+	 */
+	private final ObjectSet<ParticleEffectDescriptor> unloaded = new ObjectSet<>();
+
+	private boolean compiledEvaluation = true;
+	private boolean columnarStorage = false;
+	private boolean seekableEmitters = false;
+
+	private int hits;
+	private int loads;
+	private int evictions;
+
+	public ParticleEffectBundle (FileHandle file, AssetProvider assetProvider) {
+		this(file, assetProvider, 64);
+	}
+
+	/**
+	 * @param maxCached most descriptors kept loaded at once
+	 */
+	public ParticleEffectBundle (FileHandle file, AssetProvider assetProvider, int maxCached) {
+		this.assetProvider = assetProvider;
+		this.maxCached = Math.max(1, maxCached);
+		data = map(file);
+
+		if (data.limit() < 10 || data.getInt(0) != EffectBundleWriter.MAGIC) {
+			throw new GdxRuntimeException("Not a talos effect bundle: " + file.path());
+		}
+		int version = data.getShort(4);
+		if (version > EffectBundleWriter.VERSION) {
+			throw new GdxRuntimeException("Unsupported bundle version: " + version + ", newest supported is " + EffectBundleWriter.VERSION);
+		}
+
+		int count = data.getInt(6);
+		offsets = new int[count];
+		lengths = new int[count];
+
+		int position = 10;
+		byte[] name = new byte[64];
+		for (int i = 0; i < count; i++) {
+			int nameLength = data.getInt(position);
+			position += 4;
+			if (name.length < nameLength) {
+				name = new byte[nameLength];
+			}
+			for (int j = 0; j < nameLength; j++) {
+				name[j] = data.get(position + j);
+			}
+			position += nameLength;
+
+			String effectName = new String(name, 0, nameLength, UTF8);
+			names.add(effectName);
+			entries.put(effectName, i);
+
+			offsets[i] = data.getInt(position);
+			lengths[i] = data.getInt(position + 4);
+			position += 8;
+
+			if (offsets[i] < 0 || offsets[i] + lengths[i] > data.limit()) {
+				throw new GdxRuntimeException("Effect " + effectName + " lies outside of bundle: " + file.path());
+			}
+		}
+	}
+
+	/**
+	 * Files inside of archives, such as android assets, can't be mapped and are read instead
+	 */
+	private static ByteBuffer map (FileHandle file) {
+		try {
+			return file.map().order(ByteOrder.BIG_ENDIAN); // mapped with native order
+		} catch (GdxRuntimeException e) {
+			return ByteBuffer.wrap(file.readBytes());
+		}
+	}
+
+	/**
+	 * @return descriptor of the effect, loaded from the bundle if it's not cached. It's referenced until freed
+	 */
+	public synchronized ParticleEffectDescriptor obtain (String name) {
+		ParticleEffectDescriptor descriptor = load(name);
+		references.getAndIncrement(descriptor, 0, 1);
+		trim();
+		return descriptor;
+	}
+
+	/**
+	 * Releases a reference taken by {@link #obtain(String)}, descriptor can be disposed after that,
+	 * so none of it's instances may be used any more
+	 */
+	public synchronized void free (ParticleEffectDescriptor descriptor) {
+		int count = references.getAndIncrement(descriptor, 0, -1) - 1;
+		if (count > 0) return;
+
+		references.remove(descriptor, 0);
+		if (count < 0) {
+			throw new GdxRuntimeException("Descriptor was not obtained from this bundle");
+		}
+
+		if (unloaded.remove(descriptor)) {
+			descriptor.dispose();
+		} else {
+			trim();
+		}
+	}
+
+	private ParticleEffectDescriptor load (String name) {
+		ParticleEffectDescriptor descriptor = cache.get(name);
+		if (descriptor != null) {
+			hits++;
+			return descriptor;
+		}
+
+		int entry = entries.get(name, -1);
+		if (entry < 0) {
+			throw new GdxRuntimeException("No effect in bundle: " + name);
+		}
+
+		byte[] effect = new byte[lengths[entry]];
+		ByteBuffer view = data.duplicate();
+		view.position(offsets[entry]);
+		view.get(effect);
+
+		descriptor = new ParticleEffectDescriptor();
+		descriptor.setAssetProvider(assetProvider);
+		descriptor.setCompiledEvaluation(compiledEvaluation);
+		descriptor.setColumnarStorage(columnarStorage);
+		descriptor.setSeekableEmitters(seekableEmitters);
+		descriptor.load(effect);
+		loads++;
+
+		cache.put(name, descriptor);
+		return descriptor;
+	}
+
+	/**
+	 * Disposes least recently used unreferenced descriptors, until cache fits
+	 */
+	private void trim () {
+		Iterator<ParticleEffectDescriptor> iterator = cache.values().iterator();
+		while (cache.size() > maxCached && iterator.hasNext()) {
+			ParticleEffectDescriptor descriptor = iterator.next();
+			if (references.containsKey(descriptor)) continue;
+
+			iterator.remove();
+			descriptor.dispose();
+			evictions++;
+		}
+	}
+
+	public boolean contains (String name) {
+		return entries.containsKey(name);
+	}
+
+	public synchronized boolean isLoaded (String name) {
+		return cache.containsKey(name);
+	}
+
+	/**
+	 * @return names of all effects in the bundle, in the order they were packed
+	 */
+	public Array<String> getNames () {
+		return names;
+	}
+
+	public int size () {
+		return names.size;
+	}
+
+	/**
+	 * Removes cached descriptor of the effect, it's loaded again on the next request.
+	 * Descriptor is disposed right away if it's not referenced, otherwise once it's freed
+	 */
+	public synchronized void unload (String name) {
+		ParticleEffectDescriptor descriptor = cache.remove(name);
+		if (descriptor == null) return;
+
+		if (references.containsKey(descriptor)) {
+			unloaded.add(descriptor);
+		} else {
+			descriptor.dispose();
+		}
+	}
+
+	public synchronized void setMaxCached (int maxCached) {
+		this.maxCached = Math.max(1, maxCached);
+		trim();
+	}
+
+	public int getMaxCached () {
+		return maxCached;
+	}
+
+	public synchronized int getCachedCount () {
+		return cache.size();
+	}
+
+	/**
+	 * Applies to descriptors loaded after this call, see {@link ParticleEffectDescriptor#setCompiledEvaluation(boolean)}
+	 */
+	public void setCompiledEvaluation (boolean compiledEvaluation) {
+		this.compiledEvaluation = compiledEvaluation;
+	}
+
+	/**
+	 * Applies to descriptors loaded after this call, see {@link ParticleEffectDescriptor#setColumnarStorage(boolean)}
+	 */
+	public void setColumnarStorage (boolean columnarStorage) {
+		this.columnarStorage = columnarStorage;
+	}
+
+	/**
+	 * Applies to descriptors loaded after this call, see {@link ParticleEffectDescriptor#setSeekableEmitters(boolean)}
+	 */
+	public void setSeekableEmitters (boolean seekableEmitters) {
+		this.seekableEmitters = seekableEmitters;
+	}
+
+	/**
+	 * @return requests served from cache
+	 */
+	public int getHits () {
+		return hits;
+	}
+
+	/**
+	 * @return requests that had to load the effect
+	 */
+	public int getLoads () {
+		return loads;
+	}
+
+	public int getEvictions () {
+		return evictions;
+	}
+
+	@Override
+	public synchronized void dispose () {
+		for (ParticleEffectDescriptor descriptor : cache.values()) {
+			descriptor.dispose();
+		}
+		for (ParticleEffectDescriptor descriptor : unloaded) {
+			descriptor.dispose();
+		}
+		cache.clear();
+		unloaded.clear();
+		references.clear();
+	}
+}
@@ -19,18 +19,22 @@ package com.talosvfx.talos.runtime;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.ObjectSet;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.assets.AtlasAssetProvider;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
 import com.talosvfx.talos.runtime.modules.AbstractModule;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.serialization.BinaryExport;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
 import com.talosvfx.talos.runtime.serialization.ConnectionData;
 import com.talosvfx.talos.runtime.serialization.ExportData;
 
-public class ParticleEffectDescriptor {
+public class ParticleEffectDescriptor implements Disposable {
 
 	/**
 	 * graph per each emitter
@@ -39,7 +43,31 @@ public class ParticleEffectDescriptor {
 
 	private AssetProvider assetProvider;
 
-	private ParticleEffectInstance processsingEffectReference;
+	private boolean compiledEvaluation = true;
+
+	private boolean columnarStorage = false;
+
+	private boolean seekableEmitters = false;
+
+	private int evaluationIds;
+
+	/**
+	 * bumped whenever emitters or their graphs change, contexts drop module state created for older versions
+	 */
+	private int graphVersion;
+
+	private final Array<EvaluationContext> freeContexts = new Array<>();
+
+	/**
+	 * thread holding contexts while graphs have modules that are not thread safe, and how many it holds
+	 */
+	private Thread exclusiveOwner;
+	private int exclusiveCount;
+
+	private boolean threadSafe;
+	private int threadSafeVersion = -1;
+
+	private ParticleEffectInstancePool instancePool;
 
 	public ParticleEffectDescriptor () {
 
@@ -52,10 +80,12 @@ public class ParticleEffectDescriptor {
 
 	public void addEmitter (ParticleEmitterDescriptor emitter) {
 	    emitterModuleGraphs.add(emitter);
+	    emittersChanged();
     }
 
 	public void removeEmitter (ParticleEmitterDescriptor emitter) {
 		emitterModuleGraphs.removeValue(emitter, true);
+		emittersChanged();
 	}
 
 	public ParticleEmitterDescriptor createEmitterDescriptor () {
@@ -63,13 +93,59 @@ public class ParticleEffectDescriptor {
 	}
 
 	public void load(FileHandle fileHandle) {
+		if (BinaryExport.EXTENSION.equals(fileHandle.extension())) {
+			load(fileHandle.readBytes());
+		} else {
+			load(fileHandle.readString());
+		}
+	}
+
+	/**
+	 * Loads effect exported in the binary format, modules are created and read without reflection
+	 * @see BinaryExport
+	 */
+	public void load(byte[] data) {
+		BinaryExportReader reader = new BinaryExportReader(data);
+
+		int emitterCount = reader.readShort();
+		for (int i = 0; i < emitterCount; i++) {
+			reader.readString(); // emitter name, runtime has no use for it
+			ParticleEmitterDescriptor emitterDescriptor = new ParticleEmitterDescriptor(this);
+
+			AbstractModule[] modules = new AbstractModule[reader.readCount()];
+			for (int j = 0; j < modules.length; j++) {
+				modules[j] = reader.readModule();
+				addLoadedModule(emitterDescriptor, modules[j]);
+			}
+
+			int connectionCount = reader.readCount();
+			for (int j = 0; j < connectionCount; j++) {
+				int moduleFrom = reader.readShort();
+				int moduleTo = reader.readShort();
+				int slotFrom = reader.readByte();
+				int slotTo = reader.readByte();
+
+				if (moduleFrom < 0 || moduleFrom >= modules.length || moduleTo < 0 || moduleTo >= modules.length) {
+					throw new GdxRuntimeException("Connection " + j + " refers to missing module: " + moduleFrom + " -> " + moduleTo);
+				}
+
+				emitterDescriptor.connectNode(modules[moduleFrom], modules[moduleTo], slotFrom, slotTo);
+			}
+
+			addLoadedEmitter(emitterDescriptor);
+		}
+
+		emittersChanged();
+	}
+
+	private void load(String data) {
 		Json json = new Json();
 		ParticleEmitterDescriptor.registerModules();
-		for (Class clazz: ParticleEmitterDescriptor.registeredModules) {
+		for (Class clazz: new ObjectSet.ObjectSetIterator<>(ParticleEmitterDescriptor.registeredModules)) {
 			json.addClassTag(clazz.getSimpleName(), clazz);
 		}
 
-		final ExportData exportData = json.fromJson(ExportData.class, fileHandle.readString());
+		final ExportData exportData = json.fromJson(ExportData.class, data);
 
 		for (ExportData.EmitterExportData emitter : exportData.emitters) {
 			ParticleEmitterDescriptor emitterDescriptor = new ParticleEmitterDescriptor(this);
@@ -77,15 +153,8 @@ public class ParticleEffectDescriptor {
 			IntMap<AbstractModule> idMap = new IntMap<>();
 
 			for (AbstractModule module: emitter.modules) {
-				module.setModuleGraph(emitterDescriptor);
-				if (module instanceof ParticleModule) {
-					emitterDescriptor.particleModule = (ParticleModule)module;
-				}
-				if (module instanceof EmitterModule) {
-					emitterDescriptor.emitterModule = (EmitterModule)module;
-				}
+				addLoadedModule(emitterDescriptor, module);
 				idMap.put(module.getIndex(), module);
-				emitterDescriptor.modules.add(module); // I cannot understand how this was working before. This is needed so that it can later reset requesters.
 			}
 
 			for (ConnectionData connection : emitter.connections) {
@@ -107,34 +176,87 @@ public class ParticleEffectDescriptor {
 				emitterDescriptor.connectNode(moduleFrom, moduleTo, slotFrom, slotTo);
 			}
 
-			emitterModuleGraphs.add(emitterDescriptor);
+			addLoadedEmitter(emitterDescriptor);
+		}
+
+		emittersChanged();
+	}
+
+	private void addLoadedModule (ParticleEmitterDescriptor emitterDescriptor, AbstractModule module) {
+		module.setModuleGraph(emitterDescriptor);
+		module.setEvaluationId(nextEvaluationId());
+		if (module instanceof ParticleModule) {
+			emitterDescriptor.particleModule = (ParticleModule)module;
 		}
+		if (module instanceof EmitterModule) {
+			emitterDescriptor.emitterModule = (EmitterModule)module;
+		}
+		emitterDescriptor.modules.add(module); // I cannot understand how this was working before. This is needed so that it can later reset requesters.
+	}
+
+	private void addLoadedEmitter (ParticleEmitterDescriptor emitterDescriptor) {
+		emitterDescriptor.optimize();
+
+		if (compiledEvaluation) {
+			emitterDescriptor.compile();
+		}
+
+		emitterModuleGraphs.add(emitterDescriptor);
 	}
 
 	public ParticleEffectInstance createEffectInstance() {
 		ParticleEffectInstance particleEffectInstance = new ParticleEffectInstance(this);
-		setEffectReference(particleEffectInstance);
 
 		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
-			particleEffectInstance.addEmitter(emitterDescriptor);
+			if (seekableEmitters && emitterDescriptor.isDeterministic()) {
+				particleEffectInstance.addAdvancedEmitter(emitterDescriptor);
+			} else if (columnarStorage && emitterDescriptor.getParticleBlockProgram() != null) {
+				particleEffectInstance.addColumnarEmitter(emitterDescriptor);
+			} else {
+				particleEffectInstance.addEmitter(emitterDescriptor);
+			}
 		}
 
 		particleEffectInstance.sortEmitters();
 
-		// create default scope
-		particleEffectInstance.setScope(new ScopePayload());
-
 		return particleEffectInstance;
 	}
 
+	/**
+	 * Takes an effect instance from this descriptor's pool, creates one if pool is empty.
+	 * Instance should be given back with {@link #free(ParticleEffectInstance)} once it's no longer needed.
+	 */
+	public synchronized ParticleEffectInstance obtain () {
+		return getInstancePool().obtain();
+	}
+
+	/**
+	 * Resets instance and keeps it for the next {@link #obtain()}
+	 */
+	public synchronized void free (ParticleEffectInstance instance) {
+		getInstancePool().free(instance);
+	}
+
+	/**
+	 * Fills the instance pool at load time, so effects spawned later don't allocate
+	 * @param particles amount of particles each emitter can spawn without allocating
+	 */
+	public synchronized void prewarm (int instances, int particles) {
+		getInstancePool().prewarm(instances, particles);
+	}
+
+	public synchronized ParticleEffectInstancePool getInstancePool () {
+		if (instancePool == null) {
+			instancePool = new ParticleEffectInstancePool(this);
+		}
+		return instancePool;
+	}
+
 	public boolean isContinuous() {
 		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
 			if(emitterDescriptor.getEmitterModule() == null || emitterDescriptor.getParticleModule() == null) {
 				return false;
 			}
-			if(getInstanceReference() == null) {
-				return false;
-			}
 			if(emitterDescriptor.isContinuous()) {
 				return true;
 			}
@@ -143,6 +265,64 @@ public class ParticleEffectDescriptor {
 		return false;
 	}
 
+	/**
+	 * @return modules that were evaluated once at load time instead of every time graph is evaluated
+	 */
+	public int getFoldedNodeCount () {
+		int count = 0;
+		for (ParticleEmitterDescriptor emitterDescriptor : emitterModuleGraphs) {
+			count += emitterDescriptor.getFoldedNodeCount();
+		}
+		return count;
+	}
+
+	/**
+	 * @return modules dropped at load time because no emitter or particle module reads from them
+	 */
+	public int getRemovedNodeCount () {
+		int count = 0;
+		for (ParticleEmitterDescriptor emitterDescriptor : emitterModuleGraphs) {
+			count += emitterDescriptor.getRemovedNodeCount();
+		}
+		return count;
+	}
+
+	public boolean isCompiledEvaluation () {
+		return compiledEvaluation;
+	}
+
+	/**
+	 * Graphs loaded after this call are compiled into flat programs instead of being evaluated by pulling slot values.
+	 * Enabled by default, editor keeps graphs it builds in pull mode since they change all the time.
+	 */
+	public void setCompiledEvaluation (boolean compiledEvaluation) {
+		this.compiledEvaluation = compiledEvaluation;
+	}
+
+	public boolean isColumnarStorage () {
+		return columnarStorage;
+	}
+
+	/**
+	 * Instances created after this call keep particles of block compiled emitters in primitive columns, see {@link ColumnarEmitterInstance}.
+	 * Emitters that can't be evaluated in blocks (ribbons, polylines) always use regular particle objects.
+	 */
+	public void setColumnarStorage (boolean columnarStorage) {
+		this.columnarStorage = columnarStorage;
+	}
+
+	public boolean isSeekableEmitters () {
+		return seekableEmitters;
+	}
+
+	/**
+	 * Instances created after this call record deterministic emitters ahead of time, so they can be seeked,
+	 * see {@link com.talosvfx.talos.runtime.simulation.TinyEmitter}. Other emitters are simulated as usual.
+	 */
+	public void setSeekableEmitters (boolean seekableEmitters) {
+		this.seekableEmitters = seekableEmitters;
+	}
+
 	public AssetProvider getAssetProvider () {
 		return assetProvider;
 	}
@@ -151,11 +331,94 @@ public class ParticleEffectDescriptor {
 		this.assetProvider = assetProvider;
 	}
 
-	public void setEffectReference(ParticleEffectInstance particleEffectInstance) {
-		processsingEffectReference = particleEffectInstance;
+	/**
+	 * Hands out evaluation state for one update, module graphs themselves are shared by all contexts and only read.
+	 * Contexts are pooled and only hold slot values and temporaries, so nothing is loaded or created on the calling thread
+	 * besides that. While any module writes to objects shared by all contexts (ribbons, polylines), one thread at a time
+	 * holds contexts and others wait for it.
+	 */
+	public synchronized EvaluationContext obtainContext() {
+		boolean exclusive = !isThreadSafe();
+		if (exclusive) {
+			Thread thread = Thread.currentThread();
+			boolean interrupted = false;
+			while (exclusiveOwner != null && exclusiveOwner != thread) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) thread.interrupt();
+
+			exclusiveOwner = thread;
+			exclusiveCount++;
+		}
+
+		EvaluationContext context = freeContexts.size > 0 ? freeContexts.pop() : new EvaluationContext(this);
+		context.validate(graphVersion);
+		context.exclusive = exclusive;
+		return context;
+	}
+
+	public synchronized void freeContext(EvaluationContext context) {
+		if (context.exclusive) {
+			context.exclusive = false;
+			if (--exclusiveCount == 0) {
+				exclusiveOwner = null;
+				notifyAll();
+			}
+		}
+		freeContexts.add(context);
+	}
+
+	private boolean isThreadSafe() {
+		if (threadSafeVersion != graphVersion) {
+			threadSafe = findThreadSafe();
+			threadSafeVersion = graphVersion;
+		}
+		return threadSafe;
+	}
+
+	private boolean findThreadSafe() {
+		for (int e = 0; e < emitterModuleGraphs.size; e++) { // called while emitters are iterated
+			Array<AbstractModule> modules = emitterModuleGraphs.get(e).getModules();
+			for (int i = 0; i < modules.size; i++) {
+				if (!modules.get(i).isThreadSafe()) return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return id for module state in evaluation contexts, unique within this descriptor
+	 */
+	public synchronized int nextEvaluationId() {
+		return evaluationIds++;
 	}
 
-	public ParticleEffectInstance getInstanceReference() {
-		return processsingEffectReference;
+	/**
+	 * Called by emitters when their modules or connections change, contexts then start over with fresh module state
+	 */
+	synchronized void graphsChanged() {
+		graphVersion++;
+	}
+
+	private synchronized void emittersChanged() {
+		graphVersion++;
+		if (instancePool != null) {
+			instancePool.clear();
+		}
+	}
+
+	/**
+	 * Releases shaders and other GL resources of all emitters.
+	 * Effect instances of this descriptor should not be rendered after that.
+	 */
+	@Override
+	public void dispose () {
+		for (ParticleEmitterDescriptor emitterDescriptor : emitterModuleGraphs) {
+			emitterDescriptor.dispose();
+		}
 	}
 }
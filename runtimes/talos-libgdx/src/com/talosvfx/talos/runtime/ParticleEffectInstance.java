@@ -17,15 +17,19 @@
 package com.talosvfx.talos.runtime;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
 import com.talosvfx.talos.runtime.render.ParticleRenderer;
 import com.talosvfx.talos.runtime.render.SpriteBatchParticleRenderer;
 import com.talosvfx.talos.runtime.simulation.TinyEmitter;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 
 import java.util.Comparator;
 
-public class ParticleEffectInstance {
+public class ParticleEffectInstance implements Pool.Poolable {
 
     private final ParticleEffectDescriptor descriptor;
 
@@ -33,7 +37,8 @@ public class ParticleEffectInstance {
 
     Vector2 position = new Vector2();
 
-    ScopePayload scopePayload = new ScopePayload();
+    private final ScopePayload ownScope = new ScopePayload();
+    ScopePayload scopePayload = ownScope;
 
     public boolean loopable = false;
 
@@ -48,12 +53,79 @@ public class ParticleEffectInstance {
 
     private boolean paused = false;
 
+	/**
+	 * simulation step length in seconds, 0 when simulating with frame delta
+	 */
+	private float fixedStep = 0;
+	private int maxSteps = 4;
+	private float accumulator = 0;
+	private float interpolation = 1f;
+
+	private final ParticleBounds bounds = new ParticleBounds();
+	private final Vector2 boundsPosition = new Vector2();
+
+	/**
+	 * when set, simulation sleeps while effect is outside of it, and catches up once it comes back
+	 */
+	private Rectangle sleepArea;
+	private float sleptTime = 0;
+	private static final float WAKE_WINDOW = 2f;
+	private static final float WAKE_STEP = 1/15f;
+	private static final float SLEEP_STEP = 1f;
+
+	private static final float PREWARM_STEP = 1/60f;
+	private static final float PREWARM_SKIP_STEP = 1f;
+
+	ParticleBudget budget;
+	private int priority = 0;
+	private float importance = 1f;
+	private float emissionScale = 1f;
+	/**
+	 * set by budget, culled effect is not drawn and is simulated the same way as a sleeping one
+	 */
+	boolean culled;
+	/**
+	 * particles effect would have without budget, as last measured by it
+	 */
+	float demand;
+
+	/**
+	 * evaluation state of the update in progress, null between updates
+	 */
+	EvaluationContext context;
+
+	/**
+	 * start of the chain emitters take their seeds from, picked when instance is created so instances don't play out identically
+	 */
+	private float seed = MathUtils.random();
+
 	public void init () {
-		for (int i = 0; i < emitters.size; i++) {
-			emitters.get(i).init();
+		EvaluationContext borrowed = borrowContext();
+		try {
+			for (int i = 0; i < emitters.size; i++) {
+				emitters.get(i).init();
+			}
+		} finally {
+			releaseContext(borrowed);
 		}
 	}
 
+	/**
+	 * Restarts the chain emitters take their seeds from, emitters created or reset after this play out the same for the same seed
+	 */
+	public void setSeed (float seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return seed for an emitter that is created or reset. Chain belongs to the instance, so unlike {@link MathUtils#random()}
+	 * it can be used while other instances are updated on other threads
+	 */
+	public float nextSeed () {
+		seed = HashRandom.get(seed, 0, 1);
+		return seed;
+	}
+
 	public float getTotalTime () {
 		return totalTime;
 	}
@@ -74,6 +146,10 @@ public class ParticleEffectInstance {
         this.descriptor = particleEffectDescriptor;
     }
 
+	public ParticleEffectDescriptor getDescriptor () {
+		return descriptor;
+	}
+
 	public void setScope (ScopePayload scope) {
         this.scopePayload = scope;
 		for (int i = 0; i < emitters.size; i++) {
@@ -85,13 +161,298 @@ public class ParticleEffectInstance {
     	return scopePayload;
 	}
 
+	/**
+	 * @return context emitters evaluate their graphs with, only set while instance is updated
+	 */
+	public EvaluationContext getContext () {
+		return context;
+	}
+
+	/**
+	 * Binds a context from the descriptor to this instance, unless one already is, as with calls made while updating
+	 * @return context to give back with {@link #releaseContext(EvaluationContext)}, null if none was borrowed
+	 */
+	private EvaluationContext borrowContext () {
+		if (context != null) return null;
+
+		EvaluationContext borrowed = descriptor.obtainContext();
+		borrowed.bind(this);
+		return borrowed;
+	}
+
+	private void releaseContext (EvaluationContext borrowed) {
+		if (borrowed == null) return;
+
+		borrowed.unbind(this);
+		descriptor.freeContext(borrowed);
+	}
+
 	public void update (float delta) {
 		if(paused) return;
 
 		if(isComplete() && !loopable) return;
 
-    	descriptor.setEffectReference(this);
+		if(culled || sleepArea != null && !isInArea(sleepArea)) {
+			sleptTime += delta;
+			if(sleptTime >= WAKE_WINDOW + SLEEP_STEP) {
+				sleep();
+			}
+			return;
+		}
+
+		EvaluationContext borrowed = borrowContext();
+		try {
+			if(sleptTime > 0) {
+				wake();
+			}
+			if(fixedStep > 0) {
+				updateFixed(delta);
+			} else {
+				updateEmitters(delta);
+			}
+		} finally {
+			releaseContext(borrowed);
+		}
+	}
+
+	/**
+	 * Moves seekable emitters straight to given time since effect start, other emitters are not affected.
+	 * @see ParticleEffectDescriptor#setSeekableEmitters(boolean)
+	 */
+	public void seek (float time) {
+		EvaluationContext borrowed = borrowContext();
+		try {
+			totalTime = time;
+			accumulator = 0;
+			interpolation = 1f;
+			if(scopePayload != null) {
+				scopePayload.set(ScopePayload.TOTAL_TIME, totalTime);
+			}
+
+			particleCount = 0;
+			nodeCalls = 0;
+			for (int i = 0; i < emitters.size; i++) {
+				IEmitter emitter = emitters.get(i);
+				if (emitter instanceof TinyEmitter) {
+					((TinyEmitter)emitter).seek(time);
+				}
+				particleCount += emitter.getActiveParticleCount();
+			}
+			updateBounds();
+		} finally {
+			releaseContext(borrowed);
+		}
+	}
+
+	/**
+	 * Advances effect by given time without drawing it, so continuous effects start out filled.
+	 * Seekable emitters jump straight to the time. Others don't emit until the last stretch as long as their longest particle life,
+	 * since particles emitted before it would be dead by the end, and only simulate that stretch.
+	 */
+	public void prewarm (float seconds) {
+		prewarm(seconds, -1);
+	}
+
+	/**
+	 * @param window seconds simulated at the end, negative to use each emitter's longest particle life
+	 */
+	public void prewarm (float seconds, float window) {
+		if (seconds <= 0) return;
+
+		EvaluationContext borrowed = borrowContext();
+		try {
+			for (int i = 0; i < emitters.size; i++) {
+				IEmitter emitter = emitters.get(i);
+				if (emitter instanceof ParticleEmitterInstance) {
+					ParticleEmitterInstance particleEmitter = (ParticleEmitterInstance)emitter;
+					float emitterWindow = window < 0 ? particleEmitter.getMaxParticleLife() + PREWARM_SKIP_STEP : window;
+					float skip = Math.max(0, seconds - emitterWindow);
+					prewarmEmitter(particleEmitter, skip, seconds - skip);
+				} else {
+					emitter.update(seconds); // seekable emitter evaluates particles straight at the new time
+				}
+			}
+
+			totalTime += seconds;
+			if (scopePayload != null) {
+				scopePayload.set(ScopePayload.TOTAL_TIME, totalTime);
+			}
+			accumulator = 0;
+			interpolation = 1f;
+
+			particleCount = 0;
+			for (int i = 0; i < emitters.size; i++) {
+				particleCount += emitters.get(i).getActiveParticleCount();
+			}
+			updateBounds();
+		} finally {
+			releaseContext(borrowed);
+		}
+	}
+
+	private void prewarmEmitter (ParticleEmitterInstance emitter, float skip, float simulate) {
+		emitter.prewarming = true;
+		float time = totalTime;
+
+		if (skip > 0) {
+			// particles emitted here would be dead by the end, so only emitter time moves on
+			float scale = emitter.getEmissionScale();
+			emitter.setEmissionScale(0);
+			int steps = (int)Math.ceil(skip / PREWARM_SKIP_STEP);
+			for (int i = 0; i < steps; i++) {
+				time += skip / steps;
+				prewarmStep(emitter, skip / steps, time);
+			}
+			emitter.setEmissionScale(scale);
+		}
+
+		float step = fixedStep > 0 ? fixedStep : PREWARM_STEP; // same steps as regular updates, so emission isn't clumped
+		int steps = (int)Math.ceil(simulate / step);
+		for (int i = 0; i < steps; i++) {
+			time += simulate / steps;
+			prewarmStep(emitter, simulate / steps, time);
+		}
+
+		emitter.prewarming = false;
+	}
+
+	private void prewarmStep (IEmitter emitter, float delta, float time) {
+		if (scopePayload != null) {
+			scopePayload.set(ScopePayload.TOTAL_TIME, time);
+		}
+		emitter.update(delta);
+	}
+
+	/**
+	 * @return true if particles as of the last update, moved along with the effect since, may overlap the area
+	 */
+	public boolean isInArea (Rectangle area) {
+		if(bounds.isEmpty()) {
+			return area.contains(position);
+		}
+		return overlaps(bounds, area);
+	}
+
+	/**
+	 * Tests bounds computed on the last update, such as an emitter's, shifted by how much effect moved since
+	 */
+	public boolean overlaps (ParticleBounds bounds, Rectangle area) {
+		return bounds.overlaps(area, position.x - boundsPosition.x, position.y - boundsPosition.y);
+	}
+
+	/**
+	 * Keeps time moving while asleep, in large steps without emission, so particles die out and one shot effects complete.
+	 * Last couple of seconds are left for {@link #wake()} to simulate
+	 */
+	private void sleep () {
+		EvaluationContext borrowed = borrowContext();
+		try {
+			setEmittersAsleep(true);
+			while(sleptTime >= WAKE_WINDOW + SLEEP_STEP && !isComplete()) {
+				updateEmitters(SLEEP_STEP);
+				sleptTime -= SLEEP_STEP;
+			}
+			setEmittersAsleep(false);
+		} finally {
+			releaseContext(borrowed);
+		}
+	}
+
+	private void setEmittersAsleep (boolean asleep) {
+		for (int i = 0; i < emitters.size; i++) {
+			IEmitter emitter = emitters.get(i);
+			emitter.setEmissionScale(asleep ? 0 : emissionScale);
+			if (emitter instanceof ParticleEmitterInstance) {
+				((ParticleEmitterInstance)emitter).prewarming = asleep;
+			}
+		}
+	}
+
+	/**
+	 * Catches up on time spent asleep, only the last couple of seconds are simulated, the rest is skipped
+	 */
+	private void wake () {
+		float catchUp = Math.min(sleptTime, WAKE_WINDOW);
+		totalTime += sleptTime - catchUp;
+		sleptTime = 0;
+
+		int steps = (int)Math.ceil(catchUp / WAKE_STEP);
+		for (int i = 0; i < steps; i++) {
+			updateEmitters(catchUp / steps);
+		}
+		accumulator = 0;
+		interpolation = 1f;
+	}
+
+	/**
+	 * Lets the simulation sleep while effect is outside of given area, usually the camera view.
+	 * Area is kept by reference, so it can be updated as camera moves.
+	 * @param area null to always simulate
+	 */
+	public void setSleepArea (Rectangle area) {
+		this.sleepArea = area;
+	}
+
+	public boolean isSleeping () {
+		return sleptTime > 0;
+	}
+
+	/**
+	 * @return box around all particles of this effect as of the last update
+	 */
+	public ParticleBounds getBounds () {
+		return bounds;
+	}
+
+	private void updateBounds () {
+		bounds.reset();
+		for (int i = 0; i < emitters.size; i++) {
+			bounds.add(emitters.get(i).getBounds());
+		}
+		boundsPosition.set(position);
+	}
+
+	private void updateFixed (float delta) {
+		accumulator += delta;
+
+		int steps = 0;
+		while (accumulator >= fixedStep && steps < maxSteps) {
+			updateEmitters(fixedStep);
+			accumulator -= fixedStep;
+			steps++;
+		}
+		if(accumulator >= fixedStep) {
+			accumulator %= fixedStep; // can't catch up, drop the time instead of spiralling
+		}
+
+		interpolation = accumulator / fixedStep;
+	}
+
+	/**
+	 * Simulates in steps of fixed length instead of frame delta, so trajectories don't depend on frame rate.
+	 * Renderers draw particles interpolated between the last two steps.
+	 * @param rate steps per second, 0 to simulate with frame delta again
+	 * @param maxSteps most steps a single update can take to catch up, time past that is dropped
+	 */
+	public void setFixedTimestep (float rate, int maxSteps) {
+		this.fixedStep = rate > 0 ? 1f / rate : 0;
+		this.maxSteps = Math.max(1, maxSteps);
+		accumulator = 0;
+		interpolation = 1f;
+	}
+
+	public boolean isFixedTimestep () {
+		return fixedStep > 0;
+	}
 
+	/**
+	 * @return how far between previous and current simulation step particles should be drawn, always 1 without fixed timestep
+	 */
+	public float getInterpolation () {
+		return interpolation;
+	}
+
+	private void updateEmitters (float delta) {
 		if(totalTime > 3600) totalTime = 0; //TODO: maybe just supple TimeUtils time now instead...
 		totalTime += delta;
 
@@ -105,6 +466,7 @@ public class ParticleEffectInstance {
 			emitters.get(i).update(delta);
 			particleCount += emitters.get(i).getActiveParticleCount();
 		}
+		updateBounds();
 
 		if(particleCount == 0 && loopable) {
 			for (int i = 0; i < emitters.size; i++) {
@@ -122,13 +484,33 @@ public class ParticleEffectInstance {
 	}
 
     public void addEmitter (ParticleEmitterDescriptor particleEmitterDescriptor) {
-        final ParticleEmitterInstance particleEmitterInstance = new ParticleEmitterInstance(particleEmitterDescriptor, this);
-        emitters.add(particleEmitterInstance);
+		EvaluationContext borrowed = borrowContext();
+		try {
+			final ParticleEmitterInstance particleEmitterInstance = new ParticleEmitterInstance(particleEmitterDescriptor, this);
+			emitters.add(particleEmitterInstance);
+		} finally {
+			releaseContext(borrowed);
+		}
     }
 
+	public void addColumnarEmitter (ParticleEmitterDescriptor particleEmitterDescriptor) {
+		EvaluationContext borrowed = borrowContext();
+		try {
+			final ColumnarEmitterInstance emitter = new ColumnarEmitterInstance(particleEmitterDescriptor, this);
+			emitters.add(emitter);
+		} finally {
+			releaseContext(borrowed);
+		}
+	}
+
     public void addAdvancedEmitter(ParticleEmitterDescriptor particleEmitterDescriptor) {
-		final TinyEmitter emitter = new TinyEmitter(particleEmitterDescriptor, this);
-		emitters.add(emitter);
+		EvaluationContext borrowed = borrowContext();
+		try {
+			final TinyEmitter emitter = new TinyEmitter(particleEmitterDescriptor, this);
+			emitters.add(emitter);
+		} finally {
+			releaseContext(borrowed);
+		}
 	}
 
 	public void removeEmitterForEmitterDescriptor (ParticleEmitterDescriptor emitter) {
@@ -141,10 +523,15 @@ public class ParticleEffectInstance {
 
 
 	public boolean isContinuous() {
-		for (ParticleEmitterDescriptor emitterDescriptor: descriptor.emitterModuleGraphs) {
-			if (emitterDescriptor.isContinuous()) {
-				return true;
+		EvaluationContext borrowed = borrowContext();
+		try {
+			for (ParticleEmitterDescriptor emitterDescriptor: descriptor.emitterModuleGraphs) {
+				if (emitterDescriptor.getEmitterModule() != null && emitterDescriptor.getEmitterModule().isContinuous(context)) {
+					return true;
+				}
 			}
+		} finally {
+			releaseContext(borrowed);
 		}
 
 		return false;
@@ -190,10 +577,118 @@ public class ParticleEffectInstance {
 		}
 		paused = false;
 		totalTime = 0;
+		accumulator = 0;
+		interpolation = 1f;
+		sleptTime = 0;
 	}
 
 
 
+	/**
+	 * Puts instance back into the state it was created in, emitters and their particle pools are kept, so it can be reused.
+	 * Called when instance is freed to {@link ParticleEffectDescriptor#free(ParticleEffectInstance)}
+	 */
+	@Override
+	public void reset () {
+		EvaluationContext borrowed = borrowContext();
+		try {
+			for (int i = 0; i < emitters.size; i++) {
+				emitters.get(i).reset();
+			}
+		} finally {
+			releaseContext(borrowed);
+		}
+		restart();
+
+		if (scopePayload != ownScope) {
+			setScope(ownScope);
+		}
+		ownScope.reset();
+
+		position.set(0, 0);
+		alpha = 1f;
+		loopable = false;
+		nodeCalls = 0;
+		particleCount = 0;
+		fixedStep = 0;
+		maxSteps = 4;
+		bounds.reset();
+		boundsPosition.set(0, 0);
+		sleepArea = null;
+
+		if (budget != null) {
+			budget.unregister(this);
+		}
+		priority = 0;
+		importance = 1f;
+		demand = 0;
+		culled = false;
+		if (emissionScale != 1f) {
+			setEmissionScale(1f);
+		}
+	}
+
+	/**
+	 * Makes sure each emitter can have given amount of particles alive without allocating
+	 */
+	public void reserveParticles (int count) {
+		for (int i = 0; i < emitters.size; i++) {
+			emitters.get(i).reserveParticles(count);
+		}
+	}
+
+	/**
+	 * Effects of higher priority get their particles first when {@link ParticleBudget} runs out
+	 */
+	public void setPriority (int priority) {
+		this.priority = priority;
+	}
+
+	public int getPriority () {
+		return priority;
+	}
+
+	/**
+	 * Orders effects of the same priority for the budget, usually derived from distance to the camera
+	 */
+	public void setImportance (float importance) {
+		this.importance = importance;
+	}
+
+	public float getImportance () {
+		return importance;
+	}
+
+	public void setEmissionScale (float scale) {
+		emissionScale = scale;
+		for (int i = 0; i < emitters.size; i++) {
+			emitters.get(i).setEmissionScale(scale);
+		}
+	}
+
+	public float getEmissionScale () {
+		return emissionScale;
+	}
+
+	/**
+	 * @return particles effect is expected to have at full emission, see {@link IEmitter#getEstimatedParticleCount()}
+	 */
+	public float getEstimatedParticleCount () {
+		float count = 0;
+		for (int i = 0; i < emitters.size; i++) {
+			count += emitters.get(i).getEstimatedParticleCount();
+		}
+		return count;
+	}
+
+	public boolean isCulled () {
+		return culled;
+	}
+
+	public ParticleBudget getBudget () {
+		return budget;
+	}
+
 	public Array<IEmitter> getEmitters () {
         return emitters;
     }
@@ -229,6 +724,10 @@ public class ParticleEffectInstance {
 		nodeCalls++;
 	}
 
+	public void reportNodeCalls(int count) {
+		nodeCalls += count;
+	}
+
 	public void sortEmitters() {
 		emitters.sort(emitterComparator);
 		for(int i = 0; i < emitters.size; i++) {
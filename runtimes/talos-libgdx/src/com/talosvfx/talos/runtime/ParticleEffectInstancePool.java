@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Pool of effect instances of one descriptor. Freed instances are reset and reused as they are,
+ * with their emitters and particle pools, instead of building new ones.
+ */
+public class ParticleEffectInstancePool extends Pool<ParticleEffectInstance> {
+
+	private final ParticleEffectDescriptor descriptor;
+
+	private int hits;
+	private int misses;
+
+	public ParticleEffectInstancePool (ParticleEffectDescriptor descriptor) {
+		this(descriptor, 16, Integer.MAX_VALUE);
+	}
+
+	public ParticleEffectInstancePool (ParticleEffectDescriptor descriptor, int initialCapacity, int max) {
+		super(initialCapacity, max);
+		this.descriptor = descriptor;
+	}
+
+	@Override
+	protected ParticleEffectInstance newObject () {
+		return descriptor.createEffectInstance();
+	}
+
+	@Override
+	public ParticleEffectInstance obtain () {
+		if (getFree() > 0) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return super.obtain();
+	}
+
+	/**
+	 * Creates instances up front, so that many can be obtained without building new ones
+	 * @param particles amount of particles each emitter of each instance can spawn without allocating
+	 */
+	public void prewarm (int instances, int particles) {
+		Array<ParticleEffectInstance> created = new Array<>(instances);
+		for (int i = getFree(); i < instances; i++) {
+			created.add(newObject());
+		}
+		freeAll(created);
+
+		if (particles > 0) {
+			// instances are reserved while obtained, so they don't count as hits
+			created.clear();
+			while (getFree() > 0) {
+				ParticleEffectInstance instance = super.obtain();
+				instance.reserveParticles(particles);
+				created.add(instance);
+			}
+			freeAll(created);
+		}
+	}
+
+	/**
+	 * @return amount of obtains that reused a free instance
+	 */
+	public int getHits () {
+		return hits;
+	}
+
+	/**
+	 * @return amount of obtains that had to create a new instance
+	 */
+	public int getMisses () {
+		return misses;
+	}
+
+	public void resetStatistics () {
+		hits = 0;
+		misses = 0;
+	}
+}
@@ -17,8 +17,14 @@
 package com.talosvfx.talos.runtime;
 
 import com.badlogic.gdx.utils.*;
+import com.talosvfx.talos.runtime.graph.BlockProgram;
+import com.talosvfx.talos.runtime.graph.EvaluationFrequency;
+import com.talosvfx.talos.runtime.graph.GraphCompiler;
+import com.talosvfx.talos.runtime.graph.GraphOptimizer;
+import com.talosvfx.talos.runtime.graph.GraphProgram;
 import com.talosvfx.talos.runtime.modules.*;
 import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class ParticleEmitterDescriptor {
 
@@ -31,6 +37,25 @@ public class ParticleEmitterDescriptor {
 
     private int sortPosition;
 
+    private GraphProgram particleProgram;
+    private GraphProgram emitterProgram;
+    private BlockProgram particleBlockProgram;
+
+    /**
+     * particle program without the inputs that are fixed for particle's lifetime, those are cached on particle instead
+     */
+    private GraphProgram particleFrameProgram;
+    private int[] spawnInputSlots;
+    private static final int SPAWN_VALUE_STRIDE = 5;
+
+    /**
+     * cached {@link #isClosedForm()}, null until first asked for since graph changed
+     */
+    private Boolean closedForm;
+
+    private int foldedNodeCount;
+    private int removedNodeCount;
+
     public static ObjectSet<Class> registeredModules;
 
     public ParticleEmitterDescriptor (ParticleEffectDescriptor descriptor) {
@@ -43,9 +68,9 @@ public class ParticleEmitterDescriptor {
         return registeredModules;
     }
 
-    public static void registerModules() {
+    public static synchronized void registerModules() {
         if(registeredModules == null) {
-            registeredModules = new ObjectSet<>();
+            ObjectSet<Class> registeredModules = new ObjectSet<>();
             registeredModules.add(EmitterModule.class);
             registeredModules.add(InterpolationModule.class);
             registeredModules.add(InputModule.class);
@@ -78,6 +103,7 @@ public class ParticleEmitterDescriptor {
             registeredModules.add(AttractorModule.class);
             registeredModules.add(ForceApplierModule.class);
             registeredModules.add(NinePatchModule.class);
+            ParticleEmitterDescriptor.registeredModules = registeredModules; // published only when complete, descriptors can load on any thread
         }
     }
 
@@ -99,7 +125,9 @@ public class ParticleEmitterDescriptor {
         }
 
         if (added) {
+            module.setEvaluationId(particleEffectResourceDescriptor.nextEvaluationId());
             modules.add(module);
+            graphChanged();
         }
 
         return added;
@@ -122,6 +150,8 @@ public class ParticleEmitterDescriptor {
         if(module instanceof EmitterModule) {
             emitterModule = null;
         }
+
+        graphChanged();
     }
 
     public void connectNode(AbstractModule from, AbstractModule to, int slotFrom, int slotTo) {
@@ -129,22 +159,285 @@ public class ParticleEmitterDescriptor {
         // slotFrom is the output of slot from
         from.attachModuleToMyOutput(to, slotFrom, slotTo);
         to.attachModuleToMyInput(from, slotTo, slotFrom);
+        graphChanged();
     }
 
     public void removeNode(AbstractModule module, int slot,boolean isInput) {
         module.detach(slot, isInput);
+        graphChanged();
     }
 
-    public ParticleModule getParticleModule() {
-        return particleModule;
+    /**
+     * Compiles particle and emitter graphs into flat programs, so they are no longer evaluated by pulling slot values.
+     * Needs to be called again after graph is changed.
+     * @return false if graph has modules that can't be compiled, in that case graph stays in pull mode
+     */
+    public boolean compile() {
+        invalidatePrograms();
+
+        if(particleModule == null || emitterModule == null) return false;
+
+        GraphProgram particle = GraphCompiler.compile(particleModule, null, ParticleModule.DRAWABLE);
+        GraphProgram emitter = GraphCompiler.compile(emitterModule);
+        if(particle == null || emitter == null) return false;
+
+        particleProgram = particle;
+        emitterProgram = emitter;
+        particleBlockProgram = GraphCompiler.compileBlock(particle);
+        particleFrameProgram = compileFrameProgram();
+
+        return true;
+    }
+
+    private GraphProgram compileFrameProgram() {
+        IntSet skippedInputs = new IntSet();
+        IntArray slots = new IntArray();
+        for(Slot slot: particleModule.getInputSlots().values()) {
+            if(!(slot.getValue() instanceof NumericalValue)) continue;
+            if(getParticleInputFrequency(slot.getIndex()) != EvaluationFrequency.PER_SPAWN) continue;
+            skippedInputs.add(slot.getIndex());
+            slots.add(slot.getIndex());
+        }
+        if(skippedInputs.size == 0) return null;
+
+        spawnInputSlots = slots.toArray();
+        return GraphCompiler.compile(particleModule, skippedInputs, ParticleModule.DRAWABLE);
+    }
+
+    /**
+     * @return how often the value feeding this particle module input changes
+     */
+    public EvaluationFrequency getParticleInputFrequency(int slotId) {
+        return EvaluationFrequency.of(getParticleInputDependencies(slotId));
+    }
+
+    /**
+     * @return scope keys the value feeding this particle module input depends on
+     */
+    public int getParticleInputDependencies(int slotId) {
+        Slot slot = particleModule == null ? null : particleModule.getInputSlot(slotId);
+        if(slot == null || slot.getTargetModule() == null) return 0;
+
+        return GraphOptimizer.getDependencies(slot.getTargetModule(), new ObjectIntMap<AbstractModule>());
     }
 
-    public void resetRequesters() {
+    /**
+     * Deterministic graphs evaluate to the same values for the same seeds and alphas,
+     * so their emitters can be simulated ahead of time and seeked.
+     */
+    public boolean isDeterministic() {
+        if(particleModule == null || emitterModule == null) return false;
+
+        ObjectIntMap<AbstractModule> dependencies = new ObjectIntMap<>();
+        if(!isDeterministic(particleModule, dependencies)) return false;
+        if(!isDeterministic(emitterModule, dependencies)) return false;
+
+        return true;
+    }
+
+    /**
+     * Particles of closed form graphs move along a path fixed at spawn, so they can be evaluated straight at any age
+     * instead of being stepped there. Asked for by seekable emitters from any thread, so graph is walked once and kept.
+     */
+    public synchronized boolean isClosedForm() {
+        if(closedForm == null) {
+            closedForm = findClosedForm();
+        }
+        return closedForm;
+    }
+
+    private boolean findClosedForm() {
+        if(particleModule == null) return false;
+        if(particleModule.getInputSlot(ParticleModule.TARGET).getTargetModule() != null) return false;
+        if(!isFixedForLifetime(ParticleModule.ANGLE) || !isFixedForLifetime(ParticleModule.VELOCITY)) return false;
+
+        int dependencies = 0;
+        for(Slot slot: particleModule.getInputSlots().values()) {
+            dependencies |= getParticleInputDependencies(slot.getIndex());
+        }
+        return (dependencies & (1 << ScopePayload.PARTICLE_POSITION)) == 0;
+    }
+
+    private boolean isFixedForLifetime(int slotId) {
+        EvaluationFrequency frequency = getParticleInputFrequency(slotId);
+        return frequency == EvaluationFrequency.CONSTANT || frequency == EvaluationFrequency.PER_SPAWN;
+    }
+
+    private boolean isDeterministic(AbstractModule root, ObjectIntMap<AbstractModule> dependencies) {
+        for(Slot slot: root.getInputSlots().values()) {
+            if(slot.getTargetModule() == null) continue;
+            int mask = GraphOptimizer.getDependencies(slot.getTargetModule(), dependencies);
+            if(mask == GraphOptimizer.ANY || (mask & (1 << ScopePayload.TOTAL_TIME)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops modules that no root reads from, and folds modules that don't depend on scope into constants.
+     * Folding is undone as soon as graph is changed.
+     * @return amount of folded modules
+     */
+    public int optimize() {
+        removedNodeCount += GraphOptimizer.removeUnreachable(this);
+        foldedNodeCount = GraphOptimizer.fold(this);
+        notifyModules();
+        invalidatePrograms();
+        return foldedNodeCount;
+    }
+
+    private void graphChanged() {
+        if(foldedNodeCount > 0) {
+            for(AbstractModule module: modules) {
+                module.setFolded(false);
+            }
+            foldedNodeCount = 0;
+        }
+        notifyModules();
+        invalidatePrograms();
+    }
+
+    private void notifyModules() {
         for(AbstractModule module: modules) {
-            module.resetLastRequester();
+            module.graphChanged();
         }
     }
 
+    public int getFoldedNodeCount() {
+        return foldedNodeCount;
+    }
+
+    public int getRemovedNodeCount() {
+        return removedNodeCount;
+    }
+
+    public boolean isCompiled() {
+        return particleProgram != null;
+    }
+
+    private void invalidatePrograms() {
+        particleProgram = null;
+        emitterProgram = null;
+        particleBlockProgram = null;
+        particleFrameProgram = null;
+        spawnInputSlots = null;
+        closedForm = null;
+        particleEffectResourceDescriptor.graphsChanged();
+    }
+
+    /**
+     * Evaluates everything particle module depends on, for the particle currently in scope
+     */
+    public void executeParticleProgram(EvaluationContext context) {
+        if(particleProgram == null) return;
+        execute(context, particleProgram);
+        context.reportNodeCalls(particleProgram.getNodeCount());
+    }
+
+    /**
+     * Same as {@link #executeParticleProgram(EvaluationContext)}, but inputs that are fixed for particle's lifetime
+     * are only evaluated the first time, and restored from the particle after that
+     */
+    public void executeParticleProgram(EvaluationContext context, Particle particle) {
+        if(particleFrameProgram == null) {
+            executeParticleProgram(context);
+            return;
+        }
+
+        if(particle.spawnProgram != particleFrameProgram) {
+            executeParticleProgram(context);
+            storeSpawnValues(context, particle);
+            return;
+        }
+
+        execute(context, particleFrameProgram);
+        restoreSpawnValues(context, particle);
+        context.reportNodeCalls(particleFrameProgram.getNodeCount());
+    }
+
+    /**
+     * Drawable is evaluated first, so the rest of the graph sees aspect ratio of the particle's own drawable,
+     * same as when values are pulled
+     */
+    private void execute(EvaluationContext context, GraphProgram program) {
+        int leadCount = program.getLeadCount();
+        program.execute(context, 0, leadCount);
+        particleModule.updateDrawableAspectRatio(context);
+        program.execute(context, leadCount, program.getNodeCount());
+    }
+
+    private void storeSpawnValues(EvaluationContext context, Particle particle) {
+        int length = spawnInputSlots.length * SPAWN_VALUE_STRIDE;
+        if(particle.spawnValues == null || particle.spawnValues.length < length) {
+            particle.spawnValues = new float[length];
+        }
+        float[] cache = particle.spawnValues;
+        for(int i = 0; i < spawnInputSlots.length; i++) {
+            NumericalValue value = context.getInput(particleModule, spawnInputSlots[i]);
+            int offset = i * SPAWN_VALUE_STRIDE;
+            cache[offset] = value.isEmpty() ? -1 : value.elementsCount();
+            System.arraycopy(value.getElements(), 0, cache, offset + 1, 4);
+        }
+        particle.spawnProgram = particleFrameProgram;
+    }
+
+    private void restoreSpawnValues(EvaluationContext context, Particle particle) {
+        float[] cache = particle.spawnValues;
+        for(int i = 0; i < spawnInputSlots.length; i++) {
+            NumericalValue value = context.getInput(particleModule, spawnInputSlots[i]);
+            int offset = i * SPAWN_VALUE_STRIDE;
+            if(cache[offset] < 0) {
+                value.setEmpty(true);
+            } else {
+                value.setEmpty(false);
+                value.setElementsCount((int) cache[offset]);
+                System.arraycopy(cache, offset + 1, value.getElements(), 0, 4);
+            }
+        }
+    }
+
+    /**
+     * Evaluates everything particle module depends on, for a block of particles at once
+     */
+    public void executeParticleBlock(EvaluationContext context, int start, int count, BlockProgram.Cursor cursor) {
+        BlockProgram program = context.getBlockProgram(this);
+        if(program == null) return;
+        int calls = program.execute(context, start, count, cursor);
+        context.reportNodeCalls(calls);
+    }
+
+    /**
+     * Evaluates everything emitter module depends on, for the emitter currently in scope
+     */
+    public void executeEmitterProgram(EvaluationContext context) {
+        if(emitterProgram == null) return;
+        emitterProgram.execute(context);
+        context.reportNodeCalls(emitterProgram.getNodeCount());
+    }
+
+    public GraphProgram getParticleProgram() {
+        return particleProgram;
+    }
+
+    public GraphProgram getEmitterProgram() {
+        return emitterProgram;
+    }
+
+    /**
+     * @return block program compiled along with the graph, non null if particles can be evaluated in blocks.
+     * Programs are executed through the copy each context keeps, see {@link EvaluationContext#getBlockProgram}
+     */
+    public BlockProgram getParticleBlockProgram() {
+        return particleBlockProgram;
+    }
+
+    public GraphProgram getParticleFrameProgram() {
+        return particleFrameProgram;
+    }
+
+    public ParticleModule getParticleModule() {
+        return particleModule;
+    }
+
     public EmitterModule getEmitterModule() {
         return emitterModule;
     }
@@ -157,8 +450,44 @@ public class ParticleEmitterDescriptor {
         return particleEffectResourceDescriptor;
     }
 
+    /*
+     * Values below are evaluated for tools and loops over descriptors, outside of any instance
+     */
+
     public boolean isContinuous() {
-        return getEmitterModule().isContinuous();
+        EvaluationContext context = particleEffectResourceDescriptor.obtainContext();
+        try {
+            return emitterModule.isContinuous(context);
+        } finally {
+            particleEffectResourceDescriptor.freeContext(context);
+        }
+    }
+
+    public float getDuration() {
+        EvaluationContext context = particleEffectResourceDescriptor.obtainContext();
+        try {
+            return emitterModule.getDuration(context);
+        } finally {
+            particleEffectResourceDescriptor.freeContext(context);
+        }
+    }
+
+    public float getDelay() {
+        EvaluationContext context = particleEffectResourceDescriptor.obtainContext();
+        try {
+            return emitterModule.getDelay(context);
+        } finally {
+            particleEffectResourceDescriptor.freeContext(context);
+        }
+    }
+
+    public float getParticleLife() {
+        EvaluationContext context = particleEffectResourceDescriptor.obtainContext();
+        try {
+            return particleModule.getLife(context);
+        } finally {
+            particleEffectResourceDescriptor.freeContext(context);
+        }
     }
 
     public int getSortPosition() {
@@ -169,4 +498,15 @@ public class ParticleEmitterDescriptor {
         this.sortPosition = sortPosition;
     }
 
+    /**
+     * Releases GL resources modules hold, such as shared shaders
+     */
+    public void dispose() {
+        for(AbstractModule module: modules) {
+            if(module instanceof Disposable) {
+                ((Disposable) module).dispose();
+            }
+        }
+    }
+
 }
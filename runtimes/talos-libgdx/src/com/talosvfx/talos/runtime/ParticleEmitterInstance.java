@@ -22,6 +22,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 
 public class ParticleEmitterInstance implements IEmitter {
 
@@ -48,15 +49,36 @@ public class ParticleEmitterInstance implements IEmitter {
 	private EmitterModule emitterModule;
 
 	float rate; // emission rate
+	float emissionScale = 1f;
+	/**
+	 * longest life of particles spawned so far
+	 */
+	float maxParticleLife;
+	private static final int LIFE_SAMPLES = 8;
+	/**
+	 * set while effect is prewarmed, particles skip drawable evaluation
+	 */
+	boolean prewarming;
 
 	// inner vars
 	public float alpha;
 	public float particlesToEmmit;
+	/**
+	 * particles spawned since the emitter was reset, wraps at a multiple of three that is still exact as a float scope value
+	 */
+	int spawnCount;
+	private static final int SPAWN_COUNT_WRAP = 3 << 21;
+	/**
+	 * particle seeds are hashed from it and spawn index, taken from the effect instance when emitter is created or reset
+	 */
+	private float seed;
 
 	public boolean initialized = false;
 
 	public Array<Particle> activeParticles = new Array<>();
 
+	protected final ParticleBounds bounds = new ParticleBounds();
+
 	private final Pool<Particle> particlePool = new Pool<Particle>() {
 		@Override
 		protected Particle newObject () {
@@ -68,6 +90,7 @@ public class ParticleEmitterInstance implements IEmitter {
     public ParticleEmitterInstance (ParticleEmitterDescriptor moduleGraph, ParticleEffectInstance particleEffectInstance) {
 		this.emitterGraph = moduleGraph;
         parentParticleInstance = particleEffectInstance;
+        seed = particleEffectInstance.nextSeed();
         setScope(particleEffectInstance.scopePayload); //Default set to the parent payload instance
         init();
 	}
@@ -79,9 +102,11 @@ public class ParticleEmitterInstance implements IEmitter {
 		if (emitterModule == null)
 			return;
 
-		delay = emitterModule.getDelay();
-		duration = emitterModule.getDuration();
-		isContinuous = emitterModule.isContinuous();
+		EvaluationContext context = getEffect().getContext();
+		delay = emitterModule.getDelay(context);
+		duration = emitterModule.getDuration(context);
+		isContinuous = emitterModule.isContinuous(context);
+		isAttached = emitterModule.isAttached(context);
 
 		delayTimer = delay;
 
@@ -105,16 +130,18 @@ public class ParticleEmitterInstance implements IEmitter {
 
 		if(paused) return;
 
+		EvaluationContext context = getEffect().getContext();
+
 		//update variables to their real values
-		emitterModule.updateScopeData(this);
+		emitterModule.updateScopeData(context, this);
 
-		delay = emitterModule.getDelay();
-		duration = emitterModule.getDuration();
-		isContinuous = emitterModule.isContinuous();
-		rate = emitterModule.getRate();
-		isAttached = emitterModule.isAttached();
-		isAdditive = emitterModule.isAdditive();
-		isBlendAdd = emitterModule.isBlendAdd();
+		delay = emitterModule.getDelay(context);
+		duration = emitterModule.getDuration(context);
+		isContinuous = emitterModule.isContinuous(context);
+		rate = emitterModule.getRate(context);
+		isAttached = emitterModule.isAttached(context);
+		isAdditive = emitterModule.isAdditive(context);
+		isBlendAdd = emitterModule.isBlendAdd(context);
 
 		if(delayTimer > 0) {
 			delayTimer -= delta;
@@ -123,7 +150,7 @@ public class ParticleEmitterInstance implements IEmitter {
 
 				updateParticles(delta); // process existing particles at least
 
-				emitterGraph.resetRequesters();
+				context.resetRequesters(emitterGraph);
 				return;
 			}
 		}
@@ -140,20 +167,16 @@ public class ParticleEmitterInstance implements IEmitter {
 		}
 
 		//update variables to their real values
-		emitterModule.updateScopeData(this);
+		emitterModule.updateScopeData(context, this);
 
 		//
 		if (alpha < 1f || (alpha == 1f && deltaLeftover > 0)) { // emission only here
 			// let's emmit
-			particlesToEmmit += rate * deltaLeftover;
+			particlesToEmmit += rate * emissionScale * deltaLeftover;
 
 			int count = (int)particlesToEmmit;
 			for (int i = 0; i < count; i++) {
-				Particle particle = particlePool.obtain();
-				if (emitterGraph.getParticleModule() != null) {
-					particle.init(this);
-					activeParticles.add(particle);
-				}
+				spawnParticle();
 			}
 			particlesToEmmit -= count;
 		}
@@ -168,13 +191,13 @@ public class ParticleEmitterInstance implements IEmitter {
 			}
 		}
 
-		if(activeParticles.size == 0) {
+		if(getActiveParticleCount() == 0) {
 			isComplete = true;
 		} else {
 			isComplete = false;
 		}
 
-		emitterGraph.resetRequesters();
+		context.resetRequesters(emitterGraph);
 	}
 
 	@Override
@@ -202,17 +225,45 @@ public class ParticleEmitterInstance implements IEmitter {
 		return activeParticles;
 	}
 
-	private void updateParticles(float delta) {
+	protected void spawnParticle() {
+		Particle particle = particlePool.obtain();
+		if (emitterGraph.getParticleModule() != null) {
+			int spawnIndex = nextSpawnIndex();
+			particle.init(this, particleSeed(spawnIndex), spawnIndex);
+			activeParticles.add(particle);
+			maxParticleLife = Math.max(maxParticleLife, particle.life);
+		}
+	}
+
+	protected float particleSeed (int spawnIndex) {
+		return HashRandom.get(seed, spawnIndex, 0);
+	}
+
+	protected int nextSpawnIndex () {
+		int index = spawnCount;
+		spawnCount = (spawnCount + 1) % SPAWN_COUNT_WRAP;
+		return index;
+	}
+
+	protected void updateParticles(float delta) {
+		bounds.reset();
 		for (int i = activeParticles.size - 1; i >= 0; i--) {
 			Particle particle = activeParticles.get(i);
-			particle.update(delta);
+			particle.update(delta, !prewarming);
 			if (particle.alpha >= 1f) {
 				particlePool.free(particle);
 				activeParticles.removeIndex(i);
+			} else {
+				bounds.add(particle.getX(), particle.getY(), particle.size.x, particle.size.y);
 			}
 		}
 	}
 
+	@Override
+	public ParticleBounds getBounds () {
+		return bounds;
+	}
+
 	public void restart() {
     	delayTimer = delay;
     	alpha = 0;
@@ -221,6 +272,85 @@ public class ParticleEmitterInstance implements IEmitter {
         isStopped = false;
 	}
 
+	@Override
+	public void reset () {
+		particlePool.freeAll(activeParticles);
+		activeParticles.clear();
+		bounds.reset();
+		spawnCount = 0;
+		seed = parentParticleInstance.nextSeed();
+
+		init();
+		restart();
+		paused = false;
+		isVisible = true;
+		tint.set(Color.WHITE);
+	}
+
+	@Override
+	public void reserveParticles (int count) {
+		int missing = count - activeParticles.size - particlePool.getFree();
+		if (missing <= 0) return;
+
+		Array<Particle> reserved = new Array<>(missing);
+		for (int i = 0; i < missing; i++) {
+			reserved.add(particlePool.obtain());
+		}
+		particlePool.freeAll(reserved);
+	}
+
+	@Override
+	public void setEmissionScale (float scale) {
+		emissionScale = scale;
+	}
+
+	@Override
+	public float getEmissionScale () {
+		return emissionScale;
+	}
+
+	/**
+	 * @return longest life of particles spawned so far, sampled from a few particle seeds when there were none yet.
+	 * Effect has to be in the middle of an update, so it has a context to evaluate with
+	 */
+	public float getMaxParticleLife () {
+		if (maxParticleLife == 0) {
+			maxParticleLife = sampleParticleLife();
+		}
+		return maxParticleLife;
+	}
+
+	private float sampleParticleLife () {
+		emitterModule = emitterGraph.getEmitterModule();
+		if (emitterModule == null || emitterGraph.getParticleModule() == null) return 0;
+
+		EvaluationContext context = getEffect().getContext();
+		emitterModule.updateScopeData(context, this);
+		Particle particle = particlePool.obtain();
+		float life = 0;
+		for (int i = 0; i < LIFE_SAMPLES; i++) {
+			particle.init(this, (i + 0.5f) / LIFE_SAMPLES);
+			life = Math.max(life, particle.life);
+		}
+		particlePool.free(particle);
+		context.resetRequesters(emitterGraph);
+
+		return life;
+	}
+
+	@Override
+	public float getEstimatedParticleCount () {
+		if (!initialized) return 0;
+
+		if (isContinuous && !isStopped) {
+			return rate * maxParticleLife;
+		}
+		if (alpha < 1f) {
+			return rate * Math.min(maxParticleLife, duration);
+		}
+		return 0; // done emitting, what's left is counted as it is
+	}
+
 	@Override
 	public float getDelayRemaining () {
 		return delayTimer;
@@ -274,10 +404,12 @@ public class ParticleEmitterInstance implements IEmitter {
 		return tint;
 	}
 
+	@Override
 	public ParticleEffectInstance getEffect() {
     	return parentParticleInstance;
 	}
 
+	@Override
 	public boolean isAttached() {
 		return isAttached;
 	}
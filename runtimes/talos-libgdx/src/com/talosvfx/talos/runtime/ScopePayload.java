@@ -34,6 +34,7 @@ public class ScopePayload {
     public static final int SECONDARY_SEED = 6;
     public static final int TOTAL_TIME = 7;
     public static final int PARTICLE_POSITION = 8;
+    public static final int SPAWN_INDEX = 9;
 
     private Particle processingParticleRef;
 
@@ -85,6 +86,7 @@ public class ScopePayload {
     public void reset() {
         for(int i = 0; i < 10; i++) {
             map.get(i).set(0);
+            dynamicValues.get(i).set(0);
         }
     }
 
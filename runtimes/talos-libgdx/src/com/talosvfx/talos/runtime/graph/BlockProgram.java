@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.graph;
+
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.values.NumericalValue;
+import com.talosvfx.talos.runtime.values.Value;
+
+/**
+ * {@link GraphProgram} evaluated for a block of particles at once, numerical slot values live in {@link FloatColumns}.
+ * Modules that implement {@link AbstractModule#processBlock(EvaluationContext, int, int, FloatColumns, FloatColumns)} run once per block,
+ * the rest are evaluated particle by particle through their regular values.
+ * Columns are working memory, so every {@link EvaluationContext} compiles it's own, see {@link EvaluationContext#getBlockProgram}.
+ * Modules with non numerical slots (drawables and such) run particle by particle, together with everything else the lead input
+ * of the root depends on, see {@link GraphProgram#getLeadCount()}. Graphs that have such modules outside of the lead part
+ * can't be block evaluated.
+ */
+public class BlockProgram {
+
+    public static final int BLOCK_SIZE = 128;
+
+    private static final int SCOPE_KEYS = 10;
+
+    public interface Cursor {
+
+        /**
+         * Loads particle at index into scope, before a module is evaluated for that particle alone
+         */
+        void moveTo (int index);
+
+        /**
+         * Called for each particle once everything the lead input depends on is evaluated for it,
+         * and non numerical inputs of the root are bound, before the rest of the graph is evaluated
+         */
+        void leadEvaluated (int index);
+    }
+
+    private final AbstractModule root;
+    private final AbstractModule[] modules;
+    private final boolean[] uniform;
+    private final int leadCount;
+    private final boolean leadUniform;
+    private final boolean supported;
+
+    private final FloatColumns[] inputs;
+    private final FloatColumns[] outputs;
+    private final FloatColumns rootInputs;
+    private final FloatColumns scope;
+
+    private final Array<FloatColumns.Column> registers = new Array<>();
+    private final Array<FloatColumns.Column> unconnected = new Array<>();
+    private final Array<FloatColumns.Column> constants = new Array<>();
+    private final Array<NumericalValue> constantValues = new Array<>();
+    private final FloatColumns.Column zeros = new FloatColumns.Column();
+
+    private int capacity;
+
+    BlockProgram (GraphProgram program) {
+        root = program.getRoot();
+        modules = program.getModules();
+        leadCount = program.getLeadCount();
+        uniform = new boolean[modules.length];
+        inputs = new FloatColumns[modules.length];
+        outputs = new FloatColumns[modules.length];
+
+        scope = new FloatColumns(SCOPE_KEYS, null, zeros);
+        for (int i = 0; i < SCOPE_KEYS; i++) {
+            scope.setColumn(i, register());
+        }
+
+        for (int i = 0; i < modules.length; i++) {
+            AbstractModule module = modules[i];
+            outputs[i] = new FloatColumns(maxSlot(module.getOutputSlotArray()) + 1, scope, zeros);
+            for (Slot slot : module.getOutputSlotArray()) {
+                if (slot.getValue() instanceof NumericalValue) {
+                    outputs[i].setColumn(slot.getIndex(), register());
+                } else if (slot.getValue() != null) {
+                    uniform[i] = true;
+                }
+            }
+
+            inputs[i] = new FloatColumns(maxSlot(module.getInputSlotArray()) + 1, scope, zeros);
+            if (!bindInputs(module, inputs[i])) {
+                uniform[i] = true;
+            }
+        }
+
+        rootInputs = new FloatColumns(maxSlot(root.getInputSlotArray()) + 1, scope, zeros);
+        bindInputs(root, rootInputs);
+
+        boolean leadUniform = false;
+        boolean supported = true;
+        for (int i = 0; i < modules.length; i++) {
+            if (!uniform[i]) continue;
+            if (i < leadCount) {
+                leadUniform = true;
+            } else {
+                supported = false;
+            }
+        }
+        this.leadUniform = leadUniform;
+        this.supported = supported;
+    }
+
+    /**
+     * @return false if some non numerical modules are outside of the lead part, their values can't be kept per particle
+     */
+    boolean isSupported () {
+        return supported;
+    }
+
+    private FloatColumns.Column register () {
+        FloatColumns.Column column = new FloatColumns.Column();
+        registers.add(column);
+        return column;
+    }
+
+    /**
+     * @return false if some of the inputs are not numerical
+     */
+    private boolean bindInputs (AbstractModule module, FloatColumns columns) {
+        boolean numerical = true;
+        for (Slot slot : module.getInputSlotArray()) {
+            if (!(slot.getValue() instanceof NumericalValue)) {
+                if (slot.getValue() != null) numerical = false;
+                continue;
+            }
+
+            FloatColumns.Column source = findOutput(slot);
+            if (source == null && slot.getTargetModule() != null && slot.getTargetModule().isFolded()) {
+                Value value = slot.getTargetSlot().getValue();
+                if (value instanceof NumericalValue) {
+                    source = register();
+                    constants.add(source);
+                    constantValues.add((NumericalValue) value);
+                }
+            }
+            if (source == null) {
+                source = register();
+                source.empty = true;
+                unconnected.add(source);
+            }
+            columns.setColumn(slot.getIndex(), source);
+        }
+        return numerical;
+    }
+
+    private FloatColumns.Column findOutput (Slot inputSlot) {
+        Slot targetSlot = inputSlot.getTargetSlot();
+        if (targetSlot == null) return null;
+        for (int i = 0; i < modules.length; i++) {
+            if (modules[i] == inputSlot.getTargetModule()) {
+                return outputs[i].getColumn(targetSlot.getIndex());
+            }
+        }
+        return null;
+    }
+
+    private static int maxSlot (Slot[] slots) {
+        int max = -1;
+        for (Slot slot : slots) {
+            max = Math.max(max, slot.getIndex());
+        }
+        return max;
+    }
+
+    public void ensureCapacity (int capacity) {
+        if (this.capacity >= capacity) return;
+        this.capacity = Math.max(capacity, this.capacity * 2);
+        for (int i = 0; i < registers.size; i++) {
+            registers.get(i).ensureCapacity(this.capacity);
+        }
+        zeros.ensureCapacity(this.capacity);
+    }
+
+    /**
+     * Copies current scope values to all particles of the block, per particle keys are then overwritten by the emitter
+     */
+    public void loadScope (ScopePayload payload, int start, int count) {
+        for (int key = 0; key < SCOPE_KEYS; key++) {
+            NumericalValue value = payload.get(key);
+            int elementCount = value.elementsCount();
+            for (int e = 0; e < elementCount; e++) {
+                float[] column = scope.getWritable(key, e);
+                float element = value.get(e);
+                for (int i = start; i < start + count; i++) {
+                    column[i] = element;
+                }
+            }
+            scope.setElementCount(key, elementCount);
+        }
+    }
+
+    /**
+     * Evaluates particles start .. start + count - 1, results are in {@link #getRootInputs()}
+     * @return amount of module evaluations it took
+     */
+    public int execute (EvaluationContext context, int start, int count, Cursor cursor) {
+        for (int i = 0; i < unconnected.size; i++) {
+            FloatColumns.Column column = unconnected.get(i);
+            column.empty = true;
+            column.elementCount = 0;
+        }
+
+        for (int i = 0; i < constants.size; i++) {
+            fill(constants.get(i), constantValues.get(i), start, start + count);
+        }
+
+        int calls = 0;
+        if (leadUniform) {
+            // non numerical values can't be stored in columns, so the whole lead part goes particle by particle
+            for (int p = start; p < start + count; p++) {
+                cursor.moveTo(p);
+                for (int i = 0; i < leadCount; i++) {
+                    evaluate(context, i, p);
+                }
+                bindLead(context, p, cursor);
+            }
+            calls += leadCount * count;
+        } else {
+            calls += execute(context, 0, leadCount, start, count, cursor);
+            for (int p = start; p < start + count; p++) {
+                bindLead(context, p, cursor);
+            }
+        }
+        calls += execute(context, leadCount, modules.length, start, count, cursor);
+
+        loadInputs(context, root, rootInputs, start + count - 1);
+        context.setInputsBound(root, true);
+
+        return calls;
+    }
+
+    private int execute (EvaluationContext context, int from, int to, int start, int count, Cursor cursor) {
+        int calls = 0;
+        for (int i = from; i < to; i++) {
+            if (modules[i].processBlock(context, start, count, inputs[i], outputs[i])) {
+                calls++;
+            } else {
+                for (int p = start; p < start + count; p++) {
+                    cursor.moveTo(p);
+                    evaluate(context, i, p);
+                }
+                calls += count;
+            }
+        }
+        return calls;
+    }
+
+    private void evaluate (EvaluationContext context, int module, int index) {
+        loadInputs(context, modules[module], inputs[module], index);
+        modules[module].processValues(context);
+        storeOutputs(context, modules[module], outputs[module], index, index + 1);
+    }
+
+    private void bindLead (EvaluationContext context, int index, Cursor cursor) {
+        for (Slot slot : root.getInputSlotArray()) {
+            Value target = context.getInputValue(root, slot.getIndex());
+            if (target == null || target instanceof NumericalValue) continue;
+            bindObject(context, slot, target);
+        }
+        context.setInputsBound(root, true);
+        cursor.leadEvaluated(index);
+    }
+
+    private void loadInputs (EvaluationContext context, AbstractModule module, FloatColumns columns, int index) {
+        for (Slot slot : module.getInputSlotArray()) {
+            Value target = context.getInputValue(module, slot.getIndex());
+            if (target == null) continue;
+
+            if (target instanceof NumericalValue) {
+                NumericalValue value = (NumericalValue) target;
+                if (columns.isEmpty(slot.getIndex())) {
+                    value.setEmpty(true);
+                    continue;
+                }
+                int elementCount = columns.getElementCount(slot.getIndex());
+                for (int e = 0; e < elementCount; e++) {
+                    value.set(e, columns.get(slot.getIndex(), e)[index]);
+                }
+                value.setElementsCount(elementCount);
+                value.setEmpty(false);
+            } else {
+                bindObject(context, slot, target);
+            }
+        }
+    }
+
+    private static void bindObject (EvaluationContext context, Slot slot, Value target) {
+        Slot targetSlot = slot.getTargetSlot();
+        Value source = targetSlot == null ? null : context.getOutputValue(slot.getTargetModule(), targetSlot.getIndex());
+        if (source == null) {
+            target.setEmpty(true);
+        } else {
+            target.set(source);
+            target.setEmpty(false);
+        }
+    }
+
+    private void storeOutputs (EvaluationContext context, AbstractModule module, FloatColumns columns, int from, int to) {
+        for (Slot slot : module.getOutputSlotArray()) {
+            if (!(slot.getValue() instanceof NumericalValue)) continue;
+
+            fill(columns.getColumn(slot.getIndex()), context.getOutput(module, slot.getIndex()), from, to);
+        }
+    }
+
+    private static void fill (FloatColumns.Column column, NumericalValue value, int from, int to) {
+        int elementCount = value.elementsCount();
+        for (int e = 0; e < elementCount; e++) {
+            float[] elements = column.elements[e];
+            float element = value.get(e);
+            for (int i = from; i < to; i++) {
+                elements[i] = element;
+            }
+        }
+        column.elementCount = elementCount;
+        column.empty = false;
+    }
+
+    public FloatColumns getScope () {
+        return scope;
+    }
+
+    /**
+     * @return numerical inputs of the root module, indexed by it's slot ids
+     */
+    public FloatColumns getRootInputs () {
+        return rootInputs;
+    }
+
+    public AbstractModule getRoot () {
+        return root;
+    }
+}
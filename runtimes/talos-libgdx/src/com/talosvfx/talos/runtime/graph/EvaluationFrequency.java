@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.graph;
+
+import com.talosvfx.talos.runtime.ScopePayload;
+
+/**
+ * How often a value has to be evaluated, decided by the scope keys it depends on.
+ */
+public enum EvaluationFrequency {
+
+    /**
+     * depends on no scope keys, folded at load time
+     */
+    CONSTANT,
+
+    /**
+     * same for every particle of an emitter within one frame
+     */
+    PER_EMITTER_FRAME,
+
+    /**
+     * fixed for the lifetime of a particle, only needs evaluating when it spawns
+     */
+    PER_SPAWN,
+
+    /**
+     * changes every frame for every particle
+     */
+    PER_FRAME;
+
+    private static final int EMITTER_KEYS = (1 << ScopePayload.EMITTER_ALPHA) | (1 << ScopePayload.TOTAL_TIME);
+
+    private static final int SPAWN_KEYS = (1 << ScopePayload.PARTICLE_SEED) | (1 << ScopePayload.REQUESTER_ID)
+            | (1 << ScopePayload.EMITTER_ALPHA_AT_P_INIT) | (1 << ScopePayload.SPAWN_INDEX);
+
+    /**
+     * @param dependencies scope key mask, as returned by {@link GraphOptimizer#getDependencies}
+     */
+    public static EvaluationFrequency of (int dependencies) {
+        if (dependencies == 0) return CONSTANT;
+        if ((dependencies & ~SPAWN_KEYS) == 0) return PER_SPAWN;
+        if ((dependencies & ~EMITTER_KEYS) == 0) return PER_EMITTER_FRAME;
+        return PER_FRAME;
+    }
+}
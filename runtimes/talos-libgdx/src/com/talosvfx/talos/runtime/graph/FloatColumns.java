@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.graph;
+
+/**
+ * Slot values of a whole block of particles, one float column per slot element.
+ * Element {@code e} of slot {@code s} for particle {@code i} is {@code get(s, e)[i]},
+ * element count and emptiness are shared by all particles of the block.
+ */
+public class FloatColumns {
+
+    static class Column {
+        float[][] elements = new float[4][0];
+        int elementCount;
+        boolean empty;
+
+        void ensureCapacity (int capacity) {
+            for (int i = 0; i < elements.length; i++) {
+                if (elements[i].length < capacity) {
+                    elements[i] = new float[capacity];
+                }
+            }
+        }
+    }
+
+    private final Column[] columns;
+    private final FloatColumns scope;
+    private final Column zeros;
+
+    FloatColumns (int size, FloatColumns scope, Column zeros) {
+        columns = new Column[size];
+        this.scope = scope;
+        this.zeros = zeros;
+    }
+
+    void setColumn (int slot, Column column) {
+        columns[slot] = column;
+    }
+
+    Column getColumn (int slot) {
+        return columns[slot];
+    }
+
+    /**
+     * @return column to read from, elements past the element count read as zero
+     */
+    public float[] get (int slot, int element) {
+        Column column = columns[slot];
+        if (element >= column.elementCount) return zeros.elements[0];
+        return column.elements[element];
+    }
+
+    /**
+     * @return column to write to, call {@link #setElementCount(int, int)} when done
+     */
+    public float[] getWritable (int slot, int element) {
+        return columns[slot].elements[element];
+    }
+
+    public int getElementCount (int slot) {
+        return columns[slot].elementCount;
+    }
+
+    public void setElementCount (int slot, int elementCount) {
+        Column column = columns[slot];
+        column.elementCount = elementCount;
+        column.empty = false;
+    }
+
+    public boolean isEmpty (int slot) {
+        return columns[slot].empty;
+    }
+
+    /**
+     * Sets a single element value for whole block, same as {@link com.talosvfx.talos.runtime.values.NumericalValue#set(float)}
+     */
+    public void fill (int slot, int start, int count, float value) {
+        float[] values = getWritable(slot, 0);
+        for (int i = start; i < start + count; i++) {
+            values[i] = value;
+        }
+        setElementCount(slot, 1);
+    }
+
+    /**
+     * @return scope values of the block, indexed by {@link com.talosvfx.talos.runtime.ScopePayload} keys
+     */
+    public FloatColumns getScope () {
+        return scope;
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.graph;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+
+/**
+ * Turns the module graph behind a root module into a {@link GraphProgram}.
+ * Runs once at load time, so it does not care much about allocations.
+ */
+public class GraphCompiler {
+
+    private static final int VISITING = 1;
+    private static final int VISITED = 2;
+
+    /**
+     * @return compiled program, or null if the graph can only be evaluated by pulling values
+     */
+    public static GraphProgram compile (AbstractModule root) {
+        return compile(root, null);
+    }
+
+    /**
+     * @param skippedInputs root input slots left out of the program, along with modules only they depend on
+     * @return compiled program, or null if the graph can only be evaluated by pulling values
+     */
+    public static GraphProgram compile (AbstractModule root, IntSet skippedInputs) {
+        return compile(root, skippedInputs, -1);
+    }
+
+    /**
+     * @param skippedInputs root input slots left out of the program, along with modules only they depend on
+     * @param leadInput root input slot whose modules are ordered first, so they can be executed ahead of the rest, -1 for none
+     * @return compiled program, or null if the graph can only be evaluated by pulling values
+     */
+    public static GraphProgram compile (AbstractModule root, IntSet skippedInputs, int leadInput) {
+        if (root == null) return null;
+
+        Array<AbstractModule> order = new Array<>();
+        ObjectIntMap<AbstractModule> state = new ObjectIntMap<>();
+
+        Slot leadSlot = leadInput < 0 ? null : root.getInputSlot(leadInput);
+        if (leadSlot != null && !visit(leadSlot.getTargetModule(), order, state)) {
+            return null;
+        }
+        int leadCount = order.size;
+
+        for (Slot inputSlot : root.getInputSlots().values()) {
+            if (skippedInputs != null && skippedInputs.contains(inputSlot.getIndex())) continue;
+            if (!visit(inputSlot.getTargetModule(), order, state)) {
+                return null;
+            }
+        }
+
+        AbstractModule[] modules = order.toArray(AbstractModule.class);
+
+        IntArray offsets = new IntArray();
+        Array<AbstractModule> targetModules = new Array<>();
+        IntArray targetSlots = new IntArray();
+        Array<AbstractModule> sourceModules = new Array<>();
+        IntArray sourceSlots = new IntArray();
+
+        for (AbstractModule module : modules) {
+            offsets.add(targetSlots.size);
+            collectBindings(module, null, targetModules, targetSlots, sourceModules, sourceSlots);
+        }
+        offsets.add(targetSlots.size);
+        collectBindings(root, skippedInputs, targetModules, targetSlots, sourceModules, sourceSlots);
+        offsets.add(targetSlots.size);
+
+        return new GraphProgram(root, modules, leadCount, offsets.toArray(),
+                targetModules.toArray(AbstractModule.class), targetSlots.toArray(),
+                sourceModules.toArray(AbstractModule.class), sourceSlots.toArray());
+    }
+
+    /**
+     * @return block evaluated version of a compiled particle program, null if the graph can't be evaluated in blocks
+     */
+    public static BlockProgram compileBlock (GraphProgram program) {
+        if (program == null) return null;
+        BlockProgram block = new BlockProgram(program);
+        if (!block.isSupported()) return null;
+        return block;
+    }
+
+    private static boolean visit (AbstractModule module, Array<AbstractModule> order, ObjectIntMap<AbstractModule> state) {
+        if (module == null || module.isFolded()) return true; // folded modules are read as constants
+
+        int moduleState = state.get(module, 0);
+        if (moduleState == VISITED) return true;
+        if (moduleState == VISITING) return false; // cycle, only pull evaluation can make sense of it
+
+        if (!module.isCompilable()) return false;
+
+        state.put(module, VISITING);
+        for (Slot inputSlot : module.getInputSlots().values()) {
+            if (!visit(inputSlot.getTargetModule(), order, state)) {
+                return false;
+            }
+        }
+        state.put(module, VISITED);
+        order.add(module);
+
+        return true;
+    }
+
+    private static void collectBindings (AbstractModule module, IntSet skippedInputs, Array<AbstractModule> targetModules, IntArray targetSlots,
+                                         Array<AbstractModule> sourceModules, IntArray sourceSlots) {
+        for (Slot inputSlot : module.getInputSlots().values()) {
+            if (skippedInputs != null && skippedInputs.contains(inputSlot.getIndex())) continue;
+            if (inputSlot.getValue() == null) continue;
+
+            Slot targetSlot = inputSlot.getTargetSlot();
+            if (targetSlot == null) {
+                targetModules.add(module);
+                targetSlots.add(inputSlot.getIndex());
+                sourceModules.add(null);
+                sourceSlots.add(-1);
+            } else if (targetSlot.getValue() != null) {
+                targetModules.add(module);
+                targetSlots.add(inputSlot.getIndex());
+                sourceModules.add(inputSlot.getTargetModule());
+                sourceSlots.add(targetSlot.getIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.graph;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.values.NumericalValue;
+import com.talosvfx.talos.runtime.values.Value;
+
+/**
+ * Load time clean up of emitter graphs: drops modules that no root reads from,
+ * and folds modules that don't depend on scope into the constants they evaluate to.
+ */
+public class GraphOptimizer {
+
+    /**
+     * dependency mask of modules in a cycle, or modules that can depend on anything
+     */
+    public static final int ANY = -1;
+
+    /**
+     * @return amount of removed modules
+     */
+    public static int removeUnreachable (ParticleEmitterDescriptor graph) {
+        ObjectSet<AbstractModule> reachable = new ObjectSet<>();
+        collectReachable(graph.getParticleModule(), reachable);
+        collectReachable(graph.getEmitterModule(), reachable);
+
+        Array<AbstractModule> unreachable = new Array<>();
+        for (AbstractModule module : graph.getModules()) {
+            if (!reachable.contains(module)) {
+                unreachable.add(module);
+            }
+        }
+        for (AbstractModule module : unreachable) {
+            graph.removeModule(module);
+        }
+
+        return unreachable.size;
+    }
+
+    private static void collectReachable (AbstractModule module, ObjectSet<AbstractModule> reachable) {
+        if (module == null || !reachable.add(module)) return;
+        for (Slot slot : module.getInputSlots().values()) {
+            collectReachable(slot.getTargetModule(), reachable);
+        }
+    }
+
+    /**
+     * Evaluates every module that transitively depends on no scope keys once and marks it folded,
+     * consumers then read it's output values as constants. Results are kept in module's own output values,
+     * which every context shares from then on
+     * @return amount of folded modules
+     */
+    public static int fold (ParticleEmitterDescriptor graph) {
+        EvaluationContext context = new EvaluationContext(graph.getEffectDescriptor());
+        ObjectIntMap<AbstractModule> dependencies = new ObjectIntMap<>();
+        Array<AbstractModule> order = new Array<>();
+        collectDependencies(graph.getParticleModule(), dependencies, order);
+        collectDependencies(graph.getEmitterModule(), dependencies, order);
+
+        int folded = 0;
+        for (AbstractModule module : order) {
+            if (module == graph.getParticleModule() || module == graph.getEmitterModule()) continue;
+            if (dependencies.get(module, ANY) != 0 || !isFoldable(module)) continue;
+
+            bindInputs(context, module);
+            module.processValues(context);
+            storeOutputs(context, module);
+            module.setFolded(true);
+            folded++;
+        }
+
+        return folded;
+    }
+
+    /**
+     * @return scope keys the output of this module depends on, it's own and of everything feeding it
+     */
+    public static int getDependencies (AbstractModule module, ObjectIntMap<AbstractModule> dependencies) {
+        collectDependencies(module, dependencies, null);
+        return dependencies.get(module, ANY);
+    }
+
+    private static void collectDependencies (AbstractModule module, ObjectIntMap<AbstractModule> dependencies, Array<AbstractModule> order) {
+        if (module == null || dependencies.containsKey(module)) return;
+
+        dependencies.put(module, ANY); // a cycle reaching this module again sees it as dependent on anything
+
+        int mask = module.isFolded() ? 0 : module.getScopeDependencies();
+        if (!module.isFolded()) {
+            for (Slot slot : module.getInputSlots().values()) {
+                AbstractModule input = slot.getTargetModule();
+                if (input == null) continue;
+                collectDependencies(input, dependencies, order);
+                mask |= dependencies.get(input, ANY);
+            }
+        }
+
+        dependencies.put(module, mask);
+        if (order != null) order.add(module);
+    }
+
+    private static boolean isFoldable (AbstractModule module) {
+        if (!module.isCompilable()) return false;
+        for (Slot slot : module.getOutputSlots().values()) {
+            if (slot.getValue() != null && !(slot.getValue() instanceof NumericalValue)) return false;
+        }
+        for (Slot slot : module.getInputSlots().values()) {
+            if (slot.getValue() != null && !(slot.getValue() instanceof NumericalValue)) return false;
+            if (slot.getTargetModule() != null && !slot.getTargetModule().isFolded()) return false;
+        }
+        return true;
+    }
+
+    private static void bindInputs (EvaluationContext context, AbstractModule module) {
+        for (Slot slot : module.getInputSlots().values()) {
+            Value target = context.getInputValue(module, slot.getIndex());
+            if (target == null) continue;
+
+            Slot targetSlot = slot.getTargetSlot();
+            Value source = targetSlot == null ? null : context.getOutputValue(slot.getTargetModule(), targetSlot.getIndex());
+            if (source == null) {
+                target.setEmpty(true);
+            } else {
+                target.set(source);
+                target.setEmpty(false);
+            }
+        }
+    }
+
+    private static void storeOutputs (EvaluationContext context, AbstractModule module) {
+        for (Slot slot : module.getOutputSlots().values()) {
+            if (slot.getValue() == null) continue;
+
+            NumericalValue value = context.getOutput(module, slot.getIndex());
+            NumericalValue output = (NumericalValue) slot.getValue();
+            output.set(value);
+            output.setElementsCount(value.elementsCount());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.graph;
+
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.values.Value;
+
+/**
+ * Flat, topologically ordered evaluation of the modules feeding one root module.
+ * Every input slot is resolved to the output slot it reads from at compile time,
+ * so running the program is a linear walk with no slot lookups or requester caching.
+ * Program only refers to modules and slot ids, values are the ones of the {@link EvaluationContext} it's executed in.
+ */
+public class GraphProgram {
+
+    private final AbstractModule root;
+
+    /**
+     * modules in evaluation order, root is not included
+     */
+    private final AbstractModule[] modules;
+
+    /**
+     * modules[0 .. leadCount - 1] are everything the lead input depends on
+     */
+    private final int leadCount;
+
+    /**
+     * input bindings of modules[i] are in range bindingOffsets[i] .. bindingOffsets[i + 1],
+     * the last range belongs to the root
+     */
+    private final int[] bindingOffsets;
+    private final AbstractModule[] targetModules;
+    private final int[] targetSlots;
+
+    /**
+     * null source module means target slot is not connected
+     */
+    private final AbstractModule[] sourceModules;
+    private final int[] sourceSlots;
+
+    GraphProgram (AbstractModule root, AbstractModule[] modules, int leadCount, int[] bindingOffsets,
+                  AbstractModule[] targetModules, int[] targetSlots, AbstractModule[] sourceModules, int[] sourceSlots) {
+        this.root = root;
+        this.modules = modules;
+        this.leadCount = leadCount;
+        this.bindingOffsets = bindingOffsets;
+        this.targetModules = targetModules;
+        this.targetSlots = targetSlots;
+        this.sourceModules = sourceModules;
+        this.sourceSlots = sourceSlots;
+    }
+
+    public void execute (EvaluationContext context) {
+        execute(context, 0, modules.length);
+    }
+
+    /**
+     * Runs modules[from .. to - 1] and binds root inputs. Root inputs fed by modules that did not run yet
+     * hold stale values until the rest of the program is executed
+     */
+    public void execute (EvaluationContext context, int from, int to) {
+        for (int i = from; i < to; i++) {
+            bind(context, bindingOffsets[i], bindingOffsets[i + 1]);
+            modules[i].processValues(context);
+        }
+        bind(context, bindingOffsets[modules.length], bindingOffsets[modules.length + 1]);
+        context.setInputsBound(root, to == modules.length);
+    }
+
+    private void bind (EvaluationContext context, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Value target = context.getInputValue(targetModules[i], targetSlots[i]);
+            if (sourceModules[i] == null) {
+                target.setEmpty(true);
+            } else {
+                target.set(context.getOutputValue(sourceModules[i], sourceSlots[i]));
+                target.setEmpty(false);
+            }
+        }
+    }
+
+    public AbstractModule getRoot () {
+        return root;
+    }
+
+    public AbstractModule[] getModules () {
+        return modules;
+    }
+
+    /**
+     * @return amount of modules the lead input depends on, they are executed first
+     */
+    public int getLeadCount () {
+        return leadCount;
+    }
+
+    /**
+     * @return amount of processValues calls a single execution makes
+     */
+    public int getNodeCount () {
+        return modules.length;
+    }
+}
@@ -19,9 +19,13 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 import com.talosvfx.talos.runtime.values.Value;
 
@@ -32,9 +36,22 @@ public abstract class AbstractModule implements Json.Serializable {
     protected IntMap<Slot> inputSlots = new IntMap<>();
     protected IntMap<Slot> outputSlots = new IntMap<>();
 
+    /**
+     * same slots as the maps, evaluation iterates these since map iterators are reused and can't be shared between threads
+     */
+    private Slot[] inputSlotArray = new Slot[0];
+    private Slot[] outputSlotArray = new Slot[0];
+
     protected int index = -1;
 
-    private float lastRequester;
+    private int evaluationId = -1;
+
+    private boolean folded;
+
+    /**
+     * Scope keys read by modules that default unconnected alpha input to particle or emitter alpha
+     */
+    protected static final int ALPHA_DEFAULTS = (1 << ScopePayload.REQUESTER_ID) | (1 << ScopePayload.PARTICLE_ALPHA) | (1 << ScopePayload.EMITTER_ALPHA);
 
     public AbstractModule () {
         init();
@@ -87,9 +104,9 @@ public abstract class AbstractModule implements Json.Serializable {
 
 
     /**
-     * Need to keep the output values updated
+     * Need to keep the output values updated, slot values of this module are the ones context keeps for it
      */
-    public abstract void processValues();
+    public abstract void processValues(EvaluationContext context);
 
 
     public void setIndex(int index) {
@@ -101,7 +118,9 @@ public abstract class AbstractModule implements Json.Serializable {
      * Fetch value from the input of this module
      * @param slotId
      */
-    public void fetchInputSlotValue(int slotId) {
+    public void fetchInputSlotValue(EvaluationContext context, int slotId) {
+        if(context.isInputsBound(this)) return; // compiled program already wrote all of the inputs
+
         //find what it is connected to
         Slot inputSlot = inputSlots.get(slotId);
 
@@ -109,16 +128,18 @@ public abstract class AbstractModule implements Json.Serializable {
             return;
         }
 
+        Value value = context.getInputValue(this, slotId);
+
         if(inputSlot.getTargetSlot() == null) {
-            if(inputSlot.getValue() == null) return;
+            if(value == null) return;
 
-            inputSlot.getValue().setEmpty(true);
+            value.setEmpty(true);
         } else {
             //ask it's module give it's output value
-            Value result = inputSlot.getTargetModule().fetchOutputSlotValue(inputSlot.getTargetSlot().getIndex());
+            Value result = inputSlot.getTargetModule().fetchOutputSlotValue(context, inputSlot.getTargetSlot().getIndex());
             if(result != null) {
-                inputSlot.getValue().set(result);
-                inputSlot.getValue().setEmpty(false);
+                value.set(result);
+                value.setEmpty(false);
             }
         }
     }
@@ -127,31 +148,35 @@ public abstract class AbstractModule implements Json.Serializable {
      * this module is asked to calculate and then give it's output value
      * @param slotId
      */
-    public Value fetchOutputSlotValue(int slotId) {
-        float requester = getScope().get(ScopePayload.REQUESTER_ID).getFloat();
+    public Value fetchOutputSlotValue(EvaluationContext context, int slotId) {
+        if(folded) return outputSlots.get(slotId).getValue();
+
+        float requester = context.getScope().get(ScopePayload.REQUESTER_ID).getFloat();
+        float lastRequester = context.getLastRequester(this);
 
         if(lastRequester != requester || (lastRequester == requester && requester == 0f)) { // caching mechanism
             //fetch all local inputs
-            fetchAllInputSlotValues();
+            fetchAllInputSlotValues(context);
             // process
-            processValues();
-            graph.getEffectDescriptor().getInstanceReference().reportNodeCall();
+            processValues(context);
+            context.reportNodeCall();
 
-            lastRequester = requester;
+            context.setLastRequester(this, requester);
         }
 
-        return outputSlots.get(slotId).getValue();
+        return context.getOutputValue(this, slotId);
     }
 
-    public void fetchAllInputSlotValues() {
-        for(Slot inputSlot : inputSlots.values()) {
-            fetchInputSlotValue(inputSlot.getIndex());
+    public void fetchAllInputSlotValues(EvaluationContext context) {
+        for(Slot inputSlot : inputSlotArray) {
+            fetchInputSlotValue(context, inputSlot.getIndex());
         }
     }
 
     public Value createInputSlot(int slotId, Value value) {
         inputSlots.put(slotId, new Slot(this, slotId, true));
         inputSlots.get(slotId).setValue(value);
+        slotsChanged();
 
         return value;
     }
@@ -159,6 +184,7 @@ public abstract class AbstractModule implements Json.Serializable {
     public Value createOutputSlot(int slotId, Value value) {
         outputSlots.put(slotId, new Slot(this, slotId, false));
         outputSlots.get(slotId).setValue(value);
+        slotsChanged();
 
         return value;
     }
@@ -167,6 +193,7 @@ public abstract class AbstractModule implements Json.Serializable {
         inputSlots.put(slotId, new Slot(this, slotId, true));
         NumericalValue value = new NumericalValue();
         inputSlots.get(slotId).setValue(value);
+        slotsChanged();
 
         return value;
     }
@@ -175,12 +202,26 @@ public abstract class AbstractModule implements Json.Serializable {
         outputSlots.put(slotId, new Slot(this, slotId, false));
         NumericalValue value = new NumericalValue();
         outputSlots.get(slotId).setValue(value);
+        slotsChanged();
 
         return value;
     }
 
-    public ScopePayload getScope() {
-        return graph.getEffectDescriptor().getInstanceReference().getScope();
+    /**
+     * Has to be called after slots are put into the maps directly
+     */
+    protected void slotsChanged() {
+        inputSlotArray = toArray(inputSlots);
+        outputSlotArray = toArray(outputSlots);
+    }
+
+    private static Slot[] toArray(IntMap<Slot> slots) {
+        Slot[] array = new Slot[slots.size];
+        int i = 0;
+        for(Slot slot : new IntMap.Values<>(slots)) {
+            array[i++] = slot;
+        }
+        return array;
     }
 
     public Slot getInputSlot(int slotId) {
@@ -191,8 +232,65 @@ public abstract class AbstractModule implements Json.Serializable {
         return outputSlots.get(slotId);
     }
 
-    public void resetLastRequester() {
-        lastRequester = -1f;
+    /**
+     * Called by emitter graph when modules or connections change, or graph gets optimized.
+     * Anything module derived from the shape of the graph should be dropped here
+     */
+    public void graphChanged() {
+
+    }
+
+    /**
+     * @return temporaries this module needs while evaluating, every context keeps it's own, see {@link EvaluationContext#getScratch(AbstractModule)}
+     */
+    public Object createScratch() {
+        return null;
+    }
+
+    /**
+     * @return false if evaluating this module writes to objects shared by all contexts, graph is then never evaluated by two threads at once
+     */
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * @return false if this module fetches it's inputs in a custom way, and cannot be part of a compiled graph
+     */
+    public boolean isCompilable() {
+        return true;
+    }
+
+    /**
+     * @return bit mask of {@link ScopePayload} keys (1 << key) this module reads by itself, not counting it's inputs.
+     * -1 means it may depend on anything (particle itself, dynamic values, time), such modules are never folded or cached
+     */
+    public int getScopeDependencies() {
+        return -1;
+    }
+
+    protected boolean isInputConnected(int slotId) {
+        Slot slot = inputSlots.get(slotId);
+        return slot != null && slot.getTargetSlot() != null;
+    }
+
+    /**
+     * Folded modules were evaluated once at load time, they keep their output values and are never processed again
+     */
+    public void setFolded(boolean folded) {
+        this.folded = folded;
+    }
+
+    public boolean isFolded() {
+        return folded;
+    }
+
+    /**
+     * Evaluates this module for particles start .. start + count - 1 at once
+     * @return false if there is no block implementation, module is then evaluated one particle at a time
+     */
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        return false;
     }
 
     @Override
@@ -205,10 +303,32 @@ public abstract class AbstractModule implements Json.Serializable {
         index = jsonData.getInt("index");
     }
 
+    /**
+     * Binary counterpart of {@link #write(Json)}, values have to be read back in the same order by {@link #read(BinaryExportReader)}
+     */
+    public void write (BinaryExportWriter out) {
+        out.writeInt(index);
+    }
+
+    public void read (BinaryExportReader in) {
+        index = in.readInt();
+    }
+
     public int getIndex() {
         return index;
     }
 
+    /**
+     * Descriptor wide id evaluation contexts keep state of this module under, assigned when module is added to it's emitter
+     */
+    public void setEvaluationId(int evaluationId) {
+        this.evaluationId = evaluationId;
+    }
+
+    public int getEvaluationId() {
+        return evaluationId;
+    }
+
     public IntMap<Slot> getInputSlots() {
         return inputSlots;
     }
@@ -216,4 +336,15 @@ public abstract class AbstractModule implements Json.Serializable {
     public IntMap<Slot> getOutputSlots() {
         return outputSlots;
     }
+
+    /**
+     * @return input slots in map order, safe to iterate from any thread
+     */
+    public Slot[] getInputSlotArray() {
+        return inputSlotArray;
+    }
+
+    public Slot[] getOutputSlotArray() {
+        return outputSlotArray;
+    }
 }
@@ -2,6 +2,7 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Vector2;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -22,11 +23,6 @@ public class AttractorModule extends AbstractModule {
     NumericalValue angle;
     NumericalValue velocity;
 
-    Vector2 initialVector  = new Vector2();
-    Vector2 attractionVector  = new Vector2();
-    Vector2 pos = new Vector2();
-    Vector2 result  = new Vector2();
-
     @Override
     protected void defineSlots() {
         initialAngle = createInputSlot(INITIAL_ANGLE);
@@ -41,12 +37,33 @@ public class AttractorModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        NumericalValue posNumVal = getScope().get(ScopePayload.PARTICLE_POSITION);
+    public int getScopeDependencies() {
+        return (1 << ScopePayload.PARTICLE_POSITION) | (1 << ScopePayload.PARTICLE_ALPHA);
+    }
+
+    @Override
+    public Object createScratch() {
+        return new Scratch();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        Scratch scratch = context.getScratch(this);
+        Vector2 initialVector = scratch.initialVector;
+        Vector2 attractionVector = scratch.attractionVector;
+        Vector2 pos = scratch.pos;
+        Vector2 result = scratch.result;
+
+        NumericalValue initialAngle = context.getInput(this, INITIAL_ANGLE);
+        NumericalValue initialVelocity = context.getInput(this, INITIAL_VELOCITY);
+        NumericalValue attractorPosition = context.getInput(this, ATTRACTOR_POSITION);
+        NumericalValue alpha = context.getInput(this, ALPHA);
+
+        NumericalValue posNumVal = context.getScope().get(ScopePayload.PARTICLE_POSITION);
         pos.set(posNumVal.get(0), posNumVal.get(1));
 
 
-        float alphaVal =  getScope().getFloat(ScopePayload.PARTICLE_ALPHA);;
+        float alphaVal =  context.getScope().getFloat(ScopePayload.PARTICLE_ALPHA);;
         if(!alpha.isEmpty()) {
             alphaVal = alpha.getFloat();
         }
@@ -63,7 +80,14 @@ public class AttractorModule extends AbstractModule {
         result.set(interpolation.apply(initialVector.x, attractionVector.x, alphaVal),
                    interpolation.apply(initialVector.y, attractionVector.y, alphaVal));
 
-        angle.set(result.angle());
-        velocity.set(result.len());
+        context.getOutput(this, ANGLE).set(result.angle());
+        context.getOutput(this, VELOCITY).set(result.len());
+    }
+
+    private static class Scratch {
+        final Vector2 initialVector  = new Vector2();
+        final Vector2 attractionVector  = new Vector2();
+        final Vector2 pos = new Vector2();
+        final Vector2 result  = new Vector2();
     }
 }
@@ -1,6 +1,7 @@
 package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.math.Vector2;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class CartToRadModule extends AbstractModule {
@@ -14,8 +15,6 @@ public class CartToRadModule extends AbstractModule {
     NumericalValue angle;
     NumericalValue length;
 
-    Vector2 tmp = new Vector2();
-
     @Override
     protected void defineSlots() {
         position = createInputSlot(POSITION);
@@ -25,11 +24,24 @@ public class CartToRadModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public Object createScratch() {
+        return new Vector2();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue position = context.getInput(this, POSITION);
+        Vector2 tmp = context.getScratch(this);
+
         tmp.set(position.get(0), position.get(1));
 
-        angle.set(tmp.angle());
-        length.set(tmp.len());
+        context.getOutput(this, ANGLE).set(tmp.angle());
+        context.getOutput(this, LENGTH).set(tmp.len());
     }
 
 }
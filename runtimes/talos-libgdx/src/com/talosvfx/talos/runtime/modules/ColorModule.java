@@ -19,6 +19,9 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class ColorModule extends AbstractModule {
@@ -51,13 +54,21 @@ public class ColorModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue r = context.getInput(this, R);
+        NumericalValue g = context.getInput(this, G);
+        NumericalValue b = context.getInput(this, B);
 
         if(r.isEmpty()) r.set(defaultR);
         if(g.isEmpty()) g.set(defaultG);
         if(b.isEmpty()) b.set(defaultB);
 
-        output.set(r, g, b);
+        context.getOutput(this, OUTPUT).set(r, g, b);
     }
 
     public void setR(float r) {
@@ -92,4 +103,20 @@ public class ColorModule extends AbstractModule {
         defaultG = jsonData.getFloat("g");
         defaultB = jsonData.getFloat("b");
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(defaultR);
+        out.writeFloat(defaultG);
+        out.writeFloat(defaultB);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        defaultR = in.readFloat();
+        defaultG = in.readFloat();
+        defaultB = in.readFloat();
+    }
 }
@@ -20,7 +20,11 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Comparator;
@@ -36,8 +40,6 @@ public class CurveModule extends AbstractModule {
 
     private Array<Vector2> points;
 
-    private Vector2 tmp = new Vector2();
-
     Comparator<Vector2> comparator = new Comparator<Vector2>() {
         @Override
         public int compare(Vector2 o1, Vector2 o2) {
@@ -92,17 +94,19 @@ public class CurveModule extends AbstractModule {
         points.sort(comparator);
     }
 
-    protected void processAlphaDefaults() {
+    protected void processAlphaDefaults(EvaluationContext context) {
+        NumericalValue alpha = context.getInput(this, ALPHA);
         if(alpha.isEmpty()) {
             // as default we are going to fetch the lifetime or duration depending on context
-            float requester = getScope().getFloat(ScopePayload.REQUESTER_ID);
+            ScopePayload scope = context.getScope();
+            float requester = scope.getFloat(ScopePayload.REQUESTER_ID);
             if(requester < 1) {
                 // particle
-                alpha.set(getScope().get(ScopePayload.PARTICLE_ALPHA));
+                alpha.set(scope.get(ScopePayload.PARTICLE_ALPHA));
                 alpha.setEmpty(false);
             } else if(requester > 1) {
                 // emitter
-                alpha.set(getScope().get(ScopePayload.EMITTER_ALPHA));
+                alpha.set(scope.get(ScopePayload.EMITTER_ALPHA));
                 alpha.setEmpty(false);
             } else {
                 // whaat?
@@ -112,9 +116,48 @@ public class CurveModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        processAlphaDefaults();
-        output.set(interpolate(alpha.getFloat()));
+    public int getScopeDependencies() {
+        return isInputConnected(ALPHA) ? 0 : ALPHA_DEFAULTS;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        processAlphaDefaults(context);
+        context.getOutput(this, OUTPUT).set(interpolate(context.getInput(this, ALPHA).getFloat()));
+    }
+
+    protected void processAlphaDefaults(int start, int count, FloatColumns in) {
+        if(!in.isEmpty(ALPHA)) return;
+
+        FloatColumns scope = in.getScope();
+        float[] requester = scope.get(ScopePayload.REQUESTER_ID, 0);
+        float[] particleAlpha = scope.get(ScopePayload.PARTICLE_ALPHA, 0);
+        float[] emitterAlpha = scope.get(ScopePayload.EMITTER_ALPHA, 0);
+        float[] alpha = in.getWritable(ALPHA, 0);
+        for(int i = start; i < start + count; i++) {
+            if(requester[i] < 1) {
+                alpha[i] = particleAlpha[i];
+            } else if(requester[i] > 1) {
+                alpha[i] = emitterAlpha[i];
+            } else {
+                alpha[i] = 0;
+            }
+        }
+        in.setElementCount(ALPHA, 1);
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        processAlphaDefaults(start, count, in);
+
+        float[] alpha = in.get(ALPHA, 0);
+        float[] output = out.getWritable(OUTPUT, 0);
+        for(int i = start; i < start + count; i++) {
+            output[i] = interpolate(alpha[i]);
+        }
+        out.setElementCount(OUTPUT, 1);
+
+        return true;
     }
 
     private float interpolate(float alpha) {
@@ -147,12 +190,7 @@ public class CurveModule extends AbstractModule {
         if(y1 == y2) return y1;
         if(x1 == x2) return y1;
 
-        tmp.set(x2, y2);
-        tmp.sub(x1, y1);
-        tmp.scl(alpha);
-        tmp.add(x1, y1);
-
-        return tmp.y;
+        return (y2 - y1) * alpha + y1;
     }
 
     public void removePoint(int i) {
@@ -183,4 +221,24 @@ public class CurveModule extends AbstractModule {
             createPoint(point.get(0).asFloat(), point.get(1).asFloat());
         }
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(getPoints().size);
+        for (Vector2 point : getPoints()) {
+            out.writeFloat(point.x);
+            out.writeFloat(point.y);
+        }
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        points.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            createPoint(in.readFloat(), in.readFloat());
+        }
+    }
 }
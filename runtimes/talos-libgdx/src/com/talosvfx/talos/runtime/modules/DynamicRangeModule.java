@@ -19,11 +19,14 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
-import java.util.Random;
-
 public class DynamicRangeModule extends CurveModule {
 
     private float lowMin = 0, lowMax = 0;
@@ -31,26 +34,46 @@ public class DynamicRangeModule extends CurveModule {
 
     public static final int OUTPUT = 0;
 
-    private Random random = new Random();
 
     @Override
-    public void processValues() {
-        processAlphaDefaults();
+    public int getScopeDependencies() {
+        return super.getScopeDependencies() | (1 << ScopePayload.PARTICLE_SEED);
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        processAlphaDefaults(context);
 
         // do the random thing first
-        float low = calcRandomRange(lowMin, lowMax, 1);
-        float high = calcRandomRange(highMin, highMax, 2);
+        float seed = context.getScope().getFloat(ScopePayload.PARTICLE_SEED);
+        float low = calcRandomRange(lowMin, lowMax, 1, seed);
+        float high = calcRandomRange(highMin, highMax, 2, seed);
 
-        super.processValues();
+        super.processValues(context);
 
+        NumericalValue output = context.getOutput(this, OUTPUT);
         float mix = Interpolation.linear.apply(low, high, output.getFloat());
 
         output.set(mix);
     }
 
-    private float calcRandomRange(float min, float max, int randomOffset) {
-        random.setSeed((long) ((getScope().getFloat(ScopePayload.PARTICLE_SEED) * 10000 * (index + randomOffset) * 1000)));
-        float startPos = random.nextFloat();
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        super.processBlock(context, start, count, in, out);
+
+        float[] seed = in.getScope().get(ScopePayload.PARTICLE_SEED, 0);
+        float[] output = out.getWritable(OUTPUT, 0);
+        for(int i = start; i < start + count; i++) {
+            float low = calcRandomRange(lowMin, lowMax, 1, seed[i]);
+            float high = calcRandomRange(highMin, highMax, 2, seed[i]);
+            output[i] = Interpolation.linear.apply(low, high, output[i]);
+        }
+
+        return true;
+    }
+
+    private float calcRandomRange(float min, float max, int randomOffset, float seed) {
+        float startPos = HashRandom.get(seed, index, randomOffset);
         float res = min + (max - min) * startPos;
 
         return res;
@@ -103,4 +126,22 @@ public class DynamicRangeModule extends CurveModule {
         highMin = jsonData.getFloat("highMin");
         highMax = jsonData.getFloat("highMax");
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(lowMin);
+        out.writeFloat(lowMax);
+        out.writeFloat(highMin);
+        out.writeFloat(highMax);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        lowMin = in.readFloat();
+        lowMax = in.readFloat();
+        highMin = in.readFloat();
+        highMax = in.readFloat();
+    }
 }
@@ -18,6 +18,9 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.EmConfigValue;
 
 public class EmConfigModule extends AbstractModule {
@@ -46,8 +49,13 @@ public class EmConfigModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        outputValue.set(userValue);
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        context.getOutputValue(this, OUTPUT).set(userValue);
     }
 
     public EmConfigValue getUserValue() {
@@ -78,4 +86,28 @@ public class EmConfigModule extends AbstractModule {
             outputValue.set(getUserValue());
         }
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeBoolean(getUserValue().additive);
+        out.writeBoolean(getUserValue().isBlendAdd);
+        out.writeBoolean(getUserValue().attached);
+        out.writeBoolean(getUserValue().continuous);
+        out.writeBoolean(getUserValue().aligned);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        getUserValue().additive = in.readBoolean();
+        getUserValue().isBlendAdd = in.readBoolean();
+        getUserValue().attached = in.readBoolean();
+        getUserValue().continuous = in.readBoolean();
+        getUserValue().aligned = in.readBoolean();
+
+        if(outputValue != null) {
+            outputValue.set(getUserValue());
+        }
+    }
 }
@@ -18,8 +18,11 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterInstance;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.EmConfigValue;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -50,62 +53,65 @@ public class EmitterModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public void processValues(EvaluationContext context) {
         // nothing to process
     }
 
 
 
-    public float getDelay() {
-        fetchInputSlotValue(DELAY);
+    public float getDelay(EvaluationContext context) {
+        fetchInputSlotValue(context, DELAY);
+        NumericalValue delay = context.getInput(this, DELAY);
 
         if(delay.isEmpty()) return defaultDelay; // defaults
 
         return delay.getFloat();
     }
 
-    public float getDuration() {
-        fetchInputSlotValue(DURATION);
+    public float getDuration(EvaluationContext context) {
+        fetchInputSlotValue(context, DURATION);
+        NumericalValue duration = context.getInput(this, DURATION);
 
         if(duration.isEmpty()) return defaultDuration; // defaults
 
         return duration.getFloat();
     }
 
-    public float getRate() {
-        fetchInputSlotValue(RATE);
+    public float getRate(EvaluationContext context) {
+        fetchInputSlotValue(context, RATE);
+        NumericalValue rate = context.getInput(this, RATE);
 
         if(rate.isEmpty()) return defaultRate; // defaults
 
         return rate.getFloat();
     }
 
-    public boolean isContinuous() {
-        fetchInputSlotValue(CONFIG);
+    public boolean isContinuous(EvaluationContext context) {
+        EmConfigValue config = getConfig(context);
 
         if(config.isEmpty()) return false;
 
         return config.continuous;
     }
 
-    public boolean isAttached() {
-        fetchInputSlotValue(CONFIG);
+    public boolean isAttached(EvaluationContext context) {
+        EmConfigValue config = getConfig(context);
 
         if(config.isEmpty()) return false;
 
         return config.attached;
     }
 
-    public boolean isAligned() {
-        fetchInputSlotValue(CONFIG);
+    public boolean isAligned(EvaluationContext context) {
+        EmConfigValue config = getConfig(context);
 
         if(config.isEmpty()) return false;
 
         return config.aligned;
     }
 
-    public boolean isAdditive() {
-        fetchInputSlotValue(CONFIG);
+    public boolean isAdditive(EvaluationContext context) {
+        EmConfigValue config = getConfig(context);
 
         if(config.isEmpty()) return true;
 
@@ -113,17 +119,25 @@ public class EmitterModule extends AbstractModule {
     }
 
 
-    public boolean isBlendAdd () {
-        fetchInputSlotValue(CONFIG);
+    public boolean isBlendAdd (EvaluationContext context) {
+        EmConfigValue config = getConfig(context);
 
         if(config.isEmpty()) return false;
 
         return config.isBlendAdd;
     }
 
-    public void updateScopeData(ParticleEmitterInstance particleEmitter) {
-        getScope().set(ScopePayload.EMITTER_ALPHA, particleEmitter.alpha);
-        getScope().set(ScopePayload.REQUESTER_ID, 1.1f); // TODO change to something more... unique when emitters are in
+    private EmConfigValue getConfig(EvaluationContext context) {
+        fetchInputSlotValue(context, CONFIG);
+
+        return (EmConfigValue) context.getInputValue(this, CONFIG);
+    }
+
+    public void updateScopeData(EvaluationContext context, ParticleEmitterInstance particleEmitter) {
+        context.getScope().set(ScopePayload.EMITTER_ALPHA, particleEmitter.alpha);
+        context.getScope().set(ScopePayload.REQUESTER_ID, 1.1f); // TODO change to something more... unique when emitters are in
+
+        graph.executeEmitterProgram(context);
     }
 
     @Override
@@ -141,4 +155,20 @@ public class EmitterModule extends AbstractModule {
         defaultDuration = jsonData.getFloat("duration", 2);
         defaultRate = jsonData.getFloat("rate", 50);
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(defaultDelay);
+        out.writeFloat(defaultDuration);
+        out.writeFloat(defaultRate);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        defaultDelay = in.readFloat();
+        defaultDuration = in.readFloat();
+        defaultRate = in.readFloat();
+    }
 }
@@ -3,6 +3,9 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class FakeMotionBlurModule extends AbstractModule {
@@ -25,13 +28,18 @@ public class FakeMotionBlurModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
 
-        float currVel = MathUtils.clamp(velocity.getFloat(), velocityMin, velocityMax);
+        float currVel = MathUtils.clamp(context.getInput(this, VELOCITY).getFloat(), velocityMin, velocityMax);
         float normVel = (currVel-velocityMin)/(velocityMax-velocityMin); // 0..1
         float sizeVal = sizeMin + (sizeMax - sizeMin) * normVel;
 
-        size.set(sizeVal);
+        context.getOutput(this, SIZE).set(sizeVal);
 
     }
 
@@ -84,4 +92,22 @@ public class FakeMotionBlurModule extends AbstractModule {
         sizeMin = jsonData.getFloat("sizeMin", 0);
         sizeMax = jsonData.getFloat("sizeMax", 0);
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(velocityMin);
+        out.writeFloat(velocityMax);
+        out.writeFloat(sizeMin);
+        out.writeFloat(sizeMax);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        velocityMin = in.readFloat();
+        velocityMax = in.readFloat();
+        sizeMin = in.readFloat();
+        sizeMax = in.readFloat();
+    }
 }
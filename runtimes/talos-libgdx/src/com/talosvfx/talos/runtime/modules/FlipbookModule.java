@@ -19,10 +19,13 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.render.drawables.SpriteAnimationDrawable;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -56,9 +59,10 @@ public class FlipbookModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public void processValues(EvaluationContext context) {
+        NumericalValue phaseVal = context.getInput(this, PHASE);
         if(phaseVal.isEmpty()) {
-            phaseVal.set(getScope().getFloat(ScopePayload.TOTAL_TIME));
+            phaseVal.set(context.getScope().getFloat(ScopePayload.TOTAL_TIME));
         }
 
         float time = phaseVal.getFloat();
@@ -66,7 +70,7 @@ public class FlipbookModule extends AbstractModule {
 
         spriteAnimation.setPhase(time - (int)time); // maybe another approach is better.
 
-        outputValue.set(userDrawable);
+        context.getOutputValue(this, OUTPUT).set(userDrawable);
     }
 
     public void setRegion (String regionName, TextureRegion region) {
@@ -107,6 +111,24 @@ public class FlipbookModule extends AbstractModule {
         duration = jsonData.getFloat("duration", 1);
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(regionName);
+        out.writeInt(rows);
+        out.writeInt(cols);
+        out.writeFloat(duration);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        regionName = in.readString();
+        rows = in.readInt();
+        cols = in.readInt();
+        duration = in.readFloat();
+    }
+
     public void setRows(int value) {
         rows = value;
         if(rows < 1) rows = 1;
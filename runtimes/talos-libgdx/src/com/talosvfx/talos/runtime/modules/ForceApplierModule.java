@@ -1,6 +1,7 @@
 package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.math.Vector2;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -14,8 +15,6 @@ public class ForceApplierModule extends AbstractModule {
     NumericalValue angleOutput;
     NumericalValue velocityOutput;
 
-    Vector2 tmp = new Vector2();
-
     @Override
     protected void defineSlots() {
         sumForces = createInputSlot(SUM_FORCES);
@@ -25,20 +24,28 @@ public class ForceApplierModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        float particleAlpha = getScope().getFloat(ScopePayload.PARTICLE_ALPHA);
-        if(getScope().currParticle() == null) return;
+    public Object createScratch() {
+        return new Vector2();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        ScopePayload scope = context.getScope();
+        float particleAlpha = scope.getFloat(ScopePayload.PARTICLE_ALPHA);
+        if(scope.currParticle() == null) return;
 
-        float particleLife = getScope().currParticle().life;
+        float particleLife = scope.currParticle().life;
         float timePassed = particleAlpha * particleLife;
 
+        NumericalValue sumForces = context.getInput(this, SUM_FORCES);
+        Vector2 tmp = context.getScratch(this);
         tmp.set(sumForces.get(0), sumForces.get(1));
 
         float angle = tmp.angle();
 
         float velocity = tmp.len() * timePassed; // V = F * T for mass 1;
 
-        angleOutput.set(angle);
-        velocityOutput.set(velocity);
+        context.getOutput(this, ANGLE).set(angle);
+        context.getOutput(this, VELOCITY).set(velocity);
     }
 }
@@ -19,6 +19,9 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 /**
@@ -40,8 +43,6 @@ public class FromToModule extends AbstractModule {
     NumericalValue rotation;
     NumericalValue length;
 
-    Vector2 tmpVec = new Vector2();
-
     public Vector2 defaultFrom = new Vector2();
     public Vector2 defaultTo = new Vector2();
 
@@ -56,18 +57,32 @@ public class FromToModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public Object createScratch() {
+        return new Vector2();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue from = context.getInput(this, FROM);
+        NumericalValue to = context.getInput(this, TO);
+        Vector2 tmpVec = context.getScratch(this);
+
         if(from.isEmpty()) from.set(defaultFrom.x, defaultFrom.y);
         if(to.isEmpty()) to.set(defaultTo.x, defaultTo.y);
 
         tmpVec.set(to.get(0), to.get(1));
         tmpVec.sub(from.get(0), from.get(1));
 
-        position.set(from.get(0) + tmpVec.x/2f, from.get(1) + tmpVec.y/2f);
+        context.getOutput(this, POSITION).set(from.get(0) + tmpVec.x/2f, from.get(1) + tmpVec.y/2f);
 
-        rotation.set(tmpVec.angle());
+        context.getOutput(this, ROTATION).set(tmpVec.angle());
 
-        length.set(tmpVec.len());
+        context.getOutput(this, LENGTH).set(tmpVec.len());
     }
 
     public void setDefaults(Vector2 dFrom, Vector2 dTo) {
@@ -94,4 +109,22 @@ public class FromToModule extends AbstractModule {
         json.writeValue("toX", defaultTo.x);
         json.writeValue("toY", defaultTo.y);
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(defaultFrom.x);
+        out.writeFloat(defaultFrom.y);
+        out.writeFloat(defaultTo.x);
+        out.writeFloat(defaultTo.y);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        defaultFrom.x = in.readFloat();
+        defaultFrom.y = in.readFloat();
+        defaultTo.x = in.readFloat();
+        defaultTo.y = in.readFloat();
+    }
 }
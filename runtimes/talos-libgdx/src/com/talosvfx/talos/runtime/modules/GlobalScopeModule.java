@@ -18,6 +18,9 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class GlobalScopeModule extends AbstractModule {
@@ -32,8 +35,8 @@ public class GlobalScopeModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        output.set(getScope().getDynamicValue(key));
+    public void processValues(EvaluationContext context) {
+        context.getOutput(this, OUTPUT).set(context.getScope().getDynamicValue(key));
     }
 
     public int getKey() {
@@ -55,4 +58,16 @@ public class GlobalScopeModule extends AbstractModule {
         super.write(json);
         json.writeValue("key", key);
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(key);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        key = in.readInt();
+    }
 }
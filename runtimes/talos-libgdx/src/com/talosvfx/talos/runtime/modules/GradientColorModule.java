@@ -21,7 +21,11 @@ import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.ColorPoint;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -64,17 +68,19 @@ public class GradientColorModule extends AbstractModule {
 		output = createOutputSlot(OUTPUT);
 	}
 
-	protected void processAlphaDefaults () {
+	protected void processAlphaDefaults (EvaluationContext context) {
+		NumericalValue alpha = context.getInput(this, ALPHA);
 		if (alpha.isEmpty()) {
 			// as default we are going to fetch the lifetime or duration depending on context
-			float requester = getScope().getFloat(ScopePayload.REQUESTER_ID);
+			ScopePayload scope = context.getScope();
+			float requester = scope.getFloat(ScopePayload.REQUESTER_ID);
 			if (requester < 1) {
 				// particle
-				alpha.set(getScope().get(ScopePayload.PARTICLE_ALPHA));
+				alpha.set(scope.get(ScopePayload.PARTICLE_ALPHA));
 				alpha.setEmpty(false);
 			} else if (requester > 1) {
 				// emitter
-				alpha.set(getScope().get(ScopePayload.EMITTER_ALPHA));
+				alpha.set(scope.get(ScopePayload.EMITTER_ALPHA));
 				alpha.setEmpty(false);
 			} else {
 				// whaat?
@@ -84,14 +90,63 @@ public class GradientColorModule extends AbstractModule {
 	}
 
 	@Override
-	public void processValues () {
-		processAlphaDefaults();
-		interpolate(alpha.getFloat(), output);
+	public int getScopeDependencies () {
+		return isInputConnected(ALPHA) ? 0 : ALPHA_DEFAULTS;
 	}
 
-	private void interpolate (float alpha, NumericalValue output) {
-		Color color = getPosColor(alpha);
-		output.set(color.r, color.g, color.b, 1f);
+	@Override
+	public Object createScratch () {
+		return new Color();
+	}
+
+	@Override
+	public void processValues (EvaluationContext context) {
+		processAlphaDefaults(context);
+		Color color = getPosColor(context.getInput(this, ALPHA).getFloat(), context.<Color>getScratch(this));
+		context.getOutput(this, OUTPUT).set(color.r, color.g, color.b, 1f);
+	}
+
+	protected void processAlphaDefaults (int start, int count, FloatColumns in) {
+		if (!in.isEmpty(ALPHA))
+			return;
+
+		FloatColumns scope = in.getScope();
+		float[] requester = scope.get(ScopePayload.REQUESTER_ID, 0);
+		float[] particleAlpha = scope.get(ScopePayload.PARTICLE_ALPHA, 0);
+		float[] emitterAlpha = scope.get(ScopePayload.EMITTER_ALPHA, 0);
+		float[] alpha = in.getWritable(ALPHA, 0);
+		for (int i = start; i < start + count; i++) {
+			if (requester[i] < 1) {
+				alpha[i] = particleAlpha[i];
+			} else if (requester[i] > 1) {
+				alpha[i] = emitterAlpha[i];
+			} else {
+				alpha[i] = 0;
+			}
+		}
+		in.setElementCount(ALPHA, 1);
+	}
+
+	@Override
+	public boolean processBlock (EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+		processAlphaDefaults(start, count, in);
+
+		float[] alpha = in.get(ALPHA, 0);
+		float[] r = out.getWritable(OUTPUT, 0);
+		float[] g = out.getWritable(OUTPUT, 1);
+		float[] b = out.getWritable(OUTPUT, 2);
+		float[] a = out.getWritable(OUTPUT, 3);
+		Color color = context.getScratch(this);
+		for (int i = start; i < start + count; i++) {
+			getPosColor(alpha[i], color);
+			r[i] = color.r;
+			g[i] = color.g;
+			b[i] = color.b;
+			a[i] = color.b; // same as NumericalValue.set(r, g, b, a) does
+		}
+		out.setElementCount(OUTPUT, 4);
+
+		return true;
 	}
 
 	public Array<ColorPoint> getPoints () {
@@ -125,6 +180,13 @@ public class GradientColorModule extends AbstractModule {
 	}
 
 	public Color getPosColor (float pos) {
+		return getPosColor(pos, tmpColor);
+	}
+
+	/**
+	 * Same as {@link #getPosColor(float)}, writing to given color instead of the module's own
+	 */
+	public Color getPosColor (float pos, Color tmpColor) {
 
 		if (pos <= points.get(0).pos) {
 			tmpColor.set(points.get(0).color);
@@ -186,4 +248,27 @@ public class GradientColorModule extends AbstractModule {
             createPoint(new Color(point.getFloat("r"), point.getFloat("g"), point.getFloat("b"), 1f), point.getFloat("pos"));
         }
     }
+
+	@Override
+	public void write (BinaryExportWriter out) {
+		super.write(out);
+		Array<ColorPoint> points = getPoints();
+		out.writeInt(points.size);
+		for (ColorPoint point : points) {
+			out.writeFloat(point.color.r);
+			out.writeFloat(point.color.g);
+			out.writeFloat(point.color.b);
+			out.writeFloat(point.pos);
+		}
+	}
+
+	@Override
+	public void read (BinaryExportReader in) {
+		super.read(in);
+		points.clear();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			createPoint(new Color(in.readFloat(), in.readFloat(), in.readFloat(), 1f), in.readFloat());
+		}
+	}
 }
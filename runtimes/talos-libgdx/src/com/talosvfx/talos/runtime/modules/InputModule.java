@@ -18,6 +18,10 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class InputModule extends AbstractModule {
@@ -33,9 +37,26 @@ public class InputModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        NumericalValue value = getScope().get(scopeKey);
-        outputValue.set(value);
+    public int getScopeDependencies() {
+        return 1 << scopeKey;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue value = context.getScope().get(scopeKey);
+        context.getOutput(this, OUTPUT).set(value);
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        FloatColumns scope = in.getScope();
+        int elementCount = scope.getElementCount(scopeKey);
+        for(int e = 0; e < elementCount; e++) {
+            System.arraycopy(scope.get(scopeKey, e), start, out.getWritable(OUTPUT, e), start, count);
+        }
+        out.setElementCount(OUTPUT, elementCount);
+
+        return true;
     }
 
     public void setInput(int scopeKey) {
@@ -57,4 +78,16 @@ public class InputModule extends AbstractModule {
         super.read(json, jsonData);
         setInput(jsonData.getInt("scopeKey"));
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(getInput());
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        setInput(in.readInt());
+    }
 }
@@ -19,6 +19,10 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.InterpolationMappings;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -40,8 +44,25 @@ public class InterpolationModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        output.set(currentInterpolation.apply(alpha.getFloat()));
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        context.getOutput(this, OUTPUT).set(currentInterpolation.apply(context.getInput(this, ALPHA).getFloat()));
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        float[] alpha = in.get(ALPHA, 0);
+        float[] output = out.getWritable(OUTPUT, 0);
+        for(int i = start; i < start + count; i++) {
+            output[i] = currentInterpolation.apply(alpha[i]);
+        }
+        out.setElementCount(OUTPUT, 1);
+
+        return true;
     }
 
     public void setInterpolation(Interpolation interpolation) {
@@ -64,4 +85,16 @@ public class InterpolationModule extends AbstractModule {
         currentInterpolation = InterpolationMappings.getInterpolationForName(jsonData.getString("interp"));
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(InterpolationMappings.getNameForInterpolation(getInterpolation()));
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        currentInterpolation = InterpolationMappings.getInterpolationForName(in.readString());
+    }
+
 }
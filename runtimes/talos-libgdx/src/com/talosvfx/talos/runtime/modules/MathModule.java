@@ -18,7 +18,11 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.Expression;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.MathExpressionMappings;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -47,15 +51,40 @@ public class MathModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue a = context.getInput(this, A);
+        NumericalValue b = context.getInput(this, B);
+
         if(a.isEmpty()) a.set(defaultA);
         if(b.isEmpty()) b.set(defaultB);
 
         if(currentExpression != null) {
-            currentExpression.apply(a, b, output);
+            currentExpression.apply(a, b, context.getOutput(this, OUTPUT));
         }
     }
 
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        if(in.isEmpty(A)) in.fill(A, start, count, defaultA);
+        if(in.isEmpty(B)) in.fill(B, start, count, defaultB);
+
+        if(currentExpression != null) {
+            int elementCount = in.getElementCount(A);
+            for(int e = 0; e < elementCount; e++) {
+                float[] b = in.get(B, currentExpression.isScalarB() ? 0 : e);
+                currentExpression.apply(in.get(A, e), b, out.getWritable(OUTPUT, e), start, count);
+            }
+            out.setElementCount(OUTPUT, elementCount);
+        }
+
+        return true;
+    }
+
     public void setExpression(Expression expression) {
         this.currentExpression = expression;
     }
@@ -84,6 +113,22 @@ public class MathModule extends AbstractModule {
         currentExpression = MathExpressionMappings.getMathExpressionForName(jsonData.getString("mathExpression"));
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(getDefaultA());
+        out.writeFloat(getDefaultB());
+        out.writeString(MathExpressionMappings.getNameForMathExpression(getExpression()));
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        defaultA = in.readFloat();
+        defaultB = in.readFloat();
+        currentExpression = MathExpressionMappings.getMathExpressionForName(in.readString());
+    }
+
     public void setA(float a) {
         defaultA = a;
     }
@@ -19,6 +19,8 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class MixModule extends AbstractModule {
@@ -44,7 +46,17 @@ public class MixModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue alpha = context.getInput(this, ALPHA);
+        NumericalValue val1 = context.getInput(this, VAL1);
+        NumericalValue val2 = context.getInput(this, VAL2);
+        NumericalValue output = context.getOutput(this, OUTPUT);
+
         int count = Math.max(val1.elementsCount(), val2.elementsCount());
         for(int i = 0; i < count; i++) {
             output.getElements()[i] = Interpolation.linear.apply(val1.getElements()[i], val2.getElements()[i], alpha.getFloat());
@@ -52,6 +64,23 @@ public class MixModule extends AbstractModule {
         output.setElementsCount(count);
     }
 
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        int elementCount = Math.max(in.getElementCount(VAL1), in.getElementCount(VAL2));
+        float[] alpha = in.get(ALPHA, 0);
+        for(int e = 0; e < elementCount; e++) {
+            float[] val1 = in.get(VAL1, e);
+            float[] val2 = in.get(VAL2, e);
+            float[] output = out.getWritable(OUTPUT, e);
+            for(int i = start; i < start + count; i++) {
+                output[i] = val1[i] + (val2[i] - val1[i]) * alpha[i];
+            }
+        }
+        out.setElementCount(OUTPUT, elementCount);
+
+        return true;
+    }
+
     @Override
     public void write (Json json) {
         super.write(json);
@@ -1,5 +1,7 @@
 package com.talosvfx.talos.runtime.modules;
 
+import com.talosvfx.talos.runtime.EvaluationContext;
+
 public class NANModule extends AbstractModule {
 
     @Override
@@ -8,7 +10,12 @@ public class NANModule extends AbstractModule {
     }
 
     @Override
-    public void processValues () {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues (EvaluationContext context) {
 
     }
 }
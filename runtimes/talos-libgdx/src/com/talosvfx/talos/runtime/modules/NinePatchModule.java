@@ -3,7 +3,10 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.render.drawables.NinePatchDrawable;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 
 public class NinePatchModule extends AbstractModule {
@@ -26,8 +29,9 @@ public class NinePatchModule extends AbstractModule {
     }
 
     @Override
-    public void processValues () {
+    public void processValues (EvaluationContext context) {
         NinePatchDrawable patchDrawable = (NinePatchDrawable) outputValue.getDrawable();
+        DrawableValue inputDrawable = (DrawableValue) context.getInputValue(this, INPUT);
 
         TextureRegion region = null;
 
@@ -57,6 +61,22 @@ public class NinePatchModule extends AbstractModule {
         splits[3] = jsonData.getInt("bsplit", 0);
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        for (int i = 0; i < 4; i++) {
+            out.writeInt(splits[i]);
+        }
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        for (int i = 0; i < 4; i++) {
+            splits[i] = in.readInt();
+        }
+    }
+
     public void setSplits (int left, int right, int top, int bottom) {
         splits[0] = left;
         splits[1] = right;
@@ -18,7 +18,11 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.SimplexNoise;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -32,8 +36,6 @@ public class NoiseModule extends AbstractModule {
     NumericalValue y;
     NumericalValue output;
 
-    SimplexNoise noise = new SimplexNoise();
-
     public float frequency = 20f;
 
     @Override
@@ -45,16 +47,44 @@ public class NoiseModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        output.set(noiseFunction(x.getFloat(), y.getFloat()));
+    public int getScopeDependencies() {
+        return 1 << ScopePayload.PARTICLE_SEED;
+    }
+
+    @Override
+    public Object createScratch() {
+        return new SimplexNoise();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        SimplexNoise noise = context.getScratch(this);
+        float seed = context.getScope().getFloat(ScopePayload.PARTICLE_SEED);
+        float x = context.getInput(this, X).getFloat();
+        float y = context.getInput(this, Y).getFloat();
+        context.getOutput(this, OUTPUT).set(noiseFunction(noise, x, y, seed));
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        float[] x = in.get(X, 0);
+        float[] y = in.get(Y, 0);
+        float[] seed = in.getScope().get(ScopePayload.PARTICLE_SEED, 0);
+        float[] output = out.getWritable(OUTPUT, 0);
+        SimplexNoise noise = context.getScratch(this);
+        for(int i = start; i < start + count; i++) {
+            output[i] = noiseFunction(noise, x[i], y[i], seed[i]);
+        }
+        out.setElementCount(OUTPUT, 1);
+
+        return true;
     }
 
-    private float noiseFunction(float x, float y) {
+    private float noiseFunction(SimplexNoise noise, float x, float y, float particleSeed) {
         // normalize
         x = x - (int)x;
         y = y - (int)y;
 
-        float particleSeed = getScope().getFloat(ScopePayload.PARTICLE_SEED);
         y = y * particleSeed;
         y = y - (int)y;
 
@@ -85,4 +115,16 @@ public class NoiseModule extends AbstractModule {
         super.read(json, jsonData);
         setFrequency(jsonData.getFloat("frequency", 20f));
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(getFrequency());
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        setFrequency(in.readFloat());
+    }
 }
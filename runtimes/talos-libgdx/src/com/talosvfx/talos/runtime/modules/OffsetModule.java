@@ -20,11 +20,14 @@ import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Comparator;
-import java.util.Random;
 
 public class OffsetModule extends AbstractModule {
 
@@ -61,14 +64,6 @@ public class OffsetModule extends AbstractModule {
     private int lowSide = SIDE_BOTTOM;
     private int highSide = SIDE_RIGHT;
 
-    private Vector2 randLow = new Vector2();
-    private Vector2 randHigh = new Vector2();
-
-    private Random random = new Random();
-
-    private Rectangle rect = new Rectangle();
-    private Vector2 tmp = new Vector2();
-
     private Array<Vector2> points;
 
     Comparator<Vector2> comparator = new Comparator<Vector2>() {
@@ -99,26 +94,46 @@ public class OffsetModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        processAlphaDefaults();
+    public int getScopeDependencies() {
+        return (isInputConnected(ALPHA) ? 0 : ALPHA_DEFAULTS) | (1 << ScopePayload.PARTICLE_SEED);
+    }
 
-        float alpha = this.alpha.getFloat();
+    @Override
+    public Object createScratch() {
+        return new Scratch();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        processAlphaDefaults(context);
+
+        Scratch scratch = context.getScratch(this);
+        float seed = context.getScope().getFloat(ScopePayload.PARTICLE_SEED);
+
+        float alpha = context.getInput(this, ALPHA).getFloat();
 
         alpha = interpolate(alpha); // apply the curve
 
         // let's find pos by shape
-        getRandomPosOn(lowSide, lowEdge, lowShape, lowPos, lowSize, randLow);
-        getRandomPosOn(highSide, highEdge, highShape, highPos, highSize, randHigh);
+        getRandomPosOn(seed, lowSide, lowEdge, lowShape, lowPos, lowSize, scratch, scratch.randLow);
+        getRandomPosOn(seed, highSide, highEdge, highShape, highPos, highSize, scratch, scratch.randHigh);
 
-        float x = Interpolation.linear.apply(randLow.x, randHigh.x, alpha);
-        float y = Interpolation.linear.apply(randLow.y, randHigh.y, alpha);
+        float x = Interpolation.linear.apply(scratch.randLow.x, scratch.randHigh.x, alpha);
+        float y = Interpolation.linear.apply(scratch.randLow.y, scratch.randHigh.y, alpha);
 
-        output.set(x, y);
+        context.getOutput(this, OUTPUT).set(x, y);
     }
 
-    private void getRandomPosOn(int side, boolean edge, int shape, NumericalValue pos, NumericalValue size, Vector2 result) {
-        random.setSeed((long) ((getScope().getFloat(ScopePayload.PARTICLE_SEED) * 10000 * index * 1000)));
-        float angle = random.nextFloat();
+    private static class Scratch {
+        final Vector2 randLow = new Vector2();
+        final Vector2 randHigh = new Vector2();
+        final Rectangle rect = new Rectangle();
+        final Vector2 tmp = new Vector2();
+    }
+
+    private void getRandomPosOn(float seed, int side, boolean edge, int shape, NumericalValue pos, NumericalValue size, Scratch scratch, Vector2 result) {
+        // low and high side intentionally share the same numbers
+        float angle = HashRandom.get(seed, index, 0);
 
         if(side == SIDE_TOP) angle = angle/2f;
         if(side == SIDE_BOTTOM) angle = angle/2f + 0.5f;
@@ -126,11 +141,11 @@ public class OffsetModule extends AbstractModule {
         if(side == SIDE_RIGHT) angle = angle/2f - 0.25f;
 
         if(shape == TYPE_SQUARE) {
-            findRandomSquarePos(angle, pos, size, result);
+            findRandomSquarePos(angle, pos, size, scratch.rect, result);
         } else if (shape == TYPE_ELLIPSE) {
             findRandomEllipsePos(angle, pos, size, result);
         } else if (shape == TYPE_LINE){
-            findRandomLinePos(angle, pos, size, result);
+            findRandomLinePos(angle, pos, size, scratch, result);
         }
 
         float endX = result.x + tolerance;
@@ -142,8 +157,8 @@ public class OffsetModule extends AbstractModule {
             startY = pos.get(1);
         }
 
-        float resultX = random.nextFloat() * (endX - startX) + startX;
-        float resultY = random.nextFloat() * (endY - startY) + startY;
+        float resultX = HashRandom.get(seed, index, 1) * (endX - startX) + startX;
+        float resultY = HashRandom.get(seed, index, 2) * (endY - startY) + startY;
 
         result.set(resultX, resultY);
     }
@@ -157,13 +172,15 @@ public class OffsetModule extends AbstractModule {
         result.set(x, y);
     }
 
-    private void findRandomSquarePos(float angle, NumericalValue pos, NumericalValue size, Vector2 result) {
+    private void findRandomSquarePos(float angle, NumericalValue pos, NumericalValue size, Rectangle rect, Vector2 result) {
         angle = angle * 360;
         rect.set(pos.get(0) - size.get(0)/2f, pos.get(1) - size.get(1)/2f, size.get(0), size.get(1));
         intersectSegmentRectangle(pos.get(0), pos.get(1), pos.get(0) + rect.width * MathUtils.cosDeg(angle), pos.get(1) + rect.height * MathUtils.sinDeg(angle), rect, result);
     }
 
-    private void findRandomLinePos(float angle, NumericalValue pos, NumericalValue size, Vector2 result) {
+    private void findRandomLinePos(float angle, NumericalValue pos, NumericalValue size, Scratch scratch, Vector2 result) {
+        Rectangle rect = scratch.rect;
+        Vector2 tmp = scratch.tmp;
         angle = angle * 360;
         rect.set(pos.get(0) - size.get(0)/2f, pos.get(1) - size.get(1)/2f, size.get(0), size.get(1));
         tmp.set(rect.width, rect.height); // initial segment vector; for alpha
@@ -177,17 +194,19 @@ public class OffsetModule extends AbstractModule {
         result.set(posX, posY);
     }
 
-    protected void processAlphaDefaults() {
+    protected void processAlphaDefaults(EvaluationContext context) {
+        NumericalValue alpha = context.getInput(this, ALPHA);
         if(alpha.isEmpty()) {
             // as default we are going to fetch the lifetime or duration depending on context
-            float requester = getScope().getFloat(ScopePayload.REQUESTER_ID);
+            ScopePayload scope = context.getScope();
+            float requester = scope.getFloat(ScopePayload.REQUESTER_ID);
             if(requester < 1) {
                 // particle
-                alpha.set(getScope().get(ScopePayload.PARTICLE_ALPHA));
+                alpha.set(scope.get(ScopePayload.PARTICLE_ALPHA));
                 alpha.setEmpty(false);
             } else if(requester > 1) {
                 // emitter
-                alpha.set(getScope().get(ScopePayload.EMITTER_ALPHA));
+                alpha.set(scope.get(ScopePayload.EMITTER_ALPHA));
                 alpha.setEmpty(false);
             } else {
                 // whaat?
@@ -243,12 +262,7 @@ public class OffsetModule extends AbstractModule {
         if(y1 == y2) return y1;
         if(x1 == x2) return y1;
 
-        tmp.set(x2, y2);
-        tmp.sub(x1, y1);
-        tmp.scl(alpha);
-        tmp.add(x1, y1);
-
-        return tmp.y;
+        return (y2 - y1) * alpha + y1;
     }
 
     public void setLowPos(Vector2 pos) {
@@ -442,4 +456,52 @@ public class OffsetModule extends AbstractModule {
         json.writeObjectEnd();
         json.writeObjectEnd();
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(getPoints().size);
+        for (Vector2 point : getPoints()) {
+            out.writeFloat(point.x);
+            out.writeFloat(point.y);
+        }
+
+        out.writeBoolean(lowEdge);
+        out.writeInt(lowShape);
+        out.writeInt(lowSide);
+        out.writeFloat(lowPos.get(0));
+        out.writeFloat(lowPos.get(1));
+        out.writeFloat(lowSize.get(0));
+        out.writeFloat(lowSize.get(1));
+
+        out.writeBoolean(highEdge);
+        out.writeInt(highShape);
+        out.writeInt(highSide);
+        out.writeFloat(highPos.get(0));
+        out.writeFloat(highPos.get(1));
+        out.writeFloat(highSize.get(0));
+        out.writeFloat(highSize.get(1));
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        points.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            createPoint(in.readFloat(), in.readFloat());
+        }
+
+        lowEdge = in.readBoolean();
+        lowShape = in.readInt();
+        lowSide = in.readInt();
+        lowPos.set(in.readFloat(), in.readFloat());
+        lowSize.set(in.readFloat(), in.readFloat());
+
+        highEdge = in.readBoolean();
+        highShape = in.readInt();
+        highSide = in.readInt();
+        highPos.set(in.readFloat(), in.readFloat());
+        highSize.set(in.readFloat(), in.readFloat());
+    }
 }
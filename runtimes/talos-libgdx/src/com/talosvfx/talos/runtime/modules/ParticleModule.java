@@ -20,9 +20,11 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticleDrawable;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -60,8 +62,6 @@ public class ParticleModule extends AbstractModule {
     NumericalValue size;
     NumericalValue position;
 
-    Color tmpColor = new Color();
-    Vector2 tmpVec = new Vector2();
     private ParticleDrawable defaultDrawable;
 
     @Override
@@ -85,23 +85,33 @@ public class ParticleModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public Object createScratch() {
+        return new Scratch();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
         // nothing to process, it's all cool as cucumber
     }
 
-    public void updateScopeData(Particle particle) {
-        getScope().set(ScopePayload.EMITTER_ALPHA, particle.getEmitterAlpha());
-        getScope().set(ScopePayload.PARTICLE_ALPHA, particle.alpha);
-        getScope().set(ScopePayload.PARTICLE_SEED, particle.seed);
-        getScope().set(ScopePayload.REQUESTER_ID, particle.seed);
-        getScope().set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, particle.durationAtInit);
-        getScope().set(ScopePayload.PARTICLE_POSITION, particle.getX(), particle.getY());
+    public void updateScopeData(EvaluationContext context, Particle particle) {
+        ScopePayload scope = context.getScope();
+        scope.set(ScopePayload.EMITTER_ALPHA, particle.getEmitterAlpha());
+        scope.set(ScopePayload.PARTICLE_ALPHA, particle.alpha);
+        scope.set(ScopePayload.PARTICLE_SEED, particle.seed);
+        scope.set(ScopePayload.REQUESTER_ID, particle.seed);
+        scope.set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, particle.durationAtInit);
+        scope.set(ScopePayload.PARTICLE_POSITION, particle.getX(), particle.getY());
+        scope.set(ScopePayload.SPAWN_INDEX, particle.spawnIndex);
 
-        getScope().setParticle(particle);
+        scope.setParticle(particle);
+
+        graph.executeParticleProgram(context, particle);
     }
 
-    public ParticleDrawable getDrawable() {
-        fetchInputSlotValue(DRAWABLE);
+    public ParticleDrawable getDrawable(EvaluationContext context) {
+        fetchInputSlotValue(context, DRAWABLE);
+        DrawableValue drawable = (DrawableValue) context.getInputValue(this, DRAWABLE);
         if(drawable.isEmpty() || drawable.getDrawable() == null) {
             return defaultDrawable;
         }
@@ -109,60 +119,84 @@ public class ParticleModule extends AbstractModule {
         return drawable.getDrawable();
     }
 
-    public float getTransparency() {
-        fetchInputSlotValue(TRANSPARENCY);
+    /**
+     * Puts aspect ratio of the bound drawable into scope, compiled programs call it once drawable inputs are evaluated
+     */
+    public void updateDrawableAspectRatio(EvaluationContext context) {
+        DrawableValue drawable = (DrawableValue) context.getInputValue(this, DRAWABLE);
+        ParticleDrawable particleDrawable = defaultDrawable;
+        if(!drawable.isEmpty() && drawable.getDrawable() != null) {
+            particleDrawable = drawable.getDrawable();
+        }
+        if(particleDrawable == null) return;
+        context.getScope().set(ScopePayload.DRAWABLE_ASPECT_RATIO, particleDrawable.getAspectRatio());
+    }
+
+    public float getTransparency(EvaluationContext context) {
+        fetchInputSlotValue(context, TRANSPARENCY);
+        NumericalValue transparency = context.getInput(this, TRANSPARENCY);
         if(transparency.isEmpty()) return 1; // defaults
         return transparency.getFloat();
     }
 
-    public float getLife() {
-        fetchInputSlotValue(LIFE);
+    public float getLife(EvaluationContext context) {
+        fetchInputSlotValue(context, LIFE);
+        NumericalValue life = context.getInput(this, LIFE);
         if(life.isEmpty()) return 2; // defaults
         return life.getFloat();
     }
 
-    public float getAngle() {
-        fetchInputSlotValue(ANGLE);
+    public float getAngle(EvaluationContext context) {
+        fetchInputSlotValue(context, ANGLE);
+        NumericalValue angle = context.getInput(this, ANGLE);
         if(angle.isEmpty()) return 90; // defaults
         return angle.getFloat();
     }
 
-    public float getVelocity() {
-        fetchInputSlotValue(VELOCITY);
+    public float getVelocity(EvaluationContext context) {
+        fetchInputSlotValue(context, VELOCITY);
+        NumericalValue velocity = context.getInput(this, VELOCITY);
         if(velocity.isEmpty()) return 0; // defaults
         return velocity.getFloat();
     }
 
-    public float getRotation() {
-        fetchInputSlotValue(ROTATION);
+    public float getRotation(EvaluationContext context) {
+        fetchInputSlotValue(context, ROTATION);
+        NumericalValue rotation = context.getInput(this, ROTATION);
         if(rotation.isEmpty()) return 0; // defaults
         return rotation.getFloat();
     }
 
-    public Vector2 getSize() {
-        fetchInputSlotValue(SIZE);
+    public Vector2 getSize(EvaluationContext context) {
+        fetchInputSlotValue(context, SIZE);
+        NumericalValue size = context.getInput(this, SIZE);
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
         if(size.isEmpty()) {
-            tmpVec.set(1f, 1f/getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
+            tmpVec.set(1f, 1f/context.getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
         }  else if(size.elementsCount() == 1) {
-            tmpVec.set(size.getFloat(), size.getFloat() / getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
+            tmpVec.set(size.getFloat(), size.getFloat() / context.getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
         } else if (size.elementsCount() == 2) {
             tmpVec.set(size.get(0), size.get(1));
         } else {
-            tmpVec.set(1f, 1f/getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
+            tmpVec.set(1f, 1f/context.getScope().getFloat(ScopePayload.DRAWABLE_ASPECT_RATIO));
         }
 
         return tmpVec;
     }
 
-    public Color getColor() {
-        fetchInputSlotValue(COLOR);
+    public Color getColor(EvaluationContext context) {
+        fetchInputSlotValue(context, COLOR);
+        NumericalValue color = context.getInput(this, COLOR);
+        Color tmpColor = context.<Scratch>getScratch(this).color;
         if(color.isEmpty()) return Color.WHITE; // defaults
         tmpColor.set(color.get(0), color.get(1), color.get(2), 1f);
         return tmpColor;
     }
 
-    public Vector2 getStartPosition() {
-        fetchInputSlotValue(OFFSET);
+    public Vector2 getStartPosition(EvaluationContext context) {
+        fetchInputSlotValue(context, OFFSET);
+        NumericalValue offset = context.getInput(this, OFFSET);
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
         if(offset.isEmpty()) {
             tmpVec.set(0, 0);
             return tmpVec;
@@ -172,8 +206,10 @@ public class ParticleModule extends AbstractModule {
         return tmpVec;
     }
 
-    public Vector2 getTarget() {
-        fetchInputSlotValue(TARGET);
+    public Vector2 getTarget(EvaluationContext context) {
+        fetchInputSlotValue(context, TARGET);
+        NumericalValue target = context.getInput(this, TARGET);
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
         if(target.isEmpty()) {
             return null;
         }
@@ -182,8 +218,10 @@ public class ParticleModule extends AbstractModule {
         return tmpVec;
     }
 
-    public Vector2 getPosition() {
-        fetchInputSlotValue(POSITION);
+    public Vector2 getPosition(EvaluationContext context) {
+        fetchInputSlotValue(context, POSITION);
+        NumericalValue position = context.getInput(this, POSITION);
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
         if(position.isEmpty()) {
             return null;
         }
@@ -192,6 +230,84 @@ public class ParticleModule extends AbstractModule {
         return tmpVec;
     }
 
+    /*
+     * Block evaluated counterparts of the getters above, inputs are root inputs of the particle BlockProgram
+     */
+
+    public float getTransparency(FloatColumns inputs, int i) {
+        if(inputs.isEmpty(TRANSPARENCY)) return 1;
+        return inputs.get(TRANSPARENCY, 0)[i];
+    }
+
+    public float getLife(FloatColumns inputs, int i) {
+        if(inputs.isEmpty(LIFE)) return 2;
+        return inputs.get(LIFE, 0)[i];
+    }
+
+    public float getAngle(FloatColumns inputs, int i) {
+        if(inputs.isEmpty(ANGLE)) return 90;
+        return inputs.get(ANGLE, 0)[i];
+    }
+
+    public float getVelocity(FloatColumns inputs, int i) {
+        if(inputs.isEmpty(VELOCITY)) return 0;
+        return inputs.get(VELOCITY, 0)[i];
+    }
+
+    public float getRotation(FloatColumns inputs, int i) {
+        if(inputs.isEmpty(ROTATION)) return 0;
+        return inputs.get(ROTATION, 0)[i];
+    }
+
+    public Vector2 getSize(EvaluationContext context, FloatColumns inputs, int i) {
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
+        int count = inputs.isEmpty(SIZE) ? 0 : inputs.getElementCount(SIZE);
+        if(count == 1) {
+            float size = inputs.get(SIZE, 0)[i];
+            tmpVec.set(size, size / inputs.getScope().get(ScopePayload.DRAWABLE_ASPECT_RATIO, 0)[i]);
+        } else if (count == 2) {
+            tmpVec.set(inputs.get(SIZE, 0)[i], inputs.get(SIZE, 1)[i]);
+        } else {
+            tmpVec.set(1f, 1f/inputs.getScope().get(ScopePayload.DRAWABLE_ASPECT_RATIO, 0)[i]);
+        }
+
+        return tmpVec;
+    }
+
+    public Color getColor(EvaluationContext context, FloatColumns inputs, int i) {
+        Color tmpColor = context.<Scratch>getScratch(this).color;
+        if(inputs.isEmpty(COLOR)) return Color.WHITE;
+        tmpColor.set(inputs.get(COLOR, 0)[i], inputs.get(COLOR, 1)[i], inputs.get(COLOR, 2)[i], 1f);
+        return tmpColor;
+    }
+
+    public Vector2 getStartPosition(EvaluationContext context, FloatColumns inputs, int i) {
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
+        if(inputs.isEmpty(OFFSET)) {
+            tmpVec.set(0, 0);
+            return tmpVec;
+        }
+        tmpVec.set(inputs.get(OFFSET, 0)[i], inputs.get(OFFSET, 1)[i]);
+
+        return tmpVec;
+    }
+
+    public Vector2 getTarget(EvaluationContext context, FloatColumns inputs, int i) {
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
+        if(inputs.isEmpty(TARGET)) return null;
+        tmpVec.set(inputs.get(TARGET, 0)[i], inputs.get(TARGET, 1)[i]);
+
+        return tmpVec;
+    }
+
+    public Vector2 getPosition(EvaluationContext context, FloatColumns inputs, int i) {
+        Vector2 tmpVec = context.<Scratch>getScratch(this).vector;
+        if(inputs.isEmpty(POSITION)) return null;
+        tmpVec.set(inputs.get(POSITION, 0)[i], inputs.get(POSITION, 1)[i]);
+
+        return tmpVec;
+    }
+
     public void setDefaultDrawable(ParticleDrawable defaultDrawable) {
         this.defaultDrawable = defaultDrawable;
     }
@@ -205,4 +321,9 @@ public class ParticleModule extends AbstractModule {
     public void read (Json json, JsonValue jsonData) {
         super.read(json, jsonData);
     }
+
+    private static class Scratch {
+        final Vector2 vector = new Vector2();
+        final Color color = new Color();
+    }
 }
@@ -20,11 +20,14 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.Slot;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.render.drawables.PolylineRenderer;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -73,18 +76,26 @@ public class PolylineModule extends AbstractModule {
     }
 
     @Override
-    public void fetchAllInputSlotValues() {
-        float requester = getScope().get(ScopePayload.REQUESTER_ID).getFloat();
-        polylineDrawable.setCurrentParticle(getScope().currParticle());
+    public void fetchAllInputSlotValues(EvaluationContext context) {
+        ScopePayload scope = context.getScope();
+        float requester = scope.get(ScopePayload.REQUESTER_ID).getFloat();
+        polylineDrawable.setCurrentParticle(scope.currParticle());
+
+        NumericalValue offset = context.getInput(this, OFFSET);
+        NumericalValue thickness = context.getInput(this, THICKNESS);
+        NumericalValue color = context.getInput(this, COLOR);
+        NumericalValue transparency = context.getInput(this, TRANSPARENCY);
+        NumericalValue leftTangent = context.getInput(this, LEFT_TANGENT);
+        NumericalValue rightTangent = context.getInput(this, RIGHT_TANGENT);
 
         for(int i = 0; i < pointCount; i++) {
 
             float pointAlpha = (float)i/(pointCount-1);
-            getScope().set(ScopePayload.SECONDARY_SEED, pointAlpha);
-            getScope().set(ScopePayload.REQUESTER_ID, requester + pointAlpha*0.1f);
+            scope.set(ScopePayload.SECONDARY_SEED, pointAlpha);
+            scope.set(ScopePayload.REQUESTER_ID, requester + pointAlpha*0.1f);
 
-            for(Slot inputSlot : inputSlots.values()) {
-                fetchInputSlotValue(inputSlot.getIndex());
+            for(Slot inputSlot : getInputSlotArray()) {
+                fetchInputSlotValue(context, inputSlot.getIndex());
             }
 
             float transparencyVal = 1f;
@@ -111,12 +122,22 @@ public class PolylineModule extends AbstractModule {
             polylineDrawable.setPointData(i, offset.get(0), offset.get(1), thicknessVal, tmpColor);
             polylineDrawable.setTangents(leftTangent.get(0), leftTangent.get(1), rightTangent.get(0), rightTangent.get(1));
         }
-        getScope().set(ScopePayload.REQUESTER_ID, requester);
+        scope.set(ScopePayload.REQUESTER_ID, requester);
     }
 
     @Override
-    public void processValues() {
-        outputValue.setDrawable(polylineDrawable);
+    public boolean isCompilable() {
+        return false; // inputs are fetched once per point
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false; // all instances write their points to the same renderer
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        ((DrawableValue) context.getOutputValue(this, OUTPUT)).setDrawable(polylineDrawable);
     }
 
     public void setInterpolationPoints(int count) {
@@ -139,6 +160,21 @@ public class PolylineModule extends AbstractModule {
         regionName = jsonData.getString("regionName", "fire");
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(pointCount - 2);
+        out.writeString(regionName);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        pointCount = in.readCount() + 2;
+        polylineDrawable.setCount(pointCount - 2);
+        regionName = in.readString();
+    }
+
 
     public void setRegion (String regionName, TextureRegion region) {
         this.regionName = regionName;
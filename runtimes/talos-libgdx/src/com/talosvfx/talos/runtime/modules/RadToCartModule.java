@@ -1,6 +1,7 @@
 package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.math.Vector2;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class RadToCartModule extends AbstractModule {
@@ -13,8 +14,6 @@ public class RadToCartModule extends AbstractModule {
     NumericalValue l;
     NumericalValue output;
 
-    Vector2 tmp = new Vector2();
-
     @Override
     protected void defineSlots() {
         a = createInputSlot(A);
@@ -26,10 +25,21 @@ public class RadToCartModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        tmp.set(l.getFloat(), 0);
-        tmp.rotate(a.getFloat());
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public Object createScratch() {
+        return new Vector2();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        Vector2 tmp = context.getScratch(this);
+        tmp.set(context.getInput(this, L).getFloat(), 0);
+        tmp.rotate(context.getInput(this, A).getFloat());
 
-        output.set(tmp.x, tmp.y);
+        context.getOutput(this, OUTPUT).set(tmp.x, tmp.y);
     }
 }
@@ -19,18 +19,16 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 import com.talosvfx.talos.runtime.values.Value;
 
-import java.util.Random;
-
 public class RandomInputModule extends AbstractModule {
 
     Class valueType = null;
 
-    private Random random = new Random();
-
     public int slotCount = 0;
 
     @Override
@@ -42,6 +40,7 @@ public class RandomInputModule extends AbstractModule {
     public void addInputSlot(int key) {
         Slot slot = new Slot(this, key, true);
         inputSlots.put(key, slot);
+        slotsChanged();
     }
 
     @Override
@@ -72,14 +71,19 @@ public class RandomInputModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 1 << ScopePayload.EMITTER_ALPHA_AT_P_INIT;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
 
-        Value output = outputSlots.get(0).getValue();
+        Value output = context.getOutputValue(this, 0);
         if(output != null) {
-            random.setSeed((long) ((getScope().getFloat(ScopePayload.EMITTER_ALPHA_AT_P_INIT) * 10000 * (index+1) * 1000)));
-            int index = MathUtils.round(random.nextFloat() * (inputSlots.size - 1));
+            float random = HashRandom.get(context.getScope().getFloat(ScopePayload.EMITTER_ALPHA_AT_P_INIT), this.index, 0);
+            int index = MathUtils.round(random * (inputSlots.size - 1));
 
-            Value input = inputSlots.get(index).getValue();
+            Value input = context.getInputValue(this, index);
             if(input != null && !input.isEmpty()) {
                 output.set(input);
             }
@@ -18,12 +18,15 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.DistributedRandom;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
-import java.util.Random;
-
 public class RandomRangeModule extends AbstractModule {
 
     public static final int MIN_INPUT = 0;
@@ -38,8 +41,6 @@ public class RandomRangeModule extends AbstractModule {
 
     private float min = 1, max = 1;
 
-    private Random random = new Random();
-    private DistributedRandom distributedRandom = new DistributedRandom();
     private boolean distributed = false;
 
     @Override
@@ -51,19 +52,17 @@ public class RandomRangeModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        // what's worse, keeping thousands of long values, or keeping floats but casting 1000 times to long?
-        // I'll leave the answer to the reader
-        long seed = (long) (getScope().getFloat(ScopePayload.PARTICLE_SEED) * 10000 * (index+1) * 1000);
+    public int getScopeDependencies() {
+        return distributed ? (1 << ScopePayload.PARTICLE_SEED) | (1 << ScopePayload.SPAWN_INDEX) : 1 << ScopePayload.PARTICLE_SEED;
+    }
 
-        float startPos;
-        if(!distributed) {
-            random.setSeed(seed);
-            startPos = random.nextFloat();
-        } else {
-            distributedRandom.setSeed((int) (10000 * (index+1)));
-            startPos = distributedRandom.nextFloat();
-        }
+    @Override
+    public void processValues(EvaluationContext context) {
+        ScopePayload scope = context.getScope();
+        float startPos = nextFloat(scope.getFloat(ScopePayload.PARTICLE_SEED), (int)scope.getFloat(ScopePayload.SPAWN_INDEX));
+
+        NumericalValue minInput = context.getInput(this, MIN_INPUT);
+        NumericalValue maxInput = context.getInput(this, MAX_INPUT);
 
         float min = this.min;
         float max = this.max;
@@ -73,7 +72,36 @@ public class RandomRangeModule extends AbstractModule {
 
         float res = min + (max - min) * startPos;
 
-        output.set(res);
+        context.getOutput(this, OUTPUT).set(res);
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        if(in.isEmpty(MIN_INPUT)) in.fill(MIN_INPUT, start, count, min);
+        if(in.isEmpty(MAX_INPUT)) in.fill(MAX_INPUT, start, count, max);
+
+        float[] seed = in.getScope().get(ScopePayload.PARTICLE_SEED, 0);
+        float[] spawnIndex = in.getScope().get(ScopePayload.SPAWN_INDEX, 0);
+        float[] min = in.get(MIN_INPUT, 0);
+        float[] max = in.get(MAX_INPUT, 0);
+        float[] output = out.getWritable(OUTPUT, 0);
+        for(int i = start; i < start + count; i++) {
+            output[i] = min[i] + (max[i] - min[i]) * nextFloat(seed[i], (int)spawnIndex[i]);
+        }
+        out.setElementCount(OUTPUT, 1);
+
+        return true;
+    }
+
+    /**
+     * @param spawnIndex order particle was spawned in, consecutive particles get distributed values from different thirds of the range
+     */
+    private float nextFloat(float particleSeed, int spawnIndex) {
+        if(!distributed) {
+            return HashRandom.get(particleSeed, index, OUTPUT);
+        } else {
+            return DistributedRandom.get(index, spawnIndex, particleSeed);
+        }
     }
 
     public void setMinMax(float min, float max) {
@@ -109,6 +137,22 @@ public class RandomRangeModule extends AbstractModule {
         distributed = jsonData.getBoolean("distributed", false);
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(min);
+        out.writeFloat(max);
+        out.writeBoolean(distributed);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        min = in.readFloat();
+        max = in.readFloat();
+        distributed = in.readBoolean();
+    }
+
     public boolean isDistributed () {
         return distributed;
     }
@@ -2,11 +2,17 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.graph.GraphOptimizer;
 import com.talosvfx.talos.runtime.render.drawables.RibbonRenderer;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -33,6 +39,10 @@ public class RibbonModule extends AbstractModule {
     DrawableValue outputValue;
 
     Color tmpColor = new Color();
+    float tmpThickness;
+
+    private static final int[] POINT_SLOTS = {THICKNESS, TRANSPARENCY, COLOR};
+    private IntArray perPointSlots;
 
     @Override
     protected void defineSlots() {
@@ -49,23 +59,40 @@ public class RibbonModule extends AbstractModule {
     }
 
     @Override
-    public void fetchAllInputSlotValues() {
-        super.fetchAllInputSlotValues();
+    public void fetchAllInputSlotValues(EvaluationContext context) {
+        super.fetchAllInputSlotValues(context);
 
-        float requester = getScope().get(ScopePayload.REQUESTER_ID).getFloat();
+        ScopePayload scope = context.getScope();
+        float requester = scope.get(ScopePayload.REQUESTER_ID).getFloat();
 
         RibbonRenderer renderer = (RibbonRenderer) outputValue.getDrawable();
 
-        renderer.setCurrentParticle(getScope().currParticle());
+        renderer.setCurrentParticle(scope.currParticle());
+
+        NumericalValue thicknessValue = context.getInput(this, THICKNESS);
+        NumericalValue transparencyValue = context.getInput(this, TRANSPARENCY);
+        NumericalValue colorValue = context.getInput(this, COLOR);
+
+        if(perPointSlots == null) {
+            perPointSlots = findPerPointSlots();
+        }
+
         for(int i = 0; i < detail; i++) {
+            if(i > 0 && perPointSlots.size == 0) {
+                // nothing depends on the point, so all of them get the values fetched above
+                renderer.setPointData(i, tmpThickness, tmpColor);
+                continue;
+            }
 
-            float pointAlpha = (float)i/(detail-1);
-            if(pointAlpha == 0) pointAlpha = 0.001f;
-            getScope().set(ScopePayload.SECONDARY_SEED, pointAlpha);
-            getScope().set(ScopePayload.REQUESTER_ID, requester + pointAlpha*0.1f);
+            if(perPointSlots.size > 0) {
+                float pointAlpha = (float)i/(detail-1);
+                if(pointAlpha == 0) pointAlpha = 0.001f;
+                scope.set(ScopePayload.SECONDARY_SEED, pointAlpha);
+                scope.set(ScopePayload.REQUESTER_ID, requester + pointAlpha*0.1f);
 
-            for(Slot inputSlot : inputSlots.values()) {
-                fetchInputSlotValue(inputSlot.getIndex());
+                for(int j = 0; j < perPointSlots.size; j++) {
+                    fetchInputSlotValue(context, perPointSlots.get(j));
+                }
             }
 
             float transparencyVal = 1f;
@@ -80,21 +107,58 @@ public class RibbonModule extends AbstractModule {
                 tmpColor.set(colorValue.get(0), colorValue.get(1), colorValue.get(2), transparencyVal);
             }
 
-            float thicknessVal = 0.1f;
+            tmpThickness = 0.1f;
             if(!thicknessValue.isEmpty()) {
-                thicknessVal = thicknessValue.getFloat();
+                tmpThickness = thicknessValue.getFloat();
             }
 
-            renderer.setPointData(i, thicknessVal, tmpColor);
+            renderer.setPointData(i, tmpThickness, tmpColor);
+        }
+
+        scope.set(ScopePayload.REQUESTER_ID, requester);
+    }
+
+    /**
+     * @return point inputs that change along the ribbon, only those are fetched once per point
+     */
+    private IntArray findPerPointSlots() {
+        IntArray slots = new IntArray();
+        ObjectIntMap<AbstractModule> dependencies = new ObjectIntMap<>();
+        int perPointKeys = (1 << ScopePayload.SECONDARY_SEED) | (1 << ScopePayload.REQUESTER_ID);
+
+        for(int slotId: POINT_SLOTS) {
+            Slot slot = getInputSlot(slotId);
+            if(slot == null || slot.getTargetModule() == null) continue;
+
+            int mask = GraphOptimizer.getDependencies(slot.getTargetModule(), dependencies);
+            if(mask == GraphOptimizer.ANY || (mask & perPointKeys) != 0) {
+                slots.add(slotId);
+            }
         }
-        //renderer.adjustPointData();
 
-        getScope().set(ScopePayload.REQUESTER_ID, requester);
+        return slots;
+    }
+
+    @Override
+    public void graphChanged() {
+        perPointSlots = null;
+    }
+
+    @Override
+    public boolean isCompilable() {
+        return false; // inputs may be fetched once per point
     }
 
     @Override
-    public void processValues() {
+    public boolean isThreadSafe() {
+        return false; // all instances write their points to the same renderer
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
         RibbonRenderer renderer = (RibbonRenderer) outputValue.getDrawable();
+        DrawableValue mainDrawableValue = (DrawableValue) context.getInputValue(this, MAIN_REGION);
+        DrawableValue ribbonDrawableValue = (DrawableValue) context.getInputValue(this, RIBBON_REGION);
 
         TextureRegion mainRegion = null;
         TextureRegion ribbonRegion = null;
@@ -145,4 +209,20 @@ public class RibbonModule extends AbstractModule {
         RibbonRenderer renderer = (RibbonRenderer) outputValue.getDrawable();
         renderer.setConfig(detail, memoryDuration);
     }
+
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeInt(detail);
+        out.writeFloat(memoryDuration);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        detail = in.readInt();
+        memoryDuration = in.readFloat();
+        RibbonRenderer renderer = (RibbonRenderer) outputValue.getDrawable();
+        renderer.setConfig(detail, memoryDuration);
+    }
 }
@@ -19,8 +19,11 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.script.ScriptCompiler;
 import com.talosvfx.talos.runtime.scripts.SimpleReturnScript;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class ScriptModule extends AbstractModule {
@@ -74,7 +77,19 @@ public class ScriptModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public void processValues(EvaluationContext context) {
+        NumericalValue input1 = context.getInput(this, INPUT1);
+        NumericalValue input2 = context.getInput(this, INPUT2);
+        NumericalValue input3 = context.getInput(this, INPUT3);
+        NumericalValue input4 = context.getInput(this, INPUT4);
+        NumericalValue input5 = context.getInput(this, INPUT5);
+
+        NumericalValue output1 = context.getOutput(this, OUTPUT1);
+        NumericalValue output2 = context.getOutput(this, OUTPUT2);
+        NumericalValue output3 = context.getOutput(this, OUTPUT3);
+        NumericalValue output4 = context.getOutput(this, OUTPUT4);
+        NumericalValue output5 = context.getOutput(this, OUTPUT5);
+
         if (returnScript != null) {
             returnScript.evaulate(input1, input2, input3, input4, input5, output1, output2, output3, output4, output5);
         } else {
@@ -122,4 +137,16 @@ public class ScriptModule extends AbstractModule {
         this.script = jsonData.getString("script");
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(script);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        script = in.readString();
+    }
+
 }
@@ -2,17 +2,21 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleDrawable;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.render.drawables.ShadedDrawable;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.ShaderDescriptor;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 
-public class ShadedSpriteModule extends AbstractModule {
+public class ShadedSpriteModule extends AbstractModule implements Disposable {
 
     public static final int OUTPUT = 0;
 
@@ -31,7 +35,7 @@ public class ShadedSpriteModule extends AbstractModule {
     }
 
     @Override
-    public void processValues () {
+    public void processValues (EvaluationContext context) {
         ShadedDrawable drawable = (ShadedDrawable) outputValue.getDrawable();
     }
 
@@ -59,6 +63,18 @@ public class ShadedSpriteModule extends AbstractModule {
         shdrFileName = jsonData.getString("shdrAssetName", "");
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(shdrFileName);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        shdrFileName = in.readString();
+    }
+
     public void setShaderData(ShaderDescriptor shaderDescriptor, String fileName) {
         shdrFileName = fileName;
         updateShader(shaderDescriptor);
@@ -87,4 +103,9 @@ public class ShadedSpriteModule extends AbstractModule {
     public ShaderDescriptor getShaderDescriptor() {
         return shaderDescriptor;
     }
+
+    @Override
+    public void dispose() {
+        ((ShadedDrawable) outputValue.getDrawable()).dispose();
+    }
 }
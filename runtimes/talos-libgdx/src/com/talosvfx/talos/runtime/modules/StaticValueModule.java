@@ -18,6 +18,10 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class StaticValueModule extends AbstractModule {
@@ -36,8 +40,19 @@ public class StaticValueModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        outputValue.set(staticValue);
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        context.getOutput(this, OUTPUT).set(staticValue);
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        out.fill(OUTPUT, start, count, staticValue.getFloat());
+        return true;
     }
 
     public void setStaticValue(float val) {
@@ -64,4 +79,16 @@ public class StaticValueModule extends AbstractModule {
         setStaticValue(jsonData.getFloat("value"));
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(getStaticValue());
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        setStaticValue(in.readFloat());
+    }
+
 }
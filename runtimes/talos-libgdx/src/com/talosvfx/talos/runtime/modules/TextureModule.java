@@ -19,9 +19,12 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.DrawableValue;
 
 public class TextureModule extends AbstractModule {
@@ -41,8 +44,13 @@ public class TextureModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
-        outputValue.set(userDrawable);
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        context.getOutputValue(this, OUTPUT).set(userDrawable);
     }
 
     public void setRegion (String regionName, Sprite region) {
@@ -72,5 +80,17 @@ public class TextureModule extends AbstractModule {
         regionName = jsonData.getString("regionName");
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(regionName);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        regionName = in.readString();
+    }
+
 
 }
@@ -19,6 +19,10 @@ package com.talosvfx.talos.runtime.modules;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
+import com.talosvfx.talos.runtime.graph.FloatColumns;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class Vector2Module extends AbstractModule {
@@ -42,12 +46,31 @@ public class Vector2Module extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 0;
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
+        NumericalValue x = context.getInput(this, X);
+        NumericalValue y = context.getInput(this, Y);
 
         if(x.isEmpty()) x.set(defaultX);
         if(y.isEmpty()) y.set(defaultY);
 
-        output.set(x, y);
+        context.getOutput(this, OUTPUT).set(x, y);
+    }
+
+    @Override
+    public boolean processBlock(EvaluationContext context, int start, int count, FloatColumns in, FloatColumns out) {
+        if(in.isEmpty(X)) in.fill(X, start, count, defaultX);
+        if(in.isEmpty(Y)) in.fill(Y, start, count, defaultY);
+
+        System.arraycopy(in.get(X, 0), start, out.getWritable(OUTPUT, 0), start, count);
+        System.arraycopy(in.get(Y, 0), start, out.getWritable(OUTPUT, 1), start, count);
+        out.setElementCount(OUTPUT, 2);
+
+        return true;
     }
 
     public void setX(float x) {
@@ -80,4 +103,18 @@ public class Vector2Module extends AbstractModule {
         defaultY = jsonData.getFloat("y", 0);
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeFloat(getDefaultX());
+        out.writeFloat(getDefaultY());
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        defaultX = in.readFloat();
+        defaultY = in.readFloat();
+    }
+
 }
@@ -3,9 +3,12 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.EvaluationContext;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
+import com.talosvfx.talos.runtime.serialization.BinaryExportReader;
+import com.talosvfx.talos.runtime.serialization.BinaryExportWriter;
 import com.talosvfx.talos.runtime.utils.VectorField;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
@@ -25,9 +28,6 @@ public class VectorFieldModule extends AbstractModule {
     NumericalValue angle;
     NumericalValue velocity;
 
-    Vector2 pos = new Vector2();
-    Vector2 tmp = new Vector2();
-
     public String fgaFileName;
     VectorField vectorField;
 
@@ -42,8 +42,25 @@ public class VectorFieldModule extends AbstractModule {
     }
 
     @Override
-    public void processValues() {
+    public int getScopeDependencies() {
+        return 1 << ScopePayload.PARTICLE_POSITION;
+    }
+
+    @Override
+    public Object createScratch() {
+        return new Scratch();
+    }
+
+    @Override
+    public void processValues(EvaluationContext context) {
         if(vectorField == null) return;
+        NumericalValue scale = context.getInput(this, SIZE_SCALE);
+        NumericalValue force = context.getInput(this, FORCE_SCALE);
+        NumericalValue position = context.getInput(this, POSITION);
+        Scratch scratch = context.getScratch(this);
+        Vector2 pos = scratch.pos;
+        Vector2 tmp = scratch.tmp;
+
         float scaleVal = 1f;
         if(!scale.isEmpty()) {
             scaleVal = scale.getFloat();
@@ -54,17 +71,15 @@ public class VectorFieldModule extends AbstractModule {
             forceVal = force.getFloat();
         }
 
-        NumericalValue posNumVal = getScope().get(ScopePayload.PARTICLE_POSITION);
+        NumericalValue posNumVal = context.getScope().get(ScopePayload.PARTICLE_POSITION);
         pos.set(posNumVal.get(0), posNumVal.get(1));
 
-        vectorField.setScale(scaleVal);
-        vectorField.setPosition(position.get(0), position.get(1));
-
-        tmp = vectorField.getValue(pos, tmp);
+        // field asset is shared, so it's placed per call instead of being moved
+        vectorField.getValue(pos, scaleVal, position.get(0), position.get(1), tmp);
         tmp.scl(forceVal);
 
-        angle.set(tmp.angle());
-        velocity.set(tmp.len());
+        context.getOutput(this, ANGLE).set(tmp.angle());
+        context.getOutput(this, VELOCITY).set(tmp.len());
     }
 
     @Override
@@ -88,6 +103,18 @@ public class VectorFieldModule extends AbstractModule {
         fgaFileName = jsonData.getString("fgaAssetName", "");
     }
 
+    @Override
+    public void write (BinaryExportWriter out) {
+        super.write(out);
+        out.writeString(fgaFileName);
+    }
+
+    @Override
+    public void read (BinaryExportReader in) {
+        super.read(in);
+        fgaFileName = in.readString();
+    }
+
     public void setVectorField(VectorField vectorField, String fileName) {
         this.vectorField = vectorField;
         fgaFileName = fileName;
@@ -96,4 +123,9 @@ public class VectorFieldModule extends AbstractModule {
     public VectorField getVectorField() {
         return vectorField;
     }
+
+    private static class Scratch {
+        final Vector2 pos = new Vector2();
+        final Vector2 tmp = new Vector2();
+    }
 }
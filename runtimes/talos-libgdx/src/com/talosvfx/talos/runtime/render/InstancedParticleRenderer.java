@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.talosvfx.talos.runtime.IEmitter;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+import com.talosvfx.talos.runtime.utils.DefaultShaders;
+
+/**
+ * Draws plain sprite particles as instances of one static quad, only a compact record per particle is uploaded
+ * and quads are expanded and rotated in the vertex shader. Other drawables go through the batch as usual.
+ * Falls back to {@link SpriteBatchParticleRenderer} when instancing is not available.
+ * Has to be used between {@link Batch#begin()} and {@link Batch#end()}, same as the batch renderers.
+ */
+public class InstancedParticleRenderer implements ParticleRenderer, Disposable {
+
+	private static final int MAX_INSTANCES = 4096;
+
+	private Batch batch;
+
+	private final ParticleInstancePacker packer = new ParticleInstancePacker();
+
+	private Mesh mesh;
+	private ShaderProgram shader;
+	private SpriteBatchParticleRenderer fallback;
+
+	private final Matrix4 combined = new Matrix4();
+	private Color color = new Color(Color.WHITE);
+
+	private final PendingDrawables pendingDrawables = new PendingDrawables();
+
+	private int blendSrc;
+	private int blendDst;
+
+	public InstancedParticleRenderer (Batch batch) {
+		this.batch = batch;
+
+		if (isSupported()) {
+			initMesh();
+		} else {
+			fallback = new SpriteBatchParticleRenderer(batch);
+		}
+	}
+
+	public static boolean isSupported () {
+		return Gdx.gl30 != null;
+	}
+
+	private void initMesh () {
+		shader = new ShaderProgram(DefaultShaders.INSTANCED_VERTEX_SHADER, DefaultShaders.INSTANCED_FRAGMENT_SHADER);
+		if (!shader.isCompiled()) {
+			throw new GdxRuntimeException("Couldn't compile instanced particle shader: " + shader.getLog());
+		}
+
+		mesh = new Mesh(true, 4, 6, new VertexAttribute(VertexAttributes.Usage.Position, 2, "a_corner"));
+		mesh.setVertices(new float[] {-0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f, 0.5f, -0.5f});
+		mesh.setIndices(new short[] {0, 1, 2, 2, 3, 0});
+		mesh.enableInstancedRendering(false, MAX_INSTANCES,
+				new VertexAttribute(VertexAttributes.Usage.Generic, 4, "a_transform"),
+				new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+				new VertexAttribute(VertexAttributes.Usage.Generic, 2, "a_params"));
+	}
+
+	public void setBatch (Batch batch) {
+		this.batch = batch;
+		if (fallback != null) fallback.setBatch(batch);
+	}
+
+	@Override
+	public void render (ParticleEffectInstance particleEffectInstance) {
+		if (particleEffectInstance.isCulled()) return;
+
+		if (fallback != null) {
+			fallback.render(particleEffectInstance);
+			return;
+		}
+
+		float interpolation = particleEffectInstance.getInterpolation();
+
+		for (int i = 0; i < particleEffectInstance.getEmitters().size; i++) {
+			final IEmitter particleEmitter = particleEffectInstance.getEmitters().get(i);
+			if(!particleEmitter.isVisible()) continue;
+			if(particleEmitter.isBlendAdd()) {
+				setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+			} else {
+				if (particleEmitter.isAdditive()) {
+					setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
+				} else {
+					setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+				}
+			}
+
+			Array<Particle> particles = particleEmitter.getActiveParticles();
+			for (int j = 0; j < particleEmitter.getActiveParticleCount(); j++) {
+				renderParticle(particleEmitter, particles.get(j), particleEffectInstance.alpha, interpolation);
+			}
+			pendingDrawables.flush(batch);
+			flush();
+		}
+
+		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+
+	private void setBlendFunction (int src, int dst) {
+		blendSrc = src;
+		blendDst = dst;
+		batch.setBlendFunction(src, dst);
+	}
+
+	private void renderParticle (IEmitter emitter, Particle particle, float parentAlpha, float interpolation) {
+		if (particle.drawable == null) return;
+		pendingDrawables.add(batch, particle.drawable);
+
+		color.set(particle.color);
+		color.mul(emitter.getTint());
+		color.a = particle.transparency * parentAlpha;
+
+		if (interpolation < 1f) particle.beginInterpolation(interpolation);
+
+		if (particle.drawable.getClass() == TextureRegionDrawable.class) {
+			TextureRegion region = particle.drawable.getTextureRegion();
+			if (region != null) {
+				float packedColor = color.toFloatBits();
+				if (!packer.add(region, particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation, packedColor)) {
+					flush();
+					packer.add(region, particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation, packedColor);
+				}
+			}
+		} else {
+			flush();
+			batch.setColor(color);
+			particle.drawable.setCurrentParticle(particle);
+			particle.drawable.draw(batch, particle, color);
+		}
+
+		if (interpolation < 1f) particle.endInterpolation();
+	}
+
+	private void flush () {
+		if (packer.getSize() == 0) return;
+
+		batch.flush(); // keep order with whatever batch has drawn so far
+
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(blendSrc, blendDst);
+
+		combined.set(batch.getProjectionMatrix()).mul(batch.getTransformMatrix());
+
+		shader.begin();
+		shader.setUniformMatrix("u_projTrans", combined);
+		shader.setUniformi("u_texture", 0);
+		shader.setUniform4fv("u_regions", packer.getRegions(), 0, packer.getRegionCount() * 4);
+		packer.getTexture().bind(0);
+
+		float[] instances = packer.getInstances();
+		int chunk = MAX_INSTANCES * ParticleInstancePacker.INSTANCE_SIZE;
+		for (int offset = 0; offset < packer.getSize(); offset += chunk) {
+			mesh.setInstanceData(instances, offset, Math.min(chunk, packer.getSize() - offset));
+			mesh.render(shader, GL20.GL_TRIANGLES);
+		}
+		shader.end();
+
+		if (batch.isDrawing()) {
+			batch.getShader().begin(); // batch only binds it's shader in begin()
+		}
+
+		packer.clear();
+	}
+
+	@Override
+	public void dispose () {
+		if (mesh != null) mesh.dispose();
+		if (shader != null) shader.dispose();
+	}
+}
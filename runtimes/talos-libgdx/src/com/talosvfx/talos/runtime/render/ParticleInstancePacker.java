@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Packs one compact record per particle for instanced drawing, plus the table of texture regions the records point into.
+ * Does not touch GL, so it can be used without a graphics context.
+ */
+public class ParticleInstancePacker {
+
+	/**
+	 * x, y, width, height, packed color, rotation, region index
+	 */
+	public static final int INSTANCE_SIZE = 7;
+
+	/**
+	 * size of the region table in the shader, a run can't reference more regions than this
+	 */
+	public static final int MAX_REGIONS = 64;
+
+	private float[] instances;
+	private int size;
+
+	private final float[] regions = new float[MAX_REGIONS * 4];
+	private final ObjectIntMap<TextureRegion> regionIndices = new ObjectIntMap<>();
+	private int regionCount;
+
+	private Texture texture;
+
+	public ParticleInstancePacker () {
+		this(256);
+	}
+
+	public ParticleInstancePacker (int instanceCapacity) {
+		instances = new float[Math.max(instanceCapacity, 1) * INSTANCE_SIZE];
+	}
+
+	/**
+	 * @return false if particle can't join the current run, because of a different texture or a full region table
+	 */
+	public boolean add (TextureRegion region, float x, float y, float width, float height, float rotation, float color) {
+		if (size > 0 && region.getTexture() != texture) return false;
+
+		int regionIndex = regionIndices.get(region, -1);
+		if (regionIndex == -1) {
+			if (regionCount == MAX_REGIONS) return false;
+
+			regionIndex = regionCount++;
+			regionIndices.put(region, regionIndex);
+			regions[regionIndex * 4] = region.getU();
+			regions[regionIndex * 4 + 1] = region.getV();
+			regions[regionIndex * 4 + 2] = region.getU2();
+			regions[regionIndex * 4 + 3] = region.getV2();
+		}
+		texture = region.getTexture();
+
+		if (size + INSTANCE_SIZE > instances.length) {
+			float[] grown = new float[Math.max(size + INSTANCE_SIZE, instances.length * 2)];
+			System.arraycopy(instances, 0, grown, 0, size);
+			instances = grown;
+		}
+
+		float[] instances = this.instances;
+		int i = size;
+		instances[i++] = x;
+		instances[i++] = y;
+		instances[i++] = width;
+		instances[i++] = height;
+		instances[i++] = color;
+		instances[i++] = rotation;
+		instances[i++] = regionIndex;
+		size = i;
+
+		return true;
+	}
+
+	public void clear () {
+		size = 0;
+		regionCount = 0;
+		regionIndices.clear();
+		texture = null;
+	}
+
+	public float[] getInstances () {
+		return instances;
+	}
+
+	/**
+	 * @return amount of floats written
+	 */
+	public int getSize () {
+		return size;
+	}
+
+	public int getInstanceCount () {
+		return size / INSTANCE_SIZE;
+	}
+
+	/**
+	 * @return u, v, u2, v2 of every region referenced so far
+	 */
+	public float[] getRegions () {
+		return regions;
+	}
+
+	public int getRegionCount () {
+		return regionCount;
+	}
+
+	public Texture getTexture () {
+		return texture;
+	}
+}
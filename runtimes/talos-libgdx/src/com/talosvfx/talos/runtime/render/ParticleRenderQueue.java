@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.Pool;
+import com.talosvfx.talos.runtime.IEmitter;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleDrawable;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.render.drawables.ShadedDrawable;
+
+import java.util.Comparator;
+
+/**
+ * Collects emitters of many effect instances over a frame and draws them grouped by blend mode, shader and texture,
+ * so the batch flushes once per group instead of once per emitter.
+ * Emitters of one effect are always drawn in their own order, grouping only happens between emitters of the same layer
+ * of different effects. Effects only keep their relative order within the same sort key, use different keys where it matters.
+ */
+public class ParticleRenderQueue {
+
+	public static final int BLEND_NORMAL = 0;
+	public static final int BLEND_ADDITIVE = 1;
+	public static final int BLEND_ADD = 2;
+
+	private Batch batch;
+
+	private final Array<Entry> entries = new Array<>();
+	private final Pool<Entry> entryPool = new Pool<Entry>() {
+		@Override
+		protected Entry newObject () {
+			return new Entry();
+		}
+	};
+	private int submitted;
+
+	/**
+	 * shaders and textures ranked by first submission, so grouping doesn't depend on identity hashes
+	 */
+	private final ObjectIntMap<Object> stateRanks = new ObjectIntMap<>();
+
+	private int stateChanges;
+	private int unsortedStateChanges;
+
+	private Color color = new Color(Color.WHITE);
+
+	private final PendingDrawables pendingDrawables = new PendingDrawables();
+
+	private final Comparator<Entry> comparator = new Comparator<Entry>() {
+		@Override
+		public int compare (Entry o1, Entry o2) {
+			if (o1.sortKey != o2.sortKey) return o1.sortKey < o2.sortKey ? -1 : 1;
+			if (o1.layer != o2.layer) return o1.layer - o2.layer;
+			if (o1.blend != o2.blend) return o1.blend - o2.blend;
+			if (o1.shaderRank != o2.shaderRank) return o1.shaderRank - o2.shaderRank;
+			if (o1.textureRank != o2.textureRank) return o1.textureRank - o2.textureRank;
+			return o1.order - o2.order;
+		}
+	};
+
+	public ParticleRenderQueue () {
+	}
+
+	public ParticleRenderQueue (Batch batch) {
+		this.batch = batch;
+	}
+
+	public void setBatch (Batch batch) {
+		this.batch = batch;
+	}
+
+	public void submit (ParticleEffectInstance particleEffectInstance) {
+		submit(particleEffectInstance, 0);
+	}
+
+	/**
+	 * @param sortKey lower keys are drawn first
+	 */
+	public void submit (ParticleEffectInstance particleEffectInstance, int sortKey) {
+		if (particleEffectInstance.isCulled()) return;
+
+		Array<IEmitter> emitters = particleEffectInstance.getEmitters();
+		for (int i = 0; i < emitters.size; i++) {
+			IEmitter emitter = emitters.get(i);
+			if (!emitter.isVisible() || emitter.getActiveParticleCount() == 0) continue;
+
+			Entry entry = entryPool.obtain();
+			entry.instance = particleEffectInstance;
+			entry.emitter = emitter;
+			entry.sortKey = sortKey;
+			entry.layer = i;
+			entry.order = submitted++;
+			entry.blend = getBlend(emitter);
+
+			ParticleDrawable drawable = emitter.getActiveParticles().first().drawable;
+			entry.shader = drawable instanceof ShadedDrawable ? ((ShadedDrawable)drawable).getShaderProgram() : null;
+			TextureRegion region = drawable == null ? null : drawable.getTextureRegion();
+			entry.texture = region == null ? null : region.getTexture();
+			entry.shaderRank = rank(entry.shader);
+			entry.textureRank = rank(entry.texture);
+
+			entries.add(entry);
+		}
+	}
+
+	/**
+	 * Draws everything submitted since last render, has to be called between {@link Batch#begin()} and {@link Batch#end()}
+	 */
+	public void render () {
+		unsortedStateChanges = countStateChanges();
+		entries.sort(comparator);
+		stateChanges = countStateChanges();
+
+		int blend = -1;
+		for (int i = 0; i < entries.size; i++) {
+			Entry entry = entries.get(i);
+			if (entry.blend != blend) {
+				blend = entry.blend;
+				setBlendFunction(blend);
+			}
+
+			float interpolation = entry.instance.getInterpolation();
+			IEmitter emitter = entry.emitter;
+			Array<Particle> particles = emitter.getActiveParticles();
+			for (int j = 0; j < emitter.getActiveParticleCount(); j++) {
+				renderParticle(emitter, particles.get(j), entry.instance.alpha, interpolation);
+			}
+			pendingDrawables.flush(batch);
+		}
+
+		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+		entryPool.freeAll(entries);
+		entries.clear();
+		stateRanks.clear();
+		submitted = 0;
+	}
+
+	private void renderParticle (IEmitter emitter, Particle particle, float parentAlpha, float interpolation) {
+		if (particle.drawable == null) return;
+
+		color.set(particle.color);
+		color.mul(emitter.getTint());
+		color.a = particle.transparency * parentAlpha;
+		batch.setColor(color);
+
+		pendingDrawables.add(batch, particle.drawable);
+		if (interpolation < 1f) particle.beginInterpolation(interpolation);
+		particle.drawable.setCurrentParticle(particle);
+		particle.drawable.draw(batch, particle, color);
+		if (interpolation < 1f) particle.endInterpolation();
+	}
+
+	private void setBlendFunction (int blend) {
+		if (blend == BLEND_ADD) {
+			batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		} else if (blend == BLEND_ADDITIVE) {
+			batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
+		} else {
+			batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		}
+	}
+
+	private int countStateChanges () {
+		int changes = 0;
+		Entry previous = null;
+		for (int i = 0; i < entries.size; i++) {
+			Entry entry = entries.get(i);
+			if (previous == null || previous.blend != entry.blend || previous.shader != entry.shader || previous.texture != entry.texture) {
+				changes++;
+			}
+			previous = entry;
+		}
+		return changes;
+	}
+
+	private static int getBlend (IEmitter emitter) {
+		if (emitter.isBlendAdd()) return BLEND_ADD;
+		if (emitter.isAdditive()) return BLEND_ADDITIVE;
+		return BLEND_NORMAL;
+	}
+
+	private int rank (Object state) {
+		if (state == null) return -1;
+
+		int rank = stateRanks.get(state, -1);
+		if (rank < 0) {
+			rank = stateRanks.size;
+			stateRanks.put(state, rank);
+		}
+		return rank;
+	}
+
+	/**
+	 * @return batch flushes caused by blend, shader or texture changes in the last render
+	 */
+	public int getStateChanges () {
+		return stateChanges;
+	}
+
+	/**
+	 * @return flushes the last render saved, compared to drawing emitters in the order they were submitted
+	 */
+	public int getSavedFlushes () {
+		return unsortedStateChanges - stateChanges;
+	}
+
+	private static class Entry implements Pool.Poolable {
+		ParticleEffectInstance instance;
+		IEmitter emitter;
+		int sortKey;
+		/**
+		 * emitter's index within it's effect
+		 */
+		int layer;
+		int order;
+		int blend;
+		ShaderProgram shader;
+		Texture texture;
+		int shaderRank;
+		int textureRank;
+
+		@Override
+		public void reset () {
+			instance = null;
+			emitter = null;
+			shader = null;
+			texture = null;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Writes particle quads straight into a float array, in the vertex layout {@link Batch#draw(com.badlogic.gdx.graphics.Texture, float[], int, int)} expects.
+ * Does not touch GL, so it can be used without a graphics context.
+ */
+public class ParticleVertexWriter {
+
+	public static final int VERTEX_SIZE = 5; // x, y, color, u, v
+	public static final int QUAD_SIZE = VERTEX_SIZE * 4;
+
+	private float[] vertices;
+	private int size;
+
+	public ParticleVertexWriter () {
+		this(256);
+	}
+
+	public ParticleVertexWriter (int quadCapacity) {
+		vertices = new float[Math.max(quadCapacity, 1) * QUAD_SIZE];
+	}
+
+	/**
+	 * Writes quad centered at x, y, corners are in the same order {@link com.badlogic.gdx.graphics.g2d.Sprite} uses
+	 * @param rotation in degrees, around the center
+	 */
+	public void quad (float x, float y, float width, float height, float rotation, float color, float u, float v, float u2, float v2) {
+		if (size + QUAD_SIZE > vertices.length) {
+			float[] grown = new float[Math.max(size + QUAD_SIZE, vertices.length * 2)];
+			System.arraycopy(vertices, 0, grown, 0, size);
+			vertices = grown;
+		}
+
+		float halfWidth = width / 2;
+		float halfHeight = height / 2;
+
+		float x1, y1, x2, y2, x3, y3, x4, y4;
+		if (rotation == 0) {
+			x1 = x - halfWidth;
+			y1 = y - halfHeight;
+			x2 = x1;
+			y2 = y + halfHeight;
+			x3 = x + halfWidth;
+			y3 = y2;
+			x4 = x3;
+			y4 = y1;
+		} else {
+			// table lookups, same as Sprite uses
+			float cos = MathUtils.cosDeg(rotation);
+			float sin = MathUtils.sinDeg(rotation);
+
+			float wCos = halfWidth * cos;
+			float wSin = halfWidth * sin;
+			float hCos = halfHeight * cos;
+			float hSin = halfHeight * sin;
+
+			x1 = x - wCos + hSin;
+			y1 = y - hCos - wSin;
+			x2 = x - wCos - hSin;
+			y2 = y + hCos - wSin;
+			x3 = x + wCos - hSin;
+			y3 = y + hCos + wSin;
+			x4 = x + wCos + hSin;
+			y4 = y - hCos + wSin;
+		}
+
+		float[] vertices = this.vertices;
+		int i = size;
+
+		vertices[i++] = x1;
+		vertices[i++] = y1;
+		vertices[i++] = color;
+		vertices[i++] = u;
+		vertices[i++] = v2;
+
+		vertices[i++] = x2;
+		vertices[i++] = y2;
+		vertices[i++] = color;
+		vertices[i++] = u;
+		vertices[i++] = v;
+
+		vertices[i++] = x3;
+		vertices[i++] = y3;
+		vertices[i++] = color;
+		vertices[i++] = u2;
+		vertices[i++] = v;
+
+		vertices[i++] = x4;
+		vertices[i++] = y4;
+		vertices[i++] = color;
+		vertices[i++] = u2;
+		vertices[i++] = v2;
+
+		size = i;
+	}
+
+	public void clear () {
+		size = 0;
+	}
+
+	public float[] getVertices () {
+		return vertices;
+	}
+
+	/**
+	 * @return amount of floats written
+	 */
+	public int getSize () {
+		return size;
+	}
+
+	public int getQuadCount () {
+		return size / QUAD_SIZE;
+	}
+}
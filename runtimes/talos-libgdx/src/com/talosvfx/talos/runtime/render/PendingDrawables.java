@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.talosvfx.talos.runtime.BatchedParticleDrawable;
+import com.talosvfx.talos.runtime.ParticleDrawable;
+
+/**
+ * Keeps track of the {@link BatchedParticleDrawable} renderer is currently feeding,
+ * and flushes it as soon as something else is drawn, so draw order stays the same.
+ */
+public class PendingDrawables {
+
+	private BatchedParticleDrawable pending;
+
+	/**
+	 * Call before drawing particle with given drawable
+	 */
+	public void add (Batch batch, ParticleDrawable drawable) {
+		if (drawable == pending) return;
+
+		flush(batch);
+		if (drawable instanceof BatchedParticleDrawable) {
+			pending = (BatchedParticleDrawable)drawable;
+		}
+	}
+
+	public void flush (Batch batch) {
+		if (pending != null) {
+			pending.flush(batch);
+			pending = null;
+		}
+	}
+}
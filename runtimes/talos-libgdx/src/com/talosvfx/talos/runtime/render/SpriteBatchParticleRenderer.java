@@ -20,8 +20,10 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Rectangle;
 import com.talosvfx.talos.runtime.IEmitter;
 import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleBounds;
 import com.talosvfx.talos.runtime.ParticleEffectInstance;
 import com.talosvfx.talos.runtime.utils.DefaultShaders;
 
@@ -31,6 +33,15 @@ public class SpriteBatchParticleRenderer implements ParticleRenderer {
 
 	Color color = new Color(Color.WHITE);
 	private ShaderProgram blendAddShader;
+	private ShaderProgram premultipliedShader;
+
+	private boolean premultipliedAlpha = false;
+	private ShaderProgram previousShader;
+
+	private Rectangle cullArea;
+	private ParticleEffectInstance cullEffect;
+
+	private final PendingDrawables pendingDrawables = new PendingDrawables();
 
 	public SpriteBatchParticleRenderer () {
 		initShaders();
@@ -45,19 +56,87 @@ public class SpriteBatchParticleRenderer implements ParticleRenderer {
 		blendAddShader = new ShaderProgram(
 				DefaultShaders.DEFAULT_VERTEX_SHADER,
 				DefaultShaders.BLEND_ADD_FRAGMENT_SHADER);
+		premultipliedShader = new ShaderProgram(
+				DefaultShaders.DEFAULT_VERTEX_SHADER,
+				DefaultShaders.PREMULTIPLIED_FRAGMENT_SHADER);
+	}
+
+	/**
+	 * In premultiplied mode additive and alpha blended emitters share one blend function and shader,
+	 * whether a particle adds or blends is encoded in it's vertex alpha. Effects rendered one after another
+	 * then go into the same batch without flushing, so batch is left in that state until {@link #resetBatchState()}.
+	 */
+	public void setPremultipliedAlpha (boolean premultipliedAlpha) {
+		if (!premultipliedAlpha) resetBatchState();
+		this.premultipliedAlpha = premultipliedAlpha;
+	}
+
+	public boolean isPremultipliedAlpha () {
+		return premultipliedAlpha;
+	}
+
+	/**
+	 * Gives batch back the shader and blend function it had before premultiplied rendering
+	 */
+	public void resetBatchState () {
+		if (batch == null || batch.getShader() != premultipliedShader) return;
+
+		batch.setShader(previousShader);
+		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		previousShader = null;
+	}
+
+	/**
+	 * Premultiplies color by it's alpha, additive colors get alpha 0 so they don't darken what's behind them
+	 */
+	public static void premultiply (Color color, boolean additive) {
+		color.r *= color.a;
+		color.g *= color.a;
+		color.b *= color.a;
+		if (additive) color.a = 0;
 	}
 
 	public void setBatch (Batch batch) {
 		this.batch = batch;
 	}
 
+	/**
+	 * Same as {@link #render(ParticleEffectInstance)}, but skips emitters and particles outside of given area
+	 */
+	public void render (ParticleEffectInstance particleEffectInstance, Rectangle area) {
+		if (!particleEffectInstance.isInArea(area)) return;
+
+		cullArea = area;
+		cullEffect = particleEffectInstance;
+		render(particleEffectInstance);
+		cullArea = null;
+		cullEffect = null;
+	}
+
+	private boolean isCulled (IEmitter emitter) {
+		return cullArea != null && !cullEffect.overlaps(emitter.getBounds(), cullArea);
+	}
+
+	private boolean isCulled (Particle particle) {
+		return cullArea != null && !ParticleBounds.overlaps(cullArea, particle.getX(), particle.getY(), particle.size.x, particle.size.y);
+	}
+
 	@Override
 	public void render (ParticleEffectInstance particleEffectInstance) {
+		if (particleEffectInstance.isCulled()) return;
+
+		if (premultipliedAlpha) {
+			renderPremultiplied(particleEffectInstance);
+			return;
+		}
+
 		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
 
+		float interpolation = particleEffectInstance.getInterpolation();
+
 		for (int i = 0; i < particleEffectInstance.getEmitters().size; i++) {
 			final IEmitter particleEmitter = particleEffectInstance.getEmitters().get(i);
-			if(!particleEmitter.isVisible()) continue;
+			if(!particleEmitter.isVisible() || isCulled(particleEmitter)) continue;
 			if(particleEmitter.isBlendAdd()) {
 				batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
 			} else {
@@ -72,8 +151,9 @@ public class SpriteBatchParticleRenderer implements ParticleRenderer {
 				//batch.setShader(blendAddShader); //TODO: let's leave any shader stuff to shader graph, and rest can be baked
 			}
  			for (int j = 0; j < particleEmitter.getActiveParticleCount(); j++) {
-				renderParticle(batch, particleEmitter.getActiveParticles().get(j), particleEffectInstance.alpha);
+				renderParticle(batch, particleEmitter.getActiveParticles().get(j), particleEffectInstance.alpha, interpolation);
 			}
+			pendingDrawables.flush(batch);
  			if(batch.getShader() != prevShader) {
  				batch.setShader(prevShader);
 			}
@@ -82,15 +162,52 @@ public class SpriteBatchParticleRenderer implements ParticleRenderer {
 		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 	}
 
-	private void renderParticle (Batch batch, Particle particle, float parentAlpha) {
+	private void renderPremultiplied (ParticleEffectInstance particleEffectInstance) {
+		if (batch.getShader() != premultipliedShader) {
+			previousShader = batch.getShader();
+			batch.setShader(premultipliedShader);
+		}
+		batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+		float interpolation = particleEffectInstance.getInterpolation();
+
+		for (int i = 0; i < particleEffectInstance.getEmitters().size; i++) {
+			final IEmitter particleEmitter = particleEffectInstance.getEmitters().get(i);
+			if(!particleEmitter.isVisible() || isCulled(particleEmitter)) continue;
+
+			// blend add emitters expect already premultiplied textures, closest match here is regular blending
+			boolean additive = particleEmitter.isAdditive() && !particleEmitter.isBlendAdd();
+			for (int j = 0; j < particleEmitter.getActiveParticleCount(); j++) {
+				Particle particle = particleEmitter.getActiveParticles().get(j);
+				if (isCulled(particle)) continue;
+				color.set(particle.color);
+				color.mul(particle.getEmitter().getTint());
+				color.a = particle.transparency * particleEffectInstance.alpha;
+				premultiply(color, additive);
+				drawParticle(batch, particle, interpolation);
+			}
+			pendingDrawables.flush(batch);
+		}
+	}
+
+	private void renderParticle (Batch batch, Particle particle, float parentAlpha, float interpolation) {
+		if (isCulled(particle)) return;
+
 		color.set(particle.color);
 		color.mul(particle.getEmitter().getTint());
 		color.a = particle.transparency * parentAlpha;
+		drawParticle(batch, particle, interpolation);
+	}
+
+	private void drawParticle (Batch batch, Particle particle, float interpolation) {
 		batch.setColor(color);
 
 		if (particle.drawable != null) {
+			pendingDrawables.add(batch, particle.drawable);
+			if (interpolation < 1f) particle.beginInterpolation(interpolation);
 			particle.drawable.setCurrentParticle(particle);
 			particle.drawable.draw(batch, particle, color);
+			if (interpolation < 1f) particle.endInterpolation();
 		}
 	}
 }
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.IEmitter;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.render.drawables.SpriteAnimationDrawable;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+
+/**
+ * Renders plain sprite and flipbook particles by writing their quads into one vertex array per texture run,
+ * instead of moving a shared Sprite around for each of them.
+ * Other drawables are drawn the same way {@link SpriteBatchParticleRenderer} draws them.
+ */
+public class VertexStreamParticleRenderer implements ParticleRenderer {
+
+	private Batch batch;
+
+	private final ParticleVertexWriter writer = new ParticleVertexWriter();
+	private Texture texture;
+
+	private Color color = new Color(Color.WHITE);
+
+	private final PendingDrawables pendingDrawables = new PendingDrawables();
+
+	public VertexStreamParticleRenderer () {
+	}
+
+	public VertexStreamParticleRenderer (Batch batch) {
+		this.batch = batch;
+	}
+
+	public void setBatch (Batch batch) {
+		this.batch = batch;
+	}
+
+	@Override
+	public void render (ParticleEffectInstance particleEffectInstance) {
+		if (particleEffectInstance.isCulled()) return;
+
+		float interpolation = particleEffectInstance.getInterpolation();
+
+		for (int i = 0; i < particleEffectInstance.getEmitters().size; i++) {
+			final IEmitter particleEmitter = particleEffectInstance.getEmitters().get(i);
+			if(!particleEmitter.isVisible()) continue;
+			if(particleEmitter.isBlendAdd()) {
+				batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+			} else {
+				if (particleEmitter.isAdditive()) {
+					batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
+				} else {
+					batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+				}
+			}
+
+			Array<Particle> particles = particleEmitter.getActiveParticles();
+			for (int j = 0; j < particleEmitter.getActiveParticleCount(); j++) {
+				renderParticle(particleEmitter, particles.get(j), particleEffectInstance.alpha, interpolation);
+			}
+			pendingDrawables.flush(batch);
+			flush();
+		}
+
+		batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+
+	private void renderParticle (IEmitter emitter, Particle particle, float parentAlpha, float interpolation) {
+		if (particle.drawable == null) return;
+		pendingDrawables.add(batch, particle.drawable);
+
+		color.set(particle.color);
+		color.mul(emitter.getTint());
+		color.a = particle.transparency * parentAlpha;
+
+		if (interpolation < 1f) particle.beginInterpolation(interpolation);
+
+		Class<?> drawableClass = particle.drawable.getClass();
+		if (drawableClass == TextureRegionDrawable.class || drawableClass == SpriteAnimationDrawable.class) {
+			TextureRegion region = particle.drawable.getTextureRegion();
+			if (region != null) {
+				if (region.getTexture() != texture) {
+					flush();
+					texture = region.getTexture();
+				}
+				if (drawableClass == SpriteAnimationDrawable.class) {
+					SpriteAnimationDrawable animation = (SpriteAnimationDrawable)particle.drawable;
+					animation.setCurrentParticle(particle);
+					animation.write(writer, particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation, color.toFloatBits());
+				} else {
+					writer.quad(particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation,
+							color.toFloatBits(), region.getU(), region.getV(), region.getU2(), region.getV2());
+				}
+			}
+		} else {
+			flush();
+			batch.setColor(color);
+			particle.drawable.setCurrentParticle(particle);
+			particle.drawable.draw(batch, particle, color);
+		}
+
+		if (interpolation < 1f) particle.endInterpolation();
+	}
+
+	private void flush () {
+		if (writer.getSize() > 0) {
+			batch.draw(texture, writer.getVertices(), 0, writer.getSize());
+			writer.clear();
+		}
+	}
+}
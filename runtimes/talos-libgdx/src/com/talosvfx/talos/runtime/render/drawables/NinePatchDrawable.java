@@ -53,14 +53,14 @@ public class NinePatchDrawable implements ParticleDrawable {
         return null;
     }
 
-    public void setRegion (TextureRegion region, int[] splits) {
+    public synchronized void setRegion (TextureRegion region, int[] splits) {
         if(this.region != region) {
             ninePatch =  new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
         }
         this.region = region;
     }
 
-    public void resetPatch (int[] splits) {
+    public synchronized void resetPatch (int[] splits) {
         if(region == null) return;
         ninePatch =  new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
     }
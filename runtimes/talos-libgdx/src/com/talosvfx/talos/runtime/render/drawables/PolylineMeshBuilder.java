@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render.drawables;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.PolygonBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Collects polyline meshes that share a texture and point count, and submits them as one {@link PolygonBatch} draw.
+ * Each point is extruded into two vertices, index buffers only depend on point count, so they are built once and reused.
+ */
+public class PolylineMeshBuilder {
+
+    public static final int VERTEX_SIZE = 5;
+    private static final int MAX_VERTICES = 1000; // stays within default PolygonSpriteBatch buffer
+
+    private final float[] vertices = new float[MAX_VERTICES * VERTEX_SIZE];
+    private int vertexCount;
+    private int polylineCount;
+
+    private int pointCount;
+    private Texture texture;
+
+    private final IntMap<short[]> indexCache = new IntMap<>();
+
+    private float[] pointX = new float[0];
+    private float[] pointY = new float[0];
+
+    private final Color tmpColor = new Color();
+
+    public void add(Batch batch, Polyline polyline, TextureRegion region, float x, float y) {
+        if(region == null || polyline.pointCount < 2) return;
+        if(!(batch instanceof PolygonBatch)) return;
+
+        int count = polyline.pointCount;
+        if(count * 2 > MAX_VERTICES) return;
+
+        if(texture != region.getTexture() || pointCount != count || vertexCount + count * 2 > MAX_VERTICES) {
+            flush(batch);
+            texture = region.getTexture();
+            pointCount = count;
+        }
+
+        if(pointX.length < count) {
+            pointX = new float[count];
+            pointY = new float[count];
+        }
+        polyline.getPositions(x, y, pointX, pointY);
+
+        float batchColor = batch.getPackedColor();
+        float u = region.getU();
+        float u2 = region.getU2();
+        float v = region.getV();
+        float vSize = region.getV2() - region.getV();
+
+        float[] pointX = this.pointX;
+        float[] pointY = this.pointY;
+        float[] vertices = this.vertices;
+        int idx = vertexCount * VERTEX_SIZE;
+
+        // previous edge normal, carried over so each edge is normalized once
+        float prevNormalX = 0;
+        float prevNormalY = 0;
+        for(int i = 0; i < count; i++) {
+            float normalX;
+            float normalY;
+            if(i < count - 1) {
+                float edgeX = pointX[i + 1] - pointX[i];
+                float edgeY = pointY[i + 1] - pointY[i];
+                float len = (float)Math.sqrt(edgeX * edgeX + edgeY * edgeY);
+                if(len != 0) {
+                    edgeX /= len;
+                    edgeY /= len;
+                }
+                // left hand side normal of the edge
+                normalX = -edgeY;
+                normalY = edgeX;
+            } else {
+                normalX = prevNormalX;
+                normalY = prevNormalY;
+            }
+
+            float extrudeX = normalX;
+            float extrudeY = normalY;
+            if(i > 0 && i < count - 1) {
+                // bisector of both edges
+                extrudeX += prevNormalX;
+                extrudeY += prevNormalY;
+                float len = (float)Math.sqrt(extrudeX * extrudeX + extrudeY * extrudeY);
+                if(len != 0) {
+                    extrudeX /= len;
+                    extrudeY /= len;
+                }
+            }
+            prevNormalX = normalX;
+            prevNormalY = normalY;
+
+            float halfThickness = polyline.thickness[i] / 2f;
+            extrudeX *= halfThickness;
+            extrudeY *= halfThickness;
+
+            float color = polyline.colors[i];
+            if(batchColor != Color.WHITE_FLOAT_BITS) {
+                Color.abgr8888ToColor(tmpColor, color);
+                tmpColor.mul(batch.getColor());
+                color = tmpColor.toFloatBits();
+            }
+            float pointV = v + vSize * i / (count - 1);
+
+            vertices[idx++] = pointX[i] + extrudeX;
+            vertices[idx++] = pointY[i] + extrudeY;
+            vertices[idx++] = color;
+            vertices[idx++] = u;
+            vertices[idx++] = pointV;
+
+            vertices[idx++] = pointX[i] - extrudeX;
+            vertices[idx++] = pointY[i] - extrudeY;
+            vertices[idx++] = color;
+            vertices[idx++] = u2;
+            vertices[idx++] = pointV;
+        }
+
+        vertexCount += count * 2;
+        polylineCount++;
+    }
+
+    public void flush(Batch batch) {
+        if(polylineCount == 0) return;
+
+        short[] indexes = getIndexes(pointCount);
+        int indexCount = polylineCount * (pointCount - 1) * 6;
+        ((PolygonBatch) batch).draw(texture, vertices, 0, vertexCount * VERTEX_SIZE, indexes, 0, indexCount);
+
+        vertexCount = 0;
+        polylineCount = 0;
+    }
+
+    /**
+     * @return triangles for as many polylines with given point count as fit into one submission
+     */
+    private short[] getIndexes(int pointCount) {
+        short[] indexes = indexCache.get(pointCount);
+        if(indexes != null) return indexes;
+
+        int polylines = MAX_VERTICES / (pointCount * 2);
+        indexes = new short[polylines * (pointCount - 1) * 6];
+        int idx = 0;
+        for(int p = 0; p < polylines; p++) {
+            int first = p * pointCount * 2;
+            for(int i = 0; i < pointCount - 1; i++) {
+                short left = (short) (first + i * 2);
+                indexes[idx++] = left;
+                indexes[idx++] = (short) (left + 1);
+                indexes[idx++] = (short) (left + 3);
+                indexes[idx++] = left;
+                indexes[idx++] = (short) (left + 3);
+                indexes[idx++] = (short) (left + 2);
+            }
+        }
+        indexCache.put(pointCount, indexes);
+
+        return indexes;
+    }
+}
@@ -22,11 +22,10 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.TimeUtils;
+import com.talosvfx.talos.runtime.BatchedParticleDrawable;
 import com.talosvfx.talos.runtime.Particle;
-import com.talosvfx.talos.runtime.ParticleDrawable;
 
-public class PolylineRenderer implements ParticleDrawable {
+public class PolylineRenderer implements BatchedParticleDrawable {
 
     Particle particleRef;
     int interpolationPointCount;
@@ -42,11 +41,28 @@ public class PolylineRenderer implements ParticleDrawable {
     ObjectMap<Particle, Polyline> polylineMap = new ObjectMap<>();
     Array<Particle> tmpArr = new Array<>();
 
+    private final PolylineMeshBuilder meshBuilder = new PolylineMeshBuilder();
+
     @Override
     public void draw(Batch batch, float x, float y, float width, float height, float rotation) {
+        add(batch, x, y, width, rotation);
+        flush(batch);
+    }
+
+    @Override
+    public void draw (Batch batch, Particle particle, Color color) {
+        add(batch, particle.getX(), particle.getY(), particle.size.x, particle.rotation);
+    }
+
+    private void add(Batch batch, float x, float y, float width, float rotation) {
         Polyline polyline = polyline();
         polyline.set(width, rotation);
-        polyline.draw(batch, region, x, y);
+        meshBuilder.add(batch, polyline, region, x, y);
+    }
+
+    @Override
+    public void flush(Batch batch) {
+        meshBuilder.flush(batch);
 
         tmpArr.clear();
         for(Particle key: polylineMap.keys()) {
@@ -55,24 +71,10 @@ public class PolylineRenderer implements ParticleDrawable {
             }
         }
         for(int i = 0; i < tmpArr.size; i++) {
-            if(polylineMap.containsKey(tmpArr.get(i))) {
-                polylinePool.free(polylineMap.get(tmpArr.get(i)));
-            }
-            polylineMap.remove(tmpArr.get(i));
+            polylinePool.free(polylineMap.remove(tmpArr.get(i)));
         }
     }
 
-    @Override
-    public void draw (Batch batch, Particle particle, Color color) {
-        float rotation = particle.rotation;
-        float width = particle.size.x;
-        float height = particle.size.y;
-        float y = particle.getY();
-        float x = particle.getX();
-
-        draw(batch, x, y, width, height, rotation);
-    }
-
     @Override
     public float getAspectRatio() {
         return 1f;
@@ -105,18 +107,17 @@ public class PolylineRenderer implements ParticleDrawable {
     }
 
     private Polyline polyline() {
-        if(polylineMap.get(particleRef) == null) {
-            Polyline polyline = polylinePool.obtain();
-            polyline.initPoints(interpolationPointCount, particleRef.getX(), particleRef.getY());
+        Polyline polyline = polylineMap.get(particleRef);
+        if(polyline == null) {
+            polyline = polylinePool.obtain();
+            polyline.initPoints(interpolationPointCount);
             polylineMap.put(particleRef, polyline);
         }
 
-        return polylineMap.get(particleRef);
+        return polyline;
     }
 
     public void setTangents(float leftX, float leftY, float rightX, float rightY) {
-        Polyline polyline = polyline();
-        polyline.leftTangent.set(leftX, leftY);
-        polyline.rightTanget.set(rightX, rightY);
+        polyline().setTangents(leftX, leftY, rightX, rightY);
     }
 }
@@ -2,93 +2,207 @@ package com.talosvfx.talos.runtime.render.drawables;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.PolygonBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.*;
+import com.talosvfx.talos.runtime.BatchedParticleDrawable;
 import com.talosvfx.talos.runtime.Particle;
-import com.talosvfx.talos.runtime.ParticleDrawable;
+import com.talosvfx.talos.runtime.render.ParticleVertexWriter;
 
-public class RibbonRenderer implements ParticleDrawable {
+/**
+ * Draws a ribbon trailing behind each particle, and particle's own sprite on top of it.
+ * Trails of all particles are collected into one strip buffer, and submitted together when flushed.
+ */
+public class RibbonRenderer implements BatchedParticleDrawable {
+
+    private static final int VERTEX_SIZE = 5;
+    private static final int MAX_VERTICES = 1000; // stays within default PolygonSpriteBatch buffer
 
     Particle particleRef;
-    int interpolationPointCount;
 
-    PointMemoryAccumulator accumulator;
+    int detail;
+    float memoryDuration;
 
-    TextureRegionDrawable textureRegionDrawable;
-    TextureRegion ribbonRegion;
+    private final TrailHistory history = new TrailHistory();
 
-    public Pool<Polyline> polylinePool = new Pool<Polyline>() {
-        @Override
-        protected Polyline newObject() {
-            return new Polyline();
-        }
-    };
-    ObjectMap<Particle, Polyline> polylineMap = new ObjectMap<>();
-    Array<Particle> tmpArr = new Array<>();
+    /**
+     * thickness and packed color of each ribbon point, detail entries per trail slot
+     */
+    private float[] pointThickness = new float[0];
+    private float[] pointColors = new float[0];
+
+    private TextureRegion mainRegion;
+    private TextureRegion ribbonRegion;
+
+    private final float[] vertices = new float[MAX_VERTICES * VERTEX_SIZE];
+    private final short[] indexes = new short[MAX_VERTICES * 3];
+    private int vertexCount;
+    private int indexCount;
+    private Texture ribbonTexture;
+
+    private final ParticleVertexWriter heads = new ParticleVertexWriter();
+    private Texture headTexture;
+
+    private float[] pointX = new float[0];
+    private float[] pointY = new float[0];
 
     private Color tmpColor = new Color();
+    private Vector2 tmp = new Vector2();
+    private Vector2 tmp2 = new Vector2();
+    private Vector2 normal = new Vector2();
 
     public RibbonRenderer() {
-        textureRegionDrawable = new TextureRegionDrawable();
-        accumulator = new PointMemoryAccumulator();
     }
 
     @Override
     public void draw(Batch batch, float x, float y, float width, float height, float rotation) {
-        if(interpolationPointCount < 1) return;
-        if(ribbonRegion == null) return;
+        if(particleRef == null) return;
 
-        accumulator.update(particleRef, x, y);
+        addRibbon(batch, particleRef, x, y);
+        flush(batch);
+    }
 
-        Polyline polyline = polyline();
+    @Override
+    public void draw(Batch batch, Particle particle, Color color) {
+        addRibbon(batch, particle, particle.getX(), particle.getY());
+        addHead(batch, particle, color);
+    }
 
-        accumulator.setDrawLocations(particleRef, polyline.getPoints());
+    @Override
+    public void flush(Batch batch) {
+        flushRibbons(batch);
 
-        polyline.draw(batch, ribbonRegion);
+        if(heads.getSize() > 0) {
+            batch.draw(headTexture, heads.getVertices(), 0, heads.getSize());
+            heads.clear();
+        }
+    }
 
-        tmpArr.clear();
-        for(Particle key: polylineMap.keys()) {
-            if(key.alpha == 1f) {
-                tmpArr.add(key);
-            }
+    private void flushRibbons(Batch batch) {
+        if(vertexCount > 0) {
+            ((PolygonBatch) batch).draw(ribbonTexture, vertices, 0, vertexCount * VERTEX_SIZE, indexes, 0, indexCount);
+            vertexCount = 0;
+            indexCount = 0;
         }
-        for(int i = 0; i < tmpArr.size; i++) {
-            if(polylineMap.containsKey(tmpArr.get(i))) {
-                polylinePool.free(polylineMap.get(tmpArr.get(i)));
-            }
-            polylineMap.remove(tmpArr.get(i));
-            accumulator.clean(tmpArr.get(i));
+    }
+
+    private void addHead(Batch batch, Particle particle, Color color) {
+        if(mainRegion == null) return;
+
+        if(headTexture != mainRegion.getTexture()) {
+            flush(batch);
+            headTexture = mainRegion.getTexture();
         }
+
+        heads.quad(particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation, color.toFloatBits(),
+                mainRegion.getU(), mainRegion.getV(), mainRegion.getU2(), mainRegion.getV2());
     }
 
-    @Override
-    public void draw(Batch batch, Particle particle, Color color) {
-        float rotation = particle.rotation;
-        float width = particle.size.x;
-        float height = particle.size.y;
-        float y = particle.getY();
-        float x = particle.getX();
+    private void addRibbon(Batch batch, Particle particle, float x, float y) {
+        if(detail < 3) return;
+        if(ribbonRegion == null) return;
+
+        float delta = Gdx.graphics.getDeltaTime();
+        if(delta > 1f/60f) delta = 1f/60f;
+
+        float interval = memoryDuration / detail;
+        int slot = history.obtain(particle);
+        history.record(slot, x, y, particle.alpha, delta, interval);
+
+        if(!(batch instanceof PolygonBatch)) return;
+
+        int count = history.getCount(slot);
+        if(count == 0) return; // nothing to trail yet
+
+        // lead point, then history points sliding towards it as lead ages
+        float progress = history.getLeadLife(slot) / interval;
+        history.getLead(slot, tmp);
+        pointX[0] = tmp.x;
+        pointY[0] = tmp.y;
+        for(int i = 0; i < detail - 1; i++) {
+            if(i < count) {
+                history.getPoint(slot, i, tmp);
+                if(i > 0) {
+                    history.getPoint(slot, i - 1, tmp2);
+                } else {
+                    history.getLead(slot, tmp2);
+                }
+                tmp2.sub(tmp).scl(progress).add(tmp);
+            } else {
+                history.getPoint(slot, count - 1, tmp2);
+            }
+            pointX[i + 1] = tmp2.x;
+            pointY[i + 1] = tmp2.y;
+        }
+
+        if(ribbonTexture != ribbonRegion.getTexture() || vertexCount + detail * 2 > MAX_VERTICES) {
+            flushRibbons(batch);
+            ribbonTexture = ribbonRegion.getTexture();
+        }
+
+        float batchColor = batch.getPackedColor();
+        int dataOffset = slot * detail;
+        int first = vertexCount;
+        for(int i = 0; i < detail; i++) {
+            extrude(i);
+
+            float halfThickness = pointThickness[dataOffset + i] / 2f;
+            float color = pointColors[dataOffset + i];
+            if(batchColor != Color.WHITE_FLOAT_BITS) {
+                Color.abgr8888ToColor(tmpColor, color);
+                tmpColor.mul(batch.getColor());
+                color = tmpColor.toFloatBits();
+            }
+            float v = ribbonRegion.getV() + (ribbonRegion.getV2() - ribbonRegion.getV()) * i / (detail - 1);
+
+            addVertex(pointX[i] + normal.x * halfThickness, pointY[i] + normal.y * halfThickness, color, ribbonRegion.getU(), v);
+            addVertex(pointX[i] - normal.x * halfThickness, pointY[i] - normal.y * halfThickness, color, ribbonRegion.getU2(), v);
+        }
 
-        draw(batch, x, y, width, height, rotation);
-        textureRegionDrawable.draw(batch, particle, color);
+        for(int i = 0; i < detail - 1; i++) {
+            short left = (short) (first + i * 2);
+            indexes[indexCount++] = left;
+            indexes[indexCount++] = (short) (left + 1);
+            indexes[indexCount++] = (short) (left + 3);
+            indexes[indexCount++] = left;
+            indexes[indexCount++] = (short) (left + 3);
+            indexes[indexCount++] = (short) (left + 2);
+        }
     }
 
-    private Polyline polyline() {
-        if(polylineMap.get(particleRef) == null) {
-            Polyline polyline = polylinePool.obtain();
-            polyline.initPoints(interpolationPointCount, particleRef.getX(), particleRef.getY());
-            polylineMap.put(particleRef, polyline);
+    /**
+     * Sets normal to the left hand side of the ribbon at given point, bisecting both edges for inner points
+     */
+    private void extrude(int i) {
+        if(i == 0) {
+            normal.set(pointX[1] - pointX[0], pointY[1] - pointY[0]).nor().rotate90(1);
+        } else if(i == detail - 1) {
+            normal.set(pointX[i] - pointX[i - 1], pointY[i] - pointY[i - 1]).nor().rotate90(1);
+        } else {
+            normal.set(pointX[i] - pointX[i - 1], pointY[i] - pointY[i - 1]).nor().rotate90(1);
+            tmp.set(pointX[i + 1] - pointX[i], pointY[i + 1] - pointY[i]).nor().rotate90(1);
+            normal.add(tmp).nor();
         }
+    }
 
-        return polylineMap.get(particleRef);
+    private void addVertex(float x, float y, float color, float u, float v) {
+        int idx = vertexCount * VERTEX_SIZE;
+        vertices[idx] = x;
+        vertices[idx + 1] = y;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u;
+        vertices[idx + 4] = v;
+        vertexCount++;
     }
 
     @Override
     public float getAspectRatio() {
-        return textureRegionDrawable.getAspectRatio();
+        if(mainRegion == null) {
+            return 1;
+        }
+        return mainRegion.getRegionWidth() / (float) mainRegion.getRegionHeight();
     }
 
     @Override
@@ -102,152 +216,42 @@ public class RibbonRenderer implements ParticleDrawable {
     }
 
     public void setRegions(TextureRegion mainRegion, TextureRegion ribbonRegion) {
-        textureRegionDrawable.setRegion((Sprite) mainRegion);
-
+        this.mainRegion = mainRegion;
         this.ribbonRegion = ribbonRegion;
     }
 
-    public void setPointData(int pointIndex,float thickness, Color color) {
-        Polyline polyline = polyline();
-        polyline.setPointData(pointIndex, 0, 0, thickness, color);
-    }
-
-    public void adjustPointData() {
-        float pointAlpha = accumulator.getPointAlpha(particleRef);
-        Polyline polyline = polyline();
-        for(int i = 1; i < polyline.points.size; i++) {
-            float topThickness = polyline.points.get(i).thickness;
-            float bottomThickness = polyline.points.get(i-1).thickness;
-            Color topColor = polyline.points.get(i).color;
-            Color bottomColor = polyline.points.get(i).color;
-
-            tmpColor.set(topColor.r+(bottomColor.r-topColor.r)*pointAlpha,
-                         topColor.g+(bottomColor.g-topColor.g)*pointAlpha,
-                         topColor.b+(bottomColor.b-topColor.b)*pointAlpha,
-                         topColor.a+(bottomColor.a-topColor.a)*pointAlpha);
-
-            //polyline.setPointData(i, 0, 0, topThickness+(bottomThickness-topThickness)*pointAlpha, tmpColor);
+    /**
+     * Sets thickness and color of one ribbon point of current particle, point 0 is at the particle
+     */
+    public void setPointData(int pointIndex, float thickness, Color color) {
+        int idx = history.obtain(particleRef) * detail + pointIndex;
+        if(idx >= pointThickness.length) {
+            int size = Math.max(idx + 1, pointThickness.length * 2);
+            float[] grownThickness = new float[size];
+            float[] grownColors = new float[size];
+            System.arraycopy(pointThickness, 0, grownThickness, 0, pointThickness.length);
+            System.arraycopy(pointColors, 0, grownColors, 0, pointColors.length);
+            pointThickness = grownThickness;
+            pointColors = grownColors;
         }
+
+        pointThickness[idx] = thickness;
+        pointColors[idx] = color.toFloatBits();
     }
 
     public void setConfig(int detail, float memoryDuration) {
         if(detail < 2) detail = 2;
-        interpolationPointCount = detail - 2;
-        accumulator.init(detail, memoryDuration);
-        // reset all existing items from the pool
-        polylinePool.freeAll(polylineMap.values().toArray());
-        polylineMap.clear();
+        this.detail = detail;
+        this.memoryDuration = memoryDuration;
+        history.init(detail - 1);
+
+        pointX = new float[detail];
+        pointY = new float[detail];
+        pointThickness = new float[0];
+        pointColors = new float[0];
     }
 
-    public class PointMemoryAccumulator {
-
-        int pointCount;
-        float memoryDuration;
-
-        ObjectMap<Particle, Vector2> leadPoints = new ObjectMap<>();
-        ObjectFloatMap<Particle> leadLife = new ObjectFloatMap<>();
-        ObjectMap<Particle, Array<Vector2>> allPoints = new ObjectMap<>();
-        ObjectMap<Particle, Integer> pointCounts = new ObjectMap<>();
-
-        Vector2 tmpVec = new Vector2();
-
-        public PointMemoryAccumulator() {
-        }
-
-        public void init(int pointCount, float memoryDuration) {
-            this.memoryDuration = memoryDuration;
-            this.pointCount = pointCount;
-            leadPoints.clear();
-            leadLife.clear();
-            allPoints.clear();
-            pointCounts.clear();
-        }
-
-        public void clean(Particle particle) {
-            leadPoints.remove(particle);
-            leadLife.remove(particle, 0);
-            allPoints.remove(particle);
-            pointCounts.remove(particle);
-        }
-
-        private void initIfNull(Particle particle) {
-            if(!leadPoints.containsKey(particle)) {
-                leadPoints.put(particle, new Vector2());
-                leadLife.put(particle, 0f);
-                pointCounts.put(particle, 0);
-                Array<Vector2> arr = new Array<>(pointCount - 1);
-                allPoints.put(particle, arr);
-                for(int i = 0; i < pointCount - 1; i++) {
-                    arr.add(new Vector2());
-                }
-
-            }
-        }
-
-        public void update(Particle particle, float x, float y) {
-            if(leadLife.get(particle, 0) > particle.alpha) {
-                clean(particle);
-            }
-            initIfNull(particle);
-
-            float delta = Gdx.graphics.getDeltaTime();
-
-            if(delta > 1f/60f) delta = 1f/60f;
-
-            leadPoints.get(particle).set(x, y);
-
-            leadLife.put(particle, leadLife.get(particle, 0f) + delta);
-
-            if(leadLife.get(particle, 0f) > memoryDuration/pointCount) { // adding new point data
-                Array<Vector2> points = allPoints.get(particle);
-                int currPointCount = pointCounts.get(particle);
-                if(currPointCount < pointCount - 1) {
-                    currPointCount++;
-                }
-                pointCounts.put(particle, currPointCount);
-                // now shift
-                for(int i  = currPointCount - 1; i > 0; i--) {
-                    points.get(i).set(points.get(i-1));
-                }
-                points.get(0).set(leadPoints.get(particle)); // set the value of lead point
-
-                leadLife.put(particle, leadLife.get(particle, 0f) - memoryDuration/pointCount);
-            }
-        }
-
-        public void setDrawLocations(Particle particle, Array<Polyline.PointData> points) {
-            if(points != null && points.size == pointCount) {
-                points.get(0).position.set(leadPoints.get(particle));
-
-                for(int i = 0; i < points.size-1; i++) {
-
-                    if(i >= 0 && i < pointCounts.get(particle)) {
-                        Vector2 top = allPoints.get(particle).get(i);
-                        Vector2 bottom = leadPoints.get(particle);
-                        if(i > 0) {
-                            bottom = allPoints.get(particle).get(i - 1);
-                        }
-                        tmpVec.set(bottom).sub(top).scl(leadLife.get(particle, 0f)/(memoryDuration/pointCount)).add(top);
-                    } else {
-                        tmpVec.set(allPoints.get(particle).get(i));
-                    }
-
-                    if(i < pointCounts.get(particle)) {
-                        points.get(i + 1).position.set(tmpVec);
-                    } else {
-                        if(pointCounts.get(particle) > 0) {
-                            points.get(i + 1).position.set(allPoints.get(particle).get(pointCounts.get(particle) - 1));
-                        } else {
-                            points.get(i + 1).color.a = 0;
-                        }
-                    }
-                }
-            }
-        }
-
-        public float getPointAlpha(Particle particle) {
-            if(leadLife == null) return 0;
-            return leadLife.get(particle, 0f)/(memoryDuration/pointCount);
-        }
+    public TrailHistory getHistory() {
+        return history;
     }
 }
@@ -3,29 +3,47 @@ package com.talosvfx.talos.runtime.render.drawables;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.talosvfx.talos.runtime.BatchedParticleDrawable;
 import com.talosvfx.talos.runtime.Particle;
-import com.talosvfx.talos.runtime.ParticleDrawable;
+import com.talosvfx.talos.runtime.render.ParticleVertexWriter;
 import com.talosvfx.talos.runtime.utils.DefaultShaders;
+import com.talosvfx.talos.runtime.utils.ShaderCache;
 
-public class ShadedDrawable implements ParticleDrawable {
+/**
+ * Draws particles as quads with a shader graph program. Particles are collected and drawn in one call when flushed,
+ * with textures bound once. Particle time goes to the shader per vertex, shader graph's u_time uniform reads it.
+ * Drawables are created while effects load, which may be off the GL thread or without GL at all,
+ * so shader and placeholder texture are only created once drawable is used for drawing.
+ */
+public class ShadedDrawable implements BatchedParticleDrawable, Disposable {
+
+    private static final int VERTEX_SIZE = 6; // x, y, color, u, v, time
+    private static final int MAX_QUADS = 1000;
 
     private ShaderProgram shaderProgram;
+    private String fragCode;
 
     private Texture texture;
-    private TextureRegion region;
+    private final TextureRegion region = new TextureRegion();
     private ObjectMap<String, Texture> textureMap;
 
-    public ShadedDrawable() {
-        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
-        texture = new Texture(pixmap);
-        region = new TextureRegion(texture);
-    }
+    private Mesh mesh;
+    private final float[] vertices = new float[MAX_QUADS * 4 * VERTEX_SIZE];
+    private int quadCount;
+
+    private final ParticleVertexWriter writer = new ParticleVertexWriter(1);
+    private final Matrix4 combined = new Matrix4();
+    private static final float[] EMPTY = new float[0];
 
     @Override
     public void draw(Batch batch, float x, float y, float width, float height, float rotation) {
@@ -34,19 +52,53 @@ public class ShadedDrawable implements ParticleDrawable {
     @Override
     public void draw(Batch batch, Particle particle, Color color) {
 
-        if (shaderProgram == null || !shaderProgram.isCompiled()) return;
+        ShaderProgram program = getShaderProgram();
+        if (program == null || !program.isCompiled()) return;
+        obtainTexture();
 
-        float rotation = particle.rotation;
-        float width = particle.size.x;
-        float height = particle.size.y;
-        float y = particle.getY();
-        float x = particle.getX();
+        if (quadCount == MAX_QUADS) {
+            flush(batch);
+        }
 
-        ShaderProgram prevShader = batch.getShader();
+        float time = particle.alpha * particle.life; // TODO this should be exposed as port later on
 
-        batch.setShader(shaderProgram);
+        writer.quad(particle.getX(), particle.getY(), particle.size.x, particle.size.y, particle.rotation, color.toFloatBits(), 0, 0, 1, 1);
+        float[] quad = writer.getVertices();
+        int idx = quadCount * 4 * VERTEX_SIZE;
+        for (int i = 0; i < 4; i++) {
+            System.arraycopy(quad, i * ParticleVertexWriter.VERTEX_SIZE, vertices, idx, ParticleVertexWriter.VERTEX_SIZE);
+            idx += ParticleVertexWriter.VERTEX_SIZE;
+            vertices[idx++] = time;
+        }
+        writer.clear();
+
+        quadCount++;
+    }
+
+    @Override
+    public void flush(Batch batch) {
+        if (quadCount == 0) return;
 
-        shaderProgram.setUniformf("u_time", particle.alpha * particle.life); // TODO this should be exposed as port later on
+        // leaves our texture as the batch's last one, so batch binds it's own again on next draw
+        batch.draw(texture, EMPTY, 0, 0);
+        batch.flush();
+
+        if (mesh == null) {
+            mesh = createMesh();
+        }
+        mesh.setVertices(vertices, 0, quadCount * 4 * VERTEX_SIZE);
+
+        if (batch.isBlendingEnabled()) {
+            Gdx.gl.glEnable(GL20.GL_BLEND);
+            Gdx.gl.glBlendFunc(batch.getBlendSrcFunc(), batch.getBlendDstFunc());
+        } else {
+            Gdx.gl.glDisable(GL20.GL_BLEND);
+        }
+
+        combined.set(batch.getProjectionMatrix()).mul(batch.getTransformMatrix());
+
+        shaderProgram.begin();
+        shaderProgram.setUniformMatrix("u_projTrans", combined);
 
         if (textureMap != null) {
             int bind = 1;
@@ -54,14 +106,41 @@ public class ShadedDrawable implements ParticleDrawable {
                 Texture texture = textureMap.get(uniformName);
                 texture.bind(bind);
                 shaderProgram.setUniformi(uniformName, bind);
-                Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
                 bind++;
             }
         }
+        texture.bind(0);
+        shaderProgram.setUniformi("u_texture", 0);
+
+        mesh.render(shaderProgram, GL20.GL_TRIANGLES, 0, quadCount * 6);
+        shaderProgram.end();
+
+        if (batch.isDrawing()) {
+            batch.getShader().begin(); // batch only binds it's shader in begin()
+        }
+
+        quadCount = 0;
+    }
+
+    private Mesh createMesh() {
+        Mesh mesh = new Mesh(false, MAX_QUADS * 4, MAX_QUADS * 6,
+                new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"),
+                new VertexAttribute(VertexAttributes.Usage.Generic, 1, "a_time"));
+
+        short[] indices = new short[MAX_QUADS * 6];
+        for (int i = 0, j = 0; i < indices.length; i += 6, j += 4) {
+            indices[i] = (short)j;
+            indices[i + 1] = (short)(j + 1);
+            indices[i + 2] = (short)(j + 2);
+            indices[i + 3] = (short)(j + 2);
+            indices[i + 4] = (short)(j + 3);
+            indices[i + 5] = (short)j;
+        }
+        mesh.setIndices(indices);
 
-        batch.setColor(color);
-        batch.draw(texture, x - width / 2f, y - height / 2f, width / 2f, height / 2f, width, height, 1f, 1f, rotation, 0, 0, 1, 1, false, false);
-        batch.setShader(prevShader);
+        return mesh;
     }
 
     @Override
@@ -76,25 +155,65 @@ public class ShadedDrawable implements ParticleDrawable {
 
     @Override
     public TextureRegion getTextureRegion() {
+        obtainTexture();
         return region;
     }
 
+    private void obtainTexture() {
+        if (texture != null) return;
+        texture = ShaderCache.obtainPlaceholderTexture();
+        region.setRegion(texture);
+    }
+
+    /**
+     * Shader is compiled the next time it's needed for drawing
+     */
     public void setShader(String fragCode) {
         if (fragCode == null) return;
+        this.fragCode = fragCode;
+    }
 
-        ShaderProgram.pedantic = false;
-
-        shaderProgram = new ShaderProgram(
-                DefaultShaders.DEFAULT_VERTEX_SHADER,
-                fragCode
-        );
+    /**
+     * Replaces u_time uniform declaration with the per vertex value
+     */
+    static String timeFromVertex(String fragCode) {
+        return fragCode.replaceFirst("uniform\\s+(\\w+\\s+)?float\\s+u_time\\s*;", "varying float v_time;\n#define u_time v_time");
+    }
 
-        if(!shaderProgram.isCompiled()){
-            Gdx.app.log("GL SHADER ERROR", shaderProgram.getLog());
+    public ShaderProgram getShaderProgram() {
+        if (fragCode != null) {
+            ShaderProgram previous = shaderProgram;
+            shaderProgram = ShaderCache.obtain(DefaultShaders.SHADED_VERTEX_SHADER, timeFromVertex(fragCode));
+            fragCode = null;
+            if (previous != null) {
+                ShaderCache.free(previous);
+            }
         }
+        return shaderProgram;
     }
 
     public void setTextures(ObjectMap<String, Texture> textureMap) {
         this.textureMap = textureMap;
     }
+
+    /**
+     * Releases shared shader and placeholder texture, drawable can't be used after that
+     */
+    @Override
+    public void dispose() {
+        if (shaderProgram != null) {
+            ShaderCache.free(shaderProgram);
+            shaderProgram = null;
+        }
+        fragCode = null;
+        if (texture != null) {
+            ShaderCache.freePlaceholderTexture();
+            texture = null;
+            region.setTexture(null);
+        }
+        if (mesh != null) {
+            mesh.dispose();
+            mesh = null;
+        }
+    }
 }
@@ -17,14 +17,11 @@
 package com.talosvfx.talos.runtime.render.drawables;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.PolygonSpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticleDrawable;
+import com.talosvfx.talos.runtime.render.ParticleVertexWriter;
 
 public class SpriteAnimationDrawable implements ParticleDrawable {
 
@@ -36,75 +33,19 @@ public class SpriteAnimationDrawable implements ParticleDrawable {
 
     private float phase;
 
-    private class Frame {
-        public float u1;
-        public float v1;
-        public float u2;
-        public float v2;
-    }
-
-    Animation<Frame> animation;
+    /**
+     * u, v, u2, v2 per frame, v is the top edge, so it can go to the vertex writer as is
+     */
+    private float[] frameUVs = new float[0];
+    private int frameCount;
 
-    private float[] vertices;
-    private short[] indexes;
-    Vector2 origin = new Vector2();
-    Vector2 tmp = new Vector2();
+    private final ParticleVertexWriter writer = new ParticleVertexWriter(1);
 
     public SpriteAnimationDrawable() {
-        makeVertices();
     }
 
     public SpriteAnimationDrawable(TextureRegion region, int rows, int cols) {
         set(region, rows, cols);
-        makeVertices();
-    }
-
-    private void makeVertices() {
-        int attributeCount = 5;
-        vertices = new float[4 * attributeCount];
-        indexes = new short[2 * 3];
-    }
-
-    private void updateVertices(float x, float y, float width, float height, Color color, float u, float v, float u2, float v2, float rotation) {
-        int idx = 0;
-        origin.set(x + width/2f, y + width/2f);
-
-        tmp.set(x, y).rotateAround(origin, rotation);
-        vertices[idx++] = tmp.x;
-        vertices[idx++] = tmp.y;
-        vertices[idx++] = color.toFloatBits();
-        vertices[idx++] = u;
-        vertices[idx++] = v;
-
-        tmp.set(x, y+height).rotateAround(origin, rotation);
-        vertices[idx++] = tmp.x;
-        vertices[idx++] = tmp.y;
-        vertices[idx++] = color.toFloatBits();
-        vertices[idx++] = u;
-        vertices[idx++] = v2;
-
-        tmp.set(x+width, y+height).rotateAround(origin, rotation);
-        vertices[idx++] = tmp.x;
-        vertices[idx++] = tmp.y;
-        vertices[idx++] = color.toFloatBits();
-        vertices[idx++] = u2;
-        vertices[idx++] = v2;
-
-        tmp.set(x+width, y).rotateAround(origin, rotation);
-        vertices[idx++] = tmp.x;
-        vertices[idx++] = tmp.y;
-        vertices[idx++] = color.toFloatBits();
-        vertices[idx++] = u2;
-        vertices[idx++] = v;
-
-        idx = 0;
-
-        indexes[idx++] = 0;
-        indexes[idx++] = 1;
-        indexes[idx++] = 2;
-        indexes[idx++] = 0;
-        indexes[idx++] = 2;
-        indexes[idx++] = 3;
     }
 
     public void set(int rows, int cols) {
@@ -113,35 +54,54 @@ public class SpriteAnimationDrawable implements ParticleDrawable {
 
     public void set(TextureRegion region, int rows, int cols) {
         this.region = region;
-        Array<Frame> frames = new Array<>();
+        frameCount = rows * cols;
+        if(frameUVs.length < frameCount * 4) {
+            frameUVs = new float[frameCount * 4];
+        }
 
         float uSize = (region.getU2()-region.getU())/cols;
         float vSize = (region.getV2()-region.getV())/rows;
+        int idx = 0;
         for(int r = 0; r < rows; r++) {
             for(int c = 0; c < cols; c++) {
-                Frame frame = new Frame();
-                frame.u1 = region.getU() + c * uSize;
-                frame.u2 = region.getU() + (c+1) * uSize;
-                frame.v2 = region.getV() + r * vSize;
-                frame.v1  = region.getV() + (r+1) * vSize; // we are flipping the V's
-                frames.add(frame);
+                frameUVs[idx++] = region.getU() + c * uSize;
+                frameUVs[idx++] = region.getV() + r * vSize;
+                frameUVs[idx++] = region.getU() + (c+1) * uSize;
+                frameUVs[idx++] = region.getV() + (r+1) * vSize;
             }
         }
-        animation = new Animation<>(1f/(rows*cols), frames);
         setAspectRatio(uSize/vSize);
     }
 
-    @Override
-    public void draw(Batch batch, float x, float y, float width, float height, float rotation) {
-        if(batch instanceof PolygonSpriteBatch) {
-            PolygonSpriteBatch polygonSpriteBatch = (PolygonSpriteBatch) batch;
+    /**
+     * @return frame index for the phase given by last {@link #setCurrentParticle(Particle)}
+     */
+    public int getFrame() {
+        int frame = (int)(phase * frameCount);
+        return Math.min(frame, frameCount - 1);
+    }
 
-            Frame frame = animation.getKeyFrame(phase, false);
+    public int getFrameCount() {
+        return frameCount;
+    }
 
-            updateVertices(x-width/2f, y-height/2f, width, height, batch.getColor(), frame.u1, frame.v1, frame.u2, frame.v2, rotation);
-            polygonSpriteBatch.draw(region.getTexture(), vertices, 0, vertices.length, indexes, 0, indexes.length);
-        }
+    /**
+     * Writes current frame as a quad centered at x, y, so that many particles can go to the batch in one call
+     */
+    public void write(ParticleVertexWriter writer, float x, float y, float width, float height, float rotation, float color) {
+        if(frameCount == 0) return;
+
+        int idx = getFrame() * 4;
+        writer.quad(x, y, width, height, rotation, color, frameUVs[idx], frameUVs[idx + 1], frameUVs[idx + 2], frameUVs[idx + 3]);
+    }
+
+    @Override
+    public void draw(Batch batch, float x, float y, float width, float height, float rotation) {
+        if(region == null) return;
 
+        write(writer, x, y, width, height, rotation, batch.getPackedColor());
+        batch.draw(region.getTexture(), writer.getVertices(), 0, writer.getSize());
+        writer.clear();
     }
 
     @Override
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.render.drawables;
+
+import com.badlogic.gdx.math.Vector2;
+import com.talosvfx.talos.runtime.Particle;
+
+/**
+ * Remembers recent positions of particles, for ribbons and trails.
+ * Each particle gets a slot, and each slot is a fixed size ring of points, all kept in flat primitive arrays.
+ * Slot is released when particle is freed back to it's pool.
+ */
+public class TrailHistory {
+
+    private int capacity;
+    private int slotCount;
+
+    private float[] pointX = new float[0];
+    private float[] pointY = new float[0];
+    private int[] heads = new int[0];
+    private int[] counts = new int[0];
+
+    private float[] leadX = new float[0];
+    private float[] leadY = new float[0];
+    private float[] leadLife = new float[0];
+    private float[] lastAlpha = new float[0];
+
+    private Particle[] owners = new Particle[0];
+
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+
+    /**
+     * Forgets all trails, particles that had a slot will get a new one next time they are drawn
+     * @param capacity amount of points remembered per particle, not counting the lead point
+     */
+    public void init(int capacity) {
+        for(int i = 0; i < slotCount; i++) {
+            if(owners[i] != null) {
+                owners[i].trailHistory = null;
+                owners[i].trailSlot = -1;
+                owners[i] = null;
+            }
+        }
+        slotCount = 0;
+        freeCount = 0;
+
+        this.capacity = Math.max(capacity, 1);
+        pointX = new float[owners.length * this.capacity];
+        pointY = new float[owners.length * this.capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return slot of this particle, allocates a new one if particle has none yet
+     */
+    public int obtain(Particle particle) {
+        if(particle.trailHistory == this) return particle.trailSlot;
+        if(particle.trailHistory != null) particle.trailHistory.free(particle);
+
+        int slot;
+        if(freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if(slotCount == owners.length) grow();
+            slot = slotCount++;
+        }
+
+        owners[slot] = particle;
+        particle.trailHistory = this;
+        particle.trailSlot = slot;
+
+        clear(slot, particle.getX(), particle.getY());
+        lastAlpha[slot] = particle.alpha;
+
+        return slot;
+    }
+
+    public void free(Particle particle) {
+        if(particle.trailHistory != this) return;
+
+        int slot = particle.trailSlot;
+        owners[slot] = null;
+        freeSlots[freeCount++] = slot;
+
+        particle.trailHistory = null;
+        particle.trailSlot = -1;
+    }
+
+    private void clear(int slot, float x, float y) {
+        heads[slot] = 0;
+        counts[slot] = 0;
+        leadX[slot] = x;
+        leadY[slot] = y;
+        leadLife[slot] = 0;
+    }
+
+    /**
+     * Moves lead point of the trail, and pushes it into history every interval seconds
+     */
+    public void record(int slot, float x, float y, float alpha, float delta, float interval) {
+        if(alpha < lastAlpha[slot]) {
+            // same particle object was reused for a new particle
+            clear(slot, x, y);
+        }
+        lastAlpha[slot] = alpha;
+
+        leadX[slot] = x;
+        leadY[slot] = y;
+        leadLife[slot] += delta;
+
+        if(leadLife[slot] > interval) {
+            int head = heads[slot] + 1;
+            if(head == capacity) head = 0;
+            heads[slot] = head;
+            if(counts[slot] < capacity) counts[slot]++;
+
+            int idx = slot * capacity + head;
+            pointX[idx] = x;
+            pointY[idx] = y;
+
+            leadLife[slot] -= interval;
+        }
+    }
+
+    /**
+     * @return amount of points pushed into history, at most capacity
+     */
+    public int getCount(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * @param index 0 is the most recent point
+     */
+    public Vector2 getPoint(int slot, int index, Vector2 out) {
+        int ring = heads[slot] - index;
+        if(ring < 0) ring += capacity;
+        int idx = slot * capacity + ring;
+        return out.set(pointX[idx], pointY[idx]);
+    }
+
+    public Vector2 getLead(int slot, Vector2 out) {
+        return out.set(leadX[slot], leadY[slot]);
+    }
+
+    public float getLeadLife(int slot) {
+        return leadLife[slot];
+    }
+
+    public int getActiveSlotCount() {
+        return slotCount - freeCount;
+    }
+
+    private void grow() {
+        int size = Math.max(16, owners.length * 2);
+
+        pointX = copy(pointX, size * capacity);
+        pointY = copy(pointY, size * capacity);
+        heads = copy(heads, size);
+        counts = copy(counts, size);
+        leadX = copy(leadX, size);
+        leadY = copy(leadY, size);
+        leadLife = copy(leadLife, size);
+        lastAlpha = copy(lastAlpha, size);
+        freeSlots = copy(freeSlots, size);
+
+        Particle[] grownOwners = new Particle[size];
+        System.arraycopy(owners, 0, grownOwners, 0, owners.length);
+        owners = grownOwners;
+    }
+
+    private static float[] copy(float[] array, int size) {
+        float[] grown = new float[size];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    private static int[] copy(int[] array, int size) {
+        int[] grown = new int[size];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.talosvfx.talos.runtime.modules.*;
+
+/**
+ * Binary export format, a compact alternative to the json export that loads without reflection.
+ * <pre>
+ * int magic, short version
+ * string table: int count, each int byte length and UTF-8 bytes
+ * module type table: short count, each int string
+ * resources: int count, each int string
+ * emitters: short count, each
+ *     int name string, int module count,
+ *     each module: short type, int record length, record written by {@link AbstractModule#write(BinaryExportWriter)}
+ *     int connection count, each short module from, short module to, byte slot from, byte slot to
+ * </pre>
+ * Strings are stored as indices into the string table, -1 for null. Connections refer to modules by their position in the emitter.
+ */
+public class BinaryExport {
+
+    public static final String EXTENSION = "talosb";
+
+    public static final int MAGIC = 0x544C5342; // TLSB
+    public static final int VERSION = 1;
+
+    /**
+     * Creates module for it's type name, same name json export uses as class tag
+     */
+    public static AbstractModule createModule (String type) {
+        switch (type) {
+            case "EmitterModule": return new EmitterModule();
+            case "InterpolationModule": return new InterpolationModule();
+            case "InputModule": return new InputModule();
+            case "ParticleModule": return new ParticleModule();
+            case "StaticValueModule": return new StaticValueModule();
+            case "RandomRangeModule": return new RandomRangeModule();
+            case "MixModule": return new MixModule();
+            case "MathModule": return new MathModule();
+            case "CurveModule": return new CurveModule();
+            case "Vector2Module": return new Vector2Module();
+            case "ColorModule": return new ColorModule();
+            case "DynamicRangeModule": return new DynamicRangeModule();
+            case "ScriptModule": return new ScriptModule();
+            case "GradientColorModule": return new GradientColorModule();
+            case "TextureModule": return new TextureModule();
+            case "EmConfigModule": return new EmConfigModule();
+            case "OffsetModule": return new OffsetModule();
+            case "RandomInputModule": return new RandomInputModule();
+            case "NoiseModule": return new NoiseModule();
+            case "PolylineModule": return new PolylineModule();
+            case "RibbonModule": return new RibbonModule();
+            case "FromToModule": return new FromToModule();
+            case "GlobalScopeModule": return new GlobalScopeModule();
+            case "FlipbookModule": return new FlipbookModule();
+            case "ShadedSpriteModule": return new ShadedSpriteModule();
+            case "FakeMotionBlurModule": return new FakeMotionBlurModule();
+            case "VectorFieldModule": return new VectorFieldModule();
+            case "RadToCartModule": return new RadToCartModule();
+            case "CartToRadModule": return new CartToRadModule();
+            case "AttractorModule": return new AttractorModule();
+            case "ForceApplierModule": return new ForceApplierModule();
+            case "NinePatchModule": return new NinePatchModule();
+            default: throw new GdxRuntimeException("Unknown module type: " + type);
+        }
+    }
+
+    public static boolean isBinary (byte[] data) {
+        return data.length >= 4 && ((data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF)) == MAGIC;
+    }
+}
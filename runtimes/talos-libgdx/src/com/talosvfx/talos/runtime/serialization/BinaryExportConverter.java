@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+
+import java.io.File;
+
+/**
+ * Converts json exports (.p) into the binary format.
+ * Usage: BinaryExportConverter input [output], input is a file or a directory searched for .p files,
+ * output is a file or directory, next to the input when not given.
+ * With --bundle input output all effects under input are packed into a single bundle instead, named by their path relative to input.
+ */
+public class BinaryExportConverter {
+
+    private final Json json = new Json();
+    private final BinaryExportWriter writer = new BinaryExportWriter();
+
+    public BinaryExportConverter () {
+        for (Class<?> clazz : ParticleEmitterDescriptor.getRegisteredModules()) {
+            json.addClassTag(clazz.getSimpleName(), clazz);
+        }
+    }
+
+    public byte[] convert (String data) {
+        ExportData exportData = json.fromJson(ExportData.class, data);
+        return writer.write(exportData);
+    }
+
+    /**
+     * @return amount of converted files
+     */
+    public int convert (FileHandle input, FileHandle output) {
+        if (input.isDirectory()) {
+            int converted = 0;
+            for (FileHandle child : input.list()) {
+                if (child.isDirectory() || child.extension().equals("p")) {
+                    converted += convert(child, output == null ? null : output.child(child.name()));
+                }
+            }
+            return converted;
+        }
+
+        String name = input.nameWithoutExtension() + "." + BinaryExport.EXTENSION;
+        if (output == null) {
+            output = input.sibling(name);
+        } else if (output.isDirectory()) {
+            output = output.child(name);
+        } else if (!output.extension().equals(BinaryExport.EXTENSION)) {
+            output = output.sibling(output.nameWithoutExtension() + "." + BinaryExport.EXTENSION);
+        }
+
+        output.writeBytes(convert(input.readString()), false);
+        return 1;
+    }
+
+    /**
+     * Adds effects under given file to the bundle, .p files are converted, binary exports are added as they are
+     * @return amount of added effects
+     */
+    public int bundle (FileHandle input, String prefix, EffectBundleWriter bundle) {
+        if (input.isDirectory()) {
+            int added = 0;
+            for (FileHandle child : input.list()) {
+                added += bundle(child, prefix + (child.isDirectory() ? child.name() + "/" : ""), bundle);
+            }
+            return added;
+        }
+
+        String name = prefix + input.nameWithoutExtension();
+        if (input.extension().equals("p")) {
+            bundle.add(name, convert(input.readString()));
+        } else if (input.extension().equals(BinaryExport.EXTENSION)) {
+            bundle.add(name, input.readBytes());
+        } else {
+            return 0;
+        }
+        return 1;
+    }
+
+    public static void main (String[] args) {
+        if (args.length == 3 && args[0].equals("--bundle")) {
+            bundleMain(args[1], args[2]);
+            return;
+        }
+
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: BinaryExportConverter input [output]");
+            System.out.println("       BinaryExportConverter --bundle input output");
+            System.out.println("  input   .p file or directory containing them");
+            System.out.println("  output  ." + BinaryExport.EXTENSION + " file or directory, defaults to next to the input");
+            System.out.println("          ." + EffectBundleWriter.EXTENSION + " file with all effects when bundling");
+            System.exit(1);
+        }
+
+        FileHandle input = new FileHandle(new File(args[0]));
+        if (!input.exists()) {
+            System.err.println("Input not found: " + input.path());
+            System.exit(1);
+        }
+
+        FileHandle output = args.length > 1 ? new FileHandle(new File(args[1])) : null;
+        if (output != null && input.isDirectory() && output.exists() && !output.isDirectory()) {
+            System.err.println("Output has to be a directory when input is one: " + output.path());
+            System.exit(1);
+        }
+
+        int converted = new BinaryExportConverter().convert(input, output);
+        System.out.println("Converted " + converted + " effect(s)");
+    }
+
+    private static void bundleMain (String inputPath, String outputPath) {
+        FileHandle input = new FileHandle(new File(inputPath));
+        if (!input.exists()) {
+            System.err.println("Input not found: " + input.path());
+            System.exit(1);
+        }
+
+        EffectBundleWriter bundle = new EffectBundleWriter();
+        new BinaryExportConverter().bundle(input, "", bundle);
+
+        FileHandle output = new FileHandle(new File(outputPath));
+        if (!output.extension().equals(EffectBundleWriter.EXTENSION)) {
+            output = output.sibling(output.name() + "." + EffectBundleWriter.EXTENSION);
+        }
+        bundle.write(output);
+        System.out.println("Bundled " + bundle.size() + " effect(s) into " + output.path());
+    }
+}
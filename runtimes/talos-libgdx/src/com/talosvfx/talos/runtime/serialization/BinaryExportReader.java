@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Reads data in the {@link BinaryExport} format. Tables are read up front, emitters are then read in order by the caller,
+ * modules read their own parameters through it. Malformed data fails with {@link GdxRuntimeException}.
+ */
+public class BinaryExportReader {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+
+    private final int version;
+    private final String[] strings;
+    private final String[] types;
+    private final String[] resources;
+
+    public BinaryExportReader (byte[] data) {
+        buffer = ByteBuffer.wrap(data);
+
+        if (data.length < 6 || buffer.getInt() != BinaryExport.MAGIC) {
+            throw new GdxRuntimeException("Not a binary talos export");
+        }
+        version = readShort();
+        if (version > BinaryExport.VERSION) {
+            throw new GdxRuntimeException("Unsupported binary export version: " + version + ", newest supported is " + BinaryExport.VERSION);
+        }
+
+        strings = new String[readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readCount();
+            strings[i] = new String(data, buffer.position(), length, UTF8);
+            buffer.position(buffer.position() + length);
+        }
+
+        int typeCount = readShort();
+        if (typeCount < 0) {
+            throw new GdxRuntimeException("Invalid type count: " + typeCount);
+        }
+        types = new String[typeCount];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = readString();
+        }
+
+        resources = new String[readCount()];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = readString();
+        }
+    }
+
+    /**
+     * Creates next module and lets it read it's parameters
+     */
+    public AbstractModule readModule () {
+        int typeIndex = readShort();
+        if (typeIndex < 0 || typeIndex >= types.length) {
+            throw new GdxRuntimeException("Module type index out of range: " + typeIndex);
+        }
+        String type = types[typeIndex];
+        if (type == null) {
+            throw new GdxRuntimeException("Module type is missing for index " + typeIndex);
+        }
+        int length = readCount();
+        int end = buffer.position() + length;
+
+        AbstractModule module = BinaryExport.createModule(type);
+        module.read(this);
+
+        if (buffer.position() != end) {
+            throw new GdxRuntimeException(type + " read " + (buffer.position() - end + length) + " bytes of it's " + length + " byte record");
+        }
+        return module;
+    }
+
+    public int readByte () {
+        require(1);
+        return buffer.get();
+    }
+
+    public int readShort () {
+        require(2);
+        return buffer.getShort();
+    }
+
+    public int readInt () {
+        require(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads element count or byte length, it can't be negative or exceed the remaining data
+     */
+    public int readCount () {
+        int count = readInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new GdxRuntimeException("Invalid count " + count + " at byte " + (buffer.position() - 4));
+        }
+        return count;
+    }
+
+    public float readFloat () {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    public boolean readBoolean () {
+        require(1);
+        return buffer.get() != 0;
+    }
+
+    public String readString () {
+        int index = readInt();
+        if (index >= strings.length) {
+            throw new GdxRuntimeException("String index out of range: " + index);
+        }
+        return index < 0 ? null : strings[index];
+    }
+
+    private void require (int bytes) {
+        if (buffer.remaining() < bytes) {
+            throw new GdxRuntimeException("Binary export is truncated at byte " + buffer.position());
+        }
+    }
+
+    public int getVersion () {
+        return version;
+    }
+
+    /**
+     * @return asset names effect uses, same as resources of json export metadata
+     */
+    public String[] getResources () {
+        return resources;
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+
+import java.nio.charset.Charset;
+
+/**
+ * Writes {@link ExportData} in the {@link BinaryExport} format. Modules write their own parameters through it.
+ */
+public class BinaryExportWriter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private byte[] bytes = new byte[1024];
+    private int size;
+
+    private final Array<String> strings = new Array<>();
+    private final ObjectIntMap<String> stringIndices = new ObjectIntMap<>();
+
+    private final Array<String> types = new Array<>();
+    private final ObjectIntMap<String> typeIndices = new ObjectIntMap<>();
+
+    public byte[] write (ExportData exportData) {
+        size = 0;
+        strings.clear();
+        stringIndices.clear();
+        types.clear();
+        typeIndices.clear();
+
+        // body goes first, it fills string and type tables the header is made of
+        writeShort(exportData.emitters.size);
+        IntIntMap positions = new IntIntMap();
+        for (ExportData.EmitterExportData emitter : exportData.emitters) {
+            writeString(emitter.name);
+
+            writeInt(emitter.modules.size);
+            positions.clear();
+            for (int i = 0; i < emitter.modules.size; i++) {
+                AbstractModule module = emitter.modules.get(i);
+                positions.put(module.getIndex(), i);
+                writeModule(module);
+            }
+
+            writeInt(emitter.connections.size);
+            for (ConnectionData connection : emitter.connections) {
+                writeShort(positions.get(connection.moduleFrom, -1));
+                writeShort(positions.get(connection.moduleTo, -1));
+                writeByte(connection.slotFrom);
+                writeByte(connection.slotTo);
+            }
+        }
+
+        IntArray resources = new IntArray(exportData.metadata.resources.size);
+        for (String resource : exportData.metadata.resources) {
+            resources.add(writeStringIndex(resource));
+        }
+
+        byte[] body = bytes;
+        int bodySize = size;
+        bytes = new byte[bodySize + 1024];
+        size = 0;
+
+        writeInt(BinaryExport.MAGIC);
+        writeShort(BinaryExport.VERSION);
+
+        writeInt(strings.size);
+        for (String string : strings) {
+            byte[] encoded = string.getBytes(UTF8);
+            writeInt(encoded.length);
+            writeBytes(encoded, encoded.length);
+        }
+
+        writeShort(types.size);
+        for (String type : types) {
+            writeInt(stringIndices.get(type, -1));
+        }
+
+        writeInt(resources.size);
+        for (int i = 0; i < resources.size; i++) {
+            writeInt(resources.items[i]);
+        }
+
+        writeBytes(body, bodySize);
+
+        byte[] result = new byte[size];
+        System.arraycopy(bytes, 0, result, 0, size);
+        bytes = body;
+        return result;
+    }
+
+    private void writeModule (AbstractModule module) {
+        String type = module.getClass().getSimpleName();
+        int typeIndex = typeIndices.get(type, -1);
+        if (typeIndex < 0) {
+            typeIndex = types.size;
+            types.add(type);
+            typeIndices.put(type, typeIndex);
+            writeStringIndex(type);
+        }
+        writeShort(typeIndex);
+
+        // record length is patched in once module is written, so loader can check it read all of it
+        int lengthPosition = size;
+        writeInt(0);
+        module.write(this);
+        int length = size - lengthPosition - 4;
+        size = lengthPosition;
+        writeInt(length);
+        size += length;
+    }
+
+    public void writeByte (int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte)value;
+    }
+
+    public void writeShort (int value) {
+        ensureCapacity(2);
+        bytes[size++] = (byte)(value >>> 8);
+        bytes[size++] = (byte)value;
+    }
+
+    public void writeInt (int value) {
+        ensureCapacity(4);
+        bytes[size++] = (byte)(value >>> 24);
+        bytes[size++] = (byte)(value >>> 16);
+        bytes[size++] = (byte)(value >>> 8);
+        bytes[size++] = (byte)value;
+    }
+
+    public void writeFloat (float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeBoolean (boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeString (String value) {
+        writeInt(writeStringIndex(value));
+    }
+
+    private int writeStringIndex (String value) {
+        if (value == null) return -1;
+
+        int index = stringIndices.get(value, -1);
+        if (index < 0) {
+            index = strings.size;
+            strings.add(value);
+            stringIndices.put(value, index);
+        }
+        return index;
+    }
+
+    private void writeBytes (byte[] data, int length) {
+        ensureCapacity(length);
+        System.arraycopy(data, 0, bytes, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity (int additional) {
+        if (size + additional > bytes.length) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, size + additional)];
+            System.arraycopy(bytes, 0, grown, 0, size);
+            bytes = grown;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Packs many binary exports into a single bundle file, read by {@link com.talosvfx.talos.runtime.ParticleEffectBundle}.
+ * <pre>
+ * int magic, short version, int effect count
+ * index, each: int name byte length and UTF-8 bytes, int offset from file start, int length
+ * effect data in the {@link BinaryExport} format
+ * </pre>
+ */
+public class EffectBundleWriter {
+
+    public static final String EXTENSION = "talosbundle";
+
+    public static final int MAGIC = 0x544C424E; // TLBN
+    public static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Array<String> names = new Array<>();
+    private final Array<byte[]> effects = new Array<>();
+    private final ObjectSet<String> added = new ObjectSet<>();
+
+    /**
+     * @param data effect in the binary export format
+     */
+    public void add (String name, byte[] data) {
+        if (!BinaryExport.isBinary(data)) {
+            throw new GdxRuntimeException("Not a binary talos export: " + name);
+        }
+        if (!added.add(name)) {
+            throw new GdxRuntimeException("Effect already in bundle: " + name);
+        }
+
+        names.add(name);
+        effects.add(data);
+    }
+
+    public int size () {
+        return names.size;
+    }
+
+    public byte[] write () {
+        byte[][] encodedNames = new byte[names.size][];
+        int indexSize = 4 + 2 + 4;
+        for (int i = 0; i < names.size; i++) {
+            encodedNames[i] = names.get(i).getBytes(UTF8);
+            indexSize += 4 + encodedNames[i].length + 4 + 4;
+        }
+
+        int size = indexSize;
+        for (byte[] effect : effects) {
+            size += effect.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short)VERSION);
+        buffer.putInt(names.size);
+
+        int offset = indexSize;
+        for (int i = 0; i < names.size; i++) {
+            buffer.putInt(encodedNames[i].length);
+            buffer.put(encodedNames[i]);
+            buffer.putInt(offset);
+            buffer.putInt(effects.get(i).length);
+            offset += effects.get(i).length;
+        }
+
+        for (byte[] effect : effects) {
+            buffer.put(effect);
+        }
+
+        return buffer.array();
+    }
+
+    public void write (FileHandle file) {
+        file.writeBytes(write(), false);
+    }
+}
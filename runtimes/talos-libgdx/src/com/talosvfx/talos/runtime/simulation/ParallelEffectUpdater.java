@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.simulation;
+
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates many effect instances at once on a {@link ForkJoinPool}.
+ * Each instance borrows evaluation state from it's descriptor for the update (see {@link com.talosvfx.talos.runtime.EvaluationContext}),
+ * so instances of the same descriptor can run in parallel too, except for effects with ribbons or polylines,
+ * which write to shared renderers and are updated one thread at a time.
+ * Instances must not be rendered or changed until {@link #update(Array, float)} returns.
+ * <p>
+ * Work is split by instance only: emitters of one instance share it's context and scope, so they are updated one after another
+ * on the thread that took the instance. A few heavy effects gain less from this than many small ones.
+ * Random numbers used during updates come from seeds owned by each instance (see {@link ParticleEffectInstance#nextSeed()}),
+ * never from shared generators like {@link com.badlogic.gdx.math.MathUtils#random()}.
+ */
+public class ParallelEffectUpdater {
+
+    /**
+     * instances updated one after another by a single task, neighbours usually share a descriptor and reuse it's context
+     */
+    private static final int BATCH_SIZE = 8;
+
+    private final ForkJoinPool pool;
+
+    private Array<ParticleEffectInstance> instances;
+    private float delta;
+
+    public ParallelEffectUpdater () {
+        this(new ForkJoinPool());
+    }
+
+    public ParallelEffectUpdater (ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void update (Array<ParticleEffectInstance> instances, float delta) {
+        this.instances = instances;
+        this.delta = delta;
+
+        if (instances.size <= BATCH_SIZE) {
+            updateRange(0, instances.size); // nothing to run in parallel
+        } else {
+            pool.invoke(new UpdateTask(0, instances.size));
+        }
+
+        this.instances = null;
+    }
+
+    private void updateRange (int from, int to) {
+        for (int i = from; i < to; i++) {
+            instances.get(i).update(delta);
+        }
+    }
+
+    public ForkJoinPool getPool () {
+        return pool;
+    }
+
+    private class UpdateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        UpdateTask (int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute () {
+            if (to - from <= BATCH_SIZE) {
+                updateRange(from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new UpdateTask(from, middle), new UpdateTask(middle, to));
+        }
+    }
+}
@@ -4,16 +4,35 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.LongMap;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.TimeUtils;
 import com.talosvfx.talos.runtime.*;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.utils.HashRandom;
 
-
+/**
+ * Emitter that records when each particle is born and dies ahead of time, so it can be seeked to any point.
+ * Particles are evaluated from their seed and age, so it only makes sense for deterministic graphs,
+ * see {@link ParticleEmitterDescriptor#isDeterministic()}.
+ */
 public class TinyEmitter implements IEmitter {
 
+    private static final float SIMULATION_STEP = 1/30f; // simulating 30 frames per second
+
+    /**
+     * moving further than this in one go re-evaluates particles from their birth, instead of stepping them
+     */
+    private static final float MAX_STEP = 0.1f;
+
+    private static final int MAX_FAST_FORWARD_STEPS = 60;
+
+    /**
+     * hash stream that picks particles dropped by emission scale, separate from the one particles are seeded from
+     */
+    private static final int THINNING_STREAM = 1;
+
     private final ParticleEffectInstance parentParticleInstance;
     private ParticleEmitterDescriptor emitterGraph;
     private EmitterModule emitterModule;
@@ -21,20 +40,49 @@ public class TinyEmitter implements IEmitter {
     private ScopePayload scopePayload;
 
     private float delay;
-    private float delayTimer;
     private float duration;
     private float rate;
     private float alpha;
     private float particlesToEmmit;
+    private float emissionScale = 1f;
+
+    /**
+     * taken from the effect instance, so instances of the same effect don't play out identically
+     */
+    private float seed;
 
     private float timePassed = 0;
     private float cursor = 0;
-    private Array<ParticleRecord> timeline = new Array();
+    private float localTime = 0;
+
+    /**
+     * loops of a continuous emitter played before the current one
+     */
+    private int loop = 0;
+    private boolean simulated = false;
+
+    /**
+     * timeline of recorded particles, sorted by start time
+     */
+    private FloatArray starts = new FloatArray();
+    private FloatArray ends = new FloatArray();
+    private FloatArray seeds = new FloatArray();
+    private FloatArray spawnAlphas = new FloatArray();
+    private float maxLife;
+    private float timelineEnd;
+
+    /**
+     * particle position has no per frame inputs, so it can be computed from the age directly
+     */
+    private boolean closedForm;
 
-    private Array<ParticleRecord> tmp = new Array();
     private Array<Particle> activeParticles = new Array();
-    public ObjectMap<ParticleRecord, Particle> newMap = new ObjectMap();
-    public ObjectMap<ParticleRecord, Particle> recordMap = new ObjectMap();
+    private final ParticleBounds bounds = new ParticleBounds();
+    /**
+     * particles by loop * timeline size + record index
+     */
+    private LongMap<Particle> liveParticles = new LongMap<>();
+    private LongMap<Particle> seekParticles = new LongMap<>();
     private final Pool<Particle> particlePool = new Pool<Particle>() {
         @Override
         protected Particle newObject () {
@@ -42,14 +90,12 @@ public class TinyEmitter implements IEmitter {
         }
     };
 
-    Vector2 effectPosition = new Vector2();
     public Color tint = new Color(Color.WHITE);
 
     private boolean isVisible = true;
     private boolean paused = false;
     private boolean isContinuous = false;
     private boolean isAttached = false;
-    private boolean isComplete = false;
     public boolean isAdditive = true;
     private boolean isStopped = false;
     private boolean isBlendAdd = false;
@@ -57,28 +103,33 @@ public class TinyEmitter implements IEmitter {
     public TinyEmitter(ParticleEmitterDescriptor moduleGraph, ParticleEffectInstance particleEffectInstance) {
         this.emitterGraph = moduleGraph;
         parentParticleInstance = particleEffectInstance;
+        seed = particleEffectInstance.nextSeed();
         setScope(particleEffectInstance.getScope()); //Default set to the parent payload instance
         init();
     }
 
+    /**
+     * Records the particle timeline for one emitter duration
+     */
     public void simulate() {
-        if(emitterGraph == null) return;
-        timeline.clear();
+        starts.clear();
+        ends.clear();
+        seeds.clear();
+        spawnAlphas.clear();
+        maxLife = 0;
+        timelineEnd = 0;
         timePassed = 0;
-        long startTime = TimeUtils.nanoTime();
-        System.out.println("starting tiny particle simulation");
+        alpha = 0;
+        particlesToEmmit = 1f; // always emmit one first
+        simulated = true;
+
+        if(emitterGraph == null || emitterModule == null) return;
 
-        if(emitterModule == null) return;
-        float step = 1/30f; // simulating 30 frames per second
         while (alpha < 1f) {
-            updateSimulation(step);
+            updateSimulation(SIMULATION_STEP);
         }
-        long endTime = TimeUtils.nanoTime();
-        System.out.println("time at the end: "+ timePassed);
-        System.out.println("timeline size: "+ timeline.size);
-        System.out.println();
 
-        System.out.println("Simulation complete in: " + TimeUtils.nanosToMillis(endTime - startTime) + "ms");
+        closedForm = emitterGraph.isClosedForm();
     }
 
     public void init() {
@@ -87,24 +138,24 @@ public class TinyEmitter implements IEmitter {
         if (emitterModule == null)
             return;
 
-        duration = emitterModule.getDuration();
-        delay = emitterModule.getDelay();
-        isContinuous = emitterModule.isContinuous();
-
-        delayTimer = delay;
+        EvaluationContext context = parentParticleInstance.getContext();
+        duration = emitterModule.getDuration(context);
+        delay = emitterModule.getDelay(context);
+        isContinuous = emitterModule.isContinuous(context);
+        isAttached = emitterModule.isAttached(context);
 
-        alpha = 0f;
-        particlesToEmmit = 1f; // always emmit one first
-        isComplete = false;
-
-        simulate();
+        simulated = false; // timeline is recorded on first seek, when graph is bound to this instance
+        restart();
     }
 
     public void updateSimulation (float delta) {
-        emitterModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
-        emitterModule.getScope().set(ScopePayload.REQUESTER_ID, 1.1f);
-        duration = emitterModule.getDuration();
-        rate = emitterModule.getRate();
+        EvaluationContext context = parentParticleInstance.getContext();
+        context.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
+        context.getScope().set(ScopePayload.REQUESTER_ID, 1.1f);
+        emitterGraph.executeEmitterProgram(context);
+        duration = emitterModule.getDuration(context);
+        rate = emitterModule.getRate(context);
+        isAttached = emitterModule.isAttached(context);
 
         float normDelta = delta/duration;
 
@@ -117,7 +168,7 @@ public class TinyEmitter implements IEmitter {
             deltaLeftover = delta;
         }
 
-        emitterModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
+        context.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
 
         if (alpha < 1f || (alpha == 1f && deltaLeftover > 0)) { // emission only here
             // let's emmit
@@ -127,22 +178,222 @@ public class TinyEmitter implements IEmitter {
             for (int i = 0; i < count; i++) {
                 if (emitterGraph.getParticleModule() != null) {
                     // emit a particle here and record it's data
-                    emitParticle();
+                    emitParticle(context);
                 }
             }
             particlesToEmmit -= count;
         }
 
-        emitterGraph.resetRequesters();
+        context.resetRequesters(emitterGraph);
 
         timePassed += delta;
     }
 
+    /**
+     * Records particle without creating it, seed comes from emission order so the timeline is repeatable
+     */
+    private void emitParticle(EvaluationContext context) {
+        float particleSeed = HashRandom.get(seed, starts.size, 0);
+        ScopePayload scope = context.getScope();
+        scope.set(ScopePayload.EMITTER_ALPHA, alpha);
+        scope.set(ScopePayload.PARTICLE_ALPHA, 0);
+        scope.set(ScopePayload.PARTICLE_SEED, particleSeed);
+        scope.set(ScopePayload.REQUESTER_ID, particleSeed);
+        scope.set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, alpha);
+        scope.set(ScopePayload.SPAWN_INDEX, starts.size);
+        emitterGraph.executeParticleProgram(context);
+
+        float life = particleModule.getLife(context);
+
+        starts.add(timePassed);
+        ends.add(timePassed + life);
+        seeds.add(particleSeed);
+        spawnAlphas.add(alpha);
+
+        maxLife = Math.max(maxLife, life);
+        timelineEnd = Math.max(timelineEnd, timePassed + life);
+    }
+
+    @Override
+    public void update (float delta) {
+        if(paused) return;
+        seek(cursor + delta);
+    }
+
+    /**
+     * Moves emitter to given time since it's start, with particles in the state they would be at that time
+     */
+    public void seek(float time) {
+        if(!simulated) simulate();
+
+        float delta = time - cursor;
+        boolean step = delta >= 0 && delta <= MAX_STEP;
+
+        cursor = time;
+        localTime = toLocalTime(time);
+        updateAlpha();
+
+        seekParticles.clear();
+        activeParticles.clear();
+        bounds.reset();
+
+        seekLoop(localTime, loop, delta, step);
+
+        // particles of previous loops live on into the current one
+        for(int previous = 1; previous <= loop && timePassed > 0; previous++) {
+            float loopTime = localTime + previous * timePassed;
+            if(loopTime - maxLife >= timePassed) break;
+            seekLoop(loopTime, loop - previous, delta, step);
+        }
+
+        for(Particle particle: liveParticles.values()) {
+            particlePool.free(particle);
+        }
+        liveParticles.clear();
+
+        LongMap<Particle> tmp = liveParticles;
+        liveParticles = seekParticles;
+        seekParticles = tmp;
+    }
+
+    /**
+     * Collects particles of one loop alive at given time since that loop started
+     */
+    private void seekLoop(float time, int loop, float delta, boolean step) {
+        int index = findLastStarted(time);
+        for(int i = index; i >= 0 && starts.get(i) > time - maxLife; i--) {
+            if(ends.get(i) <= time) continue;
+            if(emissionScale < 1f && HashRandom.get(seed, i, THINNING_STREAM) >= emissionScale) continue;
+
+            long key = (long)loop * starts.size + i;
+            Particle particle = liveParticles.remove(key);
+            if(particle != null && step) {
+                stepParticle(particle, i, time, delta);
+            } else {
+                if(particle == null) particle = particlePool.obtain();
+                evaluateParticle(particle, i, time);
+            }
+
+            seekParticles.put(key, particle);
+            activeParticles.add(particle);
+            bounds.add(particle.getX(), particle.getY(), particle.size.x, particle.size.y);
+        }
+    }
+
+    private void updateAlpha() {
+        alpha = timePassed > 0 ? MathUtils.clamp(localTime / timePassed, 0, 1) : 1f;
+    }
+
+    private float toLocalTime(float time) {
+        float local = time - delay;
+        if(local < 0) return -1;
+
+        if(isContinuous && !isStopped && timePassed > 0) {
+            loop = (int)(local / timePassed);
+            local -= loop * timePassed;
+        }
+
+        return local;
+    }
+
+    /**
+     * @return index of the last record started at or before given time, -1 if none did
+     */
+    private int findLastStarted(float time) {
+        float[] items = starts.items;
+        int low = 0;
+        int high = starts.size - 1;
+        while(low <= high) {
+            int mid = (low + high) >>> 1;
+            if(items[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return high;
+    }
+
+    private void stepParticle(Particle particle, int index, float time, float delta) {
+        particle.alpha = getParticleAlpha(index, time);
+        particle.applyAlpha(particle.alpha, delta);
+    }
+
+    /**
+     * Evaluates particle from it's birth, in closed form when graph allows it, by stepping it forward otherwise
+     */
+    private void evaluateParticle(Particle particle, int index, float time) {
+        alpha = spawnAlphas.get(index);
+        particle.durationAtInit = alpha;
+        particle.init(this, seeds.get(index), index);
+
+        updateAlpha();
+        float age = time - starts.get(index);
+
+        if(closedForm) {
+            particle.alpha = getParticleAlpha(index, time);
+            particle.applyAlpha(particle.alpha, age);
+            return;
+        }
+
+        int steps = Math.min(MAX_FAST_FORWARD_STEPS, MathUtils.ceil(age / SIMULATION_STEP));
+        if(steps == 0) {
+            particle.applyAlpha(0, 0);
+            return;
+        }
+
+        float stepDelta = age / steps;
+        float start = starts.get(index);
+        for(int i = 1; i <= steps; i++) {
+            particle.alpha = getParticleAlpha(index, start + stepDelta * i);
+            particle.applyAlpha(particle.alpha, stepDelta);
+        }
+    }
+
+    private float getParticleAlpha(int index, float time) {
+        float start = starts.get(index);
+        float life = ends.get(index) - start;
+        if(life <= 0) return 1f;
+
+        return MathUtils.clamp((time - start) / life, 0, 1);
+    }
+
+    /**
+     * Seed the particle seeds are derived from, changing it records a new timeline
+     */
+    public void setSeed(float seed) {
+        this.seed = seed;
+        simulated = false;
+    }
+
+    public float getSeed() {
+        return seed;
+    }
+
+    public float getTimelineDuration() {
+        return timelineEnd;
+    }
+
+    public int getTimelineSize() {
+        return starts.size;
+    }
+
     @Override
     public ParticleEmitterDescriptor getEmitterGraph () {
         return emitterGraph;
     }
 
+    @Override
+    public ParticleEffectInstance getEffect () {
+        return parentParticleInstance;
+    }
+
+    @Override
+    public boolean isAttached () {
+        return isAttached;
+    }
+
     @Override
     public boolean isVisible () {
         return isVisible;
@@ -163,25 +414,9 @@ public class TinyEmitter implements IEmitter {
         return activeParticles;
     }
 
-    /**
-     * really not gonna, just pretending
-     */
-    private void emitParticle() {
-        float seed = MathUtils.random();
-        particleModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
-        particleModule.getScope().set(ScopePayload.PARTICLE_ALPHA, 0);
-        particleModule.getScope().set(ScopePayload.PARTICLE_SEED, seed);
-        particleModule.getScope().set(ScopePayload.REQUESTER_ID, seed);
-        particleModule.getScope().set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, alpha);
-
-        float life = particleModule.getLife();
-
-        ParticleRecord record = new ParticleRecord();
-        record.start = timePassed;
-        record.end = timePassed + life;
-        record.seed = seed;
-
-        timeline.add(record);
+    @Override
+    public ParticleBounds getBounds () {
+        return bounds;
     }
 
     @Override
@@ -201,7 +436,7 @@ public class TinyEmitter implements IEmitter {
 
     @Override
     public Vector2 getEffectPosition () {
-        return effectPosition;
+        return parentParticleInstance.getPosition();
     }
 
     @Override
@@ -231,12 +466,17 @@ public class TinyEmitter implements IEmitter {
 
     @Override
     public boolean isComplete () {
-        return isComplete;
+        if(isContinuous && !isStopped) return false;
+        return simulated && localTime >= timelineEnd;
     }
 
+    /**
+     * lets the current loop play out, without wrapping around
+     */
     public void stop() {
-        alpha = 1f;
+        if(isStopped) return;
         isStopped = true;
+        cursor = localTime + delay;
     }
 
     public void pause() {
@@ -249,152 +489,68 @@ public class TinyEmitter implements IEmitter {
 
     @Override
     public void restart () {
-        delayTimer = delay;
-        alpha = 0;
-        isComplete = false;
-        particlesToEmmit = 1f;
+        cursor = 0;
+        localTime = 0;
+        loop = 0;
         isStopped = false;
+        for(Particle particle: liveParticles.values()) {
+            particlePool.free(particle);
+        }
+        liveParticles.clear();
+        activeParticles.clear();
+        bounds.reset();
     }
 
     @Override
-    public float getDelayRemaining () {
-        return delayTimer;
+    public void reset () {
+        restart();
+        setSeed(parentParticleInstance.nextSeed());
+        paused = false;
+        isVisible = true;
+        tint.set(Color.WHITE);
     }
 
     @Override
-    public void update (float delta) {
-        seek(cursor + delta);
-    }
+    public void reserveParticles (int count) {
+        int missing = count - liveParticles.size - particlePool.getFree();
+        if(missing <= 0) return;
 
-    public class ParticleRecord {
-        public float start;
-        public float end;
-        public float seed;
-    }
-
-    public void seek(float time) {
-        if(timeline.size == 0) return; // nothing to do
-
-        int index = timeline.size - 1;
-        ParticleRecord last = timeline.get(index);
-
-        float duration = last.start;
-        time %= duration;
-
-        if (time < last.start) {
-            // need to find where we are, approximate first, then search for fastest result
-            int approximation = MathUtils.clamp(Math.round((time/last.start) * timeline.size), 0, timeline.size - 1);
-            int found = -1;
-            int i = 0;
-            if(checkRecordToBeTheSeekPosition(approximation, time)) {
-                found = approximation;
-            }
-            while(found == -1) {
-                boolean left = checkRecordToBeTheSeekPosition(approximation - i, time);
-                boolean right = checkRecordToBeTheSeekPosition(approximation + i, time);
-                if(left) {
-                    found = approximation - i;
-                }
-                if(right) {
-                    found = approximation + i;
-                }
-                i++;
-                if(approximation - i < 0 && approximation + i > timeline.size-1) {
-                    found = index;
-                }
-            }
-            index = found;
-            System.out.println("seek search complete in " + i + " steps");
-        }
-
-        // now time to gather particles that have collisions, till first one that does not
-        int count = 0;
-        float delta = time - cursor;
-        cursor = time;
-        newMap.clear();
-        activeParticles.clear();
-        while(index >= 0 && timeline.get(index).end > time) {
-            count++;
-
-            ParticleRecord record = timeline.get(index);
-            float particleAlpha = (time - record.start) / (record.end - record.start);
-            float particleSeed = record.seed;
-
-            Particle particle;
-            boolean initCalled = false;
-            if (recordMap.containsKey(record)) {
-                particle = recordMap.get(record);
-            } else {
-                particle = particlePool.obtain();
-                particle.init(this, particleSeed);
-                initCalled = true;
-                recordMap.put(record, particle);
-            }
-
-            if(Math.abs(delta) > 0.1f) {
-                // we need to re-seek this state from left
-                if(!initCalled) {
-                    particle.init(this);
-                }
-
-                // now fast forward
-                float pos = 0f;
-                float miniDelta = 1/30f;
-                int ffCount = 0;
-                while(pos < time - record.start) {
-                    pos += miniDelta;
-                    if (pos > time - record.start) {
-                        miniDelta = time - record.start - pos;
-                        pos = time - record.start;
-                    }
-                    particle.update(miniDelta);
-                    ffCount++;
-                }
-                System.out.println("fast forwarded in " + ffCount + " steps");
-            } else {
-                particle.applyAlpha(particleAlpha, delta);
-            }
-
-            newMap.put(record, particle);
-            activeParticles.add(particle);
-
-            index--;
-        }
-
-        tmp.clear();
-        for(ParticleRecord oldRecord: recordMap.keys()) {
-            if(!newMap.containsKey(oldRecord)) {
-                particlePool.free(recordMap.get(oldRecord));
-                tmp.add(oldRecord);
-            }
-        }
-        for(ParticleRecord oldRecord : tmp) {
-            recordMap.remove(oldRecord);
+        Array<Particle> reserved = new Array<>(missing);
+        for(int i = 0; i < missing; i++) {
+            reserved.add(particlePool.obtain());
         }
+        particlePool.freeAll(reserved);
+    }
 
-        System.out.println("found " + count + " collisions");
+    /**
+     * Timeline stays as recorded, scale picks which of it's particles are shown, so seeking remains repeatable
+     */
+    @Override
+    public void setEmissionScale (float scale) {
+        emissionScale = scale;
     }
 
-    private boolean checkRecordToBeTheSeekPosition(int index, float time) {
-        if(index < 0 || index >= timeline.size) return false;
+    @Override
+    public float getEmissionScale () {
+        return emissionScale;
+    }
 
-        ParticleRecord record =  timeline.get(index);
+    @Override
+    public float getEstimatedParticleCount () {
+        if(!simulated) return 0;
 
-        if(index >= timeline.size - 1) {
-            if (record.start < time) {
-                return true;
-            } else {
-                return false;
-            }
+        if(isContinuous && !isStopped) {
+            return rate * maxLife;
         }
-
-        ParticleRecord recordNext =  timeline.get(index + 1);
-
-        if(record.start <= time && recordNext.start >= time) {
-            return true;
+        if(localTime < timePassed) {
+            return rate * Math.min(maxLife, duration);
         }
+        return 0;
+    }
 
-        return false;
+    @Override
+    public float getDelayRemaining () {
+        return Math.max(0, delay - cursor);
     }
 
     public void setVisible(boolean isVisible) {
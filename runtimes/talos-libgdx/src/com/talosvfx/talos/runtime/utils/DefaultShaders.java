@@ -1,6 +1,7 @@
 package com.talosvfx.talos.runtime.utils;
 
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.talosvfx.talos.runtime.render.ParticleInstancePacker;
 
 public class DefaultShaders {
 
@@ -40,4 +41,88 @@ public class DefaultShaders {
             "\n" +
             "     gl_FragColor = color;\n" +
             " }";
+
+    /**
+     * Expects colors premultiplied by alpha, with alpha 0 for additive particles,
+     * so additive and alpha blended particles share GL_ONE, GL_ONE_MINUS_SRC_ALPHA blending
+     */
+    public static String PREMULTIPLIED_FRAGMENT_SHADER = "#ifdef GL_ES\n" +
+            " #define LOWP lowp\n" +
+            "     precision mediump float;\n" +
+            " #else\n" +
+            "     #define LOWP\n" +
+            " #endif\n" +
+            "\n" +
+            " varying LOWP vec4 v_color;\n" +
+            " varying vec2 v_texCoords;\n" +
+            " uniform sampler2D u_texture;\n" +
+            "\n" +
+            " void main()\n" +
+            " {\n" +
+            "     vec4 color = texture2D(u_texture, v_texCoords);\n" +
+            "     gl_FragColor = vec4(color.rgb * color.a * v_color.rgb, color.a * v_color.a);\n" +
+            " }";
+
+    /**
+     * Expands one unit quad per particle instance, see {@link com.talosvfx.talos.runtime.render.InstancedParticleRenderer}
+     */
+    /**
+     * Default vertex shader with particle time as an attribute, so particles with different times can share a draw call
+     */
+    public static String SHADED_VERTEX_SHADER = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+            + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+            + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+            + "attribute float a_time;\n" //
+            + "uniform mat4 u_projTrans;\n" //
+            + "varying vec4 v_color;\n" //
+            + "varying vec2 v_texCoords;\n" //
+            + "varying float v_time;\n" //
+            + "\n" //
+            + "void main()\n" //
+            + "{\n" //
+            + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+            + "   v_color.a = v_color.a * (255.0/254.0);\n" //
+            + "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+            + "   v_time = a_time;\n" //
+            + "   gl_Position =  u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+            + "}\n";
+
+    public static String INSTANCED_VERTEX_SHADER = "attribute vec2 a_corner;\n" //
+            + "attribute vec4 a_transform;\n" // center x, center y, width, height
+            + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+            + "attribute vec2 a_params;\n" // rotation in degrees, region index
+            + "uniform mat4 u_projTrans;\n" //
+            + "uniform vec4 u_regions[" + ParticleInstancePacker.MAX_REGIONS + "];\n" // u, v, u2, v2
+            + "varying vec4 v_color;\n" //
+            + "varying vec2 v_texCoords;\n" //
+            + "\n" //
+            + "void main()\n" //
+            + "{\n" //
+            + "   float angle = radians(a_params.x);\n" //
+            + "   float c = cos(angle);\n" //
+            + "   float s = sin(angle);\n" //
+            + "   vec2 local = a_corner * a_transform.zw;\n" //
+            + "   vec2 world = a_transform.xy + vec2(local.x * c - local.y * s, local.x * s + local.y * c);\n" //
+            + "   vec4 region = u_regions[int(a_params.y)];\n" //
+            + "   v_texCoords = vec2(mix(region.x, region.z, a_corner.x + 0.5), mix(region.w, region.y, a_corner.y + 0.5));\n" //
+            + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+            + "   v_color.a = v_color.a * (255.0/254.0);\n" //
+            + "   gl_Position = u_projTrans * vec4(world, 0.0, 1.0);\n" //
+            + "}\n";
+
+    public static String INSTANCED_FRAGMENT_SHADER = "#ifdef GL_ES\n" +
+            " #define LOWP lowp\n" +
+            "     precision mediump float;\n" +
+            " #else\n" +
+            "     #define LOWP\n" +
+            " #endif\n" +
+            "\n" +
+            " varying LOWP vec4 v_color;\n" +
+            " varying vec2 v_texCoords;\n" +
+            " uniform sampler2D u_texture;\n" +
+            "\n" +
+            " void main()\n" +
+            " {\n" +
+            "     gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n" +
+            " }";
 }
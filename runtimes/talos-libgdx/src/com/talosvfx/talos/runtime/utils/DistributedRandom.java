@@ -1,98 +1,62 @@
-package com.talosvfx.talos.runtime.utils;
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
 
-import com.badlogic.gdx.utils.*;
 
-import java.util.Iterator;
-import java.util.Random;
+package com.talosvfx.talos.runtime.utils;
 
+/**
+ * Stateless random numbers that are spread out more evenly than plain ones: consecutive indices of the same key never land
+ * in the same third of the range, and every three indices in a row starting at a multiple of three cover all thirds.
+ * Where in it's third a number lands comes from the seed. Like {@link HashRandom} nothing is stored, so the same
+ * (key, index, seed) always gives the same value regardless of the order values are asked for in.
+ */
 public class DistributedRandom {
 
-
-    private int seed;
-
-    Pool<Distribution> distributionPool;
-    IntMap<Distribution> map = new IntMap<>();
-
-    private long lastClear;
-
-    public DistributedRandom() {
-        distributionPool = new Pool<Distribution>() {
-            @Override
-            protected Distribution newObject () {
-                return new Distribution();
-            }
-        };
-        lastClear = TimeUtils.millis();
-    }
-
-    private void clearMap() {
-        if(TimeUtils.millis() - lastClear > 10 * 1000) {
-            Iterator<IntMap.Entry<Distribution>> iterator = map.iterator();
-            while (iterator.hasNext()) {
-                IntMap.Entry<Distribution> entry = iterator.next();
-                if (entry.value.isExpired()) {
-                    distributionPool.free(entry.value);
-                    iterator.remove();
-                }
-            }
-            lastClear = TimeUtils.millis();
-        }
+    /**
+     * @param key usually index of the module asking
+     * @param index position in the sequence, usually order particle was spawned in
+     * @param seed particle seed
+     * @return float in range [0, 1)
+     */
+    public static float get (int key, int index, float seed) {
+        return (third(key, index) + HashRandom.get(seed, key, 0)) / 3f;
     }
 
-    public void setSeed(int seed) {
-        this.seed = seed;
-
-        clearMap();
-
-        if(!map.containsKey(seed)) {
-            Distribution distribution = distributionPool.obtain();
-            distribution.setSeed(seed);
-            map.put(seed, distribution);
+    /**
+     * Last third of each block of three is picked freely, first one differs from it and from the last third of the previous block,
+     * so the sequence holds across blocks without walking it from the start
+     */
+    private static int third (int key, int index) {
+        int block = index / 3;
+        int last = last(key, block);
+        if (index % 3 == 2) return last;
+
+        int first;
+        int previous = block > 0 ? last(key, block - 1) : last;
+        if (previous == last) {
+            first = (last + (HashRandom.get(0, key, 2 * block + 1) < 0.5f ? 1 : 2)) % 3;
+        } else {
+            first = 3 - last - previous;
         }
-    }
+        if (index % 3 == 0) return first;
 
-    public float nextFloat() {
-        return map.get(seed).nextFloat();
+        return 3 - last - first;
     }
 
-    public class Distribution implements Pool.Poolable {
-
-        private long lastAccess;
-
-        Random random = new Random();
-
-        private int segment = 0;
-
-        public Distribution() {
-            reset();
-        }
-
-        @Override
-        public void reset () {
-            segment = 0;
-            lastAccess = TimeUtils.millis();
-        }
-
-        public void setSeed (int seed) {
-            random.setSeed(seed);
-        }
-
-        public float nextFloat () {
-            lastAccess = TimeUtils.millis();
-
-            if(segment == 0) {
-                segment = random.nextBoolean() ? 1 : 2;
-            } else if(segment == 1) {
-                segment = random.nextBoolean() ? 0 : 2;
-            } else {
-                if (segment == 2) segment = random.nextBoolean() ? 0 : 1;
-            }
-
-            return (1f/3f) * (segment + random.nextFloat());
-        }
-
-        public boolean isExpired() {
-            return TimeUtils.millis() - lastAccess > 5 * 1000;
-        }
+    private static int last (int key, int block) {
+        return (int)(HashRandom.get(0, key, 2 * block) * 3);
     }
 }
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.utils;
+
+/**
+ * Stateless random numbers, the same (seed, key, stream) always gives the same value.
+ * Nothing is stored, so it can be used from any thread without allocating.
+ */
+public class HashRandom {
+
+    /**
+     * @param seed particle or emitter seed
+     * @param key usually index of the module asking, so modules sharing a seed don't get the same numbers
+     * @param stream n-th number for this seed and key
+     * @return float in range [0, 1)
+     */
+    public static float get (float seed, int key, int stream) {
+        int h = hash(Float.floatToIntBits(seed));
+        h = hash(h ^ key * 0x9E3779B9);
+        h = hash(h ^ stream * 0x85EBCA6B);
+
+        return (h >>> 8) / (float)(1 << 24);
+    }
+
+    /**
+     * Integer finalizer with good avalanche, every input bit affects every output bit
+     */
+    public static int hash (int x) {
+        x ^= x >>> 16;
+        x *= 0x7FEB352D;
+        x ^= x >>> 15;
+        x *= 0x846CA68B;
+        x ^= x >>> 16;
+        return x;
+    }
+}
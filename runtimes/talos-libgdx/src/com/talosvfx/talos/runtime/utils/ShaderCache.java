@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.talosvfx.talos.runtime.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Shader programs compiled from the same source are shared by all effects, and disposed once the last user frees them.
+ * Also holds the 1x1 placeholder texture shaded particles are drawn with.
+ */
+public class ShaderCache {
+
+    private static class Entry {
+        String source;
+        ShaderProgram program;
+        int references;
+    }
+
+    private static final ObjectMap<String, Entry> entries = new ObjectMap<>();
+    private static final IdentityMap<ShaderProgram, Entry> programEntries = new IdentityMap<>();
+
+    private static Texture placeholder;
+    private static int placeholderReferences;
+
+    private static int compileCount;
+
+    /**
+     * Returns program for given sources, compiles it only if nobody is using the same one already.
+     * Every obtain needs a matching {@link #free(ShaderProgram)}
+     */
+    public static synchronized ShaderProgram obtain(String vertexCode, String fragmentCode) {
+        String source = vertexCode + fragmentCode;
+        Entry entry = entries.get(source);
+        if(entry == null) {
+            ShaderProgram.pedantic = false;
+
+            entry = new Entry();
+            entry.source = source;
+            entry.program = new ShaderProgram(vertexCode, fragmentCode);
+            compileCount++;
+            if(!entry.program.isCompiled()) {
+                Gdx.app.log("GL SHADER ERROR", entry.program.getLog());
+            }
+
+            entries.put(source, entry);
+            programEntries.put(entry.program, entry);
+        }
+        entry.references++;
+
+        return entry.program;
+    }
+
+    public static synchronized void free(ShaderProgram program) {
+        Entry entry = programEntries.get(program);
+        if(entry == null) return;
+
+        entry.references--;
+        if(entry.references <= 0) {
+            entries.remove(entry.source);
+            programEntries.remove(program);
+            program.dispose();
+        }
+    }
+
+    public static synchronized Texture obtainPlaceholderTexture() {
+        if(placeholder == null) {
+            Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            placeholder = new Texture(pixmap);
+            pixmap.dispose();
+        }
+        placeholderReferences++;
+
+        return placeholder;
+    }
+
+    public static synchronized void freePlaceholderTexture() {
+        if(placeholder == null) return;
+
+        placeholderReferences--;
+        if(placeholderReferences <= 0) {
+            placeholder.dispose();
+            placeholder = null;
+            placeholderReferences = 0;
+        }
+    }
+
+    /**
+     * @return amount of programs currently alive
+     */
+    public static synchronized int getProgramCount() {
+        return entries.size;
+    }
+
+    /**
+     * @return amount of programs compiled so far, cache hits are not counted
+     */
+    public static synchronized int getCompileCount() {
+        return compileCount;
+    }
+
+    /**
+     * Disposes everything regardless of references, for example when application exits
+     */
+    public static synchronized void dispose() {
+        for(Entry entry: entries.values()) {
+            entry.program.dispose();
+        }
+        entries.clear();
+        programEntries.clear();
+
+        if(placeholder != null) {
+            placeholder.dispose();
+            placeholder = null;
+        }
+        placeholderReferences = 0;
+    }
+}
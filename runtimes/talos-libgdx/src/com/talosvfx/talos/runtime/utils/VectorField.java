@@ -55,8 +55,15 @@ public class VectorField {
     }
 
     public Vector2 getValue(Vector2 pos, Vector2 result) {
-        float x = (((pos.x - fieldPos.x) / scale) * 0.5f + 0.5f) * xSize;
-        float y = (((pos.y - fieldPos.y) / scale) * 0.5f + 0.5f) * ySize;
+        return getValue(pos, scale, fieldPos.x, fieldPos.y, result);
+    }
+
+    /**
+     * Samples field placed at fieldX, fieldY with given scale, without changing the field itself
+     */
+    public Vector2 getValue(Vector2 pos, float scale, float fieldX, float fieldY, Vector2 result) {
+        float x = (((pos.x - fieldX) / scale) * 0.5f + 0.5f) * xSize;
+        float y = (((pos.y - fieldY) / scale) * 0.5f + 0.5f) * ySize;
         int z = 0;
 
         if(MathUtils.floor(x) < 0 || MathUtils.ceil(x) > xSize - 1 || MathUtils.floor(y) < 0 || MathUtils.ceil(y) > ySize - 1) {
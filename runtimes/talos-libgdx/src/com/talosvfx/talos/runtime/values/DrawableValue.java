@@ -38,6 +38,14 @@ public class DrawableValue extends Value {
         setEmpty(drawable == null);
     }
 
+    @Override
+    public DrawableValue copy() {
+        DrawableValue copy = new DrawableValue();
+        copy.drawable = drawable;
+        copy.setEmpty(isEmpty());
+        return copy;
+    }
+
     public ParticleDrawable getDrawable() {
         return drawable;
     }
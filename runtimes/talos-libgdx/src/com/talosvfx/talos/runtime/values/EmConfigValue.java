@@ -36,4 +36,12 @@ public class EmConfigValue extends Value {
         this.additive = from.additive;
         this.isBlendAdd = from.isBlendAdd;
     }
+
+    @Override
+    public EmConfigValue copy() {
+        EmConfigValue copy = new EmConfigValue();
+        copy.set(this);
+        copy.setEmpty(isEmpty());
+        return copy;
+    }
 }
@@ -122,6 +122,16 @@ public class NumericalValue extends Value {
 		}
 	}
 
+	@Override
+	public NumericalValue copy () {
+		NumericalValue copy = new NumericalValue();
+		copy.setEmpty(isEmpty());
+		System.arraycopy(elements, 0, copy.elements, 0, elements.length);
+		copy.currentElementCount = currentElementCount;
+		copy.flavour = flavour;
+		return copy;
+	}
+
 	public void set(int index, float value) {
 		elements[index] = value;
 	}
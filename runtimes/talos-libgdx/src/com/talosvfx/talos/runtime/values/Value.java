@@ -30,4 +30,9 @@ public abstract class Value {
     }
 
     public abstract void set(Value value);
+
+    /**
+     * @return new value of the same type holding the same data, used to give each evaluation context it's own slot values
+     */
+    public abstract Value copy();
 }
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.modules.RandomRangeModule;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+import com.talosvfx.talos.runtime.utils.DistributedRandom;
+
+/**
+ * Headless checks of distributed random numbers, on their own and as spread over particles in the order they were spawned
+ */
+public class DistributedRandomTest {
+
+	public static void main (String[] arg) {
+		checkSequence();
+		checkParticles(false);
+		checkParticles(true);
+
+		System.out.println("DistributedRandomTest passed");
+	}
+
+	private static void checkSequence () {
+		for (int key = 0; key < 8; key++) {
+			int previous = -1;
+			for (int index = 0; index < 3000; index++) {
+				float value = DistributedRandom.get(key, index, index * 0.37f);
+				check(value >= 0 && value < 1, "value in range");
+				check(value == DistributedRandom.get(key, index, index * 0.37f), "same value for same arguments");
+
+				int third = (int)(value * 3);
+				check(third != previous, "consecutive values in different thirds, key " + key + " index " + index);
+				previous = third;
+
+				if (index % 3 == 2) {
+					int mask = 0;
+					for (int i = index - 2; i <= index; i++) {
+						mask |= 1 << (int)(DistributedRandom.get(key, i, i * 0.37f) * 3);
+					}
+					check(mask == 7, "block of three covers all thirds");
+				}
+			}
+		}
+	}
+
+	private static void checkParticles (boolean compiled) {
+		ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		ParticleEmitterDescriptor emitter = descriptor.createEmitterDescriptor();
+
+		add(emitter, new EmitterModule());
+		ParticleModule particleModule = add(emitter, new ParticleModule());
+		particleModule.setDefaultDrawable(new TextureRegionDrawable());
+
+		RandomRangeModule random = add(emitter, new RandomRangeModule());
+		random.setMinMax(0, 3);
+		random.setDistributed(true);
+		emitter.connectNode(random, particleModule, RandomRangeModule.OUTPUT, ParticleModule.ROTATION);
+
+		if (compiled) {
+			emitter.compile();
+		}
+		descriptor.addEmitter(emitter);
+		ParticleEffectInstance instance = descriptor.createEffectInstance();
+
+		MathUtils.random.setSeed(0);
+		for (int i = 0; i < 30; i++) {
+			instance.update(1 / 60f);
+		}
+
+		Array<Particle> particles = instance.getEmitters().first().getActiveParticles();
+		check(particles.size > 10, "particles spawned");
+		int pairs = 0;
+		for (int i = 0; i < particles.size; i++) {
+			Particle particle = particles.get(i);
+			for (int j = 0; j < particles.size; j++) {
+				Particle other = particles.get(j);
+				if (other.spawnIndex == particle.spawnIndex + 1) {
+					check((int)particle.rotation != (int)other.rotation, "consecutive particles in different thirds, compiled " + compiled);
+					pairs++;
+				}
+			}
+		}
+		check(pairs == particles.size - 1, "every particle but the last has a successor");
+	}
+
+	private static <T extends AbstractModule> T add (ParticleEmitterDescriptor emitter, T module) {
+		emitter.addModule(module);
+		module.setModuleGraph(emitter);
+		return module;
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.render.InstancedParticleRenderer;
+import com.talosvfx.talos.runtime.render.ParticleInstancePacker;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+import com.talosvfx.talos.runtime.test.utils.MockGL;
+
+/**
+ * Headless checks of how {@link InstancedParticleRenderer} binds it's shader, instance attributes and uniforms, on a recording GL stand-in
+ */
+public class InstancedParticleRendererTest {
+
+	private static final int FLOAT_BYTES = 4;
+
+	public static void main (String[] arg) {
+		MockGL gl = MockGL.install();
+
+		Texture texture = MockGL.createTexture(64, 64);
+		Sprite region = new Sprite(texture, 16, 0, 32, 32);
+		ParticleEffectInstance instance = createInstance(region);
+		for (int i = 0; i < 30; i++) {
+			instance.update(1 / 60f);
+		}
+		int particles = instance.getParticleCount();
+		check(particles > 1, "particles spawned");
+
+		SpriteBatch batch = new SpriteBatch();
+		InstancedParticleRenderer renderer = new InstancedParticleRenderer(batch);
+		check(InstancedParticleRenderer.isSupported(), "instancing available with GL30");
+
+		int program = gl.findProgram("a_corner");
+		int batchProgram = gl.findProgram(ShaderProgram.TEXCOORD_ATTRIBUTE + "0");
+		check(program != 0 && program != batchProgram, "instanced shader linked");
+
+		gl.clearCalls();
+		batch.begin();
+		renderer.render(instance);
+		batch.end();
+
+		Array<MockGL.Call> draws = gl.getCalls("glDrawElementsInstanced");
+		check(draws.size == 1, "one instanced draw");
+		MockGL.Call draw = draws.first();
+		check(draw.getInt(0) == GL20.GL_TRIANGLES && draw.getInt(1) == 6 && draw.getInt(2) == GL20.GL_UNSIGNED_SHORT, "draws the quad");
+		check(draw.getInt(4) == particles, "one instance per particle");
+
+		attributes(gl, program);
+		uniforms(gl, program, texture, region);
+		state(gl, program, batchProgram, texture);
+
+		renderer.dispose();
+		batch.dispose();
+
+		System.out.println("InstancedParticleRendererTest passed");
+	}
+
+	/**
+	 * every mesh attribute is found in the shader and pointed at the record layout {@link ParticleInstancePacker} writes
+	 */
+	private static void attributes (MockGL gl, int program) {
+		int stride = ParticleInstancePacker.INSTANCE_SIZE * FLOAT_BYTES;
+
+		checkPointer(gl, program, "a_corner", 2, GL20.GL_FLOAT, false, 2 * FLOAT_BYTES, 0, false);
+		checkPointer(gl, program, "a_transform", 4, GL20.GL_FLOAT, false, stride, 0, true);
+		checkPointer(gl, program, ShaderProgram.COLOR_ATTRIBUTE, 4, GL20.GL_UNSIGNED_BYTE, true, stride, 4 * FLOAT_BYTES, true);
+		checkPointer(gl, program, "a_params", 2, GL20.GL_FLOAT, false, stride, 5 * FLOAT_BYTES, true);
+	}
+
+	private static void checkPointer (MockGL gl, int program, String attribute, int size, int type, boolean normalized, int stride, int offset, boolean perInstance) {
+		int location = gl.getAttributeLocation(program, attribute);
+		check(location >= 0, attribute + " declared by shader");
+
+		MockGL.Call pointer = null;
+		for (MockGL.Call call : gl.getCalls("glVertexAttribPointer")) {
+			if (call.getInt(0) == location && call.getInt(4) == stride) pointer = call;
+		}
+		check(pointer != null, attribute + " bound");
+		check(pointer.getInt(1) == size && pointer.getInt(2) == type && pointer.getBoolean(3) == normalized, attribute + " format");
+		check(pointer.getInt(5) == offset, attribute + " offset");
+
+		boolean divided = false;
+		for (MockGL.Call call : gl.getCalls("glVertexAttribDivisor")) {
+			if (call.getInt(0) == location && call.getInt(1) == 1) divided = true;
+		}
+		check(divided == perInstance, attribute + (perInstance ? " advances per instance" : " advances per vertex"));
+	}
+
+	private static void uniforms (MockGL gl, int program, Texture texture, Sprite region) {
+		boolean projection = false;
+		for (MockGL.Call call : gl.getCalls("glUniformMatrix4fv")) {
+			if (call.getInt(0) == gl.getUniformLocation(program, "u_projTrans")) projection = true;
+		}
+		check(projection, "projection set");
+
+		boolean sampler = false;
+		for (MockGL.Call call : gl.getCalls("glUniform1i")) {
+			if (call.getInt(0) == gl.getUniformLocation(program, "u_texture") && call.getInt(1) == 0) sampler = true;
+		}
+		check(sampler, "texture unit set");
+
+		Array<MockGL.Call> regions = gl.getCalls("glUniform4fv");
+		check(regions.size == 1 && regions.first().getInt(0) == gl.getUniformLocation(program, "u_regions"), "region table set");
+		check(regions.first().getInt(1) == 1, "one region uploaded");
+		float[] table = (float[])regions.first().args[2];
+		int offset = regions.first().getInt(3);
+		check(table[offset] == region.getU() && table[offset + 1] == region.getV()
+			&& table[offset + 2] == region.getU2() && table[offset + 3] == region.getV2(), "region coordinates");
+
+		boolean bound = false;
+		for (MockGL.Call call : gl.getCalls("glBindTexture")) {
+			if (call.getInt(1) == texture.getTextureObjectHandle()) bound = true;
+		}
+		check(bound, "particle texture bound");
+	}
+
+	/**
+	 * draw uses the emitter blending and batch gets it's shader back once instances are drawn
+	 */
+	private static void state (MockGL gl, int program, int batchProgram, Texture texture) {
+		Array<MockGL.Call> calls = gl.getCalls();
+		int draw = -1;
+		int usedProgram = 0;
+		MockGL.Call blend = null;
+		for (int i = 0; i < calls.size && draw < 0; i++) {
+			MockGL.Call call = calls.get(i);
+			if (call.name.equals("glUseProgram")) usedProgram = call.getInt(0);
+			if (call.name.equals("glBlendFunc")) blend = call;
+			if (call.name.equals("glDrawElementsInstanced")) draw = i;
+		}
+		check(usedProgram == program, "instanced shader in use while drawing");
+		check(blend != null && blend.getInt(0) == GL20.GL_SRC_ALPHA && blend.getInt(1) == GL20.GL_ONE, "additive blending");
+
+		int next = 0;
+		for (int i = draw + 1; i < calls.size && next == 0; i++) {
+			MockGL.Call call = calls.get(i);
+			if (call.name.equals("glUseProgram")) next = call.getInt(0);
+		}
+		check(next == batchProgram, "batch shader bound again after instances");
+	}
+
+	private static ParticleEffectInstance createInstance (Sprite region) {
+		ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		ParticleEmitterDescriptor emitter = descriptor.createEmitterDescriptor();
+
+		EmitterModule emitterModule = new EmitterModule();
+		emitter.addModule(emitterModule);
+		emitterModule.setModuleGraph(emitter);
+
+		ParticleModule particleModule = new ParticleModule();
+		emitter.addModule(particleModule);
+		particleModule.setModuleGraph(emitter);
+		particleModule.setDefaultDrawable(new TextureRegionDrawable(region));
+
+		descriptor.addEmitter(emitter);
+		return descriptor.createEffectInstance();
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.modules.RandomRangeModule;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+import com.talosvfx.talos.runtime.simulation.ParallelEffectUpdater;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless check that instances updated in parallel play out the same as when updated one after another,
+ * so nothing random is shared between them
+ */
+public class ParallelUpdateTest {
+
+	private static final int INSTANCES = 64;
+	private static final int FRAMES = 60;
+
+	public static void main (String[] arg) {
+		ParticleEffectDescriptor descriptor = createDescriptor();
+		Array<ParticleEffectInstance> serial = createInstances(descriptor);
+		Array<ParticleEffectInstance> parallel = createInstances(descriptor);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ParallelEffectUpdater updater = new ParallelEffectUpdater(pool);
+		for (int frame = 0; frame < FRAMES; frame++) {
+			for (int i = 0; i < serial.size; i++) {
+				serial.get(i).update(1 / 60f);
+			}
+			updater.update(parallel, 1 / 60f);
+		}
+		pool.shutdown();
+
+		for (int i = 0; i < INSTANCES; i++) {
+			Array<Particle> expected = serial.get(i).getEmitters().first().getActiveParticles();
+			Array<Particle> actual = parallel.get(i).getEmitters().first().getActiveParticles();
+			check(expected.size > 0 && expected.size == actual.size, "same amount of particles in instance " + i);
+			for (int p = 0; p < expected.size; p++) {
+				check(expected.get(p).seed == actual.get(p).seed, "seed of particle " + p + " in instance " + i);
+				check(expected.get(p).rotation == actual.get(p).rotation, "rotation of particle " + p + " in instance " + i);
+			}
+		}
+
+		check(serial.get(0).getEmitters().first().getActiveParticles().first().seed
+			!= serial.get(1).getEmitters().first().getActiveParticles().first().seed, "instances seeded differently");
+
+		System.out.println("ParallelUpdateTest passed");
+	}
+
+	private static ParticleEffectDescriptor createDescriptor () {
+		ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		ParticleEmitterDescriptor emitter = descriptor.createEmitterDescriptor();
+
+		add(emitter, new EmitterModule());
+		ParticleModule particleModule = add(emitter, new ParticleModule());
+		particleModule.setDefaultDrawable(new TextureRegionDrawable());
+
+		RandomRangeModule random = add(emitter, new RandomRangeModule());
+		random.setMinMax(0, 360);
+		emitter.connectNode(random, particleModule, RandomRangeModule.OUTPUT, ParticleModule.ROTATION);
+		descriptor.addEmitter(emitter);
+
+		return descriptor;
+	}
+
+	private static Array<ParticleEffectInstance> createInstances (ParticleEffectDescriptor descriptor) {
+		Array<ParticleEffectInstance> instances = new Array<>();
+		for (int i = 0; i < INSTANCES; i++) {
+			ParticleEffectInstance instance = descriptor.createEffectInstance();
+			instance.setSeed(i);
+			instance.reset();
+			instances.add(instance);
+		}
+		return instances;
+	}
+
+	private static <T extends AbstractModule> T add (ParticleEmitterDescriptor emitter, T module) {
+		emitter.addModule(module);
+		module.setModuleGraph(emitter);
+		return module;
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.talosvfx.talos.runtime.render.ParticleInstancePacker;
+
+/**
+ * Headless checks of the instance records and region table {@link ParticleInstancePacker} produces, no graphics context needed
+ */
+public class ParticleInstancePackerTest {
+
+	public static void main (String[] arg) {
+		instanceLayout();
+		regionTable();
+		growth();
+
+		System.out.println("ParticleInstancePackerTest passed");
+	}
+
+	private static void instanceLayout () {
+		ParticleInstancePacker packer = new ParticleInstancePacker();
+		TextureRegion region = new UVRegion(0.1f, 0.2f, 0.3f, 0.4f);
+		check(packer.add(region, 10, 20, 4, 2, 45, 0.5f), "first instance accepted");
+
+		check(packer.getInstanceCount() == 1, "one instance written");
+		check(packer.getSize() == ParticleInstancePacker.INSTANCE_SIZE, "instance size");
+
+		// x, y, width, height, packed color, rotation, region index
+		float[] instances = packer.getInstances();
+		check(instances[0] == 10 && instances[1] == 20, "position");
+		check(instances[2] == 4 && instances[3] == 2, "size");
+		check(instances[4] == 0.5f, "color");
+		check(instances[5] == 45, "rotation");
+		check(instances[6] == 0, "region index");
+	}
+
+	private static void regionTable () {
+		ParticleInstancePacker packer = new ParticleInstancePacker();
+		TextureRegion first = new UVRegion(0, 0, 0.5f, 0.5f);
+		TextureRegion second = new UVRegion(0.5f, 0.5f, 1, 1);
+
+		packer.add(first, 0, 0, 1, 1, 0, 0);
+		packer.add(second, 0, 0, 1, 1, 0, 0);
+		packer.add(first, 0, 0, 1, 1, 0, 0);
+
+		float[] instances = packer.getInstances();
+		check(packer.getRegionCount() == 2, "regions are shared between instances");
+		check(instances[6] == 0 && instances[13] == 1 && instances[20] == 0, "region indices");
+
+		float[] regions = packer.getRegions();
+		check(regions[0] == 0 && regions[1] == 0 && regions[2] == 0.5f && regions[3] == 0.5f, "first region uv");
+		check(regions[4] == 0.5f && regions[5] == 0.5f && regions[6] == 1 && regions[7] == 1, "second region uv");
+
+		packer.clear();
+		for (int i = 0; i < ParticleInstancePacker.MAX_REGIONS; i++) {
+			check(packer.add(new UVRegion(0, 0, 1, 1), 0, 0, 1, 1, 0, 0), "region " + i + " fits the table");
+		}
+		check(!packer.add(new UVRegion(0, 0, 1, 1), 0, 0, 1, 1, 0, 0), "full region table ends the run");
+		check(packer.getInstanceCount() == ParticleInstancePacker.MAX_REGIONS, "rejected instance is not written");
+		check(!packer.add(first, 0, 0, 1, 1, 0, 0), "new region after the table is full");
+
+		packer.clear();
+		check(packer.getSize() == 0 && packer.getRegionCount() == 0 && packer.getTexture() == null, "clear");
+	}
+
+	private static void growth () {
+		ParticleInstancePacker packer = new ParticleInstancePacker(1);
+		TextureRegion region = new UVRegion(0, 0, 1, 1);
+		for (int i = 0; i < 3; i++) {
+			packer.add(region, i, 0, 1, 1, 0, 0);
+		}
+
+		check(packer.getInstanceCount() == 3, "instances kept after growing");
+		for (int i = 0; i < 3; i++) {
+			check(packer.getInstances()[i * ParticleInstancePacker.INSTANCE_SIZE] == i, "x of instance " + i);
+		}
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+
+	/**
+	 * Region with texture coordinates only, so no texture has to be created
+	 */
+	private static class UVRegion extends TextureRegion {
+
+		private final float u, v, u2, v2;
+
+		UVRegion (float u, float v, float u2, float v2) {
+			this.u = u;
+			this.v = v;
+			this.u2 = u2;
+			this.v2 = v2;
+		}
+
+		@Override
+		public float getU () {
+			return u;
+		}
+
+		@Override
+		public float getV () {
+			return v;
+		}
+
+		@Override
+		public float getU2 () {
+			return u2;
+		}
+
+		@Override
+		public float getV2 () {
+			return v2;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.talosvfx.talos.runtime.render.ParticleVertexWriter;
+
+/**
+ * Headless checks of the quad layout {@link ParticleVertexWriter} produces, no graphics context needed
+ */
+public class ParticleVertexWriterTest {
+
+	private static final float EPSILON = 0.01f;
+
+	public static void main (String[] arg) {
+		quadLayout();
+		rotatedQuad();
+		growth();
+
+		System.out.println("ParticleVertexWriterTest passed");
+	}
+
+	private static void quadLayout () {
+		ParticleVertexWriter writer = new ParticleVertexWriter();
+		writer.quad(10, 20, 4, 2, 0, 0.5f, 0.1f, 0.2f, 0.3f, 0.4f);
+
+		check(writer.getQuadCount() == 1, "one quad written");
+		check(writer.getSize() == ParticleVertexWriter.QUAD_SIZE, "quad size");
+
+		float[] vertices = writer.getVertices();
+		// bottom left, top left, top right, bottom right, v is the top edge of the region
+		vertex(vertices, 0, 8, 19, 0.5f, 0.1f, 0.4f);
+		vertex(vertices, 1, 8, 21, 0.5f, 0.1f, 0.2f);
+		vertex(vertices, 2, 12, 21, 0.5f, 0.3f, 0.2f);
+		vertex(vertices, 3, 12, 19, 0.5f, 0.3f, 0.4f);
+	}
+
+	private static void rotatedQuad () {
+		ParticleVertexWriter writer = new ParticleVertexWriter();
+		writer.quad(0, 0, 4, 2, 90, 1, 0, 0, 1, 1);
+
+		float[] vertices = writer.getVertices();
+		// corners of the unrotated quad turned by 90 degrees counter clockwise around the center
+		vertex(vertices, 0, 1, -2, 1, 0, 1);
+		vertex(vertices, 1, -1, -2, 1, 0, 0);
+		vertex(vertices, 2, -1, 2, 1, 1, 0);
+		vertex(vertices, 3, 1, 2, 1, 1, 1);
+	}
+
+	private static void growth () {
+		ParticleVertexWriter writer = new ParticleVertexWriter(1);
+		for (int i = 0; i < 3; i++) {
+			writer.quad(i, 0, 2, 2, 0, i, 0, 0, 1, 1);
+		}
+
+		check(writer.getQuadCount() == 3, "quads kept after growing");
+		for (int i = 0; i < 3; i++) {
+			vertex(writer.getVertices(), i * 4, i - 1, -1, i, 0, 1);
+		}
+
+		writer.clear();
+		check(writer.getSize() == 0 && writer.getQuadCount() == 0, "clear");
+	}
+
+	private static void vertex (float[] vertices, int vertex, float x, float y, float color, float u, float v) {
+		int offset = vertex * ParticleVertexWriter.VERTEX_SIZE;
+		check(MathUtils.isEqual(vertices[offset], x, EPSILON), "x of vertex " + vertex);
+		check(MathUtils.isEqual(vertices[offset + 1], y, EPSILON), "y of vertex " + vertex);
+		check(vertices[offset + 2] == color, "color of vertex " + vertex);
+		check(vertices[offset + 3] == u, "u of vertex " + vertex);
+		check(vertices[offset + 4] == v, "v of vertex " + vertex);
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
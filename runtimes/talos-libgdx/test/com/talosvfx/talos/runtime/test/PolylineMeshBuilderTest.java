@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PolygonSpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.render.drawables.Polyline;
+import com.talosvfx.talos.runtime.render.drawables.PolylineMeshBuilder;
+import com.talosvfx.talos.runtime.test.utils.MockGL;
+
+/**
+ * Headless checks of the vertices and triangles {@link PolylineMeshBuilder} submits through a polygon batch, on a recording GL stand-in
+ */
+public class PolylineMeshBuilderTest {
+
+	private static final float EPSILON = 0.001f;
+
+	public static void main (String[] arg) {
+		MockGL gl = MockGL.install();
+
+		Texture texture = MockGL.createTexture(64, 64);
+		TextureRegion region = new TextureRegion(texture, 0, 0, 32, 64);
+		PolygonSpriteBatch batch = new PolygonSpriteBatch();
+		PolylineMeshBuilder builder = new PolylineMeshBuilder();
+
+		gl.clearCalls();
+		batch.begin();
+		for (int i = 0; i < 3; i++) {
+			builder.add(batch, createPolyline(1), region, 100, 50 + i * 10);
+		}
+		builder.add(batch, createPolyline(3), region, 0, 0); // other point count starts a new submission, batch still merges it
+		builder.flush(batch);
+		batch.end();
+
+		Array<MockGL.Call> draws = gl.getCalls("glDrawElements");
+		check(draws.size == 1, "one draw for the same texture");
+		check(draws.get(0).getInt(1) == 3 * 2 * 6 + 4 * 6, "triangles of three polylines with three points and one with five");
+
+		MockGL.Call vertexUpload = upload(gl, draws.get(0), GL20.GL_ARRAY_BUFFER);
+		MockGL.Call indexUpload = upload(gl, draws.get(0), GL20.GL_ELEMENT_ARRAY_BUFFER);
+		vertices(vertexUpload.getFloats(dataArgument(vertexUpload)), region);
+		indices(indexUpload.getShorts(dataArgument(indexUpload)));
+
+		boolean bound = false;
+		for (MockGL.Call call : gl.getCalls("glBindTexture")) {
+			if (call.getInt(1) == texture.getTextureObjectHandle()) bound = true;
+		}
+		check(bound, "region texture bound");
+
+		batch.dispose();
+
+		System.out.println("PolylineMeshBuilderTest passed");
+	}
+
+	/**
+	 * straight line along x, ten units long and two thick
+	 */
+	private static Polyline createPolyline (int interpolationPoints) {
+		Polyline polyline = new Polyline();
+		polyline.set(10, 0);
+		polyline.initPoints(interpolationPoints);
+		for (int i = 0; i < polyline.getPointCount(); i++) {
+			polyline.setPointData(i, 0, 0, 2, Color.WHITE);
+		}
+		return polyline;
+	}
+
+	/**
+	 * @return last buffer upload to given target made before the draw, whole or partial
+	 */
+	private static MockGL.Call upload (MockGL gl, MockGL.Call draw, int target) {
+		MockGL.Call upload = null;
+		for (MockGL.Call call : gl.getCalls()) {
+			if (call == draw) break;
+			if ((call.name.equals("glBufferData") || call.name.equals("glBufferSubData")) && call.getInt(0) == target) upload = call;
+		}
+		check(upload != null, "buffer uploaded before draw");
+		return upload;
+	}
+
+	private static int dataArgument (MockGL.Call upload) {
+		return upload.name.equals("glBufferData") ? 2 : 3;
+	}
+
+	/**
+	 * each point is extruded into left and right vertex, v runs along the line
+	 */
+	private static void vertices (float[] vertices, TextureRegion region) {
+		int size = PolylineMeshBuilder.VERTEX_SIZE;
+		check(vertices.length == (3 * 3 + 5) * 2 * size, "two vertices per point uploaded");
+
+		for (int polyline = 0; polyline < 3; polyline++) {
+			for (int point = 0; point < 3; point++) {
+				int left = (polyline * 6 + point * 2) * size;
+				int right = left + size;
+				float x = 95 + point * 5;
+				float y = 50 + polyline * 10;
+
+				check(near(vertices[left], x) && near(vertices[left + 1], y + 1), "left vertex position");
+				check(near(vertices[right], x) && near(vertices[right + 1], y - 1), "right vertex position");
+				check(vertices[left + 2] == Color.WHITE_FLOAT_BITS, "vertex color");
+
+				float v = region.getV() + (region.getV2() - region.getV()) * point / 2;
+				check(vertices[left + 3] == region.getU() && vertices[right + 3] == region.getU2(), "u across the line");
+				check(near(vertices[left + 4], v) && near(vertices[right + 4], v), "v along the line");
+			}
+		}
+	}
+
+	/**
+	 * two triangles per segment, polylines after the first one point past the vertices before them
+	 */
+	private static void indices (short[] indices) {
+		check(indices.length >= 3 * 2 * 6 + 4 * 6, "indices uploaded");
+		for (int polyline = 0; polyline < 3; polyline++) {
+			for (int segment = 0; segment < 2; segment++) {
+				checkSegment(indices, (polyline * 2 + segment) * 6, polyline * 6 + segment * 2);
+			}
+		}
+		for (int segment = 0; segment < 4; segment++) {
+			checkSegment(indices, (6 + segment) * 6, 3 * 6 + segment * 2);
+		}
+	}
+
+	private static void checkSegment (short[] indices, int idx, int left) {
+		check(indices[idx] == left && indices[idx + 1] == left + 1 && indices[idx + 2] == left + 3
+			&& indices[idx + 3] == left && indices[idx + 4] == left + 3 && indices[idx + 5] == left + 2, "triangles of segment starting at vertex " + left);
+	}
+
+	private static boolean near (float a, float b) {
+		return Math.abs(a - b) < EPSILON;
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
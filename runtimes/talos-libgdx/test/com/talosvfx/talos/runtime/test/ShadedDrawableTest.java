@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.render.SpriteBatchParticleRenderer;
+import com.talosvfx.talos.runtime.render.drawables.ShadedDrawable;
+import com.talosvfx.talos.runtime.test.utils.MockGL;
+
+/**
+ * Headless checks of how {@link ShadedDrawable} compiles it's shader and uploads particles as one mesh, on a recording GL stand-in
+ */
+public class ShadedDrawableTest {
+
+	private static final int FLOAT_BYTES = 4;
+	private static final int VERTEX_SIZE = 6;
+
+	private static final String FRAGMENT = "#ifdef GL_ES\n"
+		+ "precision mediump float;\n"
+		+ "#endif\n"
+		+ "varying vec4 v_color;\n"
+		+ "varying vec2 v_texCoords;\n"
+		+ "uniform sampler2D u_texture;\n"
+		+ "uniform sampler2D u_noise;\n"
+		+ "uniform float u_time;\n"
+		+ "void main() {\n"
+		+ "    gl_FragColor = v_color * texture2D(u_noise, v_texCoords + vec2(u_time));\n"
+		+ "}\n";
+
+	public static void main (String[] arg) {
+		MockGL gl = MockGL.install();
+
+		Texture noise = MockGL.createTexture(16, 16);
+		ShadedDrawable drawable = new ShadedDrawable();
+		drawable.setShader(FRAGMENT);
+		ObjectMap<String, Texture> textures = new ObjectMap<>();
+		textures.put("u_noise", noise);
+		drawable.setTextures(textures);
+
+		ParticleEffectInstance instance = createInstance(drawable);
+		for (int i = 0; i < 30; i++) {
+			instance.update(1 / 60f);
+		}
+		Array<Particle> particles = instance.getEmitters().first().getActiveParticles();
+		check(particles.size > 1, "particles spawned");
+
+		SpriteBatch batch = new SpriteBatch();
+		SpriteBatchParticleRenderer renderer = new SpriteBatchParticleRenderer(batch);
+		gl.clearCalls();
+		batch.begin();
+		renderer.render(instance);
+		batch.end();
+
+		int program = gl.findProgram("a_time");
+		check(program != 0, "shaded program linked");
+		fragmentSource(gl);
+		attributes(gl, program);
+
+		MockGL.Call draw = drawCall(gl, program);
+		check(draw.getInt(0) == GL20.GL_TRIANGLES && draw.getInt(1) == particles.size * 6, "all particles in one draw");
+		vertices(gl, draw, particles);
+		uniforms(gl, program, noise);
+
+		int deletes = gl.getCalls("glDeleteProgram").size;
+		drawable.dispose();
+		check(gl.getCalls("glDeleteProgram").size == deletes + 1, "program released with drawable");
+		batch.dispose();
+
+		System.out.println("ShadedDrawableTest passed");
+	}
+
+	/**
+	 * u_time uniform of shader graph code is replaced with the value interpolated from vertices
+	 */
+	private static void fragmentSource (MockGL gl) {
+		String source = null;
+		for (MockGL.Call call : gl.getCalls("glShaderSource")) {
+			if (((String)call.args[1]).contains("u_noise")) source = (String)call.args[1];
+		}
+		check(source != null, "fragment compiled");
+		check(!source.matches("(?s).*uniform\\s+float\\s+u_time.*"), "time uniform removed");
+		check(source.contains("varying float v_time;"), "time read from vertex shader");
+	}
+
+	private static void attributes (MockGL gl, int program) {
+		int stride = VERTEX_SIZE * FLOAT_BYTES;
+		checkPointer(gl, program, ShaderProgram.POSITION_ATTRIBUTE, 2, GL20.GL_FLOAT, false, stride, 0);
+		checkPointer(gl, program, ShaderProgram.COLOR_ATTRIBUTE, 4, GL20.GL_UNSIGNED_BYTE, true, stride, 2 * FLOAT_BYTES);
+		checkPointer(gl, program, ShaderProgram.TEXCOORD_ATTRIBUTE + "0", 2, GL20.GL_FLOAT, false, stride, 3 * FLOAT_BYTES);
+		checkPointer(gl, program, "a_time", 1, GL20.GL_FLOAT, false, stride, 5 * FLOAT_BYTES);
+	}
+
+	private static void checkPointer (MockGL gl, int program, String attribute, int size, int type, boolean normalized, int stride, int offset) {
+		int location = gl.getAttributeLocation(program, attribute);
+		check(location >= 0, attribute + " declared by shader");
+
+		MockGL.Call pointer = null;
+		for (MockGL.Call call : gl.getCalls("glVertexAttribPointer")) {
+			if (call.getInt(0) == location && call.getInt(4) == stride && call.getInt(5) == offset) pointer = call;
+		}
+		check(pointer != null, attribute + " bound");
+		check(pointer.getInt(1) == size && pointer.getInt(2) == type && pointer.getBoolean(3) == normalized, attribute + " format");
+	}
+
+	/**
+	 * @return the only draw made while shaded program was in use
+	 */
+	private static MockGL.Call drawCall (MockGL gl, int program) {
+		MockGL.Call draw = null;
+		int usedProgram = 0;
+		int draws = 0;
+		for (MockGL.Call call : gl.getCalls()) {
+			if (call.name.equals("glUseProgram")) usedProgram = call.getInt(0);
+			if (call.name.equals("glDrawElements") && usedProgram == program) {
+				draw = call;
+				draws++;
+			}
+		}
+		check(draws == 1, "one draw with shaded program");
+		return draw;
+	}
+
+	/**
+	 * every quad carries it's particle time in all four vertices
+	 */
+	private static void vertices (MockGL gl, MockGL.Call draw, Array<Particle> particles) {
+		float[] uploaded = null;
+		for (MockGL.Call call : gl.getCalls()) {
+			if (call == draw) break;
+			if (call.name.equals("glBufferData") && call.getInt(0) == GL20.GL_ARRAY_BUFFER) uploaded = call.getFloats(2);
+		}
+		check(uploaded != null && uploaded.length == particles.size * 4 * VERTEX_SIZE, "one quad per particle uploaded");
+
+		for (int i = 0; i < particles.size; i++) {
+			Particle particle = particles.get(i);
+			float time = particle.alpha * particle.life;
+			boolean found = false;
+			for (int quad = 0; quad < particles.size && !found; quad++) {
+				int offset = quad * 4 * VERTEX_SIZE;
+				found = uploaded[offset + 5] == time && uploaded[offset + VERTEX_SIZE + 5] == time
+					&& uploaded[offset + 2 * VERTEX_SIZE + 5] == time && uploaded[offset + 3 * VERTEX_SIZE + 5] == time;
+			}
+			check(found, "time of particle " + i);
+		}
+	}
+
+	private static void uniforms (MockGL gl, int program, Texture noise) {
+		int noiseUnit = -1;
+		int textureUnit = -1;
+		for (MockGL.Call call : gl.getCalls("glUniform1i")) {
+			if (call.getInt(0) == gl.getUniformLocation(program, "u_noise")) noiseUnit = call.getInt(1);
+			if (call.getInt(0) == gl.getUniformLocation(program, "u_texture")) textureUnit = call.getInt(1);
+		}
+		check(noiseUnit == 1 && textureUnit == 0, "samplers set to their units");
+
+		int activeUnit = 0;
+		boolean bound = false;
+		for (MockGL.Call call : gl.getCalls()) {
+			if (call.name.equals("glActiveTexture")) activeUnit = call.getInt(0) - GL20.GL_TEXTURE0;
+			if (call.name.equals("glBindTexture") && call.getInt(1) == noise.getTextureObjectHandle()) bound = activeUnit == noiseUnit;
+		}
+		check(bound, "shader graph texture bound to it's unit");
+	}
+
+	private static ParticleEffectInstance createInstance (ShadedDrawable drawable) {
+		ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		ParticleEmitterDescriptor emitter = descriptor.createEmitterDescriptor();
+
+		EmitterModule emitterModule = new EmitterModule();
+		emitter.addModule(emitterModule);
+		emitterModule.setModuleGraph(emitter);
+
+		ParticleModule particleModule = new ParticleModule();
+		emitter.addModule(particleModule);
+		particleModule.setModuleGraph(emitter);
+		particleModule.setDefaultDrawable(drawable);
+
+		descriptor.addEmitter(emitter);
+		return descriptor.createEffectInstance();
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.test.utils.MockGL;
+import com.talosvfx.talos.runtime.utils.DefaultShaders;
+import com.talosvfx.talos.runtime.utils.ShaderCache;
+
+/**
+ * Headless checks that {@link ShaderCache} compiles each program once, shares it, and deletes it with the last user,
+ * on a recording GL stand-in
+ */
+public class ShaderCacheTest {
+
+	private static final String VERTEX = DefaultShaders.SHADED_VERTEX_SHADER;
+	private static final String FRAGMENT = "varying vec4 v_color;\nvoid main() {\n    gl_FragColor = v_color;\n}\n";
+	private static final String OTHER_FRAGMENT = "varying vec4 v_color;\nvoid main() {\n    gl_FragColor = v_color * 0.5;\n}\n";
+
+	public static void main (String[] arg) {
+		MockGL gl = MockGL.install();
+
+		sharedPrograms(gl);
+		placeholderTexture(gl);
+		disposeAll(gl);
+
+		System.out.println("ShaderCacheTest passed");
+	}
+
+	private static void sharedPrograms (MockGL gl) {
+		int compiled = ShaderCache.getCompileCount();
+
+		ShaderProgram first = ShaderCache.obtain(VERTEX, FRAGMENT);
+		int handle = lastResult(gl, "glCreateProgram");
+		ShaderProgram second = ShaderCache.obtain(VERTEX, FRAGMENT);
+		check(first.isCompiled(), "program compiled");
+		check(first == second, "same sources share a program");
+		check(gl.getCalls("glCreateProgram").size == 1, "linked once");
+
+		ShaderProgram other = ShaderCache.obtain(VERTEX, OTHER_FRAGMENT);
+		int otherHandle = lastResult(gl, "glCreateProgram");
+		check(other != first && otherHandle != handle, "other sources get their own program");
+		check(ShaderCache.getProgramCount() == 2 && ShaderCache.getCompileCount() == compiled + 2, "two programs compiled");
+
+		ShaderCache.free(first);
+		check(!deleted(gl, "glDeleteProgram", handle), "program kept while it has users");
+		ShaderCache.free(second);
+		check(deleted(gl, "glDeleteProgram", handle), "program deleted with last user");
+		check(!deleted(gl, "glDeleteProgram", otherHandle), "other program kept");
+		check(ShaderCache.getProgramCount() == 1, "one program left");
+
+		ShaderCache.free(first);
+		check(gl.getCalls("glDeleteProgram").size == 1, "freeing a released program does nothing");
+
+		ShaderProgram again = ShaderCache.obtain(VERTEX, FRAGMENT);
+		check(again != first && ShaderCache.getCompileCount() == compiled + 3, "released program compiled again when needed");
+		ShaderCache.free(again);
+		ShaderCache.free(other);
+		check(ShaderCache.getProgramCount() == 0, "all programs released");
+	}
+
+	private static void placeholderTexture (MockGL gl) {
+		gl.clearCalls();
+
+		Texture first = ShaderCache.obtainPlaceholderTexture();
+		Texture second = ShaderCache.obtainPlaceholderTexture();
+		check(first == second, "placeholder shared");
+		check(first.getWidth() == 1 && first.getHeight() == 1, "placeholder is one pixel");
+		check(gl.getCalls("glTexImage2D").size == 1, "placeholder uploaded once");
+
+		int handle = first.getTextureObjectHandle();
+		ShaderCache.freePlaceholderTexture();
+		check(!deleted(gl, "glDeleteTexture", handle), "placeholder kept while it has users");
+		ShaderCache.freePlaceholderTexture();
+		check(deleted(gl, "glDeleteTexture", handle), "placeholder deleted with last user");
+		ShaderCache.freePlaceholderTexture();
+		check(gl.getCalls("glDeleteTexture").size == 1, "freeing a released placeholder does nothing");
+
+		check(ShaderCache.obtainPlaceholderTexture() != first, "released placeholder created again when needed");
+		ShaderCache.freePlaceholderTexture();
+	}
+
+	/**
+	 * dispose releases everything, even programs and placeholder that still have users
+	 */
+	private static void disposeAll (MockGL gl) {
+		ShaderCache.obtain(VERTEX, FRAGMENT);
+		int handle = lastResult(gl, "glCreateProgram");
+		int placeholder = ShaderCache.obtainPlaceholderTexture().getTextureObjectHandle();
+
+		ShaderCache.dispose();
+		check(deleted(gl, "glDeleteProgram", handle), "program deleted");
+		check(deleted(gl, "glDeleteTexture", placeholder), "placeholder deleted");
+		check(ShaderCache.getProgramCount() == 0, "nothing left");
+	}
+
+	private static int lastResult (MockGL gl, String function) {
+		Array<MockGL.Call> calls = gl.getCalls(function);
+		check(calls.size > 0, function + " called");
+		return (Integer)calls.peek().result;
+	}
+
+	private static boolean deleted (MockGL gl, String function, int handle) {
+		for (MockGL.Call call : gl.getCalls(function)) {
+			if (call.getInt(0) == handle) return true;
+		}
+		return false;
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.talosvfx.talos.runtime.IEmitter;
+import com.talosvfx.talos.runtime.Particle;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.graph.EvaluationFrequency;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.InputModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.render.drawables.TextureRegionDrawable;
+
+/**
+ * Headless check that inputs fixed at spawn see the same scope in compiled programs as when values are pulled,
+ * using emitter alpha at particle init as particle rotation
+ */
+public class SpawnScopeTest {
+
+	private static final int FRAMES = 40;
+
+	public static void main (String[] arg) {
+		ParticleEffectInstance pulled = create(false);
+		ParticleEffectInstance compiled = create(true);
+
+		ParticleEmitterDescriptor emitter = compiled.getDescriptor().emitterModuleGraphs.first();
+		check(emitter.isCompiled(), "graph compiled");
+		check(emitter.getParticleInputFrequency(ParticleModule.ROTATION) == EvaluationFrequency.PER_SPAWN, "rotation is cached at spawn");
+
+		for (int i = 0; i < FRAMES; i++) {
+			MathUtils.random.setSeed(i);
+			pulled.update(1 / 60f);
+			MathUtils.random.setSeed(i);
+			compiled.update(1 / 60f);
+		}
+
+		Array<Particle> expected = particles(pulled);
+		Array<Particle> actual = particles(compiled);
+		check(expected.size > 1 && expected.size == actual.size, "same amount of particles");
+
+		boolean varies = false;
+		for (int i = 0; i < expected.size; i++) {
+			check(expected.get(i).rotation == actual.get(i).rotation, "rotation of particle " + i);
+			varies |= actual.get(i).rotation != actual.first().rotation;
+		}
+		check(varies, "particles spawned at different emitter alpha");
+
+		System.out.println("SpawnScopeTest passed");
+	}
+
+	private static ParticleEffectInstance create (boolean compiled) {
+		ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		ParticleEmitterDescriptor emitter = descriptor.createEmitterDescriptor();
+
+		EmitterModule emitterModule = add(emitter, new EmitterModule());
+		emitterModule.defaultDuration = 0.5f;
+
+		ParticleModule particleModule = add(emitter, new ParticleModule());
+		particleModule.setDefaultDrawable(new TextureRegionDrawable());
+
+		InputModule input = add(emitter, new InputModule());
+		input.setInput(ScopePayload.EMITTER_ALPHA_AT_P_INIT);
+		emitter.connectNode(input, particleModule, InputModule.OUTPUT, ParticleModule.ROTATION);
+
+		if (compiled) {
+			emitter.compile();
+		}
+		descriptor.addEmitter(emitter);
+
+		return descriptor.createEffectInstance();
+	}
+
+	private static <T extends AbstractModule> T add (ParticleEmitterDescriptor emitter, T module) {
+		emitter.addModule(module);
+		module.setModuleGraph(emitter);
+		return module;
+	}
+
+	private static Array<Particle> particles (ParticleEffectInstance instance) {
+		IEmitter emitter = instance.getEmitters().first();
+		return emitter.getActiveParticles();
+	}
+
+	private static void check (boolean condition, String what) {
+		if (!condition) {
+			throw new AssertionError(what);
+		}
+	}
+}
@@ -0,0 +1,381 @@
+/*******************************************************************************
+ * Copyright 2019 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.talosvfx.talos.runtime.test.utils;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GL30 stand-in for headless tests. Records every call, hands out object names, and links shaders by reading the attributes
+ * and uniforms they declare, so shader programs compile and resolve locations the way a driver would. Nothing is drawn.
+ * Buffers are still filled through {@link com.badlogic.gdx.utils.BufferUtils}, so gdx natives have to be on the classpath.
+ */
+public class MockGL implements InvocationHandler {
+
+	private static final Pattern ATTRIBUTE = Pattern.compile("\\battribute\\s+\\w+\\s+(\\w+)\\s*;");
+	private static final Pattern UNIFORM = Pattern.compile("\\buniform\\s+\\w+\\s+(\\w+)\\s*(\\[[^\\]]*\\])?\\s*;");
+
+	public static class Call {
+		public final String name;
+		public final Object[] args;
+		/**
+		 * value call returned, null for void functions
+		 */
+		public Object result;
+
+		Call (String name, Object[] args) {
+			this.name = name;
+			this.args = args == null ? new Object[0] : args.clone();
+			for (int i = 0; i < this.args.length; i++) {
+				if (this.args[i] instanceof Buffer && !(this.args[i] instanceof IntBuffer)) {
+					this.args[i] = snapshot((Buffer)this.args[i]); // callers reuse their buffers, int buffers are out parameters
+				}
+			}
+		}
+
+		public int getInt (int index) {
+			return (Integer)args[index];
+		}
+
+		public boolean getBoolean (int index) {
+			return (Boolean)args[index];
+		}
+
+		/**
+		 * @return contents of buffer argument from it's position to limit, as they were when call was made
+		 */
+		public float[] getFloats (int index) {
+			FloatBuffer buffer = ((ByteBuffer)args[index]).asFloatBuffer();
+			float[] result = new float[buffer.remaining()];
+			buffer.get(result);
+			return result;
+		}
+
+		public short[] getShorts (int index) {
+			ShortBuffer buffer = ((ByteBuffer)args[index]).asShortBuffer();
+			short[] result = new short[buffer.remaining()];
+			buffer.get(result);
+			return result;
+		}
+
+		private static ByteBuffer snapshot (Buffer buffer) {
+			ByteBuffer copy = ByteBuffer.allocate(buffer.remaining() * elementSize(buffer)).order(ByteOrder.nativeOrder());
+			if (buffer instanceof ByteBuffer) {
+				copy.put(((ByteBuffer)buffer).duplicate());
+			} else if (buffer instanceof FloatBuffer) {
+				copy.asFloatBuffer().put(((FloatBuffer)buffer).duplicate());
+			} else if (buffer instanceof ShortBuffer) {
+				copy.asShortBuffer().put(((ShortBuffer)buffer).duplicate());
+			}
+			copy.rewind();
+			return copy;
+		}
+
+		private static int elementSize (Buffer buffer) {
+			if (buffer instanceof FloatBuffer) return 4;
+			if (buffer instanceof ShortBuffer) return 2;
+			return 1;
+		}
+	}
+
+	private static class Program {
+		final IntArray shaders = new IntArray();
+		final Array<String> attributes = new Array<>();
+		final Array<String> uniforms = new Array<>();
+		boolean linked;
+	}
+
+	private final Array<Call> calls = new Array<>();
+
+	private final IntMap<String> shaderSources = new IntMap<>();
+	private final IntMap<Integer> shaderTypes = new IntMap<>();
+	private final IntMap<Program> programs = new IntMap<>();
+	private int nextName = 1;
+
+	public static final int WIDTH = 640;
+	public static final int HEIGHT = 480;
+
+	/**
+	 * Loads gdx natives and replaces Gdx.gl, Gdx.gl20, Gdx.gl30, Gdx.graphics and Gdx.app with new stand-ins
+	 */
+	public static MockGL install () {
+		GdxNativesLoader.load();
+
+		MockGL mock = new MockGL();
+		final GL30 gl = (GL30)Proxy.newProxyInstance(MockGL.class.getClassLoader(), new Class[] {GL30.class}, mock);
+		Gdx.gl = gl;
+		Gdx.gl20 = gl;
+		Gdx.gl30 = gl;
+		Gdx.graphics = (Graphics)Proxy.newProxyInstance(MockGL.class.getClassLoader(), new Class[] {Graphics.class}, new InvocationHandler() {
+			@Override
+			public Object invoke (Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getWidth") || name.equals("getBackBufferWidth")) return WIDTH;
+				if (name.equals("getHeight") || name.equals("getBackBufferHeight")) return HEIGHT;
+				if (name.equals("isGL30Available")) return true;
+				if (name.equals("getGL20") || name.equals("getGL30")) return gl;
+				return defaultValue(method.getReturnType());
+			}
+		});
+		Gdx.app = (Application)Proxy.newProxyInstance(MockGL.class.getClassLoader(), new Class[] {Application.class}, new InvocationHandler() {
+			@Override
+			public Object invoke (Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getType")) return Application.ApplicationType.HeadlessDesktop;
+				return defaultValue(method.getReturnType());
+			}
+		});
+
+		return mock;
+	}
+
+	@Override
+	public Object invoke (Object proxy, Method method, Object[] args) {
+		Call call = new Call(method.getName(), args);
+		calls.add(call);
+		call.result = call(method, args);
+		return call.result;
+	}
+
+	private Object call (Method method, Object[] args) {
+		String name = method.getName();
+
+		if (name.equals("glCreateShader")) {
+			int shader = nextName++;
+			shaderTypes.put(shader, (Integer)args[0]);
+			return shader;
+		}
+		if (name.equals("glShaderSource")) {
+			shaderSources.put((Integer)args[0], (String)args[1]);
+			return null;
+		}
+		if (name.equals("glCreateProgram")) {
+			int program = nextName++;
+			programs.put(program, new Program());
+			return program;
+		}
+		if (name.equals("glAttachShader")) {
+			programs.get((Integer)args[0]).shaders.add((Integer)args[1]);
+			return null;
+		}
+		if (name.equals("glLinkProgram")) {
+			link(programs.get((Integer)args[0]));
+			return null;
+		}
+		if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+			((IntBuffer)args[2]).put(0, status((Integer)args[0], (Integer)args[1]));
+			return null;
+		}
+		if (name.equals("glGetActiveAttrib") || name.equals("glGetActiveUniform")) {
+			Program program = programs.get((Integer)args[0]);
+			Array<String> names = name.equals("glGetActiveAttrib") ? program.attributes : program.uniforms;
+			((IntBuffer)args[2]).put(0, 1);
+			return names.get((Integer)args[1]);
+		}
+		if (name.equals("glGetAttribLocation")) {
+			return getAttributeLocation((Integer)args[0], (String)args[1]);
+		}
+		if (name.equals("glGetUniformLocation")) {
+			return getUniformLocation((Integer)args[0], (String)args[1]);
+		}
+		if (name.startsWith("glGen") && args != null && args.length == 2 && args[1] instanceof IntBuffer) {
+			IntBuffer buffer = (IntBuffer)args[1];
+			for (int i = 0; i < (Integer)args[0]; i++) {
+				buffer.put(buffer.position() + i, nextName++);
+			}
+			return null;
+		}
+		if (name.startsWith("glGen") || name.startsWith("glCreate")) {
+			return nextName++;
+		}
+		if (name.equals("glGetShaderInfoLog") || name.equals("glGetProgramInfoLog")) {
+			return "";
+		}
+
+		return defaultValue(method.getReturnType());
+	}
+
+	private int status (int name, int parameter) {
+		switch (parameter) {
+			case GL20.GL_COMPILE_STATUS:
+				return shaderSources.containsKey(name) ? 1 : 0;
+			case GL20.GL_LINK_STATUS:
+				return programs.containsKey(name) && programs.get(name).linked ? 1 : 0;
+			case GL20.GL_ACTIVE_ATTRIBUTES:
+				return programs.get(name).attributes.size;
+			case GL20.GL_ACTIVE_UNIFORMS:
+				return programs.get(name).uniforms.size;
+			default:
+				return 0;
+		}
+	}
+
+	private void link (Program program) {
+		for (int i = 0; i < program.shaders.size; i++) {
+			int shader = program.shaders.get(i);
+			String source = shaderSources.get(shader);
+			if (shaderTypes.get(shader) == GL20.GL_VERTEX_SHADER) {
+				Matcher attributes = ATTRIBUTE.matcher(source);
+				while (attributes.find()) {
+					program.attributes.add(attributes.group(1));
+				}
+			}
+			Matcher uniforms = UNIFORM.matcher(source);
+			while (uniforms.find()) {
+				String uniform = uniforms.group(2) == null ? uniforms.group(1) : uniforms.group(1) + "[0]"; // drivers report arrays by their first element
+				if (!program.uniforms.contains(uniform, false)) program.uniforms.add(uniform);
+			}
+		}
+		program.linked = true;
+	}
+
+	private static Object defaultValue (Class<?> type) {
+		if (type == int.class) return 0;
+		if (type == long.class) return 0L;
+		if (type == float.class) return 0f;
+		if (type == boolean.class) return false;
+		if (type == String.class) return "";
+		return null;
+	}
+
+	/**
+	 * @return texture of given size with no pixels, uploading it only binds it
+	 */
+	public static Texture createTexture (final int width, final int height) {
+		return new Texture(new TextureData() {
+			@Override
+			public TextureDataType getType () {
+				return TextureDataType.Custom;
+			}
+
+			@Override
+			public boolean isPrepared () {
+				return true;
+			}
+
+			@Override
+			public void prepare () {
+			}
+
+			@Override
+			public Pixmap consumePixmap () {
+				return null;
+			}
+
+			@Override
+			public boolean disposePixmap () {
+				return false;
+			}
+
+			@Override
+			public void consumeCustomData (int target) {
+			}
+
+			@Override
+			public int getWidth () {
+				return width;
+			}
+
+			@Override
+			public int getHeight () {
+				return height;
+			}
+
+			@Override
+			public Pixmap.Format getFormat () {
+				return Pixmap.Format.RGBA8888;
+			}
+
+			@Override
+			public boolean useMipMaps () {
+				return false;
+			}
+
+			@Override
+			public boolean isManaged () {
+				return false;
+			}
+		});
+	}
+
+	/**
+	 * @return location shader program has given attribute at, -1 if it doesn't declare it
+	 */
+	public int getAttributeLocation (int program, String name) {
+		return programs.get(program).attributes.indexOf(name, false);
+	}
+
+	/**
+	 * @return location of given uniform, array uniforms are found by plain name too. -1 if program doesn't declare it
+	 */
+	public int getUniformLocation (int program, String name) {
+		Array<String> uniforms = programs.get(program).uniforms;
+		int location = uniforms.indexOf(name, false);
+		return location >= 0 ? location : uniforms.indexOf(name + "[0]", false);
+	}
+
+	/**
+	 * @return program that declares given attribute, most recently linked one if there are more. 0 if none does
+	 */
+	public int findProgram (String attribute) {
+		int found = 0;
+		for (IntMap.Entry<Program> entry : programs) {
+			if (entry.value.attributes.contains(attribute, false) && entry.key > found) found = entry.key;
+		}
+		return found;
+	}
+
+	/**
+	 * @return recorded calls of given GL function, in order they were made
+	 */
+	public Array<Call> getCalls (String name) {
+		Array<Call> result = new Array<>();
+		for (Call call : calls) {
+			if (call.name.equals(name)) result.add(call);
+		}
+		return result;
+	}
+
+	public Array<Call> getCalls () {
+		return calls;
+	}
+
+	public void clearCalls () {
+		calls.clear();
+	}
+}